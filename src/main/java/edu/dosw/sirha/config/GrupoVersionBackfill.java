@@ -0,0 +1,57 @@
+package edu.dosw.sirha.config;
+
+import edu.dosw.sirha.model.Grupo;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+/**
+ * Asigna {@code version: 0} a los grupos creados antes del bloqueo optimista.
+ *
+ * <p>{@link Grupo#getVersion()} es {@code @Version}: con la versión en null, Spring Data
+ * trata el grupo como nuevo y {@code save} lo inserta, fallando con
+ * {@link org.springframework.dao.DuplicateKeyException}. Un único {@code updateMulti}
+ * condicionado a que el campo no exista completa los documentos antiguos; es
+ * idempotente, así que varias réplicas pueden ejecutarlo a la vez.</p>
+ *
+ * @author Equipo DOSW - SIRHA
+ * @version 1.0
+ * @since 2025-11-02
+ *
+ * @see Grupo
+ */
+@Slf4j
+@Component
+@Profile("!test")
+@RequiredArgsConstructor
+public class GrupoVersionBackfill implements CommandLineRunner {
+
+    private final MongoTemplate mongoTemplate;
+
+    /**
+     * Completa la versión de los grupos que no la tienen.
+     *
+     * @param args Argumentos de línea de comandos (no utilizados)
+     */
+    @Override
+    public void run(String... args) {
+        try {
+            long actualizados = mongoTemplate.updateMulti(
+                    new Query(Criteria.where("version").exists(false)),
+                    new Update().set("version", 0L),
+                    Grupo.class).getModifiedCount();
+            if (actualizados > 0) {
+                log.info("Versión inicial asignada a {} grupos", actualizados);
+            }
+        } catch (DataAccessException ex) {
+            log.error("No fue posible asignar la versión inicial a los grupos: {}", ex.getMessage());
+        }
+    }
+}
@@ -3,6 +3,7 @@ package edu.dosw.sirha.config;
 import edu.dosw.sirha.model.User;
 import edu.dosw.sirha.model.enums.Rol;
 import edu.dosw.sirha.repository.UserRepository;
+import edu.dosw.sirha.security.CachingUserDetailsService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
@@ -61,6 +62,7 @@ public class InitialAdminLoader implements CommandLineRunner {
 
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
+    private final CachingUserDetailsService userDetailsService;
     private final Clock clock;
 
     /**
@@ -142,6 +144,7 @@ public class InitialAdminLoader implements CommandLineRunner {
                     .build();
 
             userRepository.save(admin);
+            userDetailsService.invalidate(admin.getEmail());
 
             log.info("╔════════════════════════════════════════════════════════════════╗");
             log.info("║  ✅ Usuario ADMIN creado exitosamente                         ║");
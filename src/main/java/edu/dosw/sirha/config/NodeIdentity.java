@@ -0,0 +1,55 @@
+package edu.dosw.sirha.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.UUID;
+
+/**
+ * Identificador de esta instancia de SIRHA.
+ *
+ * <p>Distingue a las réplicas que comparten la misma base de datos, por ejemplo
+ * para saber cuál tiene tomado un bloqueo de tarea programada. Por defecto se
+ * forma con el nombre del host y un sufijo aleatorio, de modo que dos instancias
+ * en el mismo host (o un reinicio) nunca compartan identificador. Se puede fijar
+ * con {@code sirha.node.id}.</p>
+ *
+ * @author Equipo DOSW - SIRHA
+ * @version 1.0
+ * @since 2025-11-02
+ */
+@Component
+public class NodeIdentity {
+
+    private final String id;
+
+    /**
+     * Crea la identidad del nodo.
+     *
+     * @param configurado Identificador configurado, o vacío para generarlo
+     */
+    public NodeIdentity(@Value("${sirha.node.id:}") String configurado) {
+        this.id = configurado == null || configurado.isBlank()
+                ? host() + "-" + UUID.randomUUID().toString().substring(0, 8)
+                : configurado;
+    }
+
+    /**
+     * Retorna el identificador de esta instancia.
+     *
+     * @return Identificador único del nodo
+     */
+    public String getId() {
+        return id;
+    }
+
+    private static String host() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException ex) {
+            return "sirha";
+        }
+    }
+}
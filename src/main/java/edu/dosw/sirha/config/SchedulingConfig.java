@@ -0,0 +1,21 @@
+package edu.dosw.sirha.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Habilita las tareas programadas de SIRHA ({@code @Scheduled}).
+ * 
+ * <p>Se puede desactivar con {@code sirha.scheduling.enabled=false}; el perfil
+ * de pruebas lo hace para que ninguna tarea consulte MongoDB durante los tests.</p>
+ * 
+ * @author Equipo DOSW - SIRHA
+ * @version 1.0.0
+ * @since 2025-11-02
+ */
+@Configuration
+@EnableScheduling
+@ConditionalOnProperty(name = "sirha.scheduling.enabled", havingValue = "true", matchIfMissing = true)
+public class SchedulingConfig {
+}
@@ -1,5 +1,6 @@
 package edu.dosw.sirha.config;
 
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
@@ -8,6 +9,9 @@ import org.springframework.security.crypto.password.PasswordEncoder;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 
+import edu.dosw.sirha.security.BoundedPasswordEncoder;
+import edu.dosw.sirha.security.PasswordHashingProperties;
+
 /**
  * Configuración de beans relacionados con la seguridad y serialización JSON.
  * 
@@ -16,7 +20,8 @@ import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
  * 
  * <p><strong>Componentes principales:</strong></p>
  * <ul>
- *   <li><strong>PasswordEncoder:</strong> Utiliza BCrypt para hash seguro de contraseñas</li>
+ *   <li><strong>PasswordEncoder:</strong> Utiliza BCrypt para hash seguro de contraseñas, ejecutado
+ *       en un pool dedicado y acotado ({@link BoundedPasswordEncoder})</li>
  *   <li><strong>ObjectMapper:</strong> Maneja la serialización/deserialización de objetos Java a JSON</li>
  * </ul>
  * 
@@ -27,6 +32,7 @@ import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
  * @see ObjectMapper
  */
 @Configuration
+@EnableConfigurationProperties(PasswordHashingProperties.class)
 public class SecurityBeansConfig {
 
     /**
@@ -58,8 +64,8 @@ public class SecurityBeansConfig {
      * @see org.springframework.security.crypto.password.PasswordEncoder#matches(CharSequence, String)
      */
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(PasswordHashingProperties properties) {
+        return new BoundedPasswordEncoder(new BCryptPasswordEncoder(), properties);
     }
 
     /**
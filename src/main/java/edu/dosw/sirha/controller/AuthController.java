@@ -2,8 +2,10 @@ package edu.dosw.sirha.controller;
 
 import edu.dosw.sirha.dto.auth.AuthRequest;
 import edu.dosw.sirha.dto.auth.AuthResponse;
+import edu.dosw.sirha.dto.auth.RefreshTokenRequest;
 import edu.dosw.sirha.dto.request.RegisterRequest;
 import edu.dosw.sirha.dto.response.RegisterResponse;
+import edu.dosw.sirha.security.LoginThrottle;
 import edu.dosw.sirha.service.AuthService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -11,9 +13,11 @@ import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
@@ -25,6 +29,8 @@ import org.springframework.web.bind.annotation.*;
  * <p>Endpoints disponibles:</p>
  * <ul>
  *   <li><b>POST /api/auth/login</b> - Autenticación con JWT</li>
+ *   <li><b>POST /api/auth/refresh</b> - Renovación de sesión con refresh token</li>
+ *   <li><b>POST /api/auth/logout</b> - Cierre de sesión</li>
  *   <li><b>POST /api/auth/register</b> - Registro de nuevos usuarios</li>
  * </ul>
  * 
@@ -46,6 +52,7 @@ import org.springframework.web.bind.annotation.*;
 public class AuthController {
     
     private final AuthService authService;
+    private final LoginThrottle loginThrottle;
     
     /**
      * Autentica un usuario y retorna un token JWT.
@@ -53,7 +60,14 @@ public class AuthController {
      * <p>El token JWT debe incluirse en el header Authorization de requests subsecuentes:
      * <code>Authorization: Bearer {token}</code></p>
      * 
+     * <p>Antes de autenticar se consulta {@link LoginThrottle}: si el email o la IP
+     * acumulan demasiados fallos se responde 429 sin consultar el usuario ni
+     * ejecutar BCrypt. Los fallos se registran al manejar las credenciales inválidas.
+     * La IP es {@code getRemoteAddr()}, que con {@code server.forward-headers-strategy}
+     * ya refleja al cliente real cuando la petición llega a través de un proxy de confianza.</p>
+     * 
      * @param request Credenciales del usuario (email y password)
+     * @param httpRequest Request HTTP, usado para obtener la IP del cliente
      * @return AuthResponse con token JWT e información del usuario
      */
     @PostMapping("/login")
@@ -68,14 +82,79 @@ public class AuthController {
             content = @Content(schema = @Schema(implementation = AuthResponse.class))
         ),
         @ApiResponse(responseCode = "401", description = "Credenciales inválidas"),
-        @ApiResponse(responseCode = "403", description = "Cuenta inactiva")
+        @ApiResponse(responseCode = "403", description = "Cuenta inactiva"),
+        @ApiResponse(responseCode = "429", description = "Demasiados intentos fallidos para el email o la IP")
     })
-    public ResponseEntity<AuthResponse> login(@Valid @RequestBody AuthRequest request) {
+    public ResponseEntity<AuthResponse> login(@Valid @RequestBody AuthRequest request,
+                                              HttpServletRequest httpRequest) {
         log.info("Request de login recibido para: {}", request.email());
+        LoginThrottle.Attempt attempt = LoginThrottle.Attempt.of(request.email(), httpRequest.getRemoteAddr());
+        loginThrottle.checkAllowed(attempt);
+        httpRequest.setAttribute(LoginThrottle.ATTEMPT_ATTRIBUTE, attempt);
         AuthResponse response = authService.login(request);
+        loginThrottle.recordSuccess(attempt);
         return ResponseEntity.ok(response);
     }
     
+    /**
+     * Renueva la sesión canjeando un refresh token.
+     * 
+     * <p>No requiere contraseña, por lo que evita la verificación BCrypt del login.
+     * El refresh token presentado queda invalidado; reutilizarlo revoca la sesión
+     * completa.</p>
+     * 
+     * @param request Refresh token vigente
+     * @return AuthResponse con nuevo token JWT y nuevo refresh token
+     */
+    @PostMapping("/refresh")
+    @Operation(
+        summary = "Renovar sesión",
+        description = "Canjea un refresh token de un solo uso por un nuevo token JWT y un nuevo refresh token"
+    )
+    @ApiResponses(value = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "Sesión renovada",
+            content = @Content(schema = @Schema(implementation = AuthResponse.class))
+        ),
+        @ApiResponse(responseCode = "401", description = "Refresh token inválido, expirado o reutilizado"),
+        @ApiResponse(responseCode = "400", description = "Cuenta inactiva")
+    })
+    public ResponseEntity<AuthResponse> refresh(@Valid @RequestBody RefreshTokenRequest request) {
+        log.info("Request de renovación de sesión recibido");
+        return ResponseEntity.ok(authService.refresh(request));
+    }
+    
+    /**
+     * Cierra la sesión del token enviado en el header Authorization.
+     * 
+     * <p>El token queda revocado hasta su expiración. Si el body incluye el refresh
+     * token, también se revoca la sesión de renovación. Siempre responde 204, aunque
+     * el token ya fuera inválido.</p>
+     * 
+     * @param authorization Header {@code Authorization: Bearer {token}}
+     * @param request Refresh token de la sesión (opcional)
+     * @return 204 No Content
+     */
+    @PostMapping("/logout")
+    @Operation(
+        summary = "Cerrar sesión",
+        description = "Revoca el token JWT actual y, opcionalmente, el refresh token de la sesión"
+    )
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "204", description = "Sesión cerrada")
+    })
+    public ResponseEntity<Void> logout(
+            @RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorization,
+            @RequestBody(required = false) RefreshTokenRequest request) {
+        log.info("Request de cierre de sesión recibido");
+        String token = authorization != null && authorization.startsWith("Bearer ")
+                ? authorization.substring(7)
+                : null;
+        authService.logout(token, request != null ? request.refreshToken() : null);
+        return ResponseEntity.noContent().build();
+    }
+    
     /**
      * Registra un nuevo usuario en el sistema SIRHA.
      * 
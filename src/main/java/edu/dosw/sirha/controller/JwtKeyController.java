@@ -0,0 +1,132 @@
+package edu.dosw.sirha.controller;
+
+import edu.dosw.sirha.dto.request.JwtKeyRequest;
+import edu.dosw.sirha.dto.response.JwtKeyringResponse;
+import edu.dosw.sirha.security.JwtKeyStore;
+import edu.dosw.sirha.security.JwtKeyring;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Controlador REST para la rotación en caliente de las claves de firma JWT.
+ * 
+ * <p>Permite registrar una clave nueva, activarla para firmar tokens y retirar
+ * la anterior sin reiniciar el servicio ni invalidar las sesiones vigentes
+ * (los tokens firmados con claves aún registradas siguen siendo válidos).</p>
+ * 
+ * <p>Los cambios se guardan en el keyring compartido y llegan a todas las réplicas;
+ * una clave activada empieza a firmar cuando todas la conocen (ver {@link JwtKeyStore}).</p>
+ * 
+ * <p>Todos los endpoints requieren rol ADMIN y nunca exponen los secretos.</p>
+ * 
+ * @see JwtKeyring
+ * @see JwtKeyStore
+ */
+@Slf4j
+@RestController
+@RequestMapping("/api/admin/jwt/keys")
+@Validated
+@RequiredArgsConstructor
+@Tag(name = "Claves JWT", description = "Rotación de claves de firma de tokens")
+@SecurityRequirement(name = "JWT")
+public class JwtKeyController {
+
+    private final JwtKeyring keyring;
+    private final JwtKeyStore keyStore;
+
+    /**
+     * Consulta los kids registrados y el kid activo.
+     * 
+     * @return estado del keyring
+     */
+    @Operation(summary = "Consultar keyring JWT", description = "Lista los kids registrados y el activo. Solo ADMIN")
+    @GetMapping
+    @PreAuthorize("hasRole('ADMIN')")
+    public JwtKeyringResponse getKeyring() {
+        return toResponse();
+    }
+
+    /**
+     * Registra una clave nueva y opcionalmente la activa.
+     * 
+     * @param request kid, secreto y si debe activarse
+     * @return estado del keyring tras el registro
+     */
+    @Operation(summary = "Registrar clave JWT", description = "Agrega una clave de verificación y opcionalmente la activa. Solo ADMIN")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Clave registrada"),
+        @ApiResponse(responseCode = "400", description = "Datos inválidos o intento de reemplazar la clave activa")
+    })
+    @PostMapping
+    @PreAuthorize("hasRole('ADMIN')")
+    public JwtKeyringResponse register(@Valid @RequestBody JwtKeyRequest request) {
+        log.info("Request POST /api/admin/jwt/keys - Registrar clave: {}", request.getKid());
+        keyStore.registrar(request.getKid(), request.getSecret(), request.isActivar());
+        return toResponse();
+    }
+
+    /**
+     * Activa una clave registrada para firmar los tokens nuevos.
+     * 
+     * @param kid identificador de la clave
+     * @return estado del keyring tras la activación
+     */
+    @Operation(summary = "Activar clave JWT", description = "Programa la clave indicada para firmar tokens nuevos cuando todas las réplicas la conozcan. Solo ADMIN")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Activación programada"),
+        @ApiResponse(responseCode = "404", description = "Kid no registrado"),
+        @ApiResponse(responseCode = "409", description = "Otra réplica modificó el keyring a la vez")
+    })
+    @PostMapping("/{kid}/activar")
+    @PreAuthorize("hasRole('ADMIN')")
+    public JwtKeyringResponse activate(@PathVariable String kid) {
+        log.info("Request POST /api/admin/jwt/keys/{}/activar", kid);
+        keyStore.activar(kid);
+        return toResponse();
+    }
+
+    /**
+     * Retira una clave; los tokens firmados con ella dejan de ser aceptados.
+     * 
+     * @param kid identificador de la clave
+     * @return respuesta sin contenido
+     */
+    @Operation(summary = "Retirar clave JWT", description = "Elimina una clave no activa del keyring. Solo ADMIN")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "204", description = "Clave retirada"),
+        @ApiResponse(responseCode = "400", description = "La clave es la activa"),
+        @ApiResponse(responseCode = "404", description = "Kid no registrado")
+    })
+    @DeleteMapping("/{kid}")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Void> retire(@PathVariable String kid) {
+        log.info("Request DELETE /api/admin/jwt/keys/{}", kid);
+        keyStore.retirar(kid);
+        return ResponseEntity.noContent().build();
+    }
+
+    private JwtKeyringResponse toResponse() {
+        return JwtKeyringResponse.builder()
+                .activeKid(keyring.activeKid())
+                .kids(keyring.kids())
+                .pendingKid(keyring.pendingKid())
+                .pendingFrom(keyring.pendingFrom())
+                .build();
+    }
+}
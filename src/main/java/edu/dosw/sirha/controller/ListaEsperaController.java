@@ -0,0 +1,120 @@
+package edu.dosw.sirha.controller;
+
+import edu.dosw.sirha.dto.response.ListaEsperaResponse;
+import edu.dosw.sirha.service.ListaEsperaService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Controlador REST para la lista de espera de los grupos.
+ * 
+ * <p>Un estudiante entra a la lista de espera de un grupo lleno y conserva su turno hasta
+ * que se libera un cupo; en ese momento el cupo se le asigna automáticamente a la cabeza
+ * de la fila (ver {@link ListaEsperaService}).</p>
+ * 
+ * <h2>Endpoints:</h2>
+ * <ul>
+ *   <li>POST /api/grupos/{grupoId}/lista-espera/{estudianteId} - Ingresar a la lista</li>
+ *   <li>GET /api/grupos/{grupoId}/lista-espera/{estudianteId} - Consultar el lugar en la fila</li>
+ *   <li>DELETE /api/grupos/{grupoId}/lista-espera/{estudianteId} - Salir de la lista</li>
+ * </ul>
+ * 
+ * <p>Cada estudiante solo puede operar sobre su propia entrada; ADMIN y COORDINADOR
+ * pueden hacerlo sobre la de cualquiera.</p>
+ * 
+ * @author Equipo DOSW - SIRHA
+ * @version 1.0
+ * @since 2025-11-02
+ * 
+ * @see ListaEsperaService
+ * @see ListaEsperaResponse
+ */
+@RestController
+@RequestMapping("/api/grupos/{grupoId}/lista-espera")
+@RequiredArgsConstructor
+@Tag(name = "Lista de espera", description = "API para la lista de espera de cupos de los grupos")
+@SecurityRequirement(name = "JWT")
+public class ListaEsperaController {
+
+	/**
+	 * Servicio de las listas de espera de los grupos.
+	 */
+	private final ListaEsperaService listaEsperaService;
+
+	/**
+	 * El propio estudiante (ID del usuario autenticado igual a {@code estudianteId}),
+	 * o ADMIN/COORDINADOR.
+	 */
+	private static final String PROPIO_O_GESTOR = "hasAnyRole('ADMIN', 'COORDINADOR') or "
+			+ "(principal instanceof T(edu.dosw.sirha.security.UserPrincipal) and #estudianteId == principal.user.id)";
+
+	@PostMapping("/{estudianteId}")
+	@PreAuthorize(PROPIO_O_GESTOR)
+	@Operation(summary = "Ingresar a la lista de espera", 
+			   description = "Agrega al estudiante al final de la lista de espera del grupo. Si ya está en la lista conserva su turno; "
+					   + "si ya está inscrito en el grupo se rechaza.")
+	@ApiResponses(value = {
+		@ApiResponse(responseCode = "201", description = "Estudiante en la lista de espera"),
+		@ApiResponse(responseCode = "403", description = "Sin permiso sobre la entrada de otro estudiante", 
+					content = @Content(schema = @Schema(ref = "#/components/responses/Forbidden"))),
+		@ApiResponse(responseCode = "404", description = "Grupo o estudiante no encontrado", 
+					content = @Content(schema = @Schema(ref = "#/components/responses/NotFound"))),
+		@ApiResponse(responseCode = "409", description = "El estudiante ya está inscrito en el grupo")
+	})
+	public ResponseEntity<ListaEsperaResponse> agregar(
+			@Parameter(description = "ID del grupo") @PathVariable String grupoId,
+			@Parameter(description = "ID del estudiante") @PathVariable String estudianteId) {
+		return ResponseEntity.status(HttpStatus.CREATED).body(listaEsperaService.agregar(grupoId, estudianteId));
+	}
+
+	@GetMapping("/{estudianteId}")
+	@PreAuthorize(PROPIO_O_GESTOR)
+	@Operation(summary = "Consultar lugar en la lista de espera", 
+			   description = "Retorna el lugar del estudiante en la fila, o la fecha en que recibió cupo.")
+	@ApiResponses(value = {
+		@ApiResponse(responseCode = "200", description = "Situación del estudiante en la lista"),
+		@ApiResponse(responseCode = "403", description = "Sin permiso sobre la entrada de otro estudiante", 
+					content = @Content(schema = @Schema(ref = "#/components/responses/Forbidden"))),
+		@ApiResponse(responseCode = "404", description = "El estudiante no está en la lista", 
+					content = @Content(schema = @Schema(ref = "#/components/responses/NotFound")))
+	})
+	public ListaEsperaResponse consultar(
+			@Parameter(description = "ID del grupo") @PathVariable String grupoId,
+			@Parameter(description = "ID del estudiante") @PathVariable String estudianteId) {
+		return listaEsperaService.consultar(grupoId, estudianteId);
+	}
+
+	@DeleteMapping("/{estudianteId}")
+	@PreAuthorize(PROPIO_O_GESTOR)
+	@Operation(summary = "Salir de la lista de espera", 
+			   description = "Retira al estudiante de la lista de espera del grupo mientras aún espera cupo.")
+	@ApiResponses(value = {
+		@ApiResponse(responseCode = "204", description = "Estudiante retirado"),
+		@ApiResponse(responseCode = "403", description = "Sin permiso sobre la entrada de otro estudiante", 
+					content = @Content(schema = @Schema(ref = "#/components/responses/Forbidden"))),
+		@ApiResponse(responseCode = "404", description = "El estudiante no está esperando en el grupo", 
+					content = @Content(schema = @Schema(ref = "#/components/responses/NotFound")))
+	})
+	public ResponseEntity<Void> retirar(
+			@Parameter(description = "ID del grupo") @PathVariable String grupoId,
+			@Parameter(description = "ID del estudiante") @PathVariable String estudianteId) {
+		listaEsperaService.retirar(grupoId, estudianteId);
+		return ResponseEntity.noContent().build();
+	}
+}
@@ -1,12 +1,18 @@
 
 package edu.dosw.sirha.controller;
 
+import java.security.Principal;
 import java.time.Instant;
 import java.util.List;
+import java.util.Map;
 
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -15,14 +21,23 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import edu.dosw.sirha.dto.request.SolicitudEstadoBulkRequest;
 import edu.dosw.sirha.dto.request.SolicitudEstadoChangeRequest;
 import edu.dosw.sirha.dto.request.SolicitudRequest;
+import edu.dosw.sirha.dto.response.CursorPage;
+import edu.dosw.sirha.dto.response.SolicitudEstadoBulkResponse;
 import edu.dosw.sirha.dto.response.SolicitudResponse;
+import edu.dosw.sirha.model.SolicitudHistorialEntry;
 import edu.dosw.sirha.model.enums.SolicitudEstado;
+import edu.dosw.sirha.service.ColaRevisionService;
+import edu.dosw.sirha.service.IdempotencyService;
+import edu.dosw.sirha.service.SolicitudExportService;
 import edu.dosw.sirha.service.SolicitudService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -178,15 +193,36 @@ import lombok.RequiredArgsConstructor;
 @SecurityRequirement(name = "JWT")
 public class SolicitudController {
 
+	/**
+	 * Cabecera con la que el cliente identifica una petición que puede reintentar.
+	 */
+	static final String IDEMPOTENCY_KEY = "Idempotency-Key";
+
 	/**
 	 * Servicio de lógica de negocio para gestión de solicitudes.
 	 * Contiene las operaciones CRUD, validaciones y flujos de aprobación/rechazo.
 	 */
 	private final SolicitudService solicitudService;
 
+	/**
+	 * Servicio de exportación en streaming de las solicitudes de un período.
+	 */
+	private final SolicitudExportService solicitudExportService;
+
+	/**
+	 * Servicio de la cola de revisión con asignaciones temporales por coordinador.
+	 */
+	private final ColaRevisionService colaRevisionService;
+
+	/**
+	 * Servicio que evita ejecutar dos veces una petición reintentada con la misma Idempotency-Key.
+	 */
+	private final IdempotencyService idempotencyService;
+
 	@PostMapping
 	@Operation(summary = "Crear nueva solicitud", 
-			   description = "Crea una nueva solicitud de cambio de materia o grupo. Valida que esté en período activo y que haya cupos disponibles.")
+			   description = "Crea una nueva solicitud de cambio de materia o grupo. Valida que esté en período activo y que haya cupos disponibles. "
+					   + "Con Idempotency-Key, los reintentos reciben la solicitud ya creada.")
 	@ApiResponses(value = {
 		@ApiResponse(responseCode = "201", description = "Solicitud creada exitosamente"),
 		@ApiResponse(responseCode = "400", description = "Error de validación o regla de negocio", 
@@ -194,10 +230,17 @@ public class SolicitudController {
 		@ApiResponse(responseCode = "401", description = "No autorizado", 
 					content = @Content(schema = @Schema(ref = "#/components/responses/Unauthorized"))),
 		@ApiResponse(responseCode = "403", description = "Acceso prohibido", 
-					content = @Content(schema = @Schema(ref = "#/components/responses/Forbidden")))
+					content = @Content(schema = @Schema(ref = "#/components/responses/Forbidden"))),
+		@ApiResponse(responseCode = "409", description = "La petición original con esta Idempotency-Key sigue en curso"),
+		@ApiResponse(responseCode = "422", description = "La Idempotency-Key ya se usó con otra petición")
 	})
-	public ResponseEntity<SolicitudResponse> create(@Valid @RequestBody SolicitudRequest request) {
-		SolicitudResponse response = solicitudService.create(request);
+	public ResponseEntity<SolicitudResponse> create(
+			@Parameter(description = "Clave para reintentar la creación sin duplicarla")
+			@RequestHeader(name = IDEMPOTENCY_KEY, required = false) String idempotencyKey,
+			@Valid @RequestBody SolicitudRequest request,
+			Principal principal) {
+		SolicitudResponse response = idempotencyService.ejecutar(idempotencyKey, "crear-solicitud", usuario(principal),
+				request, SolicitudResponse.class, () -> solicitudService.create(request));
 		return ResponseEntity.status(HttpStatus.CREATED).body(response);
 	}
 
@@ -225,12 +268,85 @@ public class SolicitudController {
 		@ApiResponse(responseCode = "400", description = "Estado inválido o transición no permitida", 
 					content = @Content(schema = @Schema(ref = "#/components/responses/BadRequest"))),
 		@ApiResponse(responseCode = "404", description = "Solicitud no encontrada", 
-					content = @Content(schema = @Schema(ref = "#/components/responses/NotFound")))
+					content = @Content(schema = @Schema(ref = "#/components/responses/NotFound"))),
+		@ApiResponse(responseCode = "409", description = "La petición original con esta Idempotency-Key sigue en curso"),
+		@ApiResponse(responseCode = "422", description = "La Idempotency-Key ya se usó con otra petición")
 	})
 	public SolicitudResponse changeEstado(
 			@Parameter(description = "ID de la solicitud") @PathVariable String id,
-			@Valid @RequestBody SolicitudEstadoChangeRequest request) {
-		return solicitudService.changeEstado(id, request.getEstado(), request.getObservaciones());
+			@Parameter(description = "Clave para reintentar el cambio sin repetirlo")
+			@RequestHeader(name = IDEMPOTENCY_KEY, required = false) String idempotencyKey,
+			@Valid @RequestBody SolicitudEstadoChangeRequest request,
+			Principal principal) {
+		return idempotencyService.ejecutar(idempotencyKey, "estado:" + id, usuario(principal), request,
+				SolicitudResponse.class,
+				() -> solicitudService.changeEstado(id, request.getEstado(), request.getObservaciones()));
+	}
+
+	@PatchMapping("/bulk/estado")
+	@PreAuthorize("hasAnyRole('ADMIN', 'COORDINADOR')")
+	@Operation(summary = "Cambiar estado de varias solicitudes", 
+			   description = "Aprueba, rechaza o cambia el estado de hasta " + SolicitudEstadoBulkRequest.MAX_IDS
+					   + " solicitudes en un solo lote. Las solicitudes que no pueden cambiarse no detienen el resto "
+					   + "y se reportan individualmente.")
+	@ApiResponses(value = {
+		@ApiResponse(responseCode = "200", description = "Lote procesado; ver el resultado por solicitud"),
+		@ApiResponse(responseCode = "400", description = "Lote inválido o fuera del período de solicitudes", 
+					content = @Content(schema = @Schema(ref = "#/components/responses/BadRequest")))
+	})
+	public SolicitudEstadoBulkResponse changeEstadoBulk(@Valid @RequestBody SolicitudEstadoBulkRequest request) {
+		return solicitudService.changeEstadoBulk(request.getIds(), request.getEstado(), request.getObservaciones());
+	}
+
+	@PostMapping("/cola/reclamar")
+	@PreAuthorize("hasAnyRole('ADMIN', 'COORDINADOR')")
+	@Operation(summary = "Reclamar solicitudes de la cola de revisión", 
+			   description = "Asigna al usuario autenticado las siguientes solicitudes pendientes o en revisión, "
+					   + "por prioridad y antigüedad. Cada asignación vence si no se renueva y ninguna solicitud "
+					   + "se asigna a dos revisores a la vez.")
+	@ApiResponses(value = {
+		@ApiResponse(responseCode = "200", description = "Solicitudes asignadas (vacío si la cola no tiene pendientes)"),
+		@ApiResponse(responseCode = "400", description = "Cantidad fuera del rango permitido", 
+					content = @Content(schema = @Schema(ref = "#/components/responses/BadRequest")))
+	})
+	public List<SolicitudResponse> reclamarCola(
+			@Parameter(description = "Cantidad de solicitudes a reclamar (por defecto 1)")
+			@RequestParam(name = "cantidad", required = false) Integer cantidad,
+			Principal principal) {
+		return colaRevisionService.reclamar(principal.getName(), cantidad);
+	}
+
+	@PostMapping("/cola/{id}/renovar")
+	@PreAuthorize("hasAnyRole('ADMIN', 'COORDINADOR')")
+	@Operation(summary = "Renovar asignación de revisión", 
+			   description = "Extiende la asignación vigente de una solicitud al usuario autenticado.")
+	@ApiResponses(value = {
+		@ApiResponse(responseCode = "200", description = "Asignación renovada"),
+		@ApiResponse(responseCode = "404", description = "Solicitud no encontrada", 
+					content = @Content(schema = @Schema(ref = "#/components/responses/NotFound"))),
+		@ApiResponse(responseCode = "409", description = "La asignación venció o pertenece a otro revisor")
+	})
+	public SolicitudResponse renovarAsignacion(
+			@Parameter(description = "ID de la solicitud") @PathVariable String id,
+			Principal principal) {
+		return colaRevisionService.renovar(id, principal.getName());
+	}
+
+	@DeleteMapping("/cola/{id}")
+	@PreAuthorize("hasAnyRole('ADMIN', 'COORDINADOR')")
+	@Operation(summary = "Liberar asignación de revisión", 
+			   description = "Devuelve a la cola una solicitud asignada al usuario autenticado.")
+	@ApiResponses(value = {
+		@ApiResponse(responseCode = "204", description = "Solicitud devuelta a la cola"),
+		@ApiResponse(responseCode = "404", description = "Solicitud no encontrada", 
+					content = @Content(schema = @Schema(ref = "#/components/responses/NotFound"))),
+		@ApiResponse(responseCode = "409", description = "La solicitud no está asignada al usuario")
+	})
+	public ResponseEntity<Void> liberarAsignacion(
+			@Parameter(description = "ID de la solicitud") @PathVariable String id,
+			Principal principal) {
+		colaRevisionService.liberar(id, principal.getName());
+		return ResponseEntity.noContent().build();
 	}
 
 	@DeleteMapping("/{id}")
@@ -251,10 +367,19 @@ public class SolicitudController {
 
 	@GetMapping
 	@Operation(summary = "Listar todas las solicitudes", 
-			   description = "Obtiene todas las solicitudes del sistema. Requiere permisos de administrador.")
-	@ApiResponse(responseCode = "200", description = "Lista de solicitudes obtenida exitosamente")
-	public List<SolicitudResponse> findAll() {
-		return solicitudService.findAll();
+			   description = "Obtiene las solicitudes del sistema paginadas por cursor, más recientes primero. "
+					   + "No incluye el historial. Requiere permisos de administrador.")
+	@ApiResponses(value = {
+		@ApiResponse(responseCode = "200", description = "Página de solicitudes obtenida exitosamente"),
+		@ApiResponse(responseCode = "400", description = "Cursor inválido", 
+					content = @Content(schema = @Schema(ref = "#/components/responses/BadRequest")))
+	})
+	public CursorPage<SolicitudResponse> findAll(
+			@Parameter(description = "Cursor devuelto en la página anterior (opcional)")
+			@RequestParam(name = "cursor", required = false) String cursor,
+			@Parameter(description = "Tamaño de página (opcional, con máximo configurado)")
+			@RequestParam(name = "size", required = false) Integer size) {
+		return solicitudService.findAll(cursor, size);
 	}
 
 	@GetMapping("/{id}")
@@ -270,46 +395,131 @@ public class SolicitudController {
 		return solicitudService.findById(id);
 	}
 
+	@GetMapping("/{id}/historial")
+	@Operation(summary = "Obtener historial de una solicitud", 
+			   description = "Obtiene el historial completo de cambios de una solicitud en orden cronológico. "
+					   + "El detalle de la solicitud solo incluye los eventos más recientes.")
+	@ApiResponses(value = {
+		@ApiResponse(responseCode = "200", description = "Historial de la solicitud"),
+		@ApiResponse(responseCode = "404", description = "Solicitud no encontrada", 
+					content = @Content(schema = @Schema(ref = "#/components/responses/NotFound")))
+	})
+	public List<SolicitudHistorialEntry> findHistorial(
+			@Parameter(description = "ID de la solicitud") @PathVariable String id) {
+		return solicitudService.findHistorial(id);
+	}
+
 	@GetMapping("/estudiante/{estudianteId}")
 	@Operation(summary = "Listar solicitudes por estudiante", 
-			   description = "Obtiene todas las solicitudes de un estudiante específico, ordenadas por fecha descendente.")
-	@ApiResponse(responseCode = "200", description = "Lista de solicitudes del estudiante")
-	public List<SolicitudResponse> findByEstudiante(
-			@Parameter(description = "ID del estudiante") @PathVariable String estudianteId) {
-		return solicitudService.findByEstudiante(estudianteId);
+			   description = "Obtiene las solicitudes de un estudiante específico paginadas por cursor, ordenadas por fecha descendente.")
+	@ApiResponse(responseCode = "200", description = "Página de solicitudes del estudiante")
+	public CursorPage<SolicitudResponse> findByEstudiante(
+			@Parameter(description = "ID del estudiante") @PathVariable String estudianteId,
+			@Parameter(description = "Cursor devuelto en la página anterior (opcional)")
+			@RequestParam(name = "cursor", required = false) String cursor,
+			@Parameter(description = "Tamaño de página (opcional, con máximo configurado)")
+			@RequestParam(name = "size", required = false) Integer size) {
+		return solicitudService.findByEstudiante(estudianteId, cursor, size);
 	}
 
 	@GetMapping("/estados")
 	@Operation(summary = "Listar solicitudes por estados", 
-			   description = "Obtiene solicitudes filtradas por uno o más estados, ordenadas por prioridad.")
-	@ApiResponse(responseCode = "200", description = "Lista de solicitudes filtradas por estado")
-	public List<SolicitudResponse> findByEstados(
+			   description = "Obtiene solicitudes filtradas por uno o más estados paginadas por cursor, ordenadas por prioridad.")
+	@ApiResponse(responseCode = "200", description = "Página de solicitudes filtradas por estado")
+	public CursorPage<SolicitudResponse> findByEstados(
 			@Parameter(description = "Estados a filtrar (opcional)") 
-			@RequestParam(name = "estado", required = false) List<SolicitudEstado> estados) {
-		return solicitudService.findByEstados(estados);
+			@RequestParam(name = "estado", required = false) List<SolicitudEstado> estados,
+			@Parameter(description = "Cursor devuelto en la página anterior (opcional)")
+			@RequestParam(name = "cursor", required = false) String cursor,
+			@Parameter(description = "Tamaño de página (opcional, con máximo configurado)")
+			@RequestParam(name = "size", required = false) Integer size) {
+		return solicitudService.findByEstados(estados, cursor, size);
 	}
 
 	@GetMapping("/estados/{estado}/conteo")
 	@Operation(summary = "Contar solicitudes por estado", 
-			   description = "Obtiene el número total de solicitudes en un estado específico.")
+			   description = "Obtiene el número total de solicitudes en un estado específico, opcionalmente de un período.")
 	@ApiResponse(responseCode = "200", description = "Conteo de solicitudes")
 	public long countByEstado(
-			@Parameter(description = "Estado a contar") @PathVariable SolicitudEstado estado) {
-		return solicitudService.countByEstado(estado);
+			@Parameter(description = "Estado a contar") @PathVariable SolicitudEstado estado,
+			@Parameter(description = "ID del período (opcional, por defecto todos)")
+			@RequestParam(name = "periodoId", required = false) String periodoId) {
+		return solicitudService.countByEstado(estado, periodoId);
+	}
+
+	@GetMapping("/estados/conteo")
+	@Operation(summary = "Contar solicitudes de todos los estados", 
+			   description = "Obtiene el número de solicitudes de cada estado en una sola consulta, opcionalmente "
+					   + "de un período. Pensado para los dashboards.")
+	@ApiResponse(responseCode = "200", description = "Conteo por estado")
+	public Map<SolicitudEstado, Long> countByEstados(
+			@Parameter(description = "ID del período (opcional, por defecto todos)")
+			@RequestParam(name = "periodoId", required = false) String periodoId) {
+		return solicitudService.countByEstados(periodoId);
+	}
+
+	@PostMapping("/estados/conteo/reconstruir")
+	@PreAuthorize("hasRole('ADMIN')")
+	@Operation(summary = "Reconstruir conteos por estado", 
+			   description = "Recalcula los conteos por período, estado y tipo desde la colección de solicitudes. "
+					   + "Usar si los conteos se desvían.")
+	@ApiResponse(responseCode = "200", description = "Conteo por estado tras la reconstrucción")
+	@ApiResponse(responseCode = "409", description = "Otra réplica está reconstruyendo los conteos")
+	public Map<SolicitudEstado, Long> reconstruirConteos() {
+		return solicitudService.reconstruirConteos();
 	}
 
 	@GetMapping("/periodo/{periodoId}")
 	@Operation(summary = "Listar solicitudes por período y rango de fechas", 
 			   description = "Obtiene solicitudes de un período académico específico, opcionalmente filtradas por rango de fechas.")
-	@ApiResponse(responseCode = "200", description = "Lista de solicitudes del período")
-	public List<SolicitudResponse> findByPeriodoAndRango(
+	@ApiResponse(responseCode = "200", description = "Página de solicitudes del período, más recientes primero")
+	public CursorPage<SolicitudResponse> findByPeriodoAndRango(
+			@Parameter(description = "ID del período académico") @PathVariable String periodoId,
+			@Parameter(description = "Fecha de inicio del rango (opcional)") 
+			@RequestParam(name = "inicio", required = false)
+			@DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant inicio,
+			@Parameter(description = "Fecha de fin del rango (opcional)") 
+			@RequestParam(name = "fin", required = false)
+			@DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant fin,
+			@Parameter(description = "Cursor devuelto en la página anterior (opcional)")
+			@RequestParam(name = "cursor", required = false) String cursor,
+			@Parameter(description = "Tamaño de página (opcional, con máximo configurado)")
+			@RequestParam(name = "size", required = false) Integer size) {
+		return solicitudService.findByPeriodoAndRango(periodoId, inicio, fin, cursor, size);
+	}
+
+	@GetMapping("/periodo/{periodoId}/export")
+	@PreAuthorize("hasAnyRole('ADMIN', 'COORDINADOR')")
+	@Operation(summary = "Exportar solicitudes de un período", 
+			   description = "Exporta en streaming las solicitudes de un período en NDJSON o CSV, ordenadas por fecha "
+					   + "ascendente y sin historial. Sin rango de fechas se exporta el período completo.")
+	@ApiResponses(value = {
+		@ApiResponse(responseCode = "200", description = "Archivo de exportación"),
+		@ApiResponse(responseCode = "400", description = "Formato o rango de fechas inválido", 
+					content = @Content(schema = @Schema(ref = "#/components/responses/BadRequest")))
+	})
+	public ResponseEntity<StreamingResponseBody> exportByPeriodo(
 			@Parameter(description = "ID del período académico") @PathVariable String periodoId,
+			@Parameter(description = "Formato de salida: ndjson o csv") 
+			@RequestParam(name = "formato", defaultValue = "ndjson") String formato,
 			@Parameter(description = "Fecha de inicio del rango (opcional)") 
 			@RequestParam(name = "inicio", required = false)
 			@DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant inicio,
 			@Parameter(description = "Fecha de fin del rango (opcional)") 
 			@RequestParam(name = "fin", required = false)
 			@DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant fin) {
-		return solicitudService.findByPeriodoAndRango(periodoId, inicio, fin);
+		SolicitudExportService.Formato salida = SolicitudExportService.Formato.desde(formato);
+		solicitudExportService.validarRango(inicio, fin);
+		StreamingResponseBody body = out -> solicitudExportService.exportar(periodoId, inicio, fin, salida, out);
+		return ResponseEntity.ok()
+				.contentType(MediaType.parseMediaType(salida.getContentType() + ";charset=UTF-8"))
+				.header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+						.filename("solicitudes-" + periodoId + "." + salida.getExtension())
+						.build().toString())
+				.body(body);
+	}
+
+	private static String usuario(Principal principal) {
+		return principal != null ? principal.getName() : "anonimo";
 	}
 }
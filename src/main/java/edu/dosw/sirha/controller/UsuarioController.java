@@ -0,0 +1,81 @@
+package edu.dosw.sirha.controller;
+
+import edu.dosw.sirha.dto.response.BulkRegisterResponse;
+import edu.dosw.sirha.exception.BusinessException;
+import edu.dosw.sirha.service.BulkRegistrationService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.InputStream;
+
+/**
+ * Controlador REST para la administración de usuarios.
+ * 
+ * <p>Expone el registro masivo usado al inicio de cada semestre. Todos los
+ * endpoints requieren rol ADMIN.</p>
+ * 
+ * @see BulkRegistrationService
+ */
+@Slf4j
+@RestController
+@RequestMapping("/api/usuarios")
+@Validated
+@RequiredArgsConstructor
+@Tag(name = "Usuarios", description = "Administración de usuarios")
+@SecurityRequirement(name = "JWT")
+public class UsuarioController {
+
+    static final String TEXT_CSV = "text/csv";
+    static final String APPLICATION_NDJSON = "application/x-ndjson";
+
+    private final BulkRegistrationService bulkRegistrationService;
+
+    /**
+     * Registra usuarios de forma masiva desde un archivo CSV o NDJSON.
+     * 
+     * <p>El cuerpo se procesa en streaming y en lotes; cada fila se valida con las
+     * mismas reglas de {@code /api/auth/register}. Las filas inválidas o duplicadas
+     * no detienen el proceso y se reportan individualmente.</p>
+     * 
+     * @param contentType {@value #TEXT_CSV} o {@value #APPLICATION_NDJSON}
+     * @param body Contenido del archivo
+     * @return Reporte con el resultado de cada fila
+     */
+    @Operation(summary = "Registro masivo de usuarios",
+            description = "Registra usuarios desde CSV (con encabezado nombre,email,password,rol,genero) o NDJSON. Solo ADMIN")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Archivo procesado; ver el resultado por fila"),
+        @ApiResponse(responseCode = "400", description = "Encabezado CSV inválido")
+    })
+    @PostMapping(value = "/bulk", consumes = {TEXT_CSV, APPLICATION_NDJSON})
+    @PreAuthorize("hasRole('ADMIN')")
+    public BulkRegisterResponse registrarMasivo(@RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+                                                InputStream body) {
+        log.info("Request POST /api/usuarios/bulk - Formato: {}", contentType);
+        return bulkRegistrationService.registrar(body, formato(contentType));
+    }
+
+    private static BulkRegistrationService.Formato formato(String contentType) {
+        MediaType mediaType = MediaType.parseMediaType(contentType);
+        if (mediaType.isCompatibleWith(MediaType.parseMediaType(TEXT_CSV))) {
+            return BulkRegistrationService.Formato.CSV;
+        }
+        if (mediaType.isCompatibleWith(MediaType.parseMediaType(APPLICATION_NDJSON))) {
+            return BulkRegistrationService.Formato.NDJSON;
+        }
+        throw new BusinessException("Formato no soportado: " + contentType);
+    }
+}
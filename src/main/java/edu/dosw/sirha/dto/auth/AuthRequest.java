@@ -12,7 +12,7 @@ import jakarta.validation.constraints.NotBlank;
  * @param email Email del usuario (debe ser válido)
  * @param password Contraseña en texto plano (se hashea en servidor)
  * 
- * @see edu.dosw.sirha.controller.AuthController#login(AuthRequest)
+ * @see edu.dosw.sirha.controller.AuthController#login(AuthRequest, jakarta.servlet.http.HttpServletRequest)
  * @see AuthResponse
  */
 public record AuthRequest(
@@ -12,6 +12,8 @@ import java.time.Instant;
  * @param token Token JWT firmado (válido por el tiempo configurado)
  * @param expiresAt Fecha y hora de expiración del token
  * @param user Información básica del usuario autenticado
+ * @param refreshToken Refresh token de un solo uso para renovar la sesión en
+ *                     {@code POST /api/auth/refresh}
  * 
  * @see AuthRequest
  * @see edu.dosw.sirha.security.JwtTokenService
@@ -19,8 +21,21 @@ import java.time.Instant;
 public record AuthResponse(
         String token,
         Instant expiresAt,
-        UserInfo user
+        UserInfo user,
+        String refreshToken
 ) {
+
+    /**
+     * Construye la respuesta sin refresh token.
+     * 
+     * @param token Token JWT firmado
+     * @param expiresAt Fecha y hora de expiración del token
+     * @param user Información básica del usuario autenticado
+     */
+    public AuthResponse(String token, Instant expiresAt, UserInfo user) {
+        this(token, expiresAt, user, null);
+    }
+
     /**
      * Información básica del usuario autenticado.
      * 
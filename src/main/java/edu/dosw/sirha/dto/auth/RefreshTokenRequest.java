@@ -0,0 +1,19 @@
+package edu.dosw.sirha.dto.auth;
+
+import jakarta.validation.constraints.NotBlank;
+
+/**
+ * DTO de solicitud para renovar la sesión con un refresh token.
+ * 
+ * <p>Usado en {@code POST /api/auth/refresh}. El token presentado queda
+ * invalidado y la respuesta incluye uno nuevo.</p>
+ * 
+ * @param refreshToken Refresh token recibido en el último login o renovación
+ * 
+ * @see edu.dosw.sirha.controller.AuthController#refresh(RefreshTokenRequest)
+ * @see AuthResponse
+ */
+public record RefreshTokenRequest(
+        @NotBlank String refreshToken
+) {
+}
@@ -0,0 +1,40 @@
+package edu.dosw.sirha.dto.request;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * DTO para registrar una nueva clave de firma JWT en el keyring.
+ * 
+ * <p>Usado en {@code POST /api/admin/jwt/keys} durante la rotación de secretos.</p>
+ * 
+ * @see edu.dosw.sirha.security.JwtKeyring
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class JwtKeyRequest {
+
+    /**
+     * Identificador de la clave (se publica en el header "kid" de los tokens).
+     */
+    @NotBlank(message = "El kid es obligatorio")
+    @Size(max = 64, message = "El kid no puede exceder 64 caracteres")
+    private String kid;
+
+    /**
+     * Secreto de la clave en BASE64 (mínimo 256 bits recomendado).
+     */
+    @NotBlank(message = "El secreto es obligatorio")
+    private String secret;
+
+    /**
+     * Si es true, se programa la activación de la clave para firmar los tokens nuevos.
+     */
+    private boolean activar;
+}
@@ -0,0 +1,45 @@
+package edu.dosw.sirha.dto.request;
+
+import edu.dosw.sirha.model.enums.SolicitudEstado;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * DTO para cambiar el estado de varias solicitudes a la vez.
+ * 
+ * <p>Usado en {@code PATCH /api/solicitudes/bulk/estado} por coordinadores para
+ * aprobar o rechazar solicitudes por lote.</p>
+ * 
+ * @see SolicitudEstadoChangeRequest
+ */
+@Data
+public class SolicitudEstadoBulkRequest {
+
+    /**
+     * Cantidad máxima de solicitudes por lote.
+     */
+    public static final int MAX_IDS = 500;
+
+    /**
+     * IDs de las solicitudes a cambiar; el resultado se reporta en este orden.
+     */
+    @NotEmpty
+    @Size(max = MAX_IDS)
+    private List<@NotBlank String> ids;
+
+    /**
+     * Nuevo estado de las solicitudes.
+     */
+    @NotNull
+    private SolicitudEstado estado;
+
+    /**
+     * Observaciones o justificación del cambio, registradas en el historial de cada solicitud.
+     */
+    private String observaciones;
+}
@@ -0,0 +1,88 @@
+package edu.dosw.sirha.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * DTO con el reporte de un registro masivo de usuarios.
+ * 
+ * <p>Incluye totales y el resultado de cada fila del archivo, en el mismo orden
+ * en que fueron leídas.</p>
+ * 
+ * @see edu.dosw.sirha.service.BulkRegistrationService
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkRegisterResponse {
+
+    /**
+     * Cantidad de filas de datos procesadas.
+     */
+    private int total;
+
+    /**
+     * Cantidad de usuarios creados.
+     */
+    private int creados;
+
+    /**
+     * Cantidad de filas rechazadas.
+     */
+    private int rechazados;
+
+    /**
+     * Resultado por fila.
+     */
+    private List<Fila> filas;
+
+    /**
+     * Resultado del procesamiento de una fila.
+     */
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Fila {
+
+        /**
+         * Número de línea en el archivo (1 es la primera línea).
+         */
+        private long linea;
+
+        /**
+         * Email de la fila, si pudo leerse.
+         */
+        private String email;
+
+        /**
+         * Resultado: CREADO, DUPLICADO, INVALIDO o ERROR.
+         */
+        private Resultado resultado;
+
+        /**
+         * ID del usuario creado.
+         */
+        private String id;
+
+        /**
+         * Motivo del rechazo.
+         */
+        private String mensaje;
+    }
+
+    /**
+     * Resultados posibles de una fila.
+     */
+    public enum Resultado {
+        CREADO,
+        DUPLICADO,
+        INVALIDO,
+        ERROR
+    }
+}
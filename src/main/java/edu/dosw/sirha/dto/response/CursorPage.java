@@ -0,0 +1,27 @@
+package edu.dosw.sirha.dto.response;
+
+import lombok.Builder;
+import lombok.Value;
+
+import java.util.List;
+
+/**
+ * Página de resultados con paginación por cursor (keyset).
+ * 
+ * <p>Para obtener la página siguiente se envía {@code nextCursor} en el parámetro
+ * {@code cursor}. El cursor es opaco: no debe construirse ni interpretarse en el
+ * cliente. Cuando {@code hasMore} es false no hay más resultados y
+ * {@code nextCursor} es null.</p>
+ * 
+ * @param <T> Tipo de los elementos
+ */
+@Value
+@Builder
+public class CursorPage<T> {
+
+	List<T> items;
+
+	String nextCursor;
+
+	boolean hasMore;
+}
@@ -0,0 +1,41 @@
+package edu.dosw.sirha.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.util.Set;
+
+/**
+ * DTO con el estado del keyring JWT (sin exponer secretos).
+ * 
+ * @see edu.dosw.sirha.security.JwtKeyring
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class JwtKeyringResponse {
+
+    /**
+     * Kid de la clave con la que se firman los tokens nuevos.
+     */
+    private String activeKid;
+
+    /**
+     * Kids aceptados para verificar tokens.
+     */
+    private Set<String> kids;
+
+    /**
+     * Kid activado que todavía no firma, o null si no hay activación pendiente.
+     */
+    private String pendingKid;
+
+    /**
+     * Momento en que {@code pendingKid} empezará a firmar.
+     */
+    private Instant pendingFrom;
+}
@@ -0,0 +1,31 @@
+package edu.dosw.sirha.dto.response;
+
+import lombok.Builder;
+import lombok.Value;
+
+import java.time.Instant;
+
+/**
+ * DTO de respuesta con la situación de un estudiante en la lista de espera de un grupo.
+ * 
+ * @see edu.dosw.sirha.model.ListaEsperaEntrada
+ * @see edu.dosw.sirha.service.ListaEsperaService
+ */
+@Value
+@Builder
+public class ListaEsperaResponse {
+	/** ID del grupo. */
+	String grupoId;
+
+	/** ID del estudiante. */
+	String estudianteId;
+
+	/** Lugar en la fila, empezando en 1; null si ya recibió cupo. */
+	Integer posicion;
+
+	/** Fecha de ingreso a la lista. */
+	Instant fechaIngreso;
+
+	/** Fecha en que recibió cupo; null mientras espera. */
+	Instant fechaPromocion;
+}
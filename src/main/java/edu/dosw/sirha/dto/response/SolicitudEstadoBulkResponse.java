@@ -0,0 +1,90 @@
+package edu.dosw.sirha.dto.response;
+
+import edu.dosw.sirha.model.enums.SolicitudEstado;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * DTO con el reporte de un cambio de estado por lote.
+ * 
+ * <p>Incluye totales y el resultado de cada solicitud, en el mismo orden en que
+ * llegaron los IDs.</p>
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SolicitudEstadoBulkResponse {
+
+    /**
+     * Estado solicitado para el lote.
+     */
+    private SolicitudEstado estado;
+
+    /**
+     * Cantidad de IDs recibidos.
+     */
+    private int total;
+
+    /**
+     * Cantidad de solicitudes actualizadas.
+     */
+    private int aplicadas;
+
+    /**
+     * Cantidad de solicitudes no actualizadas.
+     */
+    private int rechazadas;
+
+    /**
+     * Resultado por solicitud.
+     */
+    private List<Item> items;
+
+    /**
+     * Resultado del cambio de estado de una solicitud.
+     */
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Item {
+
+        /**
+         * ID de la solicitud.
+         */
+        private String id;
+
+        /**
+         * Resultado del cambio.
+         */
+        private Resultado resultado;
+
+        /**
+         * Motivo del rechazo.
+         */
+        private String mensaje;
+    }
+
+    /**
+     * Resultados posibles de un cambio.
+     */
+    public enum Resultado {
+        /** La solicitud quedó en el nuevo estado. */
+        APLICADA,
+        /** La solicitud no existe. */
+        NO_ENCONTRADA,
+        /** El ID ya venía antes en el mismo lote. */
+        DUPLICADA,
+        /** La solicitud ya estaba en el estado pedido. */
+        SIN_CAMBIO,
+        /** El grupo destino no existe o no tiene cupos para aprobarla. */
+        SIN_CUPO,
+        /** La solicitud cambió de estado mientras se procesaba el lote. */
+        CONFLICTO
+    }
+}
@@ -5,6 +5,7 @@ import edu.dosw.sirha.model.enums.SolicitudEstado;
 import edu.dosw.sirha.model.enums.SolicitudTipo;
 import lombok.Builder;
 import lombok.Value;
+import lombok.extern.jackson.Jacksonized;
 
 import java.time.Instant;
 import java.util.List;
@@ -21,6 +22,7 @@ import java.util.List;
  */
 @Value
 @Builder
+@Jacksonized
 public class SolicitudResponse {
 	/** ID único de la solicitud. */
 	String id;
@@ -63,10 +65,19 @@ public class SolicitudResponse {
 	
 	/** Fecha límite para responder. */
 	Instant fechaLimiteRespuesta;
+
+	/** true si la solicitud superó la fecha límite de respuesta sin resolverse. */
+	boolean vencida;
 	
 	/** Última actualización. */
 	Instant fechaActualizacion;
 	
-	/** Historial completo de cambios de estado. */
+	/** Cambios de estado más recientes; el historial completo está en {@code /api/solicitudes/{id}/historial}. */
 	List<SolicitudHistorialEntry> historial;
+
+	/** Revisor al que se asignó la solicitud en la cola de revisión. */
+	String revisorAsignado;
+
+	/** Vencimiento de la asignación en la cola de revisión. */
+	Instant asignacionVence;
 }
\ No newline at end of file
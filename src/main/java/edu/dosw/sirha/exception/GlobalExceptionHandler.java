@@ -4,6 +4,7 @@ import java.time.Instant;
 import java.util.HashMap;
 import java.util.Map;
 
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.AccessDeniedException;
@@ -25,6 +26,8 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import edu.dosw.sirha.security.LoginThrottle;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
 import org.springframework.web.context.request.WebRequest;
 
@@ -40,7 +43,11 @@ import org.springframework.web.context.request.WebRequest;
  *   <li><b>SIRHA-400-002:</b> Datos de entrada inválidos (400)</li>
  *   <li><b>SIRHA-400-003:</b> Dominio de email inválido (422)</li>
  *   <li><b>SIRHA-401-001:</b> Credenciales inválidas (401)</li>
+ *   <li><b>SIRHA-403-001:</b> Sin permisos sobre el recurso (403)</li>
  *   <li><b>SIRHA-404-001:</b> Recurso no encontrado (404)</li>
+ *   <li><b>SIRHA-409-001:</b> Idempotency-Key con la petición original en curso (409)</li>
+ *   <li><b>SIRHA-422-001:</b> Idempotency-Key reutilizada con otra petición (422)</li>
+ *   <li><b>SIRHA-429-001:</b> Capacidad de autenticación agotada, reintentar (429)</li>
  *   <li><b>SIRHA-500-001:</b> Error interno del servidor (500)</li>
  * </ul>
  * 
@@ -52,6 +59,19 @@ import org.springframework.web.context.request.WebRequest;
 @RestControllerAdvice
 public class GlobalExceptionHandler {
 
+    private LoginThrottle loginThrottle;
+
+    /**
+     * Inyecta el limitador de login al que se reportan las credenciales inválidas.
+     * Es opcional para que el handler funcione en contextos sin seguridad.
+     * 
+     * @param loginThrottle Limitador de intentos de login
+     */
+    @Autowired(required = false)
+    public void setLoginThrottle(LoginThrottle loginThrottle) {
+        this.loginThrottle = loginThrottle;
+    }
+
     /**
      * Maneja errores de validación de Bean Validation (@Valid).
      * Retorna HTTP 400 Bad Request con detalles de los campos inválidos.
@@ -87,6 +107,61 @@ public class GlobalExceptionHandler {
         return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(errorResponse);
     }
 
+    /**
+     * Maneja una Idempotency-Key reutilizada con otro cuerpo (IdempotencyKeyMismatchException).
+     * Retorna HTTP 422 Unprocessable Entity.
+     * 
+     * @param ex Excepción de clave idempotente reutilizada
+     * @param request Detalles del request HTTP
+     * @return ErrorResponse con mensaje descriptivo
+     */
+    @ExceptionHandler(IdempotencyKeyMismatchException.class)
+    public ResponseEntity<ErrorResponse> handleIdempotencyKeyMismatch(
+            IdempotencyKeyMismatchException ex,
+            WebRequest request) {
+        
+        log.warn("Idempotency-Key reutilizada: {}", ex.getMessage());
+        
+        ErrorResponse errorResponse = ErrorResponse.builder()
+                .timestamp(Instant.now())
+                .status(HttpStatus.UNPROCESSABLE_ENTITY.value())
+                .error("Unprocessable Entity")
+                .errorCode("SIRHA-422-001")
+                .message(ex.getMessage())
+                .path(extractPath(request))
+                .build();
+        
+        return ResponseEntity.status(HttpStatus.UNPROCESSABLE_ENTITY).body(errorResponse);
+    }
+
+    /**
+     * Maneja una Idempotency-Key cuya petición original sigue en curso
+     * (IdempotencyKeyInUseException).
+     * Retorna HTTP 409 Conflict.
+     * 
+     * @param ex Excepción de clave idempotente en curso
+     * @param request Detalles del request HTTP
+     * @return ErrorResponse con mensaje descriptivo
+     */
+    @ExceptionHandler(IdempotencyKeyInUseException.class)
+    public ResponseEntity<ErrorResponse> handleIdempotencyKeyInUse(
+            IdempotencyKeyInUseException ex,
+            WebRequest request) {
+        
+        log.warn("Idempotency-Key en curso: {}", ex.getMessage());
+        
+        ErrorResponse errorResponse = ErrorResponse.builder()
+                .timestamp(Instant.now())
+                .status(HttpStatus.CONFLICT.value())
+                .error("Conflict")
+                .errorCode("SIRHA-409-001")
+                .message(ex.getMessage())
+                .path(extractPath(request))
+                .build();
+        
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(errorResponse);
+    }
+
     /**
      * Maneja excepciones de validación de negocio (ValidationException).
      * Retorna HTTP 422 Unprocessable Entity.
@@ -145,6 +220,9 @@ public class GlobalExceptionHandler {
      * Maneja credenciales inválidas en el login.
      * Retorna HTTP 401 Unauthorized.
      * 
+     * <p>Si el request corresponde a un intento de login, registra el fallo en
+     * {@link LoginThrottle} para el email y la IP.</p>
+     * 
      * @param ex Excepción de credenciales inválidas
      * @param request Detalles del request HTTP
      * @return ErrorResponse con mensaje genérico de seguridad
@@ -155,6 +233,10 @@ public class GlobalExceptionHandler {
             WebRequest request) {
         
         log.warn("Intento de login fallido desde: {}", request.getDescription(false));
+        Object attempt = request.getAttribute(LoginThrottle.ATTEMPT_ATTRIBUTE, WebRequest.SCOPE_REQUEST);
+        if (loginThrottle != null && attempt instanceof LoginThrottle.Attempt loginAttempt) {
+            loginThrottle.recordFailure(loginAttempt);
+        }
         
         ErrorResponse errorResponse = ErrorResponse.builder()
                 .timestamp(Instant.now())
@@ -168,6 +250,33 @@ public class GlobalExceptionHandler {
         return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(errorResponse);
     }
 
+    /**
+     * Maneja accesos denegados por {@code @PreAuthorize} (AccessDeniedException).
+     * Retorna HTTP 403 Forbidden.
+     * 
+     * @param ex Excepción de acceso denegado
+     * @param request Detalles del request HTTP
+     * @return ErrorResponse con mensaje genérico de seguridad
+     */
+    @ExceptionHandler(AccessDeniedException.class)
+    public ResponseEntity<ErrorResponse> handleAccessDenied(
+            AccessDeniedException ex,
+            WebRequest request) {
+        
+        log.warn("Acceso denegado a: {}", request.getDescription(false));
+        
+        ErrorResponse errorResponse = ErrorResponse.builder()
+                .timestamp(Instant.now())
+                .status(HttpStatus.FORBIDDEN.value())
+                .error("Forbidden")
+                .errorCode("SIRHA-403-001")
+                .message("No tiene permisos para realizar esta operación")
+                .path(extractPath(request))
+                .build();
+        
+        return ResponseEntity.status(HttpStatus.FORBIDDEN).body(errorResponse);
+    }
+
     /**
      * Maneja recursos no encontrados (ResourceNotFoundException).
      * Retorna HTTP 404 Not Found.
@@ -195,6 +304,35 @@ public class GlobalExceptionHandler {
         return ResponseEntity.status(HttpStatus.NOT_FOUND).body(errorResponse);
     }
 
+    /**
+     * Maneja rechazos por falta de capacidad (TooManyRequestsException).
+     * Retorna HTTP 429 Too Many Requests con el header Retry-After.
+     * 
+     * @param ex Excepción de capacidad agotada
+     * @param request Detalles del request HTTP
+     * @return ErrorResponse con mensaje descriptivo
+     */
+    @ExceptionHandler(TooManyRequestsException.class)
+    public ResponseEntity<ErrorResponse> handleTooManyRequests(
+            TooManyRequestsException ex,
+            WebRequest request) {
+        
+        log.warn("Solicitud rechazada por capacidad: {}", ex.getMessage());
+        
+        ErrorResponse errorResponse = ErrorResponse.builder()
+                .timestamp(Instant.now())
+                .status(HttpStatus.TOO_MANY_REQUESTS.value())
+                .error("Too Many Requests")
+                .errorCode("SIRHA-429-001")
+                .message(ex.getMessage())
+                .path(extractPath(request))
+                .build();
+        
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()))
+                .body(errorResponse);
+    }
+
     /**
      * Maneja excepciones de negocio genéricas (BusinessException).
      * Retorna HTTP 400 Bad Request.
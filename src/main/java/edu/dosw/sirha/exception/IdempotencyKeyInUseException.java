@@ -0,0 +1,27 @@
+package edu.dosw.sirha.exception;
+
+/**
+ * Excepción lanzada cuando llega una petición con una {@code Idempotency-Key} cuya
+ * petición original sigue en curso y su resultado no pudo esperarse.
+ * 
+ * <p>El cliente puede reintentar con la misma clave más tarde para recibir la
+ * respuesta de la original.</p>
+ * 
+ * <p>Esta excepción debe retornar un HTTP 409 Conflict con el código
+ * {@code SIRHA-409-001}.</p>
+ * 
+ * @author Equipo DOSW - SIRHA
+ * @version 1.0
+ * @since 2025-11-02
+ */
+public class IdempotencyKeyInUseException extends ConflictException {
+
+    /**
+     * Constructor con mensaje de error.
+     * 
+     * @param message Descripción del conflicto
+     */
+    public IdempotencyKeyInUseException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,27 @@
+package edu.dosw.sirha.exception;
+
+/**
+ * Excepción lanzada cuando una {@code Idempotency-Key} ya usada llega con un cuerpo
+ * distinto al de la petición original.
+ * 
+ * <p>La respuesta guardada corresponde a otra petición, así que no se reproduce ni se
+ * ejecuta la nueva; el cliente debe usar una clave nueva.</p>
+ * 
+ * <p>Esta excepción debe retornar un HTTP 422 Unprocessable Entity con el código
+ * {@code SIRHA-422-001}.</p>
+ * 
+ * @author Equipo DOSW - SIRHA
+ * @version 1.0
+ * @since 2025-11-02
+ */
+public class IdempotencyKeyMismatchException extends ValidationException {
+
+    /**
+     * Constructor con mensaje de error.
+     * 
+     * @param message Descripción del error
+     */
+    public IdempotencyKeyMismatchException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,43 @@
+package edu.dosw.sirha.exception;
+
+/**
+ * Excepción lanzada cuando el sistema no tiene capacidad para atender la operación
+ * en este momento y el cliente debe reintentar más tarde.
+ * 
+ * <p>Casos de uso típicos:</p>
+ * <ul>
+ *   <li>Cola de hashing de contraseñas llena durante picos de login</li>
+ *   <li>Espera máxima agotada antes de obtener un hilo de hashing</li>
+ * </ul>
+ * 
+ * <p>Esta excepción debe retornar un HTTP 429 Too Many Requests con el header
+ * {@code Retry-After}.</p>
+ * 
+ * @author Equipo DOSW - SIRHA
+ * @version 1.0
+ * @since 2025-11-02
+ */
+public class TooManyRequestsException extends RuntimeException {
+
+    private final long retryAfterSeconds;
+
+    /**
+     * Constructor con mensaje y tiempo sugerido de reintento.
+     * 
+     * @param message Descripción del rechazo
+     * @param retryAfterSeconds Segundos que el cliente debe esperar antes de reintentar
+     */
+    public TooManyRequestsException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    /**
+     * Retorna los segundos sugeridos para el header {@code Retry-After}.
+     * 
+     * @return Segundos de espera antes de reintentar
+     */
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
@@ -98,8 +98,11 @@ public class SolicitudMapper {
 				.prioridad(solicitud.getPrioridad())
 				.fechaSolicitud(solicitud.getFechaSolicitud())
 				.fechaLimiteRespuesta(solicitud.getFechaLimiteRespuesta())
+				.vencida(solicitud.isVencida())
 				.fechaActualizacion(solicitud.getFechaActualizacion())
 				.historial(solicitud.getHistorial() == null ? null : new ArrayList<>(solicitud.getHistorial()))
+				.revisorAsignado(solicitud.getRevisorAsignado())
+				.asignacionVence(solicitud.getAsignacionVence())
 				.build();
 	}
 }
\ No newline at end of file
@@ -1,10 +1,10 @@
 package edu.dosw.sirha.model;
 
 import java.time.Instant;
-import java.util.ArrayList;
 import java.util.List;
 
 import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Version;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import jakarta.validation.constraints.Min;
@@ -34,13 +34,19 @@ import lombok.NoArgsConstructor;
  * <ul>
  *   <li>Al inscribir: se incrementa {@code cuposActuales}</li>
  *   <li>Al cancelar: se decrementa {@code cuposActuales}</li>
- *   <li>Al llenar: estudiantes van a {@code listaEspera}</li>
+ *   <li>Al llenar: estudiantes van a la lista de espera
+ *       ({@link edu.dosw.sirha.service.ListaEsperaService}), en su propia colección</li>
  *   <li>Alerta al 90% de ocupación ({@code estaEnAlerta()})</li>
  * </ul>
+ * <p>En la base de datos los cupos se modifican solo con las operaciones atómicas de
+ * {@link edu.dosw.sirha.repository.GrupoRepositoryCustom}; {@code incrementarCupo()} y
+ * {@code decrementarCupo()} operan sobre la copia en memoria.</p>
  * 
  * <h2>Horarios del Grupo:</h2>
  * <p>Cada grupo tiene una lista de {@link Horario} que define cuándo se dictan las clases.
- * Los horarios se validan automáticamente para detectar conflictos con otros grupos.</p>
+ * Los horarios se validan automáticamente para detectar conflictos con otros grupos.
+ * Al guardar el grupo se precalculan sus franjas en un {@link WeeklySlotMask}, de modo
+ * que comparar dos grupos es una operación de bits.</p>
  * 
  * <h2>Métodos Útiles:</h2>
  * <ul>
@@ -148,17 +154,34 @@ public class Grupo {
     private List<Horario> horarios;
 
     /**
-     * Lista de IDs de estudiantes en espera de cupo.
-     * <p>Cuando el grupo está lleno, estudiantes pueden agregarse a lista de espera.
-     * Si se libera un cupo, se notifica al primer estudiante de la lista.</p>
+     * Franjas de 15 minutos que ocupan los {@link #horarios}.
+     * <p>Se calcula al guardar el grupo y al primer uso de {@link #franjas()};
+     * {@link #setHorarios(List)} la descarta.</p>
      */
-    private List<String> listaEspera;
+    private WeeklySlotMask franjas;
+
+    /**
+     * Último turno entregado en la lista de espera del grupo.
+     * <p>Se incrementa atómicamente al ingresar un estudiante; las entradas viven en
+     * {@link ListaEsperaEntrada}.</p>
+     */
+    private long ultimaPosicionEspera;
 
     /**
      * Indica si el grupo está activo y disponible para inscripciones.
      * <p><b>false:</b> Grupo cancelado o cerrado</p>
      */
     private boolean activo;
+
+    /**
+     * Versión para bloqueo optimista.
+     * <p>Un {@code save} con una versión desactualizada falla con
+     * {@link org.springframework.dao.OptimisticLockingFailureException}. Los grupos
+     * anteriores a este campo reciben la versión 0 al arrancar
+     * ({@link edu.dosw.sirha.config.GrupoVersionBackfill}).</p>
+     */
+    @Version
+    private Long version;
     
     /**
      * Verifica si el grupo tiene cupos disponibles.
@@ -224,12 +247,43 @@ public class Grupo {
         if (this.horarios == null || otroGrupo.getHorarios() == null) {
             return false;
         }
-        
+        WeeklySlotMask propias = franjas();
+        WeeklySlotMask otras = otroGrupo.franjas();
+        if (propias.esExacta() && otras.esExacta()) {
+            return propias.seSolapaCon(otras);
+        }
+        // Algún horario fuera de las franjas: se compara horario a horario
         return this.horarios.stream()
                 .anyMatch(horario1 -> otroGrupo.getHorarios().stream()
                         .anyMatch(horario1::tieneConflictoCon));
     }
     
+    /**
+     * Retorna las franjas ocupadas por los horarios del grupo.
+     * 
+     * <p>Si el grupo se leyó sin franjas (documentos anteriores) se calculan aquí.
+     * Los horarios deben cambiarse con {@link #setHorarios(List)}: modificar la lista
+     * en sitio no actualiza las franjas hasta el siguiente guardado.</p>
+     * 
+     * @return Máscara semanal del grupo
+     */
+    public WeeklySlotMask franjas() {
+        if (franjas == null) {
+            franjas = WeeklySlotMask.de(horarios);
+        }
+        return franjas;
+    }
+
+    /**
+     * Reemplaza los horarios del grupo y descarta las franjas calculadas.
+     * 
+     * @param horarios Nuevos horarios
+     */
+    public void setHorarios(List<Horario> horarios) {
+        this.horarios = horarios;
+        this.franjas = null;
+    }
+    
     /**
      * Incrementa el cupo actual en 1 (para inscripciones).
      * 
@@ -250,40 +304,13 @@ public class Grupo {
      * 
      * <p>Llamado cuando un estudiante cancela su inscripción o se retira del grupo.</p>
      * <p>Solo decrementa si cuposActuales > 0 para mantener invariantes.</p>
+     * <p>En la base de datos, el cupo que deja una inscripción cancelada pasa primero a
+     * la cabeza de la lista de espera
+     * ({@link edu.dosw.sirha.service.ListaEsperaService#promover(String, int)}).</p>
      */
     public void decrementarCupo() {
         if (cuposActuales > 0) {
             cuposActuales--;
         }
     }
-    
-    /**
-     * Agrega un estudiante a la lista de espera del grupo.
-     * 
-     * <p>Llamado cuando el grupo está lleno pero el estudiante quiere ser notificado
-     * si se libera un cupo. No permite duplicados.</p>
-     * 
-     * @param estudianteId ID del estudiante a agregar a lista de espera
-     */
-    public void agregarAListaEspera(String estudianteId) {
-        if (listaEspera == null) {
-            listaEspera = new ArrayList<>();
-        }
-        if (!listaEspera.contains(estudianteId)) {
-            listaEspera.add(estudianteId);
-        }
-    }
-    
-    /**
-     * Remueve un estudiante de la lista de espera.
-     * 
-     * <p>Llamado cuando el estudiante ya no desea esperar o logró inscribirse.</p>
-     * 
-     * @param estudianteId ID del estudiante a remover de lista de espera
-     */
-    public void removerDeListaEspera(String estudianteId) {
-        if (listaEspera != null) {
-            listaEspera.remove(estudianteId);
-        }
-    }
 }
@@ -0,0 +1,64 @@
+package edu.dosw.sirha.model;
+
+import java.time.Instant;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Resultado registrado de una petición enviada con {@code Idempotency-Key}.
+ * 
+ * <p>Se crea sin respuesta al empezar la petición, de modo que un reintento que
+ * llegue a otra réplica mientras tanto no vuelva a ejecutarla, y se completa con
+ * la respuesta serializada al terminar. Un índice TTL lo elimina al llegar a
+ * {@code expiraEn}.</p>
+ * 
+ * @author Equipo DOSW - SIRHA
+ * @version 1.0
+ * @since 2025-11-02
+ * 
+ * @see edu.dosw.sirha.service.IdempotencyService
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "idempotency_keys")
+public class IdempotencyRecord {
+
+    /**
+     * Usuario, operación y clave enviada por el cliente.
+     */
+    @Id
+    private String id;
+
+    /**
+     * Huella SHA-256 del cuerpo de la petición original.
+     */
+    private String huella;
+
+    /**
+     * Respuesta serializada en JSON; nula mientras la petición está en curso.
+     */
+    private String respuesta;
+
+    /**
+     * Fecha en que se recibió la petición original.
+     */
+    @Field("creado_en")
+    private Instant creadoEn;
+
+    /**
+     * Fecha de borrado por TTL.
+     */
+    @Indexed(expireAfterSeconds = 0)
+    @Field("expira_en")
+    private Instant expiraEn;
+}
@@ -0,0 +1,87 @@
+package edu.dosw.sirha.model;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Version;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Estado compartido del keyring JWT entre réplicas.
+ *
+ * <p>Hay un único documento ({@link #ID}). Cada réplica lo recarga periódicamente y
+ * reconstruye su {@link edu.dosw.sirha.security.JwtKeyring}, de modo que una rotación
+ * hecha en cualquier nodo llega a todos. La colección guarda los secretos de firma y
+ * debe protegerse igual que {@code JWT_SECRET}.</p>
+ *
+ * <p>Una clave recién activada empieza a firmar en {@link #activeFrom}; hasta entonces
+ * se sigue firmando con {@link #previousKid}, dando tiempo a que todas las réplicas
+ * conozcan la clave nueva antes de recibir tokens firmados con ella.</p>
+ *
+ * @author Equipo DOSW - SIRHA
+ * @version 1.0
+ * @since 2025-11-02
+ *
+ * @see edu.dosw.sirha.security.JwtKeyStore
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "jwt_keyring")
+public class JwtKeyringEstado {
+
+    /**
+     * ID del único documento de la colección.
+     */
+    public static final String ID = "keyring";
+
+    @Id
+    private String id;
+
+    /**
+     * Claves registradas, en orden de registro.
+     */
+    @Builder.Default
+    private List<Clave> claves = new ArrayList<>();
+
+    /**
+     * Kid que firma los tokens nuevos a partir de {@link #activeFrom}.
+     */
+    private String activeKid;
+
+    /**
+     * Kid que firma mientras la activación de {@link #activeKid} está pendiente.
+     */
+    private String previousKid;
+
+    /**
+     * Momento desde el que firma {@link #activeKid}; null si ya firmaba al cargarse.
+     */
+    private Instant activeFrom;
+
+    /**
+     * Versión para bloqueo optimista entre réplicas que rotan a la vez.
+     */
+    @Version
+    private Long version;
+
+    /**
+     * Clave de firma registrada.
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Clave {
+
+        private String kid;
+        private String secret;
+    }
+}
@@ -0,0 +1,83 @@
+package edu.dosw.sirha.model;
+
+import java.time.Instant;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Estudiante en la lista de espera de un {@link Grupo}.
+ * 
+ * <p>Cada entrada es un documento propio, de modo que la lista no pesa sobre el
+ * documento del grupo. El orden lo da {@code posicion}, un turno creciente por grupo
+ * ({@link Grupo#getUltimaPosicionEspera()}); los turnos no se reutilizan, así que
+ * puede haber huecos cuando un estudiante se retira.</p>
+ * 
+ * <p>Mientras {@code fechaPromocion} es nula el estudiante está esperando. Al
+ * liberarse un cupo, las entradas de la cabeza se promueven: el cupo pasa al
+ * estudiante con una {@link Inscripcion} de ID {@code espera-<id>} y la entrada queda
+ * como registro de la promoción.</p>
+ * 
+ * @author Equipo DOSW - SIRHA
+ * @version 1.0
+ * @since 2025-11-02
+ * 
+ * @see edu.dosw.sirha.service.ListaEsperaService
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "lista_espera")
+@CompoundIndexes({
+    @CompoundIndex(name = "grupo_estudiante", def = "{'grupoId': 1, 'estudianteId': 1}", unique = true),
+    @CompoundIndex(name = "grupo_promocion_posicion", def = "{'grupoId': 1, 'fecha_promocion': 1, 'posicion': 1}")
+})
+public class ListaEsperaEntrada {
+
+    /**
+     * Identificador único de la entrada.
+     */
+    @Id
+    private String id;
+
+    /**
+     * ID del grupo en el que se espera cupo.
+     */
+    private String grupoId;
+
+    /**
+     * ID del estudiante.
+     */
+    private String estudianteId;
+
+    /**
+     * Turno dentro del grupo; menor es antes.
+     */
+    private long posicion;
+
+    /**
+     * Fecha de ingreso a la lista.
+     */
+    @Field("fecha_ingreso")
+    private Instant fechaIngreso;
+
+    /**
+     * Fecha en que el estudiante recibió un cupo; nula mientras espera.
+     */
+    @Field("fecha_promocion")
+    private Instant fechaPromocion;
+
+    /**
+     * Identificador del lote de promoción que tomó la entrada.
+     */
+    private String lote;
+}
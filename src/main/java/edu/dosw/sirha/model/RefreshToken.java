@@ -0,0 +1,91 @@
+package edu.dosw.sirha.model;
+
+import java.time.Instant;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Refresh token de un solo uso emitido junto con el token de acceso JWT.
+ * 
+ * <p>Permite renovar la sesión sin volver a enviar la contraseña (y sin pagar
+ * una verificación BCrypt). Cada uso rota el token: el presentado queda marcado
+ * como usado y se emite uno nuevo de la misma familia.</p>
+ * 
+ * <h2>Seguridad:</h2>
+ * <ul>
+ *   <li>Solo se almacena el hash SHA-256 del token, nunca su valor</li>
+ *   <li>Presentar un token ya usado se considera robo: se revoca toda la familia</li>
+ *   <li>La sesión se desliza con cada uso, sin superar {@code expiraAbsolutoEn}</li>
+ * </ul>
+ * 
+ * <p>MongoDB elimina los documentos automáticamente al llegar a {@code expiraEn}
+ * mediante un índice TTL.</p>
+ * 
+ * @author Equipo DOSW - SIRHA
+ * @version 1.0
+ * @since 2025-11-02
+ * 
+ * @see edu.dosw.sirha.service.RefreshTokenService
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "refresh_tokens")
+public class RefreshToken {
+
+    @Id
+    private String id;
+
+    /**
+     * Hash SHA-256 (Base64 URL) del token entregado al cliente.
+     */
+    @Indexed(unique = true)
+    @Field("token_hash")
+    private String tokenHash;
+
+    /**
+     * Identificador de la cadena de rotaciones iniciada en un login.
+     */
+    @Indexed
+    @Field("familia_id")
+    private String familiaId;
+
+    /**
+     * ID del usuario dueño de la sesión.
+     */
+    @Field("user_id")
+    private String userId;
+
+    /**
+     * Fecha de emisión del token.
+     */
+    @Field("emitido_en")
+    private Instant emitidoEn;
+
+    /**
+     * Fecha de expiración por inactividad; también es la fecha de borrado por TTL.
+     */
+    @Indexed(expireAfterSeconds = 0)
+    @Field("expira_en")
+    private Instant expiraEn;
+
+    /**
+     * Límite absoluto de la sesión, heredado por todos los tokens de la familia.
+     */
+    @Field("expira_absoluto_en")
+    private Instant expiraAbsolutoEn;
+
+    /**
+     * Indica si el token ya fue canjeado por uno nuevo.
+     */
+    private boolean usado;
+}
@@ -0,0 +1,58 @@
+package edu.dosw.sirha.model;
+
+import java.time.Instant;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Token JWT revocado antes de su expiración (logout).
+ * 
+ * <p>Se identifica por el claim {@code jti} del token. El documento solo es
+ * necesario mientras el token podría seguir siendo aceptado, por lo que un
+ * índice TTL lo elimina al llegar a {@code expiraEn} (la expiración del token).</p>
+ * 
+ * @author Equipo DOSW - SIRHA
+ * @version 1.0
+ * @since 2025-11-02
+ * 
+ * @see edu.dosw.sirha.security.TokenRevocationService
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "tokens_revocados")
+public class RevokedToken {
+
+    /**
+     * Claim {@code jti} del token revocado.
+     */
+    @Id
+    private String jti;
+
+    /**
+     * Email del usuario dueño del token.
+     */
+    private String subject;
+
+    /**
+     * Fecha de revocación.
+     */
+    @Field("revocado_en")
+    private Instant revocadoEn;
+
+    /**
+     * Expiración original del token; también es la fecha de borrado por TTL.
+     */
+    @Indexed(expireAfterSeconds = 0)
+    @Field("expira_en")
+    private Instant expiraEn;
+}
@@ -0,0 +1,47 @@
+package edu.dosw.sirha.model;
+
+import java.time.Instant;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Bloqueo con vencimiento que elige qué réplica ejecuta una tarea programada.
+ *
+ * <p>Hay un documento por tarea. La réplica que lo tiene lo renueva en cada
+ * ejecución; si deja de hacerlo, otra lo toma cuando vence.</p>
+ *
+ * @author Equipo DOSW - SIRHA
+ * @version 1.0
+ * @since 2025-11-02
+ *
+ * @see edu.dosw.sirha.service.LeaderLock
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "scheduler_locks")
+public class SchedulerLock {
+
+    /**
+     * Nombre de la tarea programada.
+     */
+    @Id
+    private String id;
+
+    /**
+     * Nodo que tiene el bloqueo ({@link edu.dosw.sirha.config.NodeIdentity}).
+     */
+    private String owner;
+
+    /**
+     * Momento en que vence el bloqueo si no se renueva.
+     */
+    private Instant expiresAt;
+}
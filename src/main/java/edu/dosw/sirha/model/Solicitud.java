@@ -7,6 +7,9 @@ import java.util.List;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.Id;
 import org.springframework.data.annotation.LastModifiedDate;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 import org.springframework.data.mongodb.core.mapping.Field;
 
@@ -94,7 +97,8 @@ import lombok.NoArgsConstructor;
  * 
  * <h2>Código de Solicitud:</h2>
  * <p>Cada solicitud tiene un {@code codigoSolicitud} único generado automáticamente con formato:
- * {@code SOL-YYYYMMDD-XXXXX} donde XXXXX es un consecutivo numérico. Ejemplo: "SOL-20240615-00123"</p>
+ * {@code SOL-yyyyMMddHHmmss-NNNNSSSSSS} donde NNNN identifica al nodo y SSSSSS es un consecutivo
+ * hexadecimal. Ejemplo: "SOL-20240615143000-3F2A000001"</p>
  * 
  * <h2>Fechas Importantes:</h2>
  * <ul>
@@ -107,7 +111,7 @@ import lombok.NoArgsConstructor;
  * <pre>
  * {
  *   "id": "6662ce5f6789012345f01234",
- *   "codigoSolicitud": "SOL-20240615-00123",
+ *   "codigoSolicitud": "SOL-20240615143000-3F2A000001",
  *   "estado": "PENDIENTE",
  *   "tipo": "CAMBIO_GRUPO",
  *   "descripcion": "Solicito cambio de grupo por conflicto laboral",
@@ -148,6 +152,14 @@ import lombok.NoArgsConstructor;
 @NoArgsConstructor
 @AllArgsConstructor
 @Document(collection = "solicitudes")
+@CompoundIndexes({
+    @CompoundIndex(name = "estudiante_fecha_id", def = "{'estudianteId': 1, 'fecha_solicitud': -1, '_id': -1}"),
+    @CompoundIndex(name = "estado_prioridad_id", def = "{'estado': 1, 'prioridad': 1, '_id': 1}"),
+    @CompoundIndex(name = "cola_revision", def = "{'estado': 1, 'prioridad': 1, 'fecha_solicitud': 1}"),
+    @CompoundIndex(name = "estado_limite", def = "{'estado': 1, 'fecha_limite_respuesta': 1}"),
+    @CompoundIndex(name = "periodo_fecha_id", def = "{'periodoId': 1, 'fecha_solicitud': -1, '_id': -1}"),
+    @CompoundIndex(name = "fecha_id", def = "{'fecha_solicitud': -1, '_id': -1}")
+})
 public class Solicitud {
 
     /**
@@ -159,16 +171,18 @@ public class Solicitud {
 
     /**
      * Código único de la solicitud para referencia humana.
-     * <p>Generado automáticamente con formato: {@code SOL-YYYYMMDD-XXXXX}</p>
-     * <p><b>Ejemplo:</b> "SOL-20240615-00123"</p>
+     * <p>Generado automáticamente con formato: {@code SOL-yyyyMMddHHmmss-NNNNSSSSSS}</p>
+     * <p><b>Ejemplo:</b> "SOL-20240615143000-3F2A000001"</p>
      * <ul>
      *   <li><b>SOL:</b> Prefijo que identifica como solicitud</li>
-     *   <li><b>YYYYMMDD:</b> Fecha de creación (año, mes, día)</li>
-     *   <li><b>XXXXX:</b> Consecutivo numérico del día</li>
+     *   <li><b>yyyyMMddHHmmss:</b> Fecha y hora de creación en UTC</li>
+     *   <li><b>NNNN:</b> Identificador hexadecimal del nodo que la creó</li>
+     *   <li><b>SSSSSS:</b> Consecutivo hexadecimal dentro del segundo</li>
      * </ul>
      * <p>Este código se usa en comunicaciones con estudiantes y para búsquedas rápidas.</p>
      */
     @NotBlank
+    @Indexed(unique = true)
     private String codigoSolicitud;
 
     /**
@@ -338,6 +352,14 @@ public class Solicitud {
     @Field("fecha_limite_respuesta")
     private Instant fechaLimiteRespuesta;
 
+    /**
+     * Indica si la solicitud superó su {@link #fechaLimiteRespuesta} sin resolverse.
+     * <p>Lo marca {@link edu.dosw.sirha.service.PlazoScheduler} al vencer el plazo,
+     * junto con un evento {@code PLAZO_VENCIDO} en el historial.</p>
+     * <p><b>Por defecto:</b> false</p>
+     */
+    private boolean vencida;
+
     /**
      * Fecha y hora de la última actualización de la solicitud.
      * <p>Campo de auditoría gestionado automáticamente por Spring Data MongoDB.
@@ -363,12 +385,39 @@ public class Solicitud {
      * <p>Esto proporciona trazabilidad completa del proceso de aprobación y permite
      * auditar quién tomó qué decisiones y cuándo.</p>
      * <p><b>Por defecto:</b> Lista vacía inicializada automáticamente por Lombok @Builder.Default</p>
+     * <p>Una vez archivado ({@link #historialArchivado}), el documento solo conserva los
+     * eventos más recientes ({@code sirha.solicitudes.historial.max-embebido}); el
+     * historial completo se guarda en la colección {@code solicitud_historial}.</p>
      * 
      * @see SolicitudHistorialEntry
+     * @see SolicitudHistorial
      */
     @Builder.Default
     private List<SolicitudHistorialEntry> historial = new ArrayList<>();
 
+    /**
+     * Indica si el historial completo de la solicitud está en {@code solicitud_historial}.
+     * <p>Mientras sea false (solicitudes anteriores al archivo de historial, o cuyo
+     * archivado falló) el historial embebido no se acota y es la fuente completa.</p>
+     * <p><b>Por defecto:</b> false</p>
+     */
+    private boolean historialArchivado;
+
+    /**
+     * Revisor (email) que tiene asignada la solicitud en la cola de revisión.
+     * <p>La asignación es temporal: vence en {@link #asignacionVence} y, si no se
+     * renueva, la solicitud vuelve a estar disponible para otros coordinadores.</p>
+     * <p><b>Null:</b> la solicitud no está asignada</p>
+     */
+    private String revisorAsignado;
+
+    /**
+     * Momento en que vence la asignación de la solicitud a {@link #revisorAsignado}.
+     * <p>Una asignación vencida equivale a no tener asignación.</p>
+     */
+    @Field("asignacion_vence")
+    private Instant asignacionVence;
+
     /**
      * Agrega una nueva entrada al historial de la solicitud.
      * <p>Método de conveniencia para registrar eventos en el historial. Cada vez que se
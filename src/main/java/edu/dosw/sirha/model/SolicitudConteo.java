@@ -0,0 +1,78 @@
+package edu.dosw.sirha.model;
+
+import java.time.Instant;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import edu.dosw.sirha.model.enums.SolicitudEstado;
+import edu.dosw.sirha.model.enums.SolicitudTipo;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Total acumulado de solicitudes por período, estado y tipo.
+ *
+ * <p>Los dashboards consultan cuántas solicitudes hay en cada estado varias veces
+ * por minuto. En lugar de contar la colección de solicitudes en cada consulta, cada
+ * creación, cambio de estado y eliminación incrementa o decrementa el total
+ * correspondiente en esta colección, que tiene un documento por combinación.</p>
+ *
+ * @author Equipo DOSW - SIRHA
+ * @version 1.0
+ * @since 2025-11-02
+ *
+ * @see edu.dosw.sirha.service.ContadorSolicitudes
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "solicitud_conteos")
+public class SolicitudConteo {
+
+    /**
+     * Identificador compuesto {@code periodoId|estado|tipo}.
+     */
+    @Id
+    private String id;
+
+    /**
+     * ID del período académico de las solicitudes contadas.
+     */
+    private String periodoId;
+
+    /**
+     * Estado de las solicitudes contadas.
+     */
+    private SolicitudEstado estado;
+
+    /**
+     * Tipo de las solicitudes contadas.
+     */
+    private SolicitudTipo tipo;
+
+    /**
+     * Cantidad de solicitudes.
+     */
+    private long total;
+
+    /**
+     * Fecha de la última escritura del total.
+     */
+    private Instant fechaActualizacion;
+
+    /**
+     * Construye el identificador del total de una combinación.
+     *
+     * @param periodoId ID del período
+     * @param estado Estado
+     * @param tipo Tipo de solicitud
+     * @return Identificador {@code periodoId|estado|tipo}
+     */
+    public static String idDe(String periodoId, SolicitudEstado estado, SolicitudTipo tipo) {
+        return periodoId + "|" + estado + "|" + tipo;
+    }
+}
@@ -0,0 +1,97 @@
+package edu.dosw.sirha.model;
+
+import java.time.Instant;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Evento del historial completo de una solicitud.
+ * 
+ * <p>El documento de {@link Solicitud} solo conserva los eventos más recientes en
+ * {@code historial}, para que cada cambio de estado escriba un documento de tamaño
+ * acotado. El registro completo se guarda en esta colección de solo inserción,
+ * un documento por evento.</p>
+ * 
+ * @author Equipo DOSW - SIRHA
+ * @version 1.0
+ * @since 2025-11-02
+ * 
+ * @see SolicitudHistorialEntry
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "solicitud_historial")
+@CompoundIndex(name = "solicitud_fecha_idx", def = "{'solicitudId': 1, 'fecha': 1}")
+public class SolicitudHistorial {
+
+    /**
+     * Identificador único del evento.
+     */
+    @Id
+    private String id;
+
+    /**
+     * ID de la solicitud a la que pertenece el evento.
+     */
+    private String solicitudId;
+
+    /**
+     * Fecha y hora del evento.
+     */
+    private Instant fecha;
+
+    /**
+     * Acción registrada (ej: "CREADA", "ESTADO:APROBADA").
+     */
+    private String accion;
+
+    /**
+     * ID del usuario que realizó la acción.
+     */
+    private String usuarioId;
+
+    /**
+     * Comentario asociado al evento.
+     */
+    private String comentario;
+
+    /**
+     * Construye el registro a partir de una entrada del historial embebido.
+     * 
+     * @param solicitudId ID de la solicitud
+     * @param entrada Evento del historial
+     * @return Registro para la colección de historial
+     */
+    public static SolicitudHistorial de(String solicitudId, SolicitudHistorialEntry entrada) {
+        return SolicitudHistorial.builder()
+                .solicitudId(solicitudId)
+                .fecha(entrada.getFecha())
+                .accion(entrada.getAccion())
+                .usuarioId(entrada.getUsuarioId())
+                .comentario(entrada.getComentario())
+                .build();
+    }
+
+    /**
+     * Convierte el registro en una entrada de historial.
+     * 
+     * @return Entrada equivalente
+     */
+    public SolicitudHistorialEntry toEntry() {
+        return SolicitudHistorialEntry.builder()
+                .fecha(fecha)
+                .accion(accion)
+                .usuarioId(usuarioId)
+                .comentario(comentario)
+                .build();
+    }
+}
@@ -276,4 +276,13 @@ public class User {
      */
     @Field("ultimo_acceso")
     private Instant ultimoAcceso;
+
+    /**
+     * Versión de las credenciales emitidas al usuario.
+     * <p>Se incluye como claim en cada token JWT. Al cambiar el rol o desactivar
+     * la cuenta se incrementa, de modo que los tokens con una versión anterior
+     * dejan de ser aceptados sin consultar la base de datos en cada request.</p>
+     */
+    @Field("token_version")
+    private int tokenVersion;
 }
\ No newline at end of file
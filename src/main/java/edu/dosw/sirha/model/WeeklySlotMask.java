@@ -0,0 +1,180 @@
+package edu.dosw.sirha.model;
+
+import java.time.DayOfWeek;
+import java.time.LocalTime;
+import java.util.Arrays;
+import java.util.Collection;
+
+import org.springframework.data.annotation.PersistenceCreator;
+
+/**
+ * Semana de clases representada como franjas de 15 minutos.
+ * 
+ * <p>Cubre de lunes a sábado, de {@link Horario#HORA_INICIO_SEMANAL} a
+ * {@link Horario#HORA_FIN_SEMANAL}: 48 franjas por día, guardadas en un {@code long}
+ * por día (bit {@code i} = franja que empieza {@code 15 * i} minutos después de las
+ * 7:00). Dos semanas se solapan si algún día comparte un bit, es decir, seis
+ * operaciones AND sin recorrer ni crear objetos.</p>
+ * 
+ * <p>La máscara es {@link #esExacta() exacta} cuando todos los horarios empiezan y
+ * terminan en múltiplos de 15 minutos dentro del rango cubierto; entonces el solape de
+ * las máscaras coincide con {@link Horario#tieneConflictoCon(Horario)}. Si algún
+ * horario no cumple, la máscara se redondea hacia afuera y quien la use debe confirmar
+ * con la comparación horario a horario.</p>
+ * 
+ * <p>Es inmutable y se puede compartir entre hilos.</p>
+ * 
+ * @see Grupo#franjas()
+ */
+public final class WeeklySlotMask {
+
+    /**
+     * Duración de cada franja en minutos.
+     */
+    public static final int MINUTOS_FRANJA = 15;
+
+    /**
+     * Días cubiertos (lunes a sábado).
+     */
+    public static final int DIAS = 6;
+
+    /**
+     * Franjas por día, de 7:00 a 19:00.
+     */
+    public static final int FRANJAS_POR_DIA = 48;
+
+    /**
+     * Semana sin clases.
+     */
+    public static final WeeklySlotMask VACIA = new WeeklySlotMask(new long[DIAS], true);
+
+    private static final int SEGUNDO_INICIO = Horario.HORA_INICIO_SEMANAL.toSecondOfDay();
+    private static final int SEGUNDOS_FRANJA = MINUTOS_FRANJA * 60;
+    private static final int SEGUNDOS_DIA = FRANJAS_POR_DIA * SEGUNDOS_FRANJA;
+
+    private final long[] dias;
+    private final boolean exacta;
+
+    @PersistenceCreator
+    WeeklySlotMask(long[] dias, boolean exacta) {
+        // Documentos guardados sin máscara: se tratan como no exactos
+        this.dias = dias != null && dias.length == DIAS ? dias : new long[DIAS];
+        this.exacta = exacta && dias != null && dias.length == DIAS;
+    }
+
+    /**
+     * Construye la máscara de un conjunto de horarios.
+     * 
+     * @param horarios Horarios de un grupo o de la semana de un estudiante
+     * @return Máscara con las franjas ocupadas
+     */
+    public static WeeklySlotMask de(Collection<Horario> horarios) {
+        if (horarios == null || horarios.isEmpty()) {
+            return VACIA;
+        }
+        long[] dias = new long[DIAS];
+        boolean exacta = true;
+        for (Horario horario : horarios) {
+            if (horario == null || horario.getDia() == null || horario.getHoraInicio() == null
+                    || horario.getHoraFin() == null || horario.getDia() == DayOfWeek.SUNDAY) {
+                exacta = false;
+                continue;
+            }
+            int inicio = segundos(horario.getHoraInicio());
+            int fin = segundos(horario.getHoraFin());
+            if (inicio >= fin) {
+                exacta = false;
+                continue;
+            }
+            if (inicio < 0 || fin > SEGUNDOS_DIA || inicio % SEGUNDOS_FRANJA != 0 || fin % SEGUNDOS_FRANJA != 0) {
+                exacta = false;
+            }
+            // Redondeo hacia afuera, recortado al rango cubierto
+            int desde = Math.max(0, Math.floorDiv(inicio, SEGUNDOS_FRANJA));
+            int hasta = Math.min(FRANJAS_POR_DIA, Math.floorDiv(fin + SEGUNDOS_FRANJA - 1, SEGUNDOS_FRANJA));
+            if (desde < hasta) {
+                dias[horario.getDia().getValue() - 1] |= rango(desde, hasta);
+            }
+        }
+        return new WeeklySlotMask(dias, exacta);
+    }
+
+    /**
+     * Indica si alguna franja está ocupada en ambas semanas.
+     * 
+     * @param otra Semana con la que se compara
+     * @return true si comparten al menos una franja
+     */
+    public boolean seSolapaCon(WeeklySlotMask otra) {
+        for (int dia = 0; dia < DIAS; dia++) {
+            if ((dias[dia] & otra.dias[dia]) != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Combina dos semanas (por ejemplo, los grupos inscritos de un estudiante).
+     * 
+     * @param otra Semana a agregar
+     * @return Máscara con las franjas de ambas
+     */
+    public WeeklySlotMask union(WeeklySlotMask otra) {
+        long[] combinados = new long[DIAS];
+        for (int dia = 0; dia < DIAS; dia++) {
+            combinados[dia] = dias[dia] | otra.dias[dia];
+        }
+        return new WeeklySlotMask(combinados, exacta && otra.exacta);
+    }
+
+    /**
+     * Indica si la máscara representa los horarios sin redondeo.
+     * 
+     * @return true si el solape de máscaras equivale al solape de horarios
+     */
+    public boolean esExacta() {
+        return exacta;
+    }
+
+    /**
+     * Indica si la franja que empieza a la hora dada está ocupada.
+     * 
+     * @param dia Día de la semana
+     * @param hora Inicio de la franja
+     * @return true si está ocupada
+     */
+    public boolean ocupada(DayOfWeek dia, LocalTime hora) {
+        int segundo = segundos(hora);
+        if (dia == DayOfWeek.SUNDAY || segundo < 0 || segundo >= SEGUNDOS_DIA) {
+            return false;
+        }
+        return (dias[dia.getValue() - 1] & (1L << (segundo / SEGUNDOS_FRANJA))) != 0;
+    }
+
+    private static int segundos(LocalTime hora) {
+        return hora.toSecondOfDay() - SEGUNDO_INICIO;
+    }
+
+    private static long rango(int desde, int hasta) {
+        return ((1L << (hasta - desde)) - 1) << desde;
+    }
+
+    @Override
+    public boolean equals(Object otro) {
+        if (this == otro) {
+            return true;
+        }
+        return otro instanceof WeeklySlotMask mascara && exacta == mascara.exacta && Arrays.equals(dias, mascara.dias);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * Arrays.hashCode(dias) + Boolean.hashCode(exacta);
+    }
+
+    @Override
+    public String toString() {
+        return "WeeklySlotMask" + Arrays.toString(dias) + (exacta ? "" : "~");
+    }
+}
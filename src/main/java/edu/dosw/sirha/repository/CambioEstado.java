@@ -0,0 +1,29 @@
+package edu.dosw.sirha.repository;
+
+import java.time.Instant;
+
+import edu.dosw.sirha.model.SolicitudHistorialEntry;
+import edu.dosw.sirha.model.enums.SolicitudEstado;
+
+/**
+ * Cambio de estado de una solicitud, aplicado como actualización parcial.
+ * 
+ * <p>El cambio solo se aplica si la solicitud sigue en {@code estadoAnterior};
+ * así un cambio concurrente sobre la misma solicitud no se pisa.</p>
+ * 
+ * @param id ID de la solicitud
+ * @param estadoAnterior Estado leído antes de validar el cambio
+ * @param estadoNuevo Estado a asignar
+ * @param fecha Fecha de actualización a registrar
+ * @param evento Entrada a agregar al historial
+ * @param quitarAsignacion true si el nuevo estado sale de la cola de revisión y se
+ *        debe quitar la asignación del revisor
+ */
+public record CambioEstado(
+		String id,
+		SolicitudEstado estadoAnterior,
+		SolicitudEstado estadoNuevo,
+		Instant fecha,
+		SolicitudHistorialEntry evento,
+		boolean quitarAsignacion) {
+}
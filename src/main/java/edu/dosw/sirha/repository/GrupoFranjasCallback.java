@@ -0,0 +1,26 @@
+package edu.dosw.sirha.repository;
+
+import edu.dosw.sirha.model.Grupo;
+import edu.dosw.sirha.model.WeeklySlotMask;
+import org.springframework.data.mongodb.core.mapping.event.BeforeConvertCallback;
+import org.springframework.stereotype.Component;
+
+/**
+ * Calcula las franjas de un {@link Grupo} antes de guardarlo.
+ *
+ * <p>Así el documento siempre lleva la {@link WeeklySlotMask} de sus horarios actuales,
+ * aunque la lista se haya modificado en sitio, y las lecturas no necesitan recalcularla.</p>
+ *
+ * @author Equipo DOSW - SIRHA
+ * @version 1.0
+ * @since 2025-11-02
+ */
+@Component
+public class GrupoFranjasCallback implements BeforeConvertCallback<Grupo> {
+
+    @Override
+    public Grupo onBeforeConvert(Grupo grupo, String collection) {
+        grupo.setFranjas(WeeklySlotMask.de(grupo.getHorarios()));
+        return grupo;
+    }
+}
@@ -10,11 +10,12 @@ import java.util.Optional;
  * Repositorio de acceso a datos para {@link Grupo}.
  * 
  * <p>Proporciona consultas para buscar grupos activos de una materia
- * y buscar grupos por código único dentro de un periodo.</p>
+ * y buscar grupos por código único dentro de un periodo. Los cambios de cupo se
+ * hacen con las operaciones atómicas de {@link GrupoRepositoryCustom}.</p>
  * 
  * @see Grupo
  */
-public interface GrupoRepository extends MongoRepository<Grupo, String> {
+public interface GrupoRepository extends MongoRepository<Grupo, String>, GrupoRepositoryCustom {
     /**
      * Busca grupos activos de una materia.
      * 
@@ -0,0 +1,63 @@
+package edu.dosw.sirha.repository;
+
+import edu.dosw.sirha.model.Grupo;
+
+import java.util.Optional;
+
+/**
+ * Operaciones atómicas sobre los cupos de {@link Grupo}.
+ * 
+ * <p>Cada operación es un único {@code findAndModify} condicional en MongoDB, de modo
+ * que aprobaciones concurrentes sobre el mismo grupo nunca sobrepasan
+ * {@code cupoMax} ni pierden incrementos, sin cargar el documento en memoria.</p>
+ * 
+ * @see GrupoRepositoryImpl
+ */
+public interface GrupoRepositoryCustom {
+
+    /**
+     * Ocupa un cupo del grupo si aún hay disponibles.
+     * 
+     * @param grupoId ID del grupo
+     * @return Grupo actualizado, o vacío si no existe o está lleno
+     */
+    Optional<Grupo> reservarCupo(String grupoId);
+
+    /**
+     * Libera un cupo del grupo si tiene alguno ocupado.
+     * 
+     * @param grupoId ID del grupo
+     * @return Grupo actualizado, o vacío si no existe o no tiene cupos ocupados
+     */
+    Optional<Grupo> liberarCupo(String grupoId);
+
+    /**
+     * Ocupa varios cupos del grupo en una sola operación.
+     * 
+     * <p>Primero intenta ocupar todos los cupos pedidos con un único {@code $inc}
+     * condicional; si el grupo no tiene suficientes, ocupa uno a uno los que
+     * queden libres.</p>
+     * 
+     * @param grupoId ID del grupo
+     * @param cantidad Cupos a ocupar
+     * @return Cupos efectivamente ocupados, entre 0 y {@code cantidad}
+     */
+    int reservarCupos(String grupoId, int cantidad);
+
+    /**
+     * Libera varios cupos del grupo en una sola operación.
+     * 
+     * @param grupoId ID del grupo
+     * @param cantidad Cupos a liberar
+     * @return true si el grupo tenía al menos {@code cantidad} cupos ocupados
+     */
+    boolean liberarCupos(String grupoId, int cantidad);
+
+    /**
+     * Entrega el siguiente turno de la lista de espera del grupo.
+     * 
+     * @param grupoId ID del grupo
+     * @return Turno asignado, o vacío si el grupo no existe
+     */
+    Optional<Long> siguientePosicionEspera(String grupoId);
+}
@@ -0,0 +1,92 @@
+package edu.dosw.sirha.repository;
+
+import edu.dosw.sirha.model.Grupo;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.ArithmeticOperators;
+import org.springframework.data.mongodb.core.aggregation.ComparisonOperators;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.util.Optional;
+
+/**
+ * Implementación de {@link GrupoRepositoryCustom} con {@link MongoTemplate}.
+ * 
+ * <p>La condición de cupo viaja en el filtro ({@code $expr: {$lt: ["$cuposActuales", "$cupoMax"]}}),
+ * por lo que MongoDB evalúa y aplica el {@code $inc} sobre el mismo documento de forma
+ * atómica. También incrementa {@code version}, así un {@code save} de una copia
+ * obtenida antes de la reserva falla por bloqueo optimista en vez de pisar el contador.</p>
+ */
+@RequiredArgsConstructor
+public class GrupoRepositoryImpl implements GrupoRepositoryCustom {
+
+    private final MongoTemplate mongoTemplate;
+
+    @Override
+    public Optional<Grupo> reservarCupo(String grupoId) {
+        Query query = new Query(Criteria.where("id").is(grupoId)
+                .andOperator(Criteria.expr(ComparisonOperators.valueOf("cuposActuales").lessThan("cupoMax"))));
+        return modificarCupos(query, 1);
+    }
+
+    @Override
+    public Optional<Grupo> liberarCupo(String grupoId) {
+        Query query = new Query(Criteria.where("id").is(grupoId).and("cuposActuales").gt(0));
+        return modificarCupos(query, -1);
+    }
+
+    @Override
+    public int reservarCupos(String grupoId, int cantidad) {
+        if (cantidad <= 0) {
+            return 0;
+        }
+        if (cantidad > 1) {
+            Query query = new Query(Criteria.where("id").is(grupoId)
+                    .andOperator(Criteria.expr(ComparisonOperators
+                            .valueOf(ArithmeticOperators.valueOf("cuposActuales").add(cantidad))
+                            .lessThanEqualTo("cupoMax"))));
+            if (incrementar(query, cantidad)) {
+                return cantidad;
+            }
+        }
+        // No alcanzan los cupos para todos: ocupar uno a uno los que queden
+        int reservados = 0;
+        while (reservados < cantidad && reservarCupo(grupoId).isPresent()) {
+            reservados++;
+        }
+        return reservados;
+    }
+
+    @Override
+    public boolean liberarCupos(String grupoId, int cantidad) {
+        if (cantidad <= 0) {
+            return true;
+        }
+        Query query = new Query(Criteria.where("id").is(grupoId).and("cuposActuales").gte(cantidad));
+        return incrementar(query, -cantidad);
+    }
+
+    @Override
+    public Optional<Long> siguientePosicionEspera(String grupoId) {
+        Query query = new Query(Criteria.where("id").is(grupoId));
+        query.fields().include("ultimaPosicionEspera");
+        Update update = new Update().inc("ultimaPosicionEspera", 1).inc("version", 1);
+        return Optional.ofNullable(mongoTemplate.findAndModify(query, update,
+                FindAndModifyOptions.options().returnNew(true), Grupo.class))
+                .map(Grupo::getUltimaPosicionEspera);
+    }
+
+    private boolean incrementar(Query query, int delta) {
+        Update update = new Update().inc("cuposActuales", delta).inc("version", 1);
+        return mongoTemplate.updateFirst(query, update, Grupo.class).getModifiedCount() == 1;
+    }
+
+    private Optional<Grupo> modificarCupos(Query query, int delta) {
+        Update update = new Update().inc("cuposActuales", delta).inc("version", 1);
+        return Optional.ofNullable(mongoTemplate.findAndModify(query, update,
+                FindAndModifyOptions.options().returnNew(true), Grupo.class));
+    }
+}
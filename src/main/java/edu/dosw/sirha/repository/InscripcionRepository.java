@@ -4,6 +4,7 @@ import edu.dosw.sirha.model.Inscripcion;
 import edu.dosw.sirha.model.enums.EstadoInscripcion;
 import org.springframework.data.mongodb.repository.MongoRepository;
 
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -15,9 +16,12 @@ import java.util.List;
  *   <li>Verificar inscripciones existentes (evitar duplicados)</li>
  * </ul>
  * 
+ * <p>La cancelación por lote de inscripciones reemplazadas está en
+ * {@link InscripcionRepositoryCustom}.</p>
+ * 
  * @see Inscripcion
  */
-public interface InscripcionRepository extends MongoRepository<Inscripcion, String> {
+public interface InscripcionRepository extends MongoRepository<Inscripcion, String>, InscripcionRepositoryCustom {
     /**
      * Busca inscripciones de un estudiante en un periodo.
      * 
@@ -26,6 +30,33 @@ public interface InscripcionRepository extends MongoRepository<Inscripcion, Stri
      * @return Lista de inscripciones del estudiante en ese periodo
      */
     List<Inscripcion> findByEstudianteIdAndPeriodoId(String estudianteId, String periodoId);
+
+    /**
+     * Busca las inscripciones de un estudiante en un periodo con un estado dado.
+     * 
+     * <p>Usado por la detección de conflictos con el estado INSCRITO.</p>
+     * 
+     * @param estudianteId ID del estudiante
+     * @param periodoId ID del periodo
+     * @param estado Estado de la inscripción
+     * @return Inscripciones encontradas
+     */
+    List<Inscripcion> findByEstudianteIdAndPeriodoIdAndEstado(String estudianteId, String periodoId,
+            EstadoInscripcion estado);
+
+    /**
+     * Busca con un solo {@code $in} las inscripciones de varios estudiantes en varios periodos.
+     * 
+     * <p>Usado por la detección de conflictos de un lote de solicitudes; el llamador
+     * reparte el resultado por estudiante y periodo.</p>
+     * 
+     * @param estudianteIds IDs de los estudiantes
+     * @param periodoIds IDs de los periodos
+     * @param estado Estado de la inscripción
+     * @return Inscripciones encontradas
+     */
+    List<Inscripcion> findByEstudianteIdInAndPeriodoIdInAndEstado(Collection<String> estudianteIds,
+            Collection<String> periodoIds, EstadoInscripcion estado);
     
     /**
      * Verifica si existe una inscripción activa de un estudiante en un grupo.
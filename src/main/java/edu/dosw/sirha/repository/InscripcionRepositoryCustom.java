@@ -0,0 +1,26 @@
+package edu.dosw.sirha.repository;
+
+import edu.dosw.sirha.model.Inscripcion;
+
+import java.time.Instant;
+import java.util.Map;
+
+/**
+ * Operaciones por lote sobre {@link Inscripcion} que liberan cupos.
+ * 
+ * @see InscripcionRepositoryImpl
+ */
+public interface InscripcionRepositoryCustom {
+
+    /**
+     * Cancela las inscripciones de origen de solicitudes aprobadas.
+     * 
+     * <p>Cada inscripción se cancela solo si sigue en estado INSCRITO, así su cupo se
+     * libera una única vez aunque la misma inscripción llegue dos veces.</p>
+     * 
+     * @param solicitudPorInscripcion ID de la solicitud aprobada por ID de su inscripción de origen
+     * @param fecha Fecha del cambio de estado
+     * @return Cupos liberados por ID de grupo
+     */
+    Map<String, Integer> cancelarReemplazadas(Map<String, String> solicitudPorInscripcion, Instant fecha);
+}
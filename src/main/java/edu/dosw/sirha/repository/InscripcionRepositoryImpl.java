@@ -0,0 +1,54 @@
+package edu.dosw.sirha.repository;
+
+import com.mongodb.bulk.BulkWriteResult;
+import edu.dosw.sirha.model.Inscripcion;
+import edu.dosw.sirha.model.enums.EstadoInscripcion;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Implementación de {@link InscripcionRepositoryCustom} con {@link MongoTemplate}.
+ * 
+ * <p>Las cancelaciones viajan en un único bulk write de {@code updateOne} condicionados
+ * a {@code estado = INSCRITO}. Las que se aplicaron se leen después con su
+ * {@code fecha_cambio_estado}, que es la del lote, para saber qué grupos liberan cupo.</p>
+ */
+@RequiredArgsConstructor
+public class InscripcionRepositoryImpl implements InscripcionRepositoryCustom {
+
+    private final MongoTemplate mongoTemplate;
+
+    @Override
+    public Map<String, Integer> cancelarReemplazadas(Map<String, String> solicitudPorInscripcion, Instant fecha) {
+        if (solicitudPorInscripcion.isEmpty()) {
+            return Map.of();
+        }
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Inscripcion.class);
+        solicitudPorInscripcion.forEach((inscripcionId, solicitudId) -> bulk.updateOne(
+                new Query(Criteria.where("id").is(inscripcionId).and("estado").is(EstadoInscripcion.INSCRITO)),
+                new Update().set("estado", EstadoInscripcion.CANCELADO)
+                        .set("fechaCambioEstado", fecha)
+                        .set("observaciones", "Reemplazada por la solicitud aprobada " + solicitudId)));
+        BulkWriteResult resultado = bulk.execute();
+        if (resultado.getModifiedCount() == 0) {
+            return Map.of();
+        }
+
+        Query canceladas = new Query(Criteria.where("id").in(solicitudPorInscripcion.keySet())
+                .and("estado").is(EstadoInscripcion.CANCELADO)
+                .and("fechaCambioEstado").is(fecha));
+        canceladas.fields().include("grupoId");
+        Map<String, Integer> cupos = new HashMap<>();
+        mongoTemplate.find(canceladas, Inscripcion.class)
+                .forEach(inscripcion -> cupos.merge(inscripcion.getGrupoId(), 1, Integer::sum));
+        return cupos;
+    }
+}
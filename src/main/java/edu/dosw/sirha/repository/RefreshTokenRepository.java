@@ -0,0 +1,20 @@
+package edu.dosw.sirha.repository;
+
+import edu.dosw.sirha.model.RefreshToken;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+/**
+ * Repositorio de refresh tokens.
+ * 
+ * @see RefreshToken
+ */
+@Repository
+public interface RefreshTokenRepository extends MongoRepository<RefreshToken, String> {
+
+    Optional<RefreshToken> findByTokenHash(String tokenHash);
+
+    long deleteByFamiliaId(String familiaId);
+}
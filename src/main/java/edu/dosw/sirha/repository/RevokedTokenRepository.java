@@ -0,0 +1,14 @@
+package edu.dosw.sirha.repository;
+
+import edu.dosw.sirha.model.RevokedToken;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Repositorio de tokens JWT revocados.
+ * 
+ * @see RevokedToken
+ */
+@Repository
+public interface RevokedTokenRepository extends MongoRepository<RevokedToken, String> {
+}
@@ -0,0 +1,24 @@
+package edu.dosw.sirha.repository;
+
+import edu.dosw.sirha.model.SolicitudHistorial;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+/**
+ * Repositorio del historial completo de las solicitudes.
+ * 
+ * @see SolicitudHistorial
+ */
+@Repository
+public interface SolicitudHistorialRepository extends MongoRepository<SolicitudHistorial, String> {
+
+    /**
+     * Obtiene los eventos de una solicitud en orden cronológico.
+     * 
+     * @param solicitudId ID de la solicitud
+     * @return Eventos de la solicitud, del más antiguo al más reciente
+     */
+    List<SolicitudHistorial> findBySolicitudIdOrderByFechaAsc(String solicitudId);
+}
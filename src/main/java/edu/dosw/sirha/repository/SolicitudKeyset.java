@@ -0,0 +1,121 @@
+package edu.dosw.sirha.repository;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Base64;
+
+import org.springframework.data.domain.Sort;
+
+import edu.dosw.sirha.exception.BusinessException;
+import edu.dosw.sirha.model.Solicitud;
+
+/**
+ * Posición de una solicitud dentro de un listado ordenado, usada como cursor de paginación.
+ * 
+ * <p>Guarda el valor de la clave de orden y el {@code _id} (desempate) de la última
+ * solicitud entregada; la página siguiente empieza estrictamente después de esa pareja.
+ * Hacia el cliente viaja codificada en Base64 URL-safe.</p>
+ * 
+ * @param orden Orden del listado al que pertenece el cursor
+ * @param clave Valor de la clave de orden (epoch millis o prioridad)
+ * @param id ID de la solicitud
+ * 
+ * @see SolicitudRepositoryCustom#buscarPagina
+ */
+public record SolicitudKeyset(Orden orden, long clave, String id) {
+
+	/**
+	 * Órdenes soportados, cada uno respaldado por un índice compuesto que termina en {@code _id}.
+	 */
+	public enum Orden {
+		/** Más recientes primero: {@code (fechaSolicitud desc, _id desc)}. */
+		RECIENTES("fechaSolicitud", Sort.Direction.DESC),
+		/** Más prioritarias primero: {@code (prioridad asc, _id asc)}. */
+		PRIORIDAD("prioridad", Sort.Direction.ASC);
+
+		private final String campo;
+		private final Sort.Direction direccion;
+
+		Orden(String campo, Sort.Direction direccion) {
+			this.campo = campo;
+			this.direccion = direccion;
+		}
+
+		public String campo() {
+			return campo;
+		}
+
+		public Sort.Direction direccion() {
+			return direccion;
+		}
+
+		/**
+		 * Convierte la clave numérica del cursor al tipo del campo en MongoDB.
+		 */
+		Object valor(long clave) {
+			return this == RECIENTES ? Instant.ofEpochMilli(clave) : (Object) (int) clave;
+		}
+
+		long clave(Solicitud solicitud) {
+			if (this == PRIORIDAD) {
+				return solicitud.getPrioridad();
+			}
+			return solicitud.getFechaSolicitud() != null ? solicitud.getFechaSolicitud().toEpochMilli() : 0L;
+		}
+	}
+
+	/**
+	 * Construye el cursor que apunta a una solicitud.
+	 * 
+	 * @param orden Orden del listado
+	 * @param solicitud Última solicitud entregada
+	 * @return Cursor posicionado en la solicitud
+	 */
+	public static SolicitudKeyset de(Orden orden, Solicitud solicitud) {
+		return new SolicitudKeyset(orden, orden.clave(solicitud), solicitud.getId());
+	}
+
+	/**
+	 * Retorna el valor de la clave con el tipo del campo en MongoDB.
+	 * 
+	 * @return Instant o Integer según el orden
+	 */
+	public Object valor() {
+		return orden.valor(clave);
+	}
+
+	/**
+	 * Codifica el cursor para entregarlo al cliente.
+	 * 
+	 * @return Cursor opaco
+	 */
+	public String codificar() {
+		String plano = orden.name() + ":" + clave + ":" + id;
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(plano.getBytes(StandardCharsets.UTF_8));
+	}
+
+	/**
+	 * Decodifica un cursor recibido del cliente.
+	 * 
+	 * @param cursor Cursor opaco, puede ser null o vacío (primera página)
+	 * @param esperado Orden del listado consultado
+	 * @return Cursor decodificado, o null si no se envió
+	 * @throws BusinessException si el cursor está malformado o pertenece a otro listado
+	 */
+	public static SolicitudKeyset decodificar(String cursor, Orden esperado) {
+		if (cursor == null || cursor.isBlank()) {
+			return null;
+		}
+		try {
+			String plano = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+			String[] partes = plano.split(":", 3);
+			Orden orden = Orden.valueOf(partes[0]);
+			if (orden != esperado || partes.length != 3 || partes[2].isEmpty()) {
+				throw new BusinessException("Cursor de paginación inválido");
+			}
+			return new SolicitudKeyset(orden, Long.parseLong(partes[1]), partes[2]);
+		} catch (IllegalArgumentException | ArrayIndexOutOfBoundsException ex) {
+			throw new BusinessException("Cursor de paginación inválido");
+		}
+	}
+}
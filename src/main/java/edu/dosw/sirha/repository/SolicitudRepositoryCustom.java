@@ -0,0 +1,163 @@
+package edu.dosw.sirha.repository;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Update;
+
+import edu.dosw.sirha.model.Solicitud;
+import edu.dosw.sirha.model.SolicitudHistorialEntry;
+import edu.dosw.sirha.model.enums.SolicitudEstado;
+
+/**
+ * Consultas paginadas por cursor (keyset) y actualizaciones parciales sobre
+ * {@link Solicitud}.
+ * 
+ * <p>Las actualizaciones nunca reescriben el documento completo: aplican
+ * {@code $set} a los campos que cambian y {@code $push} del evento a un historial
+ * embebido acotado a los {@code maxHistorial} eventos más recientes. El historial
+ * completo se guarda en la colección {@code solicitud_historial}; el embebido solo
+ * se acota en solicitudes cuyo historial ya está archivado
+ * ({@code historialArchivado}).</p>
+ * 
+ * @see SolicitudRepositoryImpl
+ */
+public interface SolicitudRepositoryCustom {
+
+	/**
+	 * Obtiene una página de solicitudes posteriores a un cursor.
+	 * 
+	 * <p>Las solicitudes se retornan sin {@code historial}; el detalle completo se
+	 * obtiene por ID.</p>
+	 * 
+	 * @param filtro Filtro del listado (puede ser un {@code Criteria} vacío)
+	 * @param orden Orden del listado
+	 * @param despuesDe Última posición entregada, o null para la primera página
+	 * @param limite Cantidad máxima de solicitudes
+	 * @return Solicitudes en el orden indicado
+	 */
+	List<Solicitud> buscarPagina(Criteria filtro, SolicitudKeyset.Orden orden, SolicitudKeyset despuesDe, int limite);
+
+	/**
+	 * Obtiene varias solicitudes por ID en una sola consulta, sin {@code historial}.
+	 * 
+	 * @param ids IDs de las solicitudes
+	 * @return Solicitudes encontradas, en cualquier orden
+	 */
+	List<Solicitud> buscarSinHistorial(Collection<String> ids);
+
+	/**
+	 * Actualiza parcialmente una solicitud y agrega un evento a su historial.
+	 * 
+	 * <p>La actualización es un único {@code findAndModify} condicionado a que la
+	 * solicitud siga en uno de los estados esperados, lo que funciona como control
+	 * de concurrencia optimista.</p>
+	 * 
+	 * @param id ID de la solicitud
+	 * @param estadosEsperados Estados en los que debe estar la solicitud
+	 * @param cambios Campos a modificar ({@code $set})
+	 * @param evento Evento a agregar al historial
+	 * @param maxHistorial Eventos a conservar en el historial embebido
+	 * @return Solicitud actualizada, o vacío si no existe o cambió de estado
+	 */
+	Optional<Solicitud> actualizar(String id, Collection<SolicitudEstado> estadosEsperados, Update cambios,
+			SolicitudHistorialEntry evento, int maxHistorial);
+
+	/**
+	 * Aplica varios cambios de estado en un único bulkWrite no ordenado.
+	 * 
+	 * <p>Cada cambio es un {@code $set} del estado y la fecha de actualización más un
+	 * {@code $push} al historial, condicionado a que la solicitud siga en su estado
+	 * anterior. Si el cambio lo indica, también hace {@code $unset} de la asignación
+	 * de revisión, igual que un cambio individual que saca la solicitud de la cola.</p>
+	 * 
+	 * @param cambios Cambios a aplicar
+	 * @param maxHistorial Eventos a conservar en el historial embebido
+	 * @return IDs de las solicitudes que quedaron actualizadas
+	 */
+	Set<String> aplicarCambiosEstado(List<CambioEstado> cambios, int maxHistorial);
+
+	/**
+	 * Archiva el historial embebido completo de una solicitud y la marca con
+	 * {@code historialArchivado}.
+	 * 
+	 * <p>Cada evento se guarda con el ID {@code solicitudId:posición}, así repetir el
+	 * archivado no lo duplica. La marca solo se pone si el historial embebido sigue
+	 * teniendo los eventos archivados; mientras no esté puesta, los cambios agregan
+	 * eventos sin acotar el historial embebido.</p>
+	 * 
+	 * @param solicitud Solicitud con su historial embebido
+	 * @return true si la solicitud quedó marcada como archivada
+	 */
+	boolean archivarHistorialEmbebido(Solicitud solicitud);
+
+	/**
+	 * Asigna al revisor la siguiente solicitud de la cola de revisión.
+	 * 
+	 * <p>Un único {@code findAndModify} toma la solicitud de menor prioridad y más
+	 * antigua entre las que están en uno de los estados indicados y no tienen una
+	 * asignación vigente, así dos revisores nunca reciben la misma solicitud.</p>
+	 * 
+	 * @param estados Estados que forman la cola
+	 * @param revisor Revisor que reclama la solicitud
+	 * @param ahora Instante actual; las asignaciones vencidas antes de él se ignoran
+	 * @param vence Vencimiento de la nueva asignación
+	 * @return Solicitud asignada (sin historial), o vacío si la cola está vacía
+	 */
+	Optional<Solicitud> reclamarSiguiente(Collection<SolicitudEstado> estados, String revisor, Instant ahora,
+			Instant vence);
+
+	/**
+	 * Extiende la asignación vigente de una solicitud a su revisor.
+	 * 
+	 * @param id ID de la solicitud
+	 * @param revisor Revisor que tiene la asignación
+	 * @param ahora Instante actual; una asignación ya vencida no se renueva
+	 * @param vence Nuevo vencimiento
+	 * @return Solicitud con la asignación renovada (sin historial), o vacío si no
+	 *         existe, está asignada a otro revisor o la asignación venció
+	 */
+	Optional<Solicitud> renovarAsignacion(String id, String revisor, Instant ahora, Instant vence);
+
+	/**
+	 * Devuelve una solicitud a la cola quitando la asignación del revisor.
+	 * 
+	 * @param id ID de la solicitud
+	 * @param revisor Revisor que tiene la asignación
+	 * @return true si la solicitud estaba asignada al revisor
+	 */
+	boolean liberarAsignacion(String id, String revisor);
+
+	/**
+	 * Obtiene los plazos de respuesta que vencen antes de un instante.
+	 * 
+	 * <p>Solo retorna solicitudes en los estados indicados que aún no están marcadas
+	 * como vencidas, con {@code id} y {@code fechaLimiteRespuesta} únicamente.</p>
+	 * 
+	 * @param estados Estados de las solicitudes sin resolver
+	 * @param hasta Límite superior (exclusivo) de la fecha límite de respuesta
+	 * @return Solicitudes con su fecha límite
+	 */
+	List<Solicitud> buscarPlazos(Collection<SolicitudEstado> estados, Instant hasta);
+
+	/**
+	 * Marca como vencidas las solicitudes indicadas cuyo plazo ya pasó.
+	 * 
+	 * <p>Una solicitud se marca solo si sigue en uno de los estados indicados, su
+	 * fecha límite no es posterior a {@code ahora} y no estaba marcada. A cada una
+	 * se le agrega el evento al historial.</p>
+	 * 
+	 * @param ids IDs candidatos
+	 * @param estados Estados de las solicitudes sin resolver
+	 * @param ahora Instante actual
+	 * @param evento Evento a agregar al historial
+	 * @param maxHistorial Eventos a conservar en el historial embebido
+	 * @return IDs de las solicitudes marcadas
+	 */
+	Set<String> marcarVencidas(Collection<String> ids, Collection<SolicitudEstado> estados, Instant ahora,
+			SolicitudHistorialEntry evento, int maxHistorial);
+}
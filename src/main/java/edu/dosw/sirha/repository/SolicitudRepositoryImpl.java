@@ -0,0 +1,357 @@
+package edu.dosw.sirha.repository;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.springframework.data.domain.Sort;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import com.mongodb.bulk.BulkWriteResult;
+
+import edu.dosw.sirha.model.Solicitud;
+import edu.dosw.sirha.model.SolicitudHistorial;
+import edu.dosw.sirha.model.SolicitudHistorialEntry;
+import edu.dosw.sirha.model.enums.SolicitudEstado;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Implementación de {@link SolicitudRepositoryCustom} con {@link MongoTemplate}.
+ * 
+ * <p>En lugar de {@code skip}, cada página filtra por la pareja {@code (clave, _id)}
+ * de la última solicitud entregada, así el costo de una página no crece con su
+ * posición y las inserciones concurrentes no duplican ni saltan resultados.</p>
+ * 
+ * <p>Los cambios de estado por lote se envían en un único bulkWrite. Si alguno no
+ * se aplicó (por un cambio concurrente o un error de escritura), una consulta
+ * adicional determina cuáles quedaron actualizados.</p>
+ * 
+ * <p>El historial completo vive en {@code solicitud_historial} y el embebido es una
+ * ventana de los eventos más recientes. Una solicitud marcada con
+ * {@code historialArchivado} recibe un {@code $push} acotado con {@code $slice} y su
+ * evento se inserta en el archivo; si esa inserción falla, el evento sigue en el
+ * historial embebido y solo se registra una advertencia. Una solicitud sin la marca
+ * (anterior al archivo, o cuyo archivado falló) recibe el {@code $push} sin acotar,
+ * para no perder eventos, y a continuación se archiva su historial embebido completo
+ * con IDs deterministas ({@code solicitudId:posición}) antes de marcarla. Repetir ese
+ * archivado no duplica eventos, y la marca solo se pone si el historial no creció
+ * mientras tanto.</p>
+ * 
+ * <p>La cola de revisión se atiende con {@code findAndModify} sobre el índice
+ * {@code (estado, prioridad, fecha_solicitud)}: tomar la siguiente solicitud
+ * recorre el índice en orden y se detiene en la primera sin asignación vigente, sin
+ * ordenar en memoria.</p>
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class SolicitudRepositoryImpl implements SolicitudRepositoryCustom {
+
+	private static final String HISTORIAL_ARCHIVADO = "historialArchivado";
+	private static final int DUPLICATE_KEY = 11000;
+
+	private final MongoTemplate mongoTemplate;
+
+	@Override
+	public List<Solicitud> buscarPagina(Criteria filtro, SolicitudKeyset.Orden orden, SolicitudKeyset despuesDe,
+			int limite) {
+		Criteria criteria = despuesDe == null
+				? filtro
+				: new Criteria().andOperator(filtro, posteriorA(despuesDe));
+		Query query = new Query(criteria)
+				.with(Sort.by(orden.direccion(), orden.campo()).and(Sort.by(orden.direccion(), "id")))
+				.limit(limite);
+		query.fields().exclude("historial");
+		return mongoTemplate.find(query, Solicitud.class);
+	}
+
+	@Override
+	public List<Solicitud> buscarSinHistorial(Collection<String> ids) {
+		Query query = new Query(Criteria.where("id").in(ids));
+		query.fields().exclude("historial");
+		return mongoTemplate.find(query, Solicitud.class);
+	}
+
+	@Override
+	public Optional<Solicitud> actualizar(String id, Collection<SolicitudEstado> estadosEsperados, Update cambios,
+			SolicitudHistorialEntry evento, int maxHistorial) {
+		Update acotada = Update.fromDocument(cambios.getUpdateObject());
+		acotada.push("historial").slice(-maxHistorial).each(evento);
+		Solicitud actualizada = mongoTemplate.findAndModify(
+				new Query(Criteria.where("id").is(id).and("estado").in(estadosEsperados)
+						.and(HISTORIAL_ARCHIVADO).is(true)),
+				acotada, FindAndModifyOptions.options().returnNew(true), Solicitud.class);
+		if (actualizada != null) {
+			archivar(List.of(SolicitudHistorial.de(id, evento)));
+			return Optional.of(actualizada);
+		}
+		// Historial aún sin archivar: se agrega sin acotar y se archiva completo
+		cambios.push("historial").each(evento);
+		actualizada = mongoTemplate.findAndModify(
+				new Query(Criteria.where("id").is(id).and("estado").in(estadosEsperados)
+						.and(HISTORIAL_ARCHIVADO).ne(true)),
+				cambios, FindAndModifyOptions.options().returnNew(true), Solicitud.class);
+		if (actualizada != null) {
+			archivarHistorialEmbebido(actualizada);
+		}
+		return Optional.ofNullable(actualizada);
+	}
+
+	@Override
+	public Set<String> aplicarCambiosEstado(List<CambioEstado> cambios, int maxHistorial) {
+		if (cambios.isEmpty()) {
+			return Set.of();
+		}
+		BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Solicitud.class);
+		for (CambioEstado cambio : cambios) {
+			// Solo una de las dos variantes coincide, según si el historial ya está archivado
+			Update acotada = cambioEstado(cambio);
+			acotada.push("historial").slice(-maxHistorial).each(cambio.evento());
+			bulk.updateOne(
+					new Query(Criteria.where("id").is(cambio.id()).and("estado").is(cambio.estadoAnterior())
+							.and(HISTORIAL_ARCHIVADO).is(true)),
+					acotada);
+			Update completa = cambioEstado(cambio);
+			completa.push("historial").each(cambio.evento());
+			bulk.updateOne(
+					new Query(Criteria.where("id").is(cambio.id()).and("estado").is(cambio.estadoAnterior())
+							.and(HISTORIAL_ARCHIVADO).ne(true)),
+					completa);
+		}
+		long modificados;
+		try {
+			BulkWriteResult result = bulk.execute();
+			modificados = result.getModifiedCount();
+		} catch (BulkOperationException ex) {
+			log.warn("{} cambios de estado fallaron en el lote: {}", ex.getErrors().size(), ex.getMessage());
+			modificados = -1;
+		}
+		Set<String> aplicados = modificados == cambios.size()
+				? cambios.stream().map(CambioEstado::id).collect(Collectors.toSet())
+				: verificarAplicados(cambios);
+		Set<String> sinArchivar = archivarHistorialPendiente(aplicados);
+		archivar(cambios.stream()
+				.filter(cambio -> aplicados.contains(cambio.id()) && !sinArchivar.contains(cambio.id()))
+				.map(cambio -> SolicitudHistorial.de(cambio.id(), cambio.evento()))
+				.toList());
+		return aplicados;
+	}
+
+	@Override
+	public boolean archivarHistorialEmbebido(Solicitud solicitud) {
+		List<SolicitudHistorialEntry> historial = solicitud.getHistorial() != null
+				? solicitud.getHistorial()
+				: List.of();
+		List<SolicitudHistorial> registros = new ArrayList<>(historial.size());
+		for (int i = 0; i < historial.size(); i++) {
+			SolicitudHistorial registro = SolicitudHistorial.de(solicitud.getId(), historial.get(i));
+			registro.setId(solicitud.getId() + ":" + i);
+			registros.add(registro);
+		}
+		try {
+			if (!registros.isEmpty()) {
+				mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, SolicitudHistorial.class)
+						.insert(registros)
+						.execute();
+			}
+		} catch (BulkOperationException ex) {
+			// Los eventos ya archivados en un intento anterior conservan su registro
+			if (ex.getErrors().stream().anyMatch(error -> error.getCode() != DUPLICATE_KEY)) {
+				log.warn("No fue posible archivar el historial de la solicitud {}: {}", solicitud.getId(),
+						ex.getMessage());
+				return false;
+			}
+		} catch (DataAccessException ex) {
+			log.warn("No fue posible archivar el historial de la solicitud {}: {}", solicitud.getId(),
+					ex.getMessage());
+			return false;
+		}
+		try {
+			// Si el historial creció mientras tanto, quien agregó el evento lo archiva y marca
+			Query query = new Query(Criteria.where("id").is(solicitud.getId())
+					.and(HISTORIAL_ARCHIVADO).ne(true)
+					.and("historial").size(historial.size()));
+			return mongoTemplate.updateFirst(query, new Update().set(HISTORIAL_ARCHIVADO, true), Solicitud.class)
+					.getModifiedCount() > 0;
+		} catch (DataAccessException ex) {
+			log.warn("No fue posible marcar el historial archivado de la solicitud {}: {}", solicitud.getId(),
+					ex.getMessage());
+			return false;
+		}
+	}
+
+	@Override
+	public Optional<Solicitud> reclamarSiguiente(Collection<SolicitudEstado> estados, String revisor, Instant ahora,
+			Instant vence) {
+		Query query = new Query(Criteria.where("estado").in(estados).orOperator(
+						Criteria.where("asignacionVence").is(null),
+						Criteria.where("asignacionVence").lte(ahora)))
+				.with(Sort.by(Sort.Order.asc("prioridad"), Sort.Order.asc("fechaSolicitud")));
+		query.fields().exclude("historial");
+		Update asignacion = new Update()
+				.set("revisorAsignado", revisor)
+				.set("asignacionVence", vence);
+		return Optional.ofNullable(mongoTemplate.findAndModify(query, asignacion,
+				FindAndModifyOptions.options().returnNew(true), Solicitud.class));
+	}
+
+	@Override
+	public Optional<Solicitud> renovarAsignacion(String id, String revisor, Instant ahora, Instant vence) {
+		Query query = new Query(Criteria.where("id").is(id)
+				.and("revisorAsignado").is(revisor)
+				.and("asignacionVence").gt(ahora));
+		query.fields().exclude("historial");
+		return Optional.ofNullable(mongoTemplate.findAndModify(query, new Update().set("asignacionVence", vence),
+				FindAndModifyOptions.options().returnNew(true), Solicitud.class));
+	}
+
+	@Override
+	public boolean liberarAsignacion(String id, String revisor) {
+		Query query = new Query(Criteria.where("id").is(id).and("revisorAsignado").is(revisor));
+		Update liberacion = new Update().unset("revisorAsignado").unset("asignacionVence");
+		return mongoTemplate.updateFirst(query, liberacion, Solicitud.class).getModifiedCount() > 0;
+	}
+
+	@Override
+	public List<Solicitud> buscarPlazos(Collection<SolicitudEstado> estados, Instant hasta) {
+		Query query = new Query(Criteria.where("estado").in(estados)
+				.and("fechaLimiteRespuesta").lt(hasta)
+				.and("vencida").ne(true));
+		query.fields().include("id", "fechaLimiteRespuesta");
+		return mongoTemplate.find(query, Solicitud.class);
+	}
+
+	@Override
+	public Set<String> marcarVencidas(Collection<String> ids, Collection<SolicitudEstado> estados, Instant ahora,
+			SolicitudHistorialEntry evento, int maxHistorial) {
+		Criteria pendientes = Criteria.where("estado").in(estados)
+				.and("fechaLimiteRespuesta").lte(ahora)
+				.and("vencida").ne(true);
+		Query candidatas = new Query(Criteria.where("id").in(ids).andOperator(pendientes));
+		candidatas.fields().include("id");
+		Set<String> vencidas = mongoTemplate.find(candidatas, Solicitud.class).stream()
+				.map(Solicitud::getId)
+				.collect(Collectors.toSet());
+		if (vencidas.isEmpty()) {
+			return vencidas;
+		}
+		long modificadas = mongoTemplate.updateMulti(
+				new Query(Criteria.where("id").in(vencidas).and(HISTORIAL_ARCHIVADO).is(true).andOperator(pendientes)),
+				new Update()
+						.set("vencida", true)
+						.set("fechaActualizacion", ahora)
+						.push("historial").slice(-maxHistorial).each(evento),
+				Solicitud.class).getModifiedCount();
+		modificadas += mongoTemplate.updateMulti(
+				new Query(Criteria.where("id").in(vencidas).and(HISTORIAL_ARCHIVADO).ne(true).andOperator(pendientes)),
+				new Update()
+						.set("vencida", true)
+						.set("fechaActualizacion", ahora)
+						.push("historial").each(evento),
+				Solicitud.class).getModifiedCount();
+		// Alguna cambió entre la consulta y la actualización: solo cuentan las que quedaron marcadas
+		Set<String> marcadas = modificadas == vencidas.size() ? vencidas : verificarVencidas(vencidas, ahora);
+		Set<String> sinArchivar = archivarHistorialPendiente(marcadas);
+		archivar(marcadas.stream()
+				.filter(id -> !sinArchivar.contains(id))
+				.map(id -> SolicitudHistorial.de(id, evento))
+				.toList());
+		return marcadas;
+	}
+
+	/**
+	 * Archiva el historial embebido de las solicitudes indicadas que aún no lo tienen
+	 * archivado. Sus eventos nuevos ya van incluidos en ese historial.
+	 * 
+	 * @return IDs de las solicitudes que no tenían el historial archivado
+	 */
+	private Set<String> archivarHistorialPendiente(Collection<String> ids) {
+		if (ids.isEmpty()) {
+			return Set.of();
+		}
+		Query query = new Query(Criteria.where("id").in(ids).and(HISTORIAL_ARCHIVADO).ne(true));
+		query.fields().include("historial");
+		Set<String> pendientes = new HashSet<>();
+		try {
+			for (Solicitud solicitud : mongoTemplate.find(query, Solicitud.class)) {
+				pendientes.add(solicitud.getId());
+				archivarHistorialEmbebido(solicitud);
+			}
+		} catch (DataAccessException ex) {
+			// Se archiva el evento de todas: un duplicado en el archivo es preferible a perderlo
+			log.warn("No fue posible revisar el historial archivado de {} solicitudes: {}", ids.size(),
+					ex.getMessage());
+			return Set.of();
+		}
+		return pendientes;
+	}
+
+	private void archivar(List<SolicitudHistorial> registros) {
+		if (registros.isEmpty()) {
+			return;
+		}
+		try {
+			mongoTemplate.insert(registros, SolicitudHistorial.class);
+		} catch (DataAccessException ex) {
+			log.warn("No fue posible archivar {} eventos de historial: {}", registros.size(), ex.getMessage());
+		}
+	}
+
+	private Set<String> verificarVencidas(Set<String> ids, Instant ahora) {
+		Query query = new Query(Criteria.where("id").in(ids)
+				.and("vencida").is(true)
+				.and("fechaActualizacion").is(ahora));
+		query.fields().include("id");
+		return mongoTemplate.find(query, Solicitud.class).stream()
+				.map(Solicitud::getId)
+				.collect(Collectors.toSet());
+	}
+
+	private static Update cambioEstado(CambioEstado cambio) {
+		Update update = new Update()
+				.set("estado", cambio.estadoNuevo())
+				.set("fechaActualizacion", cambio.fecha());
+		if (cambio.quitarAsignacion()) {
+			update.unset("revisorAsignado").unset("asignacionVence");
+		}
+		return update;
+	}
+
+	private Set<String> verificarAplicados(List<CambioEstado> cambios) {
+		List<Criteria> aplicados = cambios.stream()
+				.map(cambio -> Criteria.where("id").is(cambio.id())
+						.and("estado").is(cambio.estadoNuevo())
+						.and("fechaActualizacion").is(cambio.fecha()))
+				.toList();
+		Query query = new Query(new Criteria().orOperator(aplicados));
+		query.fields().include("id");
+		Set<String> ids = new HashSet<>();
+		mongoTemplate.find(query, Solicitud.class).forEach(solicitud -> ids.add(solicitud.getId()));
+		return ids;
+	}
+
+	private static Criteria posteriorA(SolicitudKeyset keyset) {
+		String campo = keyset.orden().campo();
+		Object valor = keyset.valor();
+		if (keyset.orden().direccion() == Sort.Direction.DESC) {
+			return new Criteria().orOperator(
+					Criteria.where(campo).lt(valor),
+					Criteria.where(campo).is(valor).and("id").lt(keyset.id()));
+		}
+		return new Criteria().orOperator(
+				Criteria.where(campo).gt(valor),
+				Criteria.where(campo).is(valor).and("id").gt(keyset.id()));
+	}
+}
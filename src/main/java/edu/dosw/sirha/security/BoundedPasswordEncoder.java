@@ -0,0 +1,151 @@
+package edu.dosw.sirha.security;
+
+import edu.dosw.sirha.exception.TooManyRequestsException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * {@link PasswordEncoder} que ejecuta el hashing en un pool dedicado y acotado.
+ *
+ * <p>BCrypt es deliberadamente costoso en CPU. Ejecutarlo en los hilos de Tomcat
+ * hace que un pico de logins al abrir inscripciones deje sin hilos al resto de
+ * endpoints. Este encoder delega {@code encode} y {@code matches} a un pool con
+ * tantos hilos como procesadores y una cola de capacidad fija:</p>
+ * <ul>
+ *   <li>Si la cola está llena, rechaza de inmediato con {@link TooManyRequestsException}</li>
+ *   <li>Si el resultado no llega dentro de la espera máxima, cancela y rechaza igual</li>
+ * </ul>
+ *
+ * <p>Métricas expuestas:</p>
+ * <ul>
+ *   <li>{@code sirha.password.hash.queue}: operaciones en cola</li>
+ *   <li>{@code sirha.password.hash.wait}: tiempo en cola antes de ejecutarse</li>
+ *   <li>{@code sirha.password.hash.time}: duración del hashing, por operación</li>
+ *   <li>{@code sirha.password.hash.rejected}: operaciones rechazadas</li>
+ * </ul>
+ *
+ * @see PasswordHashingProperties
+ */
+@Slf4j
+public class BoundedPasswordEncoder implements PasswordEncoder, MeterBinder {
+
+    private final PasswordEncoder delegate;
+    private final ThreadPoolExecutor executor;
+    private final long maxWaitNanos;
+    private final long retryAfterSeconds;
+
+    private final CompositeMeterRegistry meters = new CompositeMeterRegistry();
+    private final Timer waitTimer;
+    private final Timer encodeTimer;
+    private final Timer matchesTimer;
+    private final Counter rejected;
+
+    public BoundedPasswordEncoder(PasswordEncoder delegate, PasswordHashingProperties properties) {
+        this.delegate = delegate;
+        int threads = properties.getThreads() > 0
+                ? properties.getThreads()
+                : Runtime.getRuntime().availableProcessors();
+        AtomicInteger sequence = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(properties.getQueueCapacity()),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "password-hash-" + sequence.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        this.maxWaitNanos = properties.getMaxWait().toNanos();
+        this.retryAfterSeconds = Math.max(1, properties.getRetryAfter().toSeconds());
+
+        Gauge.builder("sirha.password.hash.queue", executor, e -> e.getQueue().size())
+                .description("Operaciones de hashing de contraseñas en cola")
+                .register(meters);
+        this.waitTimer = Timer.builder("sirha.password.hash.wait")
+                .description("Tiempo en cola antes de ejecutar el hashing")
+                .register(meters);
+        this.encodeTimer = Timer.builder("sirha.password.hash.time").tag("operation", "encode").register(meters);
+        this.matchesTimer = Timer.builder("sirha.password.hash.time").tag("operation", "matches").register(meters);
+        this.rejected = Counter.builder("sirha.password.hash.rejected")
+                .description("Operaciones de hashing rechazadas por falta de capacidad")
+                .register(meters);
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return submit(encodeTimer, () -> delegate.encode(rawPassword));
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return submit(matchesTimer, () -> delegate.matches(rawPassword, encodedPassword));
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return delegate.upgradeEncoding(encodedPassword);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        meters.add(registry);
+    }
+
+    /**
+     * Detiene el pool de hashing al cerrar el contexto.
+     */
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private <T> T submit(Timer operationTimer, Callable<T> operation) {
+        long enqueuedAt = System.nanoTime();
+        Future<T> future;
+        try {
+            future = executor.submit(() -> {
+                waitTimer.record(System.nanoTime() - enqueuedAt, TimeUnit.NANOSECONDS);
+                return operationTimer.recordCallable(operation);
+            });
+        } catch (RejectedExecutionException ex) {
+            return reject("Cola de hashing llena");
+        }
+        try {
+            return future.get(maxWaitNanos, TimeUnit.NANOSECONDS);
+        } catch (TimeoutException ex) {
+            future.cancel(true);
+            return reject("Espera máxima de hashing agotada");
+        } catch (InterruptedException ex) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Hashing de contraseña interrumpido", ex);
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IllegalStateException("Error al procesar la contraseña", ex.getCause());
+        }
+    }
+
+    private <T> T reject(String reason) {
+        rejected.increment();
+        log.warn("{}; solicitud rechazada con 429 (cola: {})", reason, executor.getQueue().size());
+        throw new TooManyRequestsException(
+                "El servidor está procesando demasiadas autenticaciones, intente nuevamente en unos segundos",
+                retryAfterSeconds);
+    }
+}
@@ -0,0 +1,89 @@
+package edu.dosw.sirha.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import edu.dosw.sirha.exception.ResourceNotFoundException;
+import edu.dosw.sirha.model.User;
+import edu.dosw.sirha.repository.UserRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.security.core.userdetails.UserDetailsService;
+
+/**
+ * {@link UserDetailsService} con caché acotada de {@link UserPrincipal} por email.
+ * 
+ * <p>Evita consultar MongoDB en cada login u operación que necesite el usuario
+ * completo. Las entradas expiran según {@link UserCacheProperties#getTtl()} y la
+ * caché no supera {@link UserCacheProperties#getMaxSize()} entradas. Los usuarios
+ * inexistentes no se guardan.</p>
+ * 
+ * <p>Quien escriba un usuario en {@link UserRepository} debe llamar a
+ * {@link #invalidate(String)} con su email para que la siguiente carga lea el
+ * estado actualizado.</p>
+ * 
+ * <p>Expone las métricas de Caffeine (aciertos, fallos, expulsiones) con el
+ * nombre de caché {@value #CACHE_NAME}.</p>
+ * 
+ * @see SecurityConfig#userDetailsService(UserRepository, UserCacheProperties)
+ */
+@Slf4j
+public class CachingUserDetailsService implements UserDetailsService, MeterBinder {
+
+    static final String CACHE_NAME = "sirha.users";
+
+    private final UserRepository userRepository;
+    private final Cache<String, UserPrincipal> cache;
+
+    public CachingUserDetailsService(UserRepository userRepository, UserCacheProperties properties) {
+        this.userRepository = userRepository;
+        this.cache = Caffeine.newBuilder()
+                .expireAfterWrite(properties.getTtl())
+                .maximumSize(properties.getMaxSize())
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Carga el usuario por email, usando la caché cuando es posible.
+     * 
+     * @param username Email del usuario
+     * @return UserPrincipal del usuario
+     * @throws ResourceNotFoundException si no existe un usuario con ese email
+     */
+    @Override
+    public UserPrincipal loadUserByUsername(String username) {
+        return cache.get(username, this::loadFromRepository);
+    }
+
+    /**
+     * Descarta la entrada en caché de un usuario.
+     * 
+     * @param email Email del usuario modificado
+     */
+    public void invalidate(String email) {
+        if (email != null) {
+            cache.invalidate(email);
+            log.debug("Usuario {} retirado de la caché de autenticación", email);
+        }
+    }
+
+    /**
+     * Descarta todas las entradas en caché.
+     */
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, cache, CACHE_NAME);
+    }
+
+    private UserPrincipal loadFromRepository(String email) {
+        User user = userRepository.findByEmail(email)
+                .orElseThrow(() -> new ResourceNotFoundException("Usuario no encontrado con email " + email));
+        return new UserPrincipal(user);
+    }
+}
@@ -25,8 +25,12 @@ import java.io.IOException;
  * <p>Proceso de validación:</p>
  * <ol>
  *   <li>Extrae el token del header "Authorization: Bearer {token}"</li>
- *   <li>Valida el token usando {@link JwtTokenService}</li>
- *   <li>Carga el usuario desde {@link UserDetailsService}</li>
+ *   <li>Verifica el token una sola vez usando {@link JwtTokenService#verify(String)}</li>
+ *   <li>Descarta tokens cerrados con logout según {@link TokenRevocationService}</li>
+ *   <li>Construye el principal desde los claims del token ({@link UserPrincipal#fromToken}),
+ *       rechazando versiones revocadas según {@link UserSessionRegistry}</li>
+ *   <li>Solo para tokens sin claims de usuario (emitidos antes de incluirlos) carga
+ *       el usuario desde {@link UserDetailsService}</li>
  *   <li>Establece autenticación en {@link SecurityContextHolder}</li>
  * </ol>
  * 
@@ -43,6 +47,8 @@ public class JwtAuthFilter extends OncePerRequestFilter {
 
 	private final JwtTokenService jwtTokenService;
 	private final UserDetailsService userDetailsService;
+	private final UserSessionRegistry sessionRegistry;
+	private final TokenRevocationService revocationService;
 
 	/**
 	 * Procesa cada request HTTP validando el token JWT.
@@ -70,10 +76,11 @@ public class JwtAuthFilter extends OncePerRequestFilter {
 			return;
 		}
 		String token = authHeader.substring(7);
-		String username = jwtTokenService.extractUsername(token);
+		VerifiedToken verified = jwtTokenService.verify(token);
+		String username = verified.subject();
 		if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-			UserDetails userDetails = userDetailsService.loadUserByUsername(username);
-			if (jwtTokenService.isTokenValid(token, userDetails)) {
+			UserDetails userDetails = resolvePrincipal(verified);
+			if (userDetails != null && jwtTokenService.isTokenValid(verified, userDetails)) {
 				UsernamePasswordAuthenticationToken authenticationToken =
 						new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
 				authenticationToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
@@ -82,4 +89,21 @@ public class JwtAuthFilter extends OncePerRequestFilter {
 		}
 		filterChain.doFilter(request, response);
 	}
-}
\ No newline at end of file
+
+	/**
+	 * Obtiene el principal del token sin consultar MongoDB cuando es posible.
+	 * 
+	 * @param verified Token ya verificado
+	 * @return Principal del usuario o null si el token o su versión fueron revocados
+	 */
+	private UserDetails resolvePrincipal(VerifiedToken verified) {
+		if (!verified.hasUserClaims()) {
+			return userDetailsService.loadUserByUsername(verified.subject());
+		}
+		if (sessionRegistry.isRevoked(verified.userId(), verified.tokenVersion())
+				|| revocationService.isRevoked(verified.jti())) {
+			return null;
+		}
+		return UserPrincipal.fromToken(verified);
+	}
+}
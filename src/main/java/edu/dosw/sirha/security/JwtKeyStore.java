@@ -0,0 +1,230 @@
+package edu.dosw.sirha.security;
+
+import edu.dosw.sirha.exception.BusinessException;
+import edu.dosw.sirha.exception.ConflictException;
+import edu.dosw.sirha.exception.ResourceNotFoundException;
+import edu.dosw.sirha.model.JwtKeyringEstado;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Rotación de claves JWT compartida entre réplicas.
+ *
+ * <p>El keyring vive en la colección {@code jwt_keyring} ({@link JwtKeyringEstado}).
+ * Las operaciones de rotación modifican ese documento con bloqueo optimista y lo
+ * aplican en la réplica que las recibe; las demás lo recargan cada
+ * {@code sirha.security.jwt.keyring-reload-ms} y al arrancar. Mientras no se haya
+ * rotado ninguna clave el documento no existe y se usan las de {@link JwtProperties}.</p>
+ *
+ * <p>Para que ninguna réplica reciba un token firmado con una clave que aún no conoce,
+ * la activación no es inmediata: la clave empieza a firmar dos intervalos de recarga
+ * después, y mientras tanto se sigue firmando con la anterior. Retirar una clave se
+ * propaga con el mismo intervalo, durante el cual otras réplicas todavía la aceptan.</p>
+ *
+ * @author Equipo DOSW - SIRHA
+ * @version 1.0
+ * @since 2025-11-02
+ *
+ * @see JwtKeyring
+ */
+@Slf4j
+@Component
+public class JwtKeyStore {
+
+    private final MongoTemplate mongoTemplate;
+    private final JwtKeyring keyring;
+    private final JwtProperties properties;
+    private final Clock clock;
+    private final Duration propagacion;
+
+    /** Versión del documento aplicada en esta réplica. */
+    private volatile Long versionAplicada;
+
+    /**
+     * Crea el almacén.
+     *
+     * @param mongoTemplate Acceso a {@code jwt_keyring}
+     * @param keyring Keyring local
+     * @param properties Claves configuradas, usadas hasta la primera rotación
+     * @param clock Reloj de la aplicación
+     * @param recargaMs Intervalo con el que cada réplica recarga el keyring
+     */
+    public JwtKeyStore(MongoTemplate mongoTemplate, JwtKeyring keyring, JwtProperties properties, Clock clock,
+            @Value("${sirha.security.jwt.keyring-reload-ms:30000}") long recargaMs) {
+        this.mongoTemplate = mongoTemplate;
+        this.keyring = keyring;
+        this.properties = properties;
+        this.clock = clock;
+        this.propagacion = Duration.ofMillis(2 * recargaMs);
+    }
+
+    /**
+     * Carga el keyring compartido al arrancar, antes de atender peticiones.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void alIniciar() {
+        recargar();
+    }
+
+    /**
+     * Aplica el keyring compartido si cambió desde la última carga.
+     */
+    @Scheduled(fixedDelayString = "${sirha.security.jwt.keyring-reload-ms:30000}",
+            initialDelayString = "${sirha.security.jwt.keyring-reload-ms:30000}")
+    public void recargar() {
+        try {
+            JwtKeyringEstado estado = mongoTemplate.findById(JwtKeyringEstado.ID, JwtKeyringEstado.class);
+            if (estado != null && !Objects.equals(estado.getVersion(), versionAplicada)) {
+                aplicar(estado);
+            }
+        } catch (DataAccessException | IllegalStateException ex) {
+            log.warn("No fue posible recargar el keyring JWT: {}", ex.getMessage());
+        }
+    }
+
+    /**
+     * Registra (o reemplaza) una clave de verificación en todas las réplicas.
+     *
+     * @param kid Identificador de la clave
+     * @param secret Secreto en BASE64 (o texto plano)
+     * @param activar Si además debe programarse su activación
+     * @throws BusinessException si se intenta reemplazar una clave que firma
+     * @throws ConflictException si otra réplica modificó el keyring a la vez
+     */
+    public synchronized void registrar(String kid, String secret, boolean activar) {
+        JwtKeyringEstado estado = actual();
+        if (firma(estado, kid)) {
+            throw new BusinessException("No es posible reemplazar la clave JWT activa " + kid);
+        }
+        estado.getClaves().removeIf(clave -> clave.getKid().equals(kid));
+        estado.getClaves().add(new JwtKeyringEstado.Clave(kid, secret));
+        if (activar) {
+            programarActivacion(estado, kid);
+        }
+        guardar(estado);
+    }
+
+    /**
+     * Programa la activación de una clave registrada.
+     *
+     * <p>La clave firma los tokens nuevos desde {@link JwtKeyring#pendingFrom()}.</p>
+     *
+     * @param kid Kid de la clave a activar
+     * @throws ResourceNotFoundException si el kid no está registrado
+     * @throws ConflictException si otra réplica modificó el keyring a la vez
+     */
+    public synchronized void activar(String kid) {
+        JwtKeyringEstado estado = actual();
+        if (!registrada(estado, kid)) {
+            throw noRegistrada(kid);
+        }
+        programarActivacion(estado, kid);
+        guardar(estado);
+    }
+
+    /**
+     * Retira una clave; los tokens firmados con ella dejan de ser válidos.
+     *
+     * @param kid Kid de la clave a retirar
+     * @throws ResourceNotFoundException si el kid no está registrado
+     * @throws BusinessException si la clave firma o firmará tras una activación pendiente
+     * @throws ConflictException si otra réplica modificó el keyring a la vez
+     */
+    public synchronized void retirar(String kid) {
+        JwtKeyringEstado estado = actual();
+        if (!registrada(estado, kid)) {
+            throw noRegistrada(kid);
+        }
+        if (firma(estado, kid)) {
+            throw new BusinessException("No es posible retirar la clave JWT activa " + kid);
+        }
+        estado.getClaves().removeIf(clave -> clave.getKid().equals(kid));
+        if (kid.equals(estado.getPreviousKid())) {
+            estado.setPreviousKid(null);
+            estado.setActiveFrom(null);
+        }
+        guardar(estado);
+    }
+
+    private void programarActivacion(JwtKeyringEstado estado, String kid) {
+        Instant ahora = Instant.now(clock);
+        if (kid.equals(estado.getActiveKid())) {
+            return;
+        }
+        // Mientras la activación anterior siga pendiente, continúa firmando su predecesora
+        String firmante = pendiente(estado, ahora) ? estado.getPreviousKid() : estado.getActiveKid();
+        estado.setPreviousKid(kid.equals(firmante) ? null : firmante);
+        estado.setActiveKid(kid);
+        estado.setActiveFrom(kid.equals(firmante) ? null : ahora.plus(propagacion));
+    }
+
+    private JwtKeyringEstado actual() {
+        JwtKeyringEstado estado = mongoTemplate.findById(JwtKeyringEstado.ID, JwtKeyringEstado.class);
+        if (estado != null) {
+            return estado;
+        }
+        // Primera rotación: se parte de las claves configuradas
+        JwtKeyringEstado inicial = JwtKeyringEstado.builder()
+                .id(JwtKeyringEstado.ID)
+                .claves(new ArrayList<>())
+                .activeKid(keyring.activeKid())
+                .build();
+        if (properties.getKeys().isEmpty()) {
+            inicial.getClaves().add(new JwtKeyringEstado.Clave(JwtKeyring.DEFAULT_KID, properties.getSecret()));
+        }
+        properties.getKeys().forEach(key -> inicial.getClaves().add(new JwtKeyringEstado.Clave(key.getKid(),
+                key.getSecret())));
+        return inicial;
+    }
+
+    private void guardar(JwtKeyringEstado estado) {
+        JwtKeyringEstado guardado;
+        try {
+            guardado = mongoTemplate.save(estado);
+        } catch (OptimisticLockingFailureException | DuplicateKeyException ex) {
+            throw new ConflictException("El keyring JWT cambió en otra réplica; intente nuevamente");
+        }
+        aplicar(guardado);
+    }
+
+    private void aplicar(JwtKeyringEstado estado) {
+        Map<String, String> secrets = new LinkedHashMap<>();
+        estado.getClaves().forEach(clave -> secrets.put(clave.getKid(), clave.getSecret()));
+        keyring.aplicar(secrets, estado.getActiveKid(), estado.getPreviousKid(), estado.getActiveFrom());
+        versionAplicada = estado.getVersion();
+    }
+
+    private boolean firma(JwtKeyringEstado estado, String kid) {
+        return kid.equals(estado.getActiveKid())
+                || (pendiente(estado, Instant.now(clock)) && kid.equals(estado.getPreviousKid()));
+    }
+
+    private static boolean pendiente(JwtKeyringEstado estado, Instant ahora) {
+        return estado.getPreviousKid() != null && estado.getActiveFrom() != null
+                && ahora.isBefore(estado.getActiveFrom());
+    }
+
+    private static boolean registrada(JwtKeyringEstado estado, String kid) {
+        return estado.getClaves().stream().anyMatch(clave -> clave.getKid().equals(kid));
+    }
+
+    private static ResourceNotFoundException noRegistrada(String kid) {
+        return new ResourceNotFoundException("Clave JWT no encontrada con kid " + kid);
+    }
+}
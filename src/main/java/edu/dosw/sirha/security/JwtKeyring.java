@@ -0,0 +1,218 @@
+package edu.dosw.sirha.security;
+
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.io.DecodingException;
+import io.jsonwebtoken.io.Encoders;
+import io.jsonwebtoken.security.Keys;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.Key;
+import java.time.Clock;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Conjunto de claves HMAC usadas para firmar y verificar tokens JWT.
+ *
+ * <p>Las claves se derivan una sola vez (al arrancar o al registrarse) y se
+ * guardan como instancias {@link Key} listas para usar, indexadas por su
+ * identificador {@code kid}. Los tokens nuevos se firman con la clave activa
+ * y llevan su {@code kid} en el header; al verificar se elige la clave según
+ * ese header.</p>
+ *
+ * <p>Al arrancar se cargan las claves de {@link JwtProperties}. La rotación en
+ * caliente se hace con {@link JwtKeyStore}, que guarda el keyring en MongoDB y lo
+ * aplica en todas las réplicas con {@link #aplicar}. Una clave activada puede quedar
+ * pendiente hasta un instante dado: mientras tanto se sigue firmando con la anterior.</p>
+ *
+ * <p>El estado se mantiene en una instantánea inmutable que se reemplaza
+ * atómicamente, por lo que las lecturas en el camino caliente no bloquean.</p>
+ *
+ * @see JwtProperties
+ * @see JwtKeyStore
+ * @see JwtTokenService
+ */
+@Slf4j
+@Component
+public class JwtKeyring {
+
+    /** Kid asignado al {@code secret} único cuando no se configuran claves explícitas. */
+    public static final String DEFAULT_KID = "default";
+
+    private final Clock clock;
+    private volatile Snapshot snapshot;
+
+    public JwtKeyring(JwtProperties properties) {
+        this(properties, Clock.systemUTC());
+    }
+
+    @Autowired
+    public JwtKeyring(JwtProperties properties, Clock clock) {
+        this.clock = clock;
+        Map<String, Key> keys = new LinkedHashMap<>();
+        for (JwtProperties.SigningKey signingKey : properties.getKeys()) {
+            keys.put(signingKey.getKid(), deriveKey(signingKey.getSecret()));
+        }
+        if (keys.isEmpty()) {
+            keys.put(DEFAULT_KID, deriveKey(properties.getSecret()));
+        }
+        String activeKid = properties.getActiveKid() != null
+                ? properties.getActiveKid()
+                : keys.keySet().iterator().next();
+        if (!keys.containsKey(activeKid)) {
+            throw new IllegalStateException("El kid activo '" + activeKid + "' no está en el keyring JWT");
+        }
+        this.snapshot = new Snapshot(Collections.unmodifiableMap(keys), activeKid, null, null);
+    }
+
+    /**
+     * Retorna el kid de la clave con la que se firman los tokens nuevos.
+     *
+     * @return Kid activo
+     */
+    public String activeKid() {
+        return snapshot.firmante(clock.instant());
+    }
+
+    /**
+     * Retorna la clave con la que se firman los tokens nuevos.
+     *
+     * @return Clave HMAC activa
+     */
+    public Key activeKey() {
+        Snapshot current = snapshot;
+        return current.keys().get(current.firmante(clock.instant()));
+    }
+
+    /**
+     * Busca la clave de verificación para un kid.
+     *
+     * <p>Los tokens emitidos antes del keyring no tienen kid; para ellos se usa
+     * la clave {@value #DEFAULT_KID} si existe o, en su defecto, la activa.</p>
+     *
+     * @param kid Kid del header del token (puede ser null)
+     * @return Clave correspondiente o null si el kid no está registrado
+     */
+    public Key resolve(String kid) {
+        Snapshot current = snapshot;
+        if (kid == null) {
+            Key legacy = current.keys().get(DEFAULT_KID);
+            return legacy != null ? legacy : current.keys().get(current.firmante(clock.instant()));
+        }
+        return current.keys().get(kid);
+    }
+
+    /**
+     * Indica si un kid sigue registrado en el keyring.
+     *
+     * @param kid Kid a verificar (null se considera la clave por defecto)
+     * @return true si existe una clave para ese kid
+     */
+    public boolean contains(String kid) {
+        return resolve(kid) != null;
+    }
+
+    /**
+     * Lista los kids registrados (nunca expone los secretos).
+     *
+     * @return Conjunto inmutable de kids
+     */
+    public Set<String> kids() {
+        return snapshot.keys().keySet();
+    }
+
+    /**
+     * Retorna el kid cuya activación está pendiente.
+     *
+     * @return Kid que firmará desde {@link #pendingFrom()}, o null si no hay activación pendiente
+     */
+    public String pendingKid() {
+        Snapshot current = snapshot;
+        return current.pendiente(clock.instant()) ? current.activeKid() : null;
+    }
+
+    /**
+     * Retorna el momento en que la clave pendiente empezará a firmar.
+     *
+     * @return Instante de activación, o null si no hay activación pendiente
+     */
+    public Instant pendingFrom() {
+        Snapshot current = snapshot;
+        return current.pendiente(clock.instant()) ? current.activeFrom() : null;
+    }
+
+    /**
+     * Reemplaza las claves con el estado compartido entre réplicas.
+     *
+     * @param secrets Secretos por kid, en orden de registro
+     * @param activeKid Kid que firma desde {@code activeFrom}
+     * @param previousKid Kid que firma mientras tanto (puede ser null)
+     * @param activeFrom Inicio de la activación, o null si ya está vigente
+     * @throws IllegalStateException si algún kid que firma no está entre las claves
+     */
+    synchronized void aplicar(Map<String, String> secrets, String activeKid, String previousKid, Instant activeFrom) {
+        Map<String, Key> keys = new LinkedHashMap<>();
+        secrets.forEach((kid, secret) -> keys.put(kid, deriveKey(secret)));
+        if (!keys.containsKey(activeKid) || (previousKid != null && !keys.containsKey(previousKid))) {
+            throw new IllegalStateException("El kid que firma no está en el keyring JWT compartido");
+        }
+        snapshot = new Snapshot(Collections.unmodifiableMap(keys), activeKid, previousKid, activeFrom);
+        log.info("Keyring JWT actualizado: kids {}, activo {}{}", keys.keySet(), activeKid,
+                activeFrom != null ? " desde " + activeFrom : "");
+    }
+
+    /**
+     * Deriva una clave HMAC-SHA256 a partir de un secreto.
+     *
+     * <p>Proceso de obtención:</p>
+     * <ol>
+     *   <li>Si no hay secret, usa uno por defecto</li>
+     *   <li>Decodifica de BASE64 a bytes (o usa el texto plano si no es BASE64)</li>
+     *   <li>Si menos de 32 bytes, hace padding</li>
+     *   <li>Crea clave HMAC-SHA256</li>
+     * </ol>
+     *
+     * @param secret Secreto configurado
+     * @return Clave de firma HMAC-SHA256
+     */
+    static Key deriveKey(String secret) {
+        if (secret == null || secret.isBlank()) {
+            secret = Encoders.BASE64.encode("sirha-default-secret".getBytes(StandardCharsets.UTF_8));
+        }
+        byte[] keyBytes;
+        try {
+            keyBytes = Decoders.BASE64.decode(secret);
+        } catch (RuntimeException ex) {
+            if (!(ex instanceof IllegalArgumentException) && !(ex instanceof DecodingException)) {
+                throw ex;
+            }
+            keyBytes = secret.getBytes(StandardCharsets.UTF_8);
+        }
+        if (keyBytes.length < 32) {
+            byte[] padded = new byte[32];
+            System.arraycopy(keyBytes, 0, padded, 0, Math.min(keyBytes.length, 32));
+            keyBytes = padded;
+        }
+        return Keys.hmacShaKeyFor(keyBytes);
+    }
+
+    /**
+     * Estado inmutable del keyring.
+     */
+    private record Snapshot(Map<String, Key> keys, String activeKid, String previousKid, Instant activeFrom) {
+
+        boolean pendiente(Instant ahora) {
+            return previousKid != null && activeFrom != null && ahora.isBefore(activeFrom);
+        }
+
+        String firmante(Instant ahora) {
+            return pendiente(ahora) ? previousKid : activeKid;
+        }
+    }
+}
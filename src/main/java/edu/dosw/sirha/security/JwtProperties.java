@@ -4,6 +4,9 @@ import lombok.Getter;
 import lombok.Setter;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 
+import java.util.ArrayList;
+import java.util.List;
+
 @Getter
 @Setter
 @ConfigurationProperties(prefix = "sirha.security.jwt")
@@ -12,4 +15,22 @@ public class JwtProperties {
     private String issuer = "sirha";
     private int expirationMinutes = 60;
     private String secret;
+    /** Minutos de inactividad tras los cuales expira un refresh token. */
+    private int refreshIdleMinutes = 1440;
+    /** Duración máxima de una sesión renovada con refresh tokens. */
+    private int refreshAbsoluteMinutes = 10080;
+    /** Máximo de tokens verificados que se mantienen en caché. */
+    private long cacheMaxSize = 10_000;
+    /** Kid de la clave con la que se firman los tokens nuevos. */
+    private String activeKid;
+    /** Claves adicionales del keyring; si está vacío se usa {@code secret} como única clave. */
+    private List<SigningKey> keys = new ArrayList<>();
+
+    @Getter
+    @Setter
+    public static class SigningKey {
+
+        private String kid;
+        private String secret;
+    }
 }
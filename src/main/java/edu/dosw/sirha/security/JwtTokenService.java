@@ -1,22 +1,31 @@
 package edu.dosw.sirha.security;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import edu.dosw.sirha.model.User;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtBuilder;
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
-import io.jsonwebtoken.io.Decoders;
-import io.jsonwebtoken.io.DecodingException;
-import io.jsonwebtoken.io.Encoders;
-import io.jsonwebtoken.security.Keys;
-import lombok.RequiredArgsConstructor;
+import io.jsonwebtoken.SigningKeyResolverAdapter;
+import io.jsonwebtoken.security.SignatureException;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
 
 import java.nio.charset.StandardCharsets;
 import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.time.Clock;
+import java.time.Duration;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
+import java.util.Base64;
 import java.util.Date;
+import java.util.UUID;
 import java.util.function.Function;
 
 /**
@@ -31,22 +40,89 @@ import java.util.function.Function;
  * 
  * <p>Configuración mediante {@link JwtProperties}:</p>
  * <ul>
- *   <li>secret: Clave secreta para firmar tokens (BASE64)</li>
+ *   <li>secret / keys: Claves secretas para firmar tokens (BASE64), ver {@link JwtKeyring}</li>
  *   <li>expirationMinutes: Tiempo de vida del token</li>
  *   <li>issuer: Identificador del emisor</li>
  * </ul>
  * 
  * <p>Usa {@link Clock} inyectado para permitir control del tiempo en tests.</p>
  * 
+ * <p>La verificación ({@link #verify(String)}) parsea cada token una sola vez y guarda
+ * el {@link VerifiedToken} resultante en una caché Caffeine acotada, indexada por el
+ * hash SHA-256 del token y con expiración igual al claim "exp" del propio token.</p>
+ * 
+ * <p>Los tokens se firman con la clave activa de {@link JwtKeyring} e incluyen su
+ * {@code kid} en el header; al parsear se elige la clave por ese {@code kid}.</p>
+ * 
  * @see JwtProperties
+ * @see JwtKeyring
  * @see JwtAuthFilter
  */
 @Service
-@RequiredArgsConstructor
 public class JwtTokenService {
 
+	/** Claim con el ID del usuario. */
+	public static final String CLAIM_USER_ID = "uid";
+	/** Claim con el rol del usuario. */
+	public static final String CLAIM_ROL = "rol";
+	/** Claim con la versión de credenciales del usuario. */
+	public static final String CLAIM_TOKEN_VERSION = "ver";
+
 	private final JwtProperties properties;
+	private final JwtKeyring keyring;
 	private final Clock clock;
+	private final JwtParser parser;
+	private final Cache<String, VerifiedToken> verifiedTokens;
+
+	public JwtTokenService(JwtProperties properties, JwtKeyring keyring, Clock clock) {
+		this.properties = properties;
+		this.keyring = keyring;
+		this.clock = clock;
+		this.parser = Jwts.parserBuilder()
+				.setSigningKeyResolver(new SigningKeyResolverAdapter() {
+					@Override
+					public Key resolveSigningKey(JwsHeader header, Claims claims) {
+						Key key = keyring.resolve(header.getKeyId());
+						if (key == null) {
+							throw new SignatureException("Clave JWT desconocida: " + header.getKeyId());
+						}
+						return key;
+					}
+				})
+				.setClock(() -> Date.from(Instant.now(clock)))
+				.build();
+		this.verifiedTokens = Caffeine.newBuilder()
+				.maximumSize(properties.getCacheMaxSize())
+				.expireAfter(new TokenExpiry())
+				.build();
+	}
+
+	/**
+	 * Verifica un token JWT parseándolo a lo sumo una vez.
+	 * 
+	 * <p>Si el token ya fue verificado y sigue vigente se retorna el resultado
+	 * en caché; en otro caso se parsea (firma y expiración) y se almacena hasta
+	 * su fecha de expiración.</p>
+	 * 
+	 * @param token Token JWT
+	 * @return Claims verificados e inmutables del token
+	 * @throws io.jsonwebtoken.JwtException si el token es inválido, tiene firma incorrecta o expiró
+	 */
+	public VerifiedToken verify(String token) {
+		String cacheKey = hash(token);
+		VerifiedToken cached = verifiedTokens.getIfPresent(cacheKey);
+		if (cached != null) {
+			if (!cached.isExpiredAt(Instant.now(clock)) && keyring.contains(cached.kid())) {
+				return cached;
+			}
+			verifiedTokens.invalidate(cacheKey);
+		}
+		VerifiedToken verified = VerifiedToken.from(parser.parseClaimsJws(token));
+		if (verified.expiresAt() != null && verified.expiresAt().isAfter(Instant.now(clock))) {
+			verifiedTokens.put(cacheKey, verified);
+		}
+		return verified;
+	}
 
 	/**
 	 * Extrae el username (subject) del token JWT.
@@ -55,7 +131,7 @@ public class JwtTokenService {
 	 * @return Username extraído del claim "sub"
 	 */
 	public String extractUsername(String token) {
-		return extractClaim(token, Claims::getSubject);
+		return verify(token).subject();
 	}
 
 	/**
@@ -80,6 +156,9 @@ public class JwtTokenService {
 	 *   <li>Issuer: configurado en properties</li>
 	 *   <li>IssuedAt: timestamp actual</li>
 	 *   <li>Expiration: tiempo actual + expirationMinutes</li>
+	 *   <li>jti: identificador único, usado para revocar el token en el logout</li>
+	 *   <li>Header kid: clave activa del keyring</li>
+	 *   <li>uid, rol, ver: ID, rol y versión de credenciales si es un {@link UserPrincipal}</li>
 	 * </ul>
 	 * 
 	 * @param userDetails Detalles del usuario autenticado
@@ -88,13 +167,20 @@ public class JwtTokenService {
 	public String generateToken(UserDetails userDetails) {
 		Instant now = Instant.now(clock);
 		Instant expiration = now.plus(properties.getExpirationMinutes(), ChronoUnit.MINUTES);
-		return Jwts.builder()
+		JwtBuilder builder = Jwts.builder()
+				.setHeaderParam(JwsHeader.KEY_ID, keyring.activeKid())
+				.setId(UUID.randomUUID().toString())
 				.setSubject(userDetails.getUsername())
 				.setIssuer(properties.getIssuer())
 				.setIssuedAt(Date.from(now))
-				.setExpiration(Date.from(expiration))
-				.signWith(getSigningKey(), SignatureAlgorithm.HS256)
-				.compact();
+				.setExpiration(Date.from(expiration));
+		if (userDetails instanceof UserPrincipal principal && principal.getUser().getId() != null) {
+			User user = principal.getUser();
+			builder.claim(CLAIM_USER_ID, user.getId())
+					.claim(CLAIM_ROL, user.getRol() != null ? user.getRol().name() : null)
+					.claim(CLAIM_TOKEN_VERSION, user.getTokenVersion());
+		}
+		return builder.signWith(keyring.activeKey(), SignatureAlgorithm.HS256).compact();
 	}
 
 	/**
@@ -111,19 +197,19 @@ public class JwtTokenService {
 	 * @return true si token es válido para ese usuario, false si no
 	 */
 	public boolean isTokenValid(String token, UserDetails userDetails) {
-		String username = extractUsername(token);
-		return username.equals(userDetails.getUsername()) && !isTokenExpired(token);
+		return isTokenValid(verify(token), userDetails);
 	}
 
 	/**
-	 * Verifica si un token está expirado.
+	 * Valida un token ya verificado contra un usuario, sin volver a parsearlo.
 	 * 
-	 * @param token Token JWT
-	 * @return true si expirado, false si aún válido
+	 * @param verified Token verificado con {@link #verify(String)}
+	 * @param userDetails Usuario contra el que validar
+	 * @return true si el token pertenece al usuario y no ha expirado
 	 */
-	private boolean isTokenExpired(String token) {
-		Instant expiration = extractClaim(token, claims -> claims.getExpiration().toInstant());
-		return expiration.isBefore(Instant.now(clock));
+	public boolean isTokenValid(VerifiedToken verified, UserDetails userDetails) {
+		return verified.subject().equals(userDetails.getUsername())
+				&& !verified.isExpiredAt(Instant.now(clock));
 	}
 
 	/**
@@ -133,7 +219,7 @@ public class JwtTokenService {
 	 * @return Instant con la fecha de expiración del token
 	 */
 	public Instant getExpirationFromToken(String token) {
-		return extractClaim(token, claims -> claims.getExpiration().toInstant());
+		return verify(token).expiresAt();
 	}
 
 	/**
@@ -144,47 +230,44 @@ public class JwtTokenService {
 	 * @throws io.jsonwebtoken.JwtException si token inválido o firma incorrecta
 	 */
 	private Claims parseClaims(String token) {
-		return Jwts.parserBuilder()
-			.setSigningKey(getSigningKey())
-			.setClock(() -> Date.from(Instant.now(clock)))
-				.build()
-				.parseClaimsJws(token)
-				.getBody();
+		return parser.parseClaimsJws(token).getBody();
 	}
 
 	/**
-	 * Obtiene la clave de firma para tokens JWT.
+	 * Calcula la clave de caché de un token (SHA-256 en Base64) para no retener
+	 * el token original en memoria.
 	 * 
-	 * <p>Proceso de obtención:</p>
-	 * <ol>
-	 *   <li>Lee secret de properties (BASE64)</li>
-	 *   <li>Si no hay secret, usa uno por defecto</li>
-	 *   <li>Decodifica de BASE64 a bytes</li>
-	 *   <li>Si menos de 32 bytes, hace padding</li>
-	 *   <li>Crea clave HMAC-SHA256</li>
-	 * </ol>
-	 * 
-	 * @return Clave de firma HMAC-SHA256
+	 * @param token Token JWT
+	 * @return Hash del token
 	 */
-	private Key getSigningKey() {
-		String secret = properties.getSecret();
-		if (secret == null || secret.isBlank()) {
-			secret = Encoders.BASE64.encode("sirha-default-secret".getBytes(StandardCharsets.UTF_8));
-		}
-		byte[] keyBytes;
+	private static String hash(String token) {
 		try {
-			keyBytes = Decoders.BASE64.decode(secret);
-		} catch (RuntimeException ex) {
-			if (!(ex instanceof IllegalArgumentException) && !(ex instanceof DecodingException)) {
-				throw ex;
-			}
-			keyBytes = secret.getBytes(StandardCharsets.UTF_8);
+			byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+			return Base64.getEncoder().encodeToString(digest);
+		} catch (NoSuchAlgorithmException ex) {
+			throw new IllegalStateException("SHA-256 no disponible", ex);
 		}
-		if (keyBytes.length < 32) {
-			byte[] padded = new byte[32];
-			System.arraycopy(keyBytes, 0, padded, 0, Math.min(keyBytes.length, 32));
-			keyBytes = padded;
+	}
+
+	/**
+	 * Política de expiración de la caché: cada entrada vive hasta el "exp" del token.
+	 */
+	private final class TokenExpiry implements Expiry<String, VerifiedToken> {
+
+		@Override
+		public long expireAfterCreate(String key, VerifiedToken value, long currentTime) {
+			Duration ttl = Duration.between(Instant.now(clock), value.expiresAt());
+			return ttl.isNegative() ? 0L : ttl.toNanos();
+		}
+
+		@Override
+		public long expireAfterUpdate(String key, VerifiedToken value, long currentTime, long currentDuration) {
+			return expireAfterCreate(key, value, currentTime);
+		}
+
+		@Override
+		public long expireAfterRead(String key, VerifiedToken value, long currentTime, long currentDuration) {
+			return currentDuration;
 		}
-		return Keys.hmacShaKeyFor(keyBytes);
 	}
 }
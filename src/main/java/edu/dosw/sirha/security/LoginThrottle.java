@@ -0,0 +1,150 @@
+package edu.dosw.sirha.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import edu.dosw.sirha.exception.TooManyRequestsException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Limitador en memoria de intentos de login fallidos por email y por IP.
+ *
+ * <p>Protege la CPU frente a ataques de credential stuffing: los intentos que ya
+ * superaron el límite se rechazan con 429 antes de consultar el usuario y de
+ * ejecutar BCrypt.</p>
+ *
+ * <p>Cada email e IP con fallos tiene su propio contador en una caché Caffeine
+ * acotada a {@code max-tracked-keys} entradas: la ventana empieza con el primer fallo
+ * y la entrada expira al terminarla. Los contadores son exactos, así que los fallos
+ * contra unas cuentas no bloquean a otras. Si la caché se llena, Caffeine descarta
+ * las entradas menos usadas; perder un contador de email solo relaja el límite de ese
+ * email, y el de la IP sigue aplicando.</p>
+ *
+ * <p>La IP es la que resuelve el servidor a partir de
+ * {@code server.forward-headers-strategy}: detrás de un proxy o balanceador de
+ * confianza es la del cliente, no la del proxy.</p>
+ *
+ * @see LoginThrottleProperties
+ * @see edu.dosw.sirha.controller.AuthController#login
+ */
+@Slf4j
+@Component
+public class LoginThrottle {
+
+    /** Atributo de request con el intento en curso, leído al manejar BadCredentialsException. */
+    public static final String ATTEMPT_ATTRIBUTE = LoginThrottle.class.getName() + ".ATTEMPT";
+
+    private final LoginThrottleProperties properties;
+    private final Clock clock;
+    private final long windowMillis;
+    private final Cache<String, Contador> emails;
+    private final Cache<String, Contador> ips;
+
+    public LoginThrottle(LoginThrottleProperties properties, Clock clock) {
+        this.properties = properties;
+        this.clock = clock;
+        this.windowMillis = Math.max(1, properties.getWindow().toMillis());
+        this.emails = contadores(properties, clock);
+        this.ips = contadores(properties, clock);
+    }
+
+    /**
+     * Verifica que el intento pueda continuar.
+     *
+     * @param attempt Email e IP del intento
+     * @throws TooManyRequestsException si el email o la IP superaron los fallos permitidos
+     */
+    public void checkAllowed(Attempt attempt) {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        long now = clock.millis();
+        Contador email = vigente(emails, attempt.email(), now);
+        Contador ip = vigente(ips, attempt.ip(), now);
+        boolean emailExcedido = email != null && email.fallos().get() >= properties.getMaxFailuresPerEmail();
+        boolean ipExcedida = ip != null && ip.fallos().get() >= properties.getMaxFailuresPerIp();
+        if (emailExcedido || ipExcedida) {
+            long fin = Math.max(emailExcedido ? email.inicio() : 0, ipExcedida ? ip.inicio() : 0) + windowMillis;
+            long retryAfter = Math.max(1, (fin - now + 999) / 1000);
+            log.warn("Login bloqueado temporalmente para {} desde {}", attempt.email(), attempt.ip());
+            throw new TooManyRequestsException(
+                    "Demasiados intentos fallidos, intente nuevamente más tarde", retryAfter);
+        }
+    }
+
+    /**
+     * Registra un intento fallido para el email y la IP.
+     *
+     * @param attempt Email e IP del intento
+     */
+    public void recordFailure(Attempt attempt) {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        long now = clock.millis();
+        incrementar(emails, attempt.email(), now);
+        incrementar(ips, attempt.ip(), now);
+    }
+
+    /**
+     * Reinicia el contador del email tras un login exitoso. El de la IP se
+     * conserva para no premiar a quien prueba muchas cuentas.
+     *
+     * @param attempt Email e IP del intento
+     */
+    public void recordSuccess(Attempt attempt) {
+        if (properties.isEnabled()) {
+            emails.invalidate(attempt.email());
+        }
+    }
+
+    private Contador vigente(Cache<String, Contador> contadores, String clave, long now) {
+        Contador contador = contadores.getIfPresent(clave);
+        return contador != null && now - contador.inicio() < windowMillis ? contador : null;
+    }
+
+    private void incrementar(Cache<String, Contador> contadores, String clave, long now) {
+        contadores.asMap().compute(clave, (k, actual) -> {
+            if (actual == null || now - actual.inicio() >= windowMillis) {
+                return new Contador(now, new AtomicInteger(1));
+            }
+            actual.fallos().incrementAndGet();
+            return actual;
+        });
+    }
+
+    private static Cache<String, Contador> contadores(LoginThrottleProperties properties, Clock clock) {
+        return Caffeine.newBuilder()
+                .maximumSize(properties.getMaxTrackedKeys())
+                .expireAfterWrite(properties.getWindow())
+                .ticker(() -> TimeUnit.MILLISECONDS.toNanos(clock.millis()))
+                .build();
+    }
+
+    /**
+     * Fallos de una clave dentro de su ventana.
+     *
+     * @param inicio Momento del primer fallo, en milisegundos
+     * @param fallos Fallos acumulados
+     */
+    private record Contador(long inicio, AtomicInteger fallos) {
+    }
+
+    /**
+     * Intento de login identificado por email (normalizado) e IP de origen.
+     *
+     * @param email Email en minúsculas
+     * @param ip Dirección IP del cliente
+     */
+    public record Attempt(String email, String ip) {
+
+        public static Attempt of(String email, String ip) {
+            return new Attempt(email == null ? "" : email.toLowerCase(Locale.ROOT), ip == null ? "" : ip);
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package edu.dosw.sirha.security;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "sirha.security.login-throttle")
+public class LoginThrottleProperties {
+
+    /** Permite desactivar el limitador (por ejemplo en pruebas de carga). */
+    private boolean enabled = true;
+    /** Intentos fallidos permitidos por email dentro de la ventana. */
+    private int maxFailuresPerEmail = 5;
+    /** Intentos fallidos permitidos por IP dentro de la ventana. */
+    private int maxFailuresPerIp = 100;
+    /** Duración de la ventana de conteo. */
+    private Duration window = Duration.ofMinutes(5);
+    /** Máximo de emails (y de IPs) con contador en memoria. */
+    private long maxTrackedKeys = 100_000;
+}
@@ -0,0 +1,22 @@
+package edu.dosw.sirha.security;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "sirha.security.password-hashing")
+public class PasswordHashingProperties {
+
+    /** Hilos dedicados a BCrypt; 0 usa el número de procesadores disponibles. */
+    private int threads = 0;
+    /** Máximo de operaciones de hashing en espera antes de rechazar con 429. */
+    private int queueCapacity = 64;
+    /** Espera máxima de un request por su resultado antes de rechazar con 429. */
+    private Duration maxWait = Duration.ofSeconds(5);
+    /** Valor del header Retry-After en las respuestas 429. */
+    private Duration retryAfter = Duration.ofSeconds(2);
+}
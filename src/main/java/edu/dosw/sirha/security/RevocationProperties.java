@@ -0,0 +1,16 @@
+package edu.dosw.sirha.security;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "sirha.security.revocation")
+public class RevocationProperties {
+
+    /** Tokens revocados simultáneamente (no expirados) que se esperan como máximo. */
+    private long expectedInsertions = 100_000;
+    /** Tasa de falsos positivos del filtro de Bloom. */
+    private double falsePositiveRate = 0.01;
+}
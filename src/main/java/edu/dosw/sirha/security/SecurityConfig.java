@@ -1,7 +1,5 @@
 package edu.dosw.sirha.security;
 
-import edu.dosw.sirha.exception.ResourceNotFoundException;
-import edu.dosw.sirha.model.User;
 import edu.dosw.sirha.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
@@ -23,7 +21,8 @@ import org.springframework.security.web.authentication.UsernamePasswordAuthentic
 @Configuration
 @EnableWebSecurity
 @EnableMethodSecurity
-@EnableConfigurationProperties(JwtProperties.class)
+@EnableConfigurationProperties({JwtProperties.class, UserCacheProperties.class, LoginThrottleProperties.class,
+        RevocationProperties.class})
 @RequiredArgsConstructor
 public class SecurityConfig {
 
@@ -74,11 +73,8 @@ public class SecurityConfig {
 	}
 
 	@Bean
-	public UserDetailsService userDetailsService(UserRepository userRepository) {
-		return username -> {
-			User user = userRepository.findByEmail(username)
-					.orElseThrow(() -> new ResourceNotFoundException("Usuario no encontrado con email " + username));
-			return new UserPrincipal(user);
-		};
+	public CachingUserDetailsService userDetailsService(UserRepository userRepository,
+			UserCacheProperties userCacheProperties) {
+		return new CachingUserDetailsService(userRepository, userCacheProperties);
 	}
-}
\ No newline at end of file
+}
@@ -0,0 +1,138 @@
+package edu.dosw.sirha.security;
+
+import edu.dosw.sirha.model.RevokedToken;
+import edu.dosw.sirha.repository.RevokedTokenRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Revocación de tokens JWT individuales (logout).
+ * 
+ * <p>Los tokens revocados se guardan por {@code jti} en la colección
+ * {@code tokens_revocados}, con índice TTL a la expiración del token. Para no
+ * consultar MongoDB en cada request, {@link JwtAuthFilter} pregunta primero a un
+ * filtro de Bloom en memoria: si responde "no está" (el caso normal) el token se
+ * acepta sin más; solo ante un positivo se confirma con una búsqueda exacta por ID.</p>
+ * 
+ * <p>El filtro se reconstruye periódicamente desde MongoDB con {@link #reload()},
+ * lo que incorpora revocaciones hechas en otras réplicas y descarta las ya
+ * expiradas (un filtro de Bloom no admite borrados).</p>
+ * 
+ * @see RevokedToken
+ * @see JwtAuthFilter
+ */
+@Slf4j
+@Component
+public class TokenRevocationService {
+
+    private final RevokedTokenRepository revokedTokenRepository;
+    private final MongoTemplate mongoTemplate;
+    private final RevocationProperties properties;
+    private final Clock clock;
+
+    /** Revocaciones hechas en este nodo aún no expiradas, preservadas entre recargas. */
+    private final Map<String, Instant> locales = new ConcurrentHashMap<>();
+
+    private volatile BloomFilter filter;
+
+    public TokenRevocationService(RevokedTokenRepository revokedTokenRepository,
+                                  MongoTemplate mongoTemplate,
+                                  RevocationProperties properties,
+                                  Clock clock) {
+        this.revokedTokenRepository = revokedTokenRepository;
+        this.mongoTemplate = mongoTemplate;
+        this.properties = properties;
+        this.clock = clock;
+        this.filter = newFilter();
+    }
+
+    /**
+     * Revoca un token hasta su expiración.
+     * 
+     * <p>Tokens sin {@code jti} (emitidos antes de incluirlo) no pueden revocarse
+     * individualmente y se ignoran.</p>
+     * 
+     * @param token Token ya verificado
+     */
+    public void revoke(VerifiedToken token) {
+        if (token.jti() == null) {
+            return;
+        }
+        Instant now = Instant.now(clock);
+        Instant expiraEn = token.expiresAt() != null ? token.expiresAt() : now;
+        revokedTokenRepository.save(RevokedToken.builder()
+                .jti(token.jti())
+                .subject(token.subject())
+                .revocadoEn(now)
+                .expiraEn(expiraEn)
+                .build());
+        locales.put(token.jti(), expiraEn);
+        filter.put(token.jti());
+    }
+
+    /**
+     * Indica si un token fue revocado.
+     * 
+     * <p>Solo consulta MongoDB cuando el filtro de Bloom da positivo.</p>
+     * 
+     * @param jti Claim {@code jti} del token, puede ser null
+     * @return true si el token está revocado
+     */
+    public boolean isRevoked(String jti) {
+        if (jti == null || !filter.mightContain(jti)) {
+            return false;
+        }
+        if (locales.containsKey(jti)) {
+            return true;
+        }
+        try {
+            return revokedTokenRepository.existsById(jti);
+        } catch (DataAccessException ex) {
+            log.warn("No fue posible confirmar la revocación del token {}: {}", jti, ex.getMessage());
+            return true;
+        }
+    }
+
+    /**
+     * Reconstruye el filtro con los tokens revocados vigentes en MongoDB.
+     * 
+     * <p>Solo proyecta {@code _id}. Si MongoDB no está disponible conserva el
+     * filtro anterior.</p>
+     */
+    @Scheduled(fixedDelayString = "${sirha.security.revocation.refresh-ms:30000}")
+    public void reload() {
+        Instant now = Instant.now(clock);
+        locales.values().removeIf(expiraEn -> !expiraEn.isAfter(now));
+        Query query = new Query(Criteria.where("expiraEn").gt(now));
+        query.fields().include("_id");
+        try {
+            BloomFilter reloaded = newFilter();
+            int total = 0;
+            for (RevokedToken revoked : mongoTemplate.find(query, RevokedToken.class)) {
+                reloaded.put(revoked.getJti());
+                total++;
+            }
+            locales.keySet().forEach(reloaded::put);
+            filter = reloaded;
+            // Revocaciones locales ocurridas durante la recarga pudieron ir al filtro anterior
+            locales.keySet().forEach(reloaded::put);
+            log.debug("Filtro de tokens revocados actualizado: {} tokens", total);
+        } catch (DataAccessException ex) {
+            log.warn("No fue posible actualizar el filtro de tokens revocados: {}", ex.getMessage());
+        }
+    }
+
+    private BloomFilter newFilter() {
+        return new BloomFilter(properties.getExpectedInsertions(), properties.getFalsePositiveRate());
+    }
+}
@@ -0,0 +1,18 @@
+package edu.dosw.sirha.security;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "sirha.security.user-cache")
+public class UserCacheProperties {
+
+    /** Tiempo máximo que un usuario cargado permanece en caché. */
+    private Duration ttl = Duration.ofMinutes(5);
+    /** Máximo de usuarios que se mantienen en caché. */
+    private long maxSize = 10_000;
+}
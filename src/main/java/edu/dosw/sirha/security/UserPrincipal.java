@@ -39,6 +39,28 @@ public class UserPrincipal implements UserDetails {
         this.user = user;
     }
 
+    /**
+     * Construye un UserPrincipal directamente desde los claims de un token verificado,
+     * sin consultar la base de datos.
+     * 
+     * <p>El usuario resultante solo contiene ID, email, rol y versión de credenciales;
+     * no incluye el hash de la contraseña ni el resto del perfil. Se asume activo
+     * porque las desactivaciones se aplican mediante {@link UserSessionRegistry}.</p>
+     * 
+     * @param token Token verificado con claims de usuario
+     * @return Principal con la información mínima del usuario autenticado
+     */
+    public static UserPrincipal fromToken(VerifiedToken token) {
+        User user = User.builder()
+                .id(token.userId())
+                .email(token.subject())
+                .rol(Rol.valueOf(token.rol()))
+                .activo(true)
+                .tokenVersion(token.tokenVersion())
+                .build();
+        return new UserPrincipal(user);
+    }
+
     /**
      * Retorna las autoridades (roles) del usuario.
      * 
@@ -0,0 +1,119 @@
+package edu.dosw.sirha.security;
+
+import edu.dosw.sirha.model.User;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Tabla en memoria de usuarios cuyos tokens ya emitidos deben rechazarse.
+ * 
+ * <p>Como {@link JwtAuthFilter} construye el principal a partir de los claims del
+ * token (sin ir a MongoDB), los cambios de rol y las desactivaciones se aplican
+ * comparando el claim {@code ver} del token con la versión mínima registrada aquí.
+ * Solo se guardan usuarios con versión mayor a 0 o inactivos, así que la tabla se
+ * mantiene pequeña.</p>
+ * 
+ * <p>La tabla se actualiza de dos formas:</p>
+ * <ul>
+ *   <li>{@link #register(User)} al modificar un usuario en este nodo</li>
+ *   <li>{@link #refresh()} al arrancar y luego periódicamente desde MongoDB, para
+ *       reflejar cambios hechos en otras réplicas o antes del reinicio</li>
+ * </ul>
+ * 
+ * @see JwtAuthFilter
+ * @see User#getTokenVersion()
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class UserSessionRegistry {
+
+    private final MongoTemplate mongoTemplate;
+
+    private volatile Map<String, SessionState> sessions = new ConcurrentHashMap<>();
+
+    /**
+     * Indica si un token emitido con cierta versión ya no es válido para el usuario.
+     * 
+     * @param userId ID del usuario (claim "uid")
+     * @param tokenVersion Versión de credenciales del token (claim "ver")
+     * @return true si el usuario está desactivado o la versión es anterior a la vigente
+     */
+    public boolean isRevoked(String userId, int tokenVersion) {
+        SessionState state = sessions.get(userId);
+        return state != null && (state.deactivated() || tokenVersion < state.minVersion());
+    }
+
+    /**
+     * Registra el estado actual de un usuario tras modificarlo.
+     * 
+     * <p>Debe llamarse después de incrementar {@code tokenVersion} (cambio de rol o
+     * contraseña) o de desactivar la cuenta.</p>
+     * 
+     * @param user Usuario ya persistido
+     */
+    public void register(User user) {
+        if (user.getId() == null) {
+            return;
+        }
+        if (user.isActivo() && user.getTokenVersion() == 0) {
+            sessions.remove(user.getId());
+        } else {
+            sessions.put(user.getId(), new SessionState(user.getTokenVersion(), !user.isActivo()));
+        }
+    }
+
+    /**
+     * Carga la tabla al arrancar, para no aceptar durante el primer intervalo tokens de
+     * usuarios ya desactivados o con la versión incrementada.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void alIniciar() {
+        refresh();
+    }
+
+    /**
+     * Recarga la tabla desde MongoDB con los usuarios inactivos o con versión mayor a 0.
+     * 
+     * <p>Solo proyecta {@code _id}, {@code activo} y {@code tokenVersion}. Si MongoDB
+     * no está disponible conserva la tabla anterior.</p>
+     */
+    @Scheduled(fixedDelayString = "${sirha.security.session-registry.refresh-ms:60000}",
+            initialDelayString = "${sirha.security.session-registry.refresh-ms:60000}")
+    public void refresh() {
+        Query query = new Query(new Criteria().orOperator(
+                Criteria.where("activo").is(false),
+                Criteria.where("tokenVersion").gt(0)));
+        query.fields().include("activo").include("tokenVersion");
+        try {
+            Map<String, SessionState> reloaded = new ConcurrentHashMap<>();
+            for (User user : mongoTemplate.find(query, User.class)) {
+                reloaded.put(user.getId(), new SessionState(user.getTokenVersion(), !user.isActivo()));
+            }
+            sessions = reloaded;
+            log.debug("Registro de sesiones actualizado: {} usuarios con tokens restringidos", reloaded.size());
+        } catch (DataAccessException ex) {
+            log.warn("No fue posible actualizar el registro de sesiones: {}", ex.getMessage());
+        }
+    }
+
+    /**
+     * Estado de revocación de un usuario.
+     * 
+     * @param minVersion Versión mínima aceptada en el claim "ver"
+     * @param deactivated true si la cuenta está desactivada
+     */
+    private record SessionState(int minVersion, boolean deactivated) {
+    }
+}
@@ -0,0 +1,77 @@
+package edu.dosw.sirha.security;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jws;
+
+import java.time.Instant;
+
+/**
+ * Resultado inmutable de la verificación de un token JWT.
+ *
+ * <p>Se construye una única vez al parsear el token (firma y expiración ya
+ * verificadas) y puede compartirse entre hilos y reutilizarse desde la caché
+ * de {@link JwtTokenService} sin volver a parsear.</p>
+ *
+ * @param jti Identificador único del token (claim "jti"), null en tokens antiguos
+ * @param subject Username (email) del claim "sub"
+ * @param issuedAt Fecha de emisión del claim "iat"
+ * @param expiresAt Fecha de expiración del claim "exp"
+ * @param kid Identificador de la clave de firma (header "kid"), null en tokens antiguos
+ * @param userId ID del usuario (claim "uid"), null en tokens sin claims de usuario
+ * @param rol Rol del usuario (claim "rol")
+ * @param tokenVersion Versión de credenciales del usuario (claim "ver"), 0 si no viene
+ *
+ * @see JwtTokenService#verify(String)
+ */
+public record VerifiedToken(
+        String jti,
+        String subject,
+        Instant issuedAt,
+        Instant expiresAt,
+        String kid,
+        String userId,
+        String rol,
+        int tokenVersion
+) {
+
+    /**
+     * Construye el resultado a partir de un JWS ya verificado por jjwt.
+     *
+     * @param jws Token parseado con firma válida
+     * @return VerifiedToken con los datos relevantes del token
+     */
+    static VerifiedToken from(Jws<Claims> jws) {
+        Claims claims = jws.getBody();
+        Integer version = claims.get(JwtTokenService.CLAIM_TOKEN_VERSION, Integer.class);
+        return new VerifiedToken(
+                claims.getId(),
+                claims.getSubject(),
+                claims.getIssuedAt() != null ? claims.getIssuedAt().toInstant() : null,
+                claims.getExpiration() != null ? claims.getExpiration().toInstant() : null,
+                jws.getHeader().getKeyId(),
+                claims.get(JwtTokenService.CLAIM_USER_ID, String.class),
+                claims.get(JwtTokenService.CLAIM_ROL, String.class),
+                version != null ? version : 0
+        );
+    }
+
+    /**
+     * Indica si el token trae los claims necesarios para construir el principal
+     * sin consultar la base de datos.
+     *
+     * @return true si incluye ID de usuario y rol
+     */
+    public boolean hasUserClaims() {
+        return userId != null && rol != null;
+    }
+
+    /**
+     * Indica si el token ya expiró respecto a un instante dado.
+     *
+     * @param now Instante de referencia
+     * @return true si tiene expiración y es anterior a {@code now}
+     */
+    public boolean isExpiredAt(Instant now) {
+        return expiresAt != null && expiresAt.isBefore(now);
+    }
+}
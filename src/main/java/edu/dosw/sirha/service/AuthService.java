@@ -2,6 +2,7 @@ package edu.dosw.sirha.service;
 
 import edu.dosw.sirha.dto.auth.AuthRequest;
 import edu.dosw.sirha.dto.auth.AuthResponse;
+import edu.dosw.sirha.dto.auth.RefreshTokenRequest;
 import edu.dosw.sirha.dto.request.RegisterRequest;
 import edu.dosw.sirha.dto.response.RegisterResponse;
 import edu.dosw.sirha.exception.BusinessException;
@@ -11,11 +12,16 @@ import edu.dosw.sirha.model.User;
 import edu.dosw.sirha.model.enums.Genero;
 import edu.dosw.sirha.model.enums.Rol;
 import edu.dosw.sirha.repository.UserRepository;
+import edu.dosw.sirha.security.CachingUserDetailsService;
 import edu.dosw.sirha.security.JwtTokenService;
+import edu.dosw.sirha.security.TokenRevocationService;
 import edu.dosw.sirha.security.UserPrincipal;
+import edu.dosw.sirha.security.VerifiedToken;
+import io.jsonwebtoken.JwtException;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.crypto.password.PasswordEncoder;
@@ -31,6 +37,8 @@ import java.time.Instant;
  * <p>Gestiona:</p>
  * <ul>
  *   <li>Login con JWT</li>
+ *   <li>Renovación de sesión con refresh tokens (sin verificar contraseña)</li>
+ *   <li>Cierre de sesión revocando el token JWT y el refresh token</li>
  *   <li>Registro de nuevos usuarios (Estudiante, Docente, Coordinador)</li>
  *   <li>Validaciones de dominio de email según rol</li>
  *   <li>Encriptación de contraseñas con BCrypt</li>
@@ -49,13 +57,17 @@ public class AuthService {
     private final JwtTokenService jwtTokenService;
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
+    private final CachingUserDetailsService userDetailsService;
+    private final UltimoAccesoBuffer ultimoAccesoBuffer;
+    private final RefreshTokenService refreshTokenService;
+    private final TokenRevocationService tokenRevocationService;
     private final Clock clock;
 
     /**
      * Autentica un usuario y genera un token JWT.
      * 
      * @param request Credenciales del usuario (email y password)
-     * @return AuthResponse con token JWT e información del usuario
+     * @return AuthResponse con token JWT, refresh token e información del usuario
      * @throws BusinessException si las credenciales son inválidas o la cuenta está inactiva
      */
     public AuthResponse login(AuthRequest request) {
@@ -79,18 +91,70 @@ public class AuthService {
             throw new BusinessException("La cuenta de usuario está inactiva");
         }
 
-        // Generar token JWT
-        UserPrincipal principal = new UserPrincipal(user);
-        String token = jwtTokenService.generateToken(principal);
-        Instant expiresAt = jwtTokenService.getExpirationFromToken(token);
-
-        // Actualizar último acceso
-        user.setUltimoAcceso(Instant.now(clock));
-        userRepository.save(user);
+        // Registrar último acceso (se escribe en MongoDB de forma diferida)
+        ultimoAccesoBuffer.registrar(user.getId(), Instant.now(clock));
 
         log.info("Login exitoso para usuario: {} con rol: {}", user.getEmail(), user.getRol());
 
-        // Construir respuesta (AuthResponse es un record)
+        return buildAuthResponse(user, refreshTokenService.emitir(user.getId()));
+    }
+
+    /**
+     * Renueva la sesión canjeando un refresh token por un nuevo token JWT.
+     * 
+     * <p>No verifica la contraseña: solo consulta el usuario por ID para emitir el
+     * token con su rol y estado actuales. El refresh token presentado queda
+     * invalidado y la respuesta incluye uno nuevo.</p>
+     * 
+     * @param request Refresh token emitido en el login o en una renovación previa
+     * @return AuthResponse con nuevo token JWT y nuevo refresh token
+     * @throws BadCredentialsException si el refresh token es inválido, expiró o ya fue usado
+     * @throws BusinessException si la cuenta está inactiva
+     */
+    public AuthResponse refresh(RefreshTokenRequest request) {
+        RefreshTokenService.Rotacion rotacion = refreshTokenService.rotar(request.refreshToken());
+        User user = userRepository.findById(rotacion.userId())
+                .orElseThrow(() -> new BadCredentialsException("Refresh token inválido"));
+
+        if (!user.isActivo()) {
+            log.warn("Intento de renovar sesión con cuenta inactiva: {}", user.getEmail());
+            refreshTokenService.revocar(rotacion.refreshToken());
+            throw new BusinessException("La cuenta de usuario está inactiva");
+        }
+
+        ultimoAccesoBuffer.registrar(user.getId(), Instant.now(clock));
+        log.debug("Sesión renovada para usuario: {}", user.getEmail());
+
+        return buildAuthResponse(user, rotacion.refreshToken());
+    }
+
+    /**
+     * Cierra la sesión revocando el token JWT y, si se envía, la familia del refresh token.
+     * 
+     * <p>Es idempotente: un token ya inválido o expirado no requiere revocación y se
+     * ignora, de modo que el cliente siempre puede descartar sus credenciales.</p>
+     * 
+     * @param token Token JWT del header Authorization, puede ser null
+     * @param refreshToken Refresh token de la sesión, puede ser null
+     */
+    public void logout(String token, String refreshToken) {
+        if (token != null) {
+            try {
+                VerifiedToken verified = jwtTokenService.verify(token);
+                tokenRevocationService.revoke(verified);
+                log.debug("Sesión cerrada para usuario: {}", verified.subject());
+            } catch (JwtException | IllegalArgumentException ex) {
+                log.debug("Logout con token inválido o expirado: {}", ex.getMessage());
+            }
+        }
+        if (refreshToken != null && !refreshToken.isBlank()) {
+            refreshTokenService.revocar(refreshToken);
+        }
+    }
+
+    private AuthResponse buildAuthResponse(User user, String refreshToken) {
+        String token = jwtTokenService.generateToken(new UserPrincipal(user));
+        Instant expiresAt = jwtTokenService.getExpirationFromToken(token);
         return new AuthResponse(
                 token,
                 expiresAt,
@@ -99,7 +163,8 @@ public class AuthService {
                         user.getNombre(),
                         user.getEmail(),
                         user.getRol().name()
-                )
+                ),
+                refreshToken
         );
     }
 
@@ -112,7 +177,7 @@ public class AuthService {
      *   <li>Verifica que el email no esté duplicado</li>
      *   <li>Encripta la contraseña con BCrypt</li>
      *   <li>Crea el usuario con los datos proporcionados</li>
-     *   <li>Guarda el usuario en MongoDB</li>
+     *   <li>Guarda el usuario en MongoDB e invalida su entrada en la caché de autenticación</li>
      *   <li>Retorna información del usuario creado</li>
      * </ol>
      * 
@@ -155,6 +220,7 @@ public class AuthService {
         
         // 5. Guardar en base de datos
         User savedUser = userRepository.save(user);
+        userDetailsService.invalidate(savedUser.getEmail());
         log.info("Usuario registrado exitosamente con ID: {} - Email: {} - Rol: {}", 
                  savedUser.getId(), savedUser.getEmail(), savedUser.getRol());
         
@@ -188,7 +254,7 @@ public class AuthService {
      * @param rol Rol del usuario
      * @throws ValidationException si el dominio no es válido para el rol
      */
-    private void validateEmailDomain(String email, String rol) {
+    void validateEmailDomain(String email, String rol) {
         String emailLower = email.toLowerCase();
         
         if ("ESTUDIANTE".equals(rol)) {
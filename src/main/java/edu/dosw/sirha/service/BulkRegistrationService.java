@@ -0,0 +1,380 @@
+package edu.dosw.sirha.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mongodb.bulk.BulkWriteError;
+import edu.dosw.sirha.dto.request.RegisterRequest;
+import edu.dosw.sirha.dto.response.BulkRegisterResponse;
+import edu.dosw.sirha.dto.response.BulkRegisterResponse.Fila;
+import edu.dosw.sirha.dto.response.BulkRegisterResponse.Resultado;
+import edu.dosw.sirha.exception.BusinessException;
+import edu.dosw.sirha.exception.TooManyRequestsException;
+import edu.dosw.sirha.exception.ValidationException;
+import edu.dosw.sirha.model.User;
+import edu.dosw.sirha.model.enums.Genero;
+import edu.dosw.sirha.model.enums.Rol;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Servicio de registro masivo de usuarios a partir de un archivo CSV o NDJSON.
+ *
+ * <p>Pensado para el inicio de semestre, cuando se registran miles de estudiantes.
+ * El archivo se lee línea a línea y se procesa en lotes:</p>
+ * <ol>
+ *   <li>Valida cada fila con las mismas reglas de {@link RegisterRequest} y el dominio
+ *       de email de {@link AuthService}</li>
+ *   <li>Descarta emails repetidos en el archivo y consulta los ya registrados con un
+ *       único {@code $in} por lote</li>
+ *   <li>Hashea las contraseñas en paralelo (a través del encoder acotado)</li>
+ *   <li>Inserta el lote con un bulkWrite no ordenado, de modo que un fallo puntual
+ *       no detiene el resto</li>
+ * </ol>
+ *
+ * <p>El resultado de cada fila se reporta en el mismo orden del archivo.</p>
+ *
+ * @author Equipo DOSW - SIRHA
+ * @version 1.0
+ * @since 2025-11-02
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class BulkRegistrationService {
+
+    private static final int DUPLICATE_KEY = 11000;
+    private static final List<String> COLUMNAS = List.of("nombre", "email", "password", "rol", "genero");
+
+    private final AuthService authService;
+    private final MongoTemplate mongoTemplate;
+    private final PasswordEncoder passwordEncoder;
+    private final Validator validator;
+    private final ObjectMapper objectMapper;
+    private final Clock clock;
+
+    @Value("${sirha.usuarios.bulk.batch-size:500}")
+    private int batchSize = 500;
+
+    /**
+     * Formatos de archivo soportados.
+     */
+    public enum Formato {
+        CSV,
+        NDJSON
+    }
+
+    /**
+     * Registra los usuarios contenidos en el archivo.
+     *
+     * <p>En CSV la primera línea debe ser el encabezado con las columnas
+     * {@code nombre,email,password,rol,genero} (genero es opcional). En NDJSON cada
+     * línea es un objeto con los mismos campos de {@code /api/auth/register}.</p>
+     *
+     * @param input Contenido del archivo
+     * @param formato Formato del archivo
+     * @return Reporte con el resultado de cada fila
+     * @throws BusinessException si el encabezado CSV no incluye las columnas obligatorias
+     */
+    public BulkRegisterResponse registrar(InputStream input, Formato formato) {
+        List<Fila> filas = new ArrayList<>();
+        List<Pendiente> lote = new ArrayList<>(batchSize);
+        Set<String> vistos = new HashSet<>();
+        Map<String, Integer> encabezado = null;
+
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8))) {
+            String line;
+            long linea = 0;
+            while ((line = reader.readLine()) != null) {
+                linea++;
+                if (line.isBlank()) {
+                    continue;
+                }
+                if (formato == Formato.CSV && encabezado == null) {
+                    encabezado = leerEncabezado(line);
+                    continue;
+                }
+                Fila fila = Fila.builder().linea(linea).build();
+                filas.add(fila);
+                RegisterRequest request = parsear(line, formato, encabezado, fila);
+                if (request != null) {
+                    lote.add(new Pendiente(fila, request));
+                }
+                if (lote.size() >= batchSize) {
+                    procesarLote(lote, vistos);
+                    lote.clear();
+                }
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException("No fue posible leer el archivo de usuarios", ex);
+        }
+        procesarLote(lote, vistos);
+
+        int creados = (int) filas.stream().filter(f -> f.getResultado() == Resultado.CREADO).count();
+        log.info("Registro masivo finalizado: {} filas, {} usuarios creados", filas.size(), creados);
+        return BulkRegisterResponse.builder()
+                .total(filas.size())
+                .creados(creados)
+                .rechazados(filas.size() - creados)
+                .filas(filas)
+                .build();
+    }
+
+    private Map<String, Integer> leerEncabezado(String line) {
+        List<String> columnas = dividirCsv(line);
+        Map<String, Integer> indices = new HashMap<>();
+        for (int i = 0; i < columnas.size(); i++) {
+            indices.put(columnas.get(i).trim().toLowerCase(Locale.ROOT), i);
+        }
+        for (String requerida : COLUMNAS.subList(0, 4)) {
+            if (!indices.containsKey(requerida)) {
+                throw new BusinessException("El encabezado CSV debe incluir la columna " + requerida);
+            }
+        }
+        return indices;
+    }
+
+    private RegisterRequest parsear(String line, Formato formato, Map<String, Integer> encabezado, Fila fila) {
+        if (formato == Formato.NDJSON) {
+            try {
+                RegisterRequest request = objectMapper.readValue(line, RegisterRequest.class);
+                fila.setEmail(request.getEmail());
+                return request;
+            } catch (JsonProcessingException ex) {
+                rechazar(fila, Resultado.INVALIDO, "JSON inválido: " + ex.getOriginalMessage());
+                return null;
+            }
+        }
+        List<String> valores = dividirCsv(line);
+        RegisterRequest request = RegisterRequest.builder()
+                .nombre(columna(valores, encabezado, "nombre"))
+                .email(columna(valores, encabezado, "email"))
+                .password(columna(valores, encabezado, "password"))
+                .rol(columna(valores, encabezado, "rol"))
+                .genero(columna(valores, encabezado, "genero"))
+                .build();
+        fila.setEmail(request.getEmail());
+        return request;
+    }
+
+    private void procesarLote(List<Pendiente> lote, Set<String> vistos) {
+        if (lote.isEmpty()) {
+            return;
+        }
+        List<Pendiente> validos = new ArrayList<>(lote.size());
+        for (Pendiente pendiente : lote) {
+            if (validar(pendiente)) {
+                String email = pendiente.request().getEmail().toLowerCase(Locale.ROOT);
+                if (vistos.add(email)) {
+                    validos.add(pendiente);
+                } else {
+                    rechazar(pendiente.fila(), Resultado.DUPLICADO, "Email repetido en el archivo");
+                }
+            }
+        }
+        if (validos.isEmpty()) {
+            return;
+        }
+
+        Set<String> existentes = emailsRegistrados(validos);
+        List<Pendiente> nuevos = new ArrayList<>(validos.size());
+        for (Pendiente pendiente : validos) {
+            if (existentes.contains(pendiente.request().getEmail().toLowerCase(Locale.ROOT))) {
+                rechazar(pendiente.fila(), Resultado.DUPLICADO, "El email ya está registrado en el sistema");
+            } else {
+                nuevos.add(pendiente);
+            }
+        }
+
+        Instant now = Instant.now(clock);
+        List<Pendiente> aInsertar = nuevos.parallelStream()
+                .filter(pendiente -> construirUsuario(pendiente, now))
+                .toList();
+        insertar(aInsertar);
+    }
+
+    private boolean validar(Pendiente pendiente) {
+        Set<ConstraintViolation<RegisterRequest>> violaciones = validator.validate(pendiente.request());
+        if (!violaciones.isEmpty()) {
+            String mensaje = violaciones.stream()
+                    .map(v -> v.getPropertyPath() + ": " + v.getMessage())
+                    .sorted()
+                    .collect(Collectors.joining("; "));
+            rechazar(pendiente.fila(), Resultado.INVALIDO, mensaje);
+            return false;
+        }
+        try {
+            authService.validateEmailDomain(pendiente.request().getEmail(), pendiente.request().getRol());
+            return true;
+        } catch (ValidationException ex) {
+            rechazar(pendiente.fila(), Resultado.INVALIDO, ex.getMessage());
+            return false;
+        }
+    }
+
+    private Set<String> emailsRegistrados(List<Pendiente> validos) {
+        List<String> emails = validos.stream()
+                .map(p -> p.request().getEmail().toLowerCase(Locale.ROOT))
+                .toList();
+        Query query = new Query(Criteria.where("email").in(emails));
+        query.fields().include("email");
+        return mongoTemplate.find(query, User.class).stream()
+                .map(User::getEmail)
+                .collect(Collectors.toSet());
+    }
+
+    private boolean construirUsuario(Pendiente pendiente, Instant now) {
+        RegisterRequest request = pendiente.request();
+        String hash;
+        try {
+            hash = passwordEncoder.encode(request.getPassword());
+        } catch (TooManyRequestsException ex) {
+            rechazar(pendiente.fila(), Resultado.ERROR, "Capacidad de hashing agotada, reintente la fila");
+            return false;
+        }
+        User user = User.builder()
+                .id(new ObjectId().toHexString())
+                .nombre(request.getNombre())
+                .email(request.getEmail().toLowerCase(Locale.ROOT))
+                .passwordHash(hash)
+                .rol(Rol.valueOf(request.getRol()))
+                .activo(true)
+                .creadoEn(now)
+                .actualizadoEn(now)
+                .build();
+        if (request.getGenero() != null && !request.getGenero().isBlank()) {
+            user.setGenero(Genero.valueOf(request.getGenero()));
+        }
+        pendiente.fila().setId(user.getId());
+        pendiente.setUser(user);
+        return true;
+    }
+
+    private void insertar(List<Pendiente> aInsertar) {
+        if (aInsertar.isEmpty()) {
+            return;
+        }
+        aInsertar.forEach(p -> p.fila().setResultado(Resultado.CREADO));
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, User.class);
+        bulk.insert(aInsertar.stream().map(Pendiente::user).toList());
+        try {
+            bulk.execute();
+        } catch (BulkOperationException ex) {
+            for (BulkWriteError error : ex.getErrors()) {
+                marcarFallo(aInsertar.get(error.getIndex()).fila(), error);
+            }
+        } catch (DataAccessException ex) {
+            log.error("Error al insertar lote de {} usuarios", aInsertar.size(), ex);
+            aInsertar.forEach(p -> rechazar(p.fila(), Resultado.ERROR, "Error al guardar el usuario"));
+        }
+    }
+
+    private void marcarFallo(Fila fila, BulkWriteError error) {
+        if (error.getCode() == DUPLICATE_KEY) {
+            rechazar(fila, Resultado.DUPLICADO, "El email ya está registrado en el sistema");
+        } else {
+            rechazar(fila, Resultado.ERROR, error.getMessage());
+        }
+    }
+
+    private static void rechazar(Fila fila, Resultado resultado, String mensaje) {
+        fila.setResultado(resultado);
+        fila.setMensaje(mensaje);
+        fila.setId(null);
+    }
+
+    private static String columna(List<String> valores, Map<String, Integer> encabezado, String nombre) {
+        Integer indice = encabezado.get(nombre);
+        if (indice == null || indice >= valores.size()) {
+            return null;
+        }
+        String valor = valores.get(indice).trim();
+        return valor.isEmpty() ? null : valor;
+    }
+
+    /**
+     * Divide una línea CSV respetando comillas dobles ({@code ""} escapa una comilla).
+     */
+    static List<String> dividirCsv(String line) {
+        List<String> valores = new ArrayList<>();
+        StringBuilder actual = new StringBuilder();
+        boolean entreComillas = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (c == '"') {
+                if (entreComillas && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    actual.append('"');
+                    i++;
+                } else {
+                    entreComillas = !entreComillas;
+                }
+            } else if (c == ',' && !entreComillas) {
+                valores.add(actual.toString());
+                actual.setLength(0);
+            } else {
+                actual.append(c);
+            }
+        }
+        valores.add(actual.toString());
+        return valores;
+    }
+
+    /**
+     * Fila leída pendiente de registrar.
+     */
+    private static final class Pendiente {
+
+        private final Fila fila;
+        private final RegisterRequest request;
+        private User user;
+
+        private Pendiente(Fila fila, RegisterRequest request) {
+            this.fila = fila;
+            this.request = request;
+        }
+
+        Fila fila() {
+            return fila;
+        }
+
+        RegisterRequest request() {
+            return request;
+        }
+
+        User user() {
+            return user;
+        }
+
+        void setUser(User user) {
+            this.user = user;
+        }
+    }
+}
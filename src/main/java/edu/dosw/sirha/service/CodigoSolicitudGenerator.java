@@ -0,0 +1,116 @@
+package edu.dosw.sirha.service;
+
+import edu.dosw.sirha.config.NodeIdentity;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Generador de los códigos legibles de las solicitudes.
+ *
+ * <p>El código tiene el formato {@code SOL-yyyyMMddHHmmss-NNNNSSSSSS}:</p>
+ * <ul>
+ *   <li><b>yyyyMMddHHmmss:</b> segundo de creación en UTC</li>
+ *   <li><b>NNNN:</b> cuatro dígitos hexadecimales derivados de {@link NodeIdentity},
+ *       que separan los códigos de réplicas distintas</li>
+ *   <li><b>SSSSSS:</b> consecutivo hexadecimal del segundo dentro de este nodo</li>
+ * </ul>
+ *
+ * <p>El segundo y el consecutivo viven en un único {@link AtomicLong} que se avanza
+ * con compare-and-set, sin bloqueos ni {@code SecureRandom}. Los códigos de un nodo
+ * son estrictamente crecientes: si el reloj retrocede se sigue usando el último
+ * segundo emitido, y si se agotan los consecutivos de un segundo se pasa al
+ * siguiente.</p>
+ *
+ * <p>La etiqueta de nodo tiene 16 bits, así que dos réplicas pueden compartirla.
+ * El índice único sobre {@code codigoSolicitud} rechaza entonces el segundo código
+ * y {@code SolicitudServiceImpl} reintenta el guardado con un código nuevo. Ese
+ * índice se crea al arrancar ({@code auto-index-creation}) y falla si la colección
+ * ya contiene códigos repetidos; en ese caso hay que depurarlos antes de desplegar
+ * (ver la sección de índices del README).</p>
+ *
+ * @author Equipo DOSW - SIRHA
+ * @version 1.0
+ * @since 2025-11-02
+ */
+@Component
+public class CodigoSolicitudGenerator {
+
+    private static final int BITS_SECUENCIA = 24;
+    private static final char[] HEX = "0123456789ABCDEF".toCharArray();
+    private static final int LONGITUD = 29;
+
+    private final int nodo;
+
+    /** Segundo (bits altos) y consecutivo (24 bits bajos) del último código emitido. */
+    private final AtomicLong estado = new AtomicLong();
+
+    /** Segundo ya formateado, reutilizado por todos los códigos de ese segundo. */
+    private volatile Prefijo prefijo = new Prefijo(Long.MIN_VALUE, null);
+
+    /**
+     * Crea el generador para este nodo.
+     *
+     * @param nodeIdentity Identidad de la réplica
+     */
+    public CodigoSolicitudGenerator(NodeIdentity nodeIdentity) {
+        this.nodo = nodeIdentity.getId().hashCode() & 0xFFFF;
+    }
+
+    /**
+     * Genera el siguiente código.
+     *
+     * @param ahora Instante de creación de la solicitud
+     * @return Código único de la solicitud
+     */
+    public String siguiente(Instant ahora) {
+        long segundo = ahora.getEpochSecond();
+        long anterior;
+        long siguiente;
+        do {
+            anterior = estado.get();
+            // El desborde del consecutivo acarrea al segundo siguiente
+            siguiente = segundo > anterior >>> BITS_SECUENCIA ? segundo << BITS_SECUENCIA : anterior + 1;
+        } while (!estado.compareAndSet(anterior, siguiente));
+
+        char[] codigo = new char[LONGITUD];
+        formatear(siguiente >>> BITS_SECUENCIA).getChars(0, 19, codigo, 0);
+        hex(nodo, codigo, 19, 4);
+        hex(siguiente, codigo, 23, 6);
+        return new String(codigo);
+    }
+
+    private String formatear(long segundo) {
+        Prefijo actual = prefijo;
+        if (actual.segundo() == segundo) {
+            return actual.texto();
+        }
+        LocalDateTime fecha = LocalDateTime.ofEpochSecond(segundo, 0, ZoneOffset.UTC);
+        StringBuilder texto = new StringBuilder(19).append("SOL-").append(fecha.getYear());
+        dosDigitos(texto, fecha.getMonthValue());
+        dosDigitos(texto, fecha.getDayOfMonth());
+        dosDigitos(texto, fecha.getHour());
+        dosDigitos(texto, fecha.getMinute());
+        dosDigitos(texto, fecha.getSecond());
+        String formateado = texto.append('-').toString();
+        prefijo = new Prefijo(segundo, formateado);
+        return formateado;
+    }
+
+    private static void dosDigitos(StringBuilder texto, int valor) {
+        texto.append((char) ('0' + valor / 10)).append((char) ('0' + valor % 10));
+    }
+
+    private static void hex(long valor, char[] destino, int desde, int digitos) {
+        for (int i = desde + digitos - 1; i >= desde; i--) {
+            destino[i] = HEX[(int) (valor & 0xF)];
+            valor >>>= 4;
+        }
+    }
+
+    private record Prefijo(long segundo, String texto) {
+    }
+}
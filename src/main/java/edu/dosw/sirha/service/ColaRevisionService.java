@@ -0,0 +1,130 @@
+package edu.dosw.sirha.service;
+
+import edu.dosw.sirha.dto.response.SolicitudResponse;
+import edu.dosw.sirha.exception.BusinessException;
+import edu.dosw.sirha.exception.ConflictException;
+import edu.dosw.sirha.exception.ResourceNotFoundException;
+import edu.dosw.sirha.mapper.SolicitudMapper;
+import edu.dosw.sirha.model.Solicitud;
+import edu.dosw.sirha.model.enums.SolicitudEstado;
+import edu.dosw.sirha.repository.SolicitudRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Cola de revisión de solicitudes para coordinadores.
+ *
+ * <p>Los coordinadores reclaman las siguientes solicitudes pendientes o en revisión
+ * en orden de prioridad y antigüedad. Cada solicitud reclamada queda asignada a un
+ * único revisor por un tiempo limitado ({@code sirha.solicitudes.cola.asignacion-minutos}):</p>
+ * <ul>
+ *   <li>Mientras la asignación está vigente, ningún otro revisor la recibe</li>
+ *   <li>El revisor puede renovarla si necesita más tiempo</li>
+ *   <li>Si la libera o la deja vencer, vuelve a la cola</li>
+ *   <li>Al cambiar a un estado fuera de la cola (aprobada, rechazada, etc.) la
+ *       solicitud deja de entregarse y su asignación se descarta</li>
+ * </ul>
+ *
+ * <p>Cada asignación es un {@code findAndModify} atómico, por lo que dos revisores
+ * que reclaman al mismo tiempo reciben solicitudes distintas.</p>
+ *
+ * @author Equipo DOSW - SIRHA
+ * @version 1.0
+ * @since 2025-11-02
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ColaRevisionService {
+
+    /**
+     * Estados de las solicitudes que forman la cola de revisión.
+     */
+    public static final Set<SolicitudEstado> ESTADOS_EN_COLA =
+            Set.of(SolicitudEstado.PENDIENTE, SolicitudEstado.EN_REVISION);
+
+    private final SolicitudRepository solicitudRepository;
+    private final SolicitudMapper solicitudMapper;
+    private final Clock clock;
+
+    @Value("${sirha.solicitudes.cola.asignacion-minutos:10}")
+    private long minutosAsignacion = 10;
+
+    @Value("${sirha.solicitudes.cola.max-lote:20}")
+    private int maxLote = 20;
+
+    /**
+     * Asigna al revisor las siguientes solicitudes de la cola.
+     *
+     * @param revisor Revisor que reclama
+     * @param cantidad Cantidad de solicitudes a reclamar (1 por defecto)
+     * @return Solicitudes asignadas en orden de atención, sin historial; puede tener
+     *         menos elementos que los pedidos si la cola se vacía
+     * @throws BusinessException si la cantidad está fuera del rango permitido
+     */
+    public List<SolicitudResponse> reclamar(String revisor, Integer cantidad) {
+        int pedidas = cantidad != null ? cantidad : 1;
+        if (pedidas < 1 || pedidas > maxLote) {
+            throw new BusinessException("La cantidad a reclamar debe estar entre 1 y " + maxLote);
+        }
+        Instant ahora = Instant.now(clock);
+        Instant vence = ahora.plus(minutosAsignacion, ChronoUnit.MINUTES);
+        List<SolicitudResponse> asignadas = new ArrayList<>(pedidas);
+        for (int i = 0; i < pedidas; i++) {
+            Optional<Solicitud> siguiente = solicitudRepository.reclamarSiguiente(ESTADOS_EN_COLA, revisor, ahora, vence);
+            if (siguiente.isEmpty()) {
+                break;
+            }
+            asignadas.add(solicitudMapper.toResponse(siguiente.get()));
+        }
+        log.debug("{} solicitudes asignadas a {} hasta {}", asignadas.size(), revisor, vence);
+        return asignadas;
+    }
+
+    /**
+     * Extiende la asignación vigente de una solicitud.
+     *
+     * @param id ID de la solicitud
+     * @param revisor Revisor que tiene la asignación
+     * @return Solicitud con el nuevo vencimiento, sin historial
+     * @throws ResourceNotFoundException si la solicitud no existe
+     * @throws ConflictException si la asignación venció o pertenece a otro revisor
+     */
+    public SolicitudResponse renovar(String id, String revisor) {
+        Instant ahora = Instant.now(clock);
+        return solicitudRepository.renovarAsignacion(id, revisor, ahora, ahora.plus(minutosAsignacion, ChronoUnit.MINUTES))
+                .map(solicitudMapper::toResponse)
+                .orElseThrow(() -> sinAsignacion(id));
+    }
+
+    /**
+     * Devuelve una solicitud a la cola antes de que venza su asignación.
+     *
+     * @param id ID de la solicitud
+     * @param revisor Revisor que tiene la asignación
+     * @throws ResourceNotFoundException si la solicitud no existe
+     * @throws ConflictException si la solicitud no está asignada al revisor
+     */
+    public void liberar(String id, String revisor) {
+        if (!solicitudRepository.liberarAsignacion(id, revisor)) {
+            throw sinAsignacion(id);
+        }
+    }
+
+    private RuntimeException sinAsignacion(String id) {
+        if (!solicitudRepository.existsById(id)) {
+            return new ResourceNotFoundException("Solicitud no encontrada con id " + id);
+        }
+        return new ConflictException("La solicitud " + id + " no está asignada al revisor o su asignación venció");
+    }
+}
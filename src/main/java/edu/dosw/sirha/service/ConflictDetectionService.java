@@ -2,6 +2,7 @@ package edu.dosw.sirha.service;
 
 import edu.dosw.sirha.dto.request.ConflictRequest;
 import edu.dosw.sirha.dto.response.ConflictResponse;
+import edu.dosw.sirha.model.Solicitud;
 
 import java.util.List;
 
@@ -16,7 +17,9 @@ import java.util.List;
  *   <li>Grupos llenos sin cupos</li>
  * </ul>
  * 
- * <p>También permite registro manual de conflictos no detectados automáticamente.</p>
+ * <p>La detección automática evalúa las {@link edu.dosw.sirha.service.conflict.ConflictRule}
+ * registradas cuando una solicitud se crea o se aprueba. También permite registro manual
+ * de conflictos no detectados automáticamente.</p>
  * 
  * @see edu.dosw.sirha.model.Conflict
  * @see ConflictRequest
@@ -24,6 +27,33 @@ import java.util.List;
  */
 public interface ConflictDetectionService {
 
+    /**
+     * Detecta y registra los conflictos de una solicitud con grupo destino.
+     * 
+     * <p>Carga en una consulta las inscripciones INSCRITO del estudiante en el periodo de
+     * la solicitud y en otra los grupos involucrados, evalúa todas las reglas y guarda los
+     * conflictos en una sola inserción masiva. Un conflicto ya registrado para la
+     * solicitud no se duplica. Si MongoDB falla se registra en el log y se retorna una
+     * lista vacía: la detección no interrumpe la operación sobre la solicitud.</p>
+     * 
+     * @param solicitud Solicitud ya guardada
+     * @return Conflictos detectados, vacío si no tiene grupo destino
+     */
+    List<ConflictResponse> detectar(Solicitud solicitud);
+
+    /**
+     * Detecta y registra los conflictos de un lote de solicitudes.
+     * 
+     * <p>Equivale a {@link #detectar(Solicitud)} por cada solicitud, pero con una consulta
+     * {@code $in} para las inscripciones de todos los estudiantes, una para todos los
+     * grupos involucrados y una sola inserción masiva para todos los conflictos. Las
+     * solicitudes sin grupo destino se omiten.</p>
+     * 
+     * @param solicitudes Solicitudes ya guardadas
+     * @return Conflictos detectados en todo el lote
+     */
+    List<ConflictResponse> detectar(List<Solicitud> solicitudes);
+
     /**
      * Registra un nuevo conflicto (manual o automático).
      * 
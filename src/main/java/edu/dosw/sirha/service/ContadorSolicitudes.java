@@ -0,0 +1,419 @@
+package edu.dosw.sirha.service;
+
+import edu.dosw.sirha.exception.ConflictException;
+import edu.dosw.sirha.model.Solicitud;
+import edu.dosw.sirha.model.SolicitudConteo;
+import edu.dosw.sirha.model.enums.SolicitudEstado;
+import edu.dosw.sirha.model.enums.SolicitudTipo;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Totales de solicitudes por período, estado y tipo para los dashboards.
+ *
+ * <p>{@link edu.dosw.sirha.service.impl.SolicitudServiceImpl} registra aquí cada
+ * creación, cambio de estado, actualización y eliminación. Los incrementos se
+ * acumulan en {@link LongAdder} sin bloquear a las escrituras concurrentes y se
+ * vacían periódicamente en {@code solicitud_conteos} con un único {@code bulkWrite}
+ * de {@code $inc}, que suma los de todas las réplicas.</p>
+ *
+ * <p>Las consultas combinan los totales leídos de {@code solicitud_conteos} en el
+ * último vaciado con los incrementos locales aún pendientes, sin contar la colección
+ * de solicitudes. Los cambios hechos en otras réplicas se ven tras su vaciado y el
+ * siguiente de esta.</p>
+ *
+ * <p>Si los totales se desvían (por ejemplo, por eliminaciones concurrentes de la
+ * misma solicitud), {@link #reconstruir()} los recalcula desde la colección de
+ * solicitudes, siempre bajo el bloqueo {@value #TAREA} ({@link LeaderLock}).</p>
+ *
+ * <p>Al arrancar, si {@code solicitud_conteos} está vacía pero ya hay solicitudes
+ * (por ejemplo, tras desplegar esta versión), una sola réplica, la que toma el bloqueo,
+ * la reconstruye. Hasta ver los totales, cada
+ * réplica responde las consultas agrupando la colección de solicitudes y no escribe
+ * incrementos, que se descartan al ver los totales reconstruidos: así las
+ * transiciones de solicitudes anteriores no dejan totales negativos. Los cambios
+ * registrados mientras se reconstruye pueden quedar sin contar.</p>
+ *
+ * @author Equipo DOSW - SIRHA
+ * @version 1.0
+ * @since 2025-11-02
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ContadorSolicitudes {
+
+    /**
+     * Nombre del bloqueo que elige la réplica que reconstruye los totales.
+     */
+    public static final String TAREA = "conteos-solicitudes";
+
+    private static final Duration DURACION_RECONSTRUCCION = Duration.ofMinutes(10);
+
+    private static final String COLECCION = "solicitud_conteos";
+
+    private static final int SIN_BLOQUEO = -1;
+
+    private final MongoTemplate mongoTemplate;
+    private final LeaderLock leaderLock;
+    private final Clock clock;
+
+    /** false hasta que {@code solicitud_conteos} tiene los totales de las solicitudes existentes. */
+    private volatile boolean listo;
+
+    private final ConcurrentHashMap<Clave, LongAdder> pendientes = new ConcurrentHashMap<>();
+
+    /** Totales leídos de {@code solicitud_conteos}; null hasta la primera lectura. */
+    private final AtomicReference<Map<Clave, Long>> persistidos = new AtomicReference<>();
+
+    /** Incrementos que se están escribiendo, para no dejar de contarlos mientras tanto. */
+    private volatile Map<Clave, Long> enVuelo = Map.of();
+
+    /**
+     * Registra el paso de una solicitud de una combinación a otra.
+     *
+     * <p>Cubre la creación ({@code anterior} null), la eliminación ({@code nueva} null)
+     * y los cambios de estado, tipo o período.</p>
+     *
+     * @param anterior Solicitud antes del cambio, o null si se creó
+     * @param nueva Solicitud después del cambio, o null si se eliminó
+     */
+    public void registrar(Solicitud anterior, Solicitud nueva) {
+        Clave desde = anterior != null ? Clave.de(anterior) : null;
+        Clave hacia = nueva != null ? Clave.de(nueva) : null;
+        if (Objects.equals(desde, hacia)) {
+            return;
+        }
+        if (desde != null) {
+            ajustar(desde, -1);
+        }
+        if (hacia != null) {
+            ajustar(hacia, 1);
+        }
+    }
+
+    /**
+     * Registra un cambio de estado de una solicitud.
+     *
+     * @param periodoId Período de la solicitud
+     * @param tipo Tipo de la solicitud
+     * @param anterior Estado anterior
+     * @param nuevo Estado nuevo
+     */
+    public void cambiarEstado(String periodoId, SolicitudTipo tipo, SolicitudEstado anterior, SolicitudEstado nuevo) {
+        if (anterior == nuevo) {
+            return;
+        }
+        ajustar(new Clave(periodoId, anterior, tipo), -1);
+        ajustar(new Clave(periodoId, nuevo, tipo), 1);
+    }
+
+    /**
+     * Cuenta las solicitudes en un estado.
+     *
+     * @param estado Estado a contar
+     * @param periodoId Período, o null para todos los períodos
+     * @return Cantidad de solicitudes
+     */
+    public long contar(SolicitudEstado estado, String periodoId) {
+        return resumen(periodoId).get(estado);
+    }
+
+    /**
+     * Cuenta las solicitudes de cada estado.
+     *
+     * @param periodoId Período, o null para todos los períodos
+     * @return Cantidad por estado, con todos los estados presentes
+     */
+    public Map<SolicitudEstado, Long> resumen(String periodoId) {
+        Map<SolicitudEstado, Long> totales = new EnumMap<>(SolicitudEstado.class);
+        for (SolicitudEstado estado : SolicitudEstado.values()) {
+            totales.put(estado, 0L);
+        }
+        if (!listo) {
+            contarSolicitudes(periodoId).forEach((estado, total) -> totales.merge(estado, total, Long::sum));
+            return totales;
+        }
+        sumar(totales, persistidos(), periodoId);
+        sumar(totales, enVuelo, periodoId);
+        pendientes.forEach((clave, delta) -> {
+            if (clave.estado() != null && (periodoId == null || periodoId.equals(clave.periodoId()))) {
+                totales.merge(clave.estado(), delta.sum(), Long::sum);
+            }
+        });
+        return totales;
+    }
+
+    /**
+     * Escribe los incrementos pendientes en un único bulkWrite y recarga los totales.
+     *
+     * <p>Si la escritura falla, los incrementos se devuelven a los pendientes para
+     * el siguiente intento.</p>
+     *
+     * @return Cantidad de totales escritos
+     */
+    @Scheduled(fixedDelayString = "${sirha.solicitudes.conteos.flush-ms:5000}")
+    public int flush() {
+        if (!listo) {
+            inicializar();
+            return 0;
+        }
+        int escritos = vaciar();
+        recargar();
+        return escritos;
+    }
+
+    /**
+     * Verifica que {@code solicitud_conteos} tenga los totales y, si está vacía
+     * habiendo solicitudes, la reconstruye desde la réplica que toma el bloqueo.
+     *
+     * <p>Se ejecuta al arrancar y, mientras los totales no estén listos, en cada
+     * vaciado; las réplicas que no toman el bloqueo esperan a ver los totales.</p>
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void inicializar() {
+        if (listo) {
+            return;
+        }
+        try {
+            if (mongoTemplate.exists(new Query(), SolicitudConteo.class)) {
+                // Otra réplica los reconstruyó: lo registrado hasta ahora ya está en la agregación
+                pendientes.clear();
+                listo = true;
+                return;
+            }
+            if (!mongoTemplate.exists(new Query(), Solicitud.class)) {
+                // Sin solicitudes los totales parten de cero
+                listo = true;
+                return;
+            }
+            reconstruirConBloqueo();
+        } catch (DataAccessException ex) {
+            log.warn("No fue posible inicializar los conteos de solicitudes: {}", ex.getMessage());
+        }
+    }
+
+    /**
+     * Recalcula todos los totales agrupando la colección de solicitudes.
+     *
+     * <p>Solo la réplica que toma el bloqueo {@value #TAREA} la ejecuta. La agregación
+     * termina en un {@code $out} sobre {@code solicitud_conteos}, que MongoDB reemplaza
+     * de forma atómica al final: las consultas ven los totales anteriores o los nuevos,
+     * nunca una tabla a medio escribir, y si la agregación falla la tabla no cambia.
+     * Los incrementos pendientes de esta réplica se descartan porque la agregación ya
+     * los incluye; los vaciados de otras réplicas durante la agregación pueden perderse,
+     * así que conviene ejecutarla en horas de baja actividad.</p>
+     *
+     * @return Cantidad de totales escritos
+     * @throws ConflictException si otra réplica está reconstruyendo los totales
+     */
+    public int reconstruir() {
+        int escritos = reconstruirConBloqueo();
+        if (escritos == SIN_BLOQUEO) {
+            throw new ConflictException("Otra réplica está reconstruyendo los conteos de solicitudes");
+        }
+        return escritos;
+    }
+
+    /**
+     * Reconstruye los totales según {@code sirha.solicitudes.conteos.reconstruir-cron}
+     * (desactivada por defecto). Las réplicas que no toman el bloqueo no hacen nada.
+     */
+    @Scheduled(cron = "${sirha.solicitudes.conteos.reconstruir-cron:-}")
+    public void reconstruirProgramado() {
+        try {
+            if (reconstruirConBloqueo() == SIN_BLOQUEO) {
+                log.debug("Otra réplica está reconstruyendo los conteos de solicitudes");
+            }
+        } catch (DataAccessException ex) {
+            log.warn("No fue posible reconstruir los conteos de solicitudes: {}", ex.getMessage());
+        }
+    }
+
+    private int reconstruirConBloqueo() {
+        if (!leaderLock.adquirir(TAREA, DURACION_RECONSTRUCCION)) {
+            return SIN_BLOQUEO;
+        }
+        try {
+            pendientes.clear();
+            mongoTemplate.aggregate(reconstruccion(Instant.now(clock)), Solicitud.class, Document.class);
+            listo = true;
+            persistidos.set(null);
+            int escritos = persistidos().size();
+            log.info("Conteos de solicitudes reconstruidos: {} combinaciones", escritos);
+            return escritos;
+        } finally {
+            leaderLock.liberar(TAREA);
+        }
+    }
+
+    /**
+     * Agrupa las solicitudes por período, estado y tipo y deja cada grupo en
+     * {@code solicitud_conteos} con el mismo ID que {@link SolicitudConteo#idDe}.
+     */
+    private static Aggregation reconstruccion(Instant ahora) {
+        AggregationOperation agrupar = contexto -> new Document("$group", new Document("_id", new Document()
+                .append("periodoId", "$periodoId").append("estado", "$estado").append("tipo", "$tipo"))
+                .append("total", new Document("$sum", 1)));
+        AggregationOperation proyectar = contexto -> new Document("$project", new Document()
+                .append("_id", new Document("$concat", List.of(texto("$_id.periodoId"), "|", texto("$_id.estado"),
+                        "|", texto("$_id.tipo"))))
+                .append("periodoId", "$_id.periodoId")
+                .append("estado", "$_id.estado")
+                .append("tipo", "$_id.tipo")
+                .append("total", 1)
+                .append("fechaActualizacion", new Document("$literal", Date.from(ahora))));
+        return Aggregation.newAggregation(agrupar, proyectar, Aggregation.out(COLECCION));
+    }
+
+    private static Document texto(String campo) {
+        return new Document("$ifNull", List.of(campo, "null"));
+    }
+
+    /**
+     * Vacía los incrementos antes de detener la aplicación.
+     */
+    @PreDestroy
+    public void flushOnShutdown() {
+        vaciar();
+    }
+
+    private int vaciar() {
+        Map<Clave, Long> lote = new HashMap<>();
+        pendientes.forEach((clave, delta) -> {
+            long valor = delta.sumThenReset();
+            if (valor != 0) {
+                lote.merge(clave, valor, Long::sum);
+            }
+        });
+        if (lote.isEmpty()) {
+            return 0;
+        }
+        enVuelo = lote;
+        if (!escribir(lote)) {
+            enVuelo = Map.of();
+            lote.forEach(this::ajustar);
+            return 0;
+        }
+        persistidos.updateAndGet(actuales -> {
+            if (actuales == null) {
+                return null;
+            }
+            Map<Clave, Long> nuevos = new HashMap<>(actuales);
+            lote.forEach((clave, delta) -> nuevos.merge(clave, delta, Long::sum));
+            return Map.copyOf(nuevos);
+        });
+        enVuelo = Map.of();
+        return lote.size();
+    }
+
+    private void ajustar(Clave clave, long delta) {
+        pendientes.computeIfAbsent(clave, k -> new LongAdder()).add(delta);
+    }
+
+    private boolean escribir(Map<Clave, Long> lote) {
+        Instant ahora = Instant.now(clock);
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, SolicitudConteo.class);
+        lote.forEach((clave, delta) -> bulk.upsert(
+                new Query(Criteria.where("id").is(clave.id())),
+                new Update()
+                        .inc("total", delta)
+                        .set("periodoId", clave.periodoId())
+                        .set("estado", clave.estado())
+                        .set("tipo", clave.tipo())
+                        .set("fechaActualizacion", ahora)));
+        try {
+            bulk.execute();
+            return true;
+        } catch (DataAccessException ex) {
+            log.warn("No fue posible escribir {} conteos de solicitudes: {}", lote.size(), ex.getMessage());
+            return false;
+        }
+    }
+
+    private void recargar() {
+        try {
+            Map<Clave, Long> totales = new HashMap<>();
+            for (SolicitudConteo conteo : mongoTemplate.findAll(SolicitudConteo.class)) {
+                totales.merge(new Clave(conteo.getPeriodoId(), conteo.getEstado(), conteo.getTipo()),
+                        conteo.getTotal(), Long::sum);
+            }
+            persistidos.set(Map.copyOf(totales));
+        } catch (DataAccessException ex) {
+            log.warn("No fue posible recargar los conteos de solicitudes: {}", ex.getMessage());
+        }
+    }
+
+    private Map<Clave, Long> persistidos() {
+        Map<Clave, Long> actuales = persistidos.get();
+        if (actuales == null) {
+            recargar();
+            actuales = persistidos.get();
+        }
+        return actuales != null ? actuales : Map.of();
+    }
+
+    private Map<SolicitudEstado, Long> contarSolicitudes(String periodoId) {
+        Map<SolicitudEstado, Long> totales = new EnumMap<>(SolicitudEstado.class);
+        Aggregation agregacion = periodoId == null
+                ? Aggregation.newAggregation(Aggregation.group("estado").count().as("total"))
+                : Aggregation.newAggregation(Aggregation.match(Criteria.where("periodoId").is(periodoId)),
+                        Aggregation.group("estado").count().as("total"));
+        for (Document grupo : mongoTemplate.aggregate(agregacion, Solicitud.class, Document.class)
+                .getMappedResults()) {
+            if (grupo.getString("_id") != null) {
+                totales.put(SolicitudEstado.valueOf(grupo.getString("_id")), ((Number) grupo.get("total")).longValue());
+            }
+        }
+        return totales;
+    }
+
+    private static void sumar(Map<SolicitudEstado, Long> totales, Map<Clave, Long> conteos, String periodoId) {
+        conteos.forEach((clave, total) -> {
+            if (clave.estado() != null && (periodoId == null || periodoId.equals(clave.periodoId()))) {
+                totales.merge(clave.estado(), total, Long::sum);
+            }
+        });
+    }
+
+    /**
+     * Combinación contada.
+     */
+    private record Clave(String periodoId, SolicitudEstado estado, SolicitudTipo tipo) {
+
+        static Clave de(Solicitud solicitud) {
+            return new Clave(solicitud.getPeriodoId(), solicitud.getEstado(), solicitud.getTipo());
+        }
+
+        String id() {
+            return SolicitudConteo.idDe(periodoId, estado, tipo);
+        }
+    }
+}
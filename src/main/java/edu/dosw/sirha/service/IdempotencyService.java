@@ -0,0 +1,261 @@
+package edu.dosw.sirha.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import edu.dosw.sirha.exception.BusinessException;
+import edu.dosw.sirha.exception.IdempotencyKeyInUseException;
+import edu.dosw.sirha.exception.IdempotencyKeyMismatchException;
+import edu.dosw.sirha.model.IdempotencyRecord;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Ejecución idempotente de operaciones identificadas con {@code Idempotency-Key}.
+ *
+ * <p>La clave se asocia al usuario y a la operación, y su respuesta se conserva
+ * durante {@code sirha.solicitudes.idempotencia.ttl-horas}:</p>
+ * <ul>
+ *   <li>Una caché LRU en memoria responde los reintentos sin consultar MongoDB</li>
+ *   <li>Los duplicados que llegan mientras la original sigue en curso en esta réplica
+ *       esperan su resultado en lugar de ejecutarse</li>
+ *   <li>La colección {@code idempotency_keys} (con índice TTL) comparte las claves
+ *       entre réplicas: la petición original reserva la clave antes de ejecutarse y
+ *       guarda la respuesta al terminar con un upsert, de modo que queda guardada
+ *       aunque la reserva ya haya expirado o se haya borrado</li>
+ * </ul>
+ *
+ * <p>Un reintento con respuesta guardada la recibe sin volver a ejecutar la
+ * operación. Si la clave ya se usó con otro cuerpo se responde 422
+ * ({@link IdempotencyKeyMismatchException}), y si la original sigue en curso en otra
+ * réplica, 409 ({@link IdempotencyKeyInUseException}). Solo se guardan las respuestas
+ * exitosas: si la operación falla se libera la clave y el cliente puede reintentar.</p>
+ *
+ * @author Equipo DOSW - SIRHA
+ * @version 1.0
+ * @since 2025-11-02
+ */
+@Slf4j
+@Component
+public class IdempotencyService {
+
+    /**
+     * Longitud máxima aceptada para la clave enviada por el cliente.
+     */
+    public static final int MAX_LONGITUD_CLAVE = 255;
+
+    /**
+     * Veces el tiempo en curso que dura una reserva, para que no expire antes de
+     * guardar la respuesta de una petición lenta.
+     */
+    private static final int FACTOR_RESERVA = 3;
+
+    private final MongoTemplate mongoTemplate;
+    private final ObjectMapper objectMapper;
+    private final Clock clock;
+    private final Duration ttl;
+    private final Duration enCursoMax;
+    private final Cache<String, Resultado> respuestas;
+    private final ConcurrentHashMap<String, CompletableFuture<Resultado>> enCurso = new ConcurrentHashMap<>();
+
+    /**
+     * Crea el servicio.
+     *
+     * @param mongoTemplate Acceso a {@code idempotency_keys}
+     * @param objectMapper Serialización de las respuestas
+     * @param clock Reloj de la aplicación
+     * @param ttlHoras Horas que se conserva cada respuesta
+     * @param cacheMax Máximo de respuestas en memoria
+     * @param enCursoMs Tiempo máximo que una petición original mantiene reservada su clave
+     */
+    public IdempotencyService(MongoTemplate mongoTemplate, ObjectMapper objectMapper, Clock clock,
+            @Value("${sirha.solicitudes.idempotencia.ttl-horas:24}") long ttlHoras,
+            @Value("${sirha.solicitudes.idempotencia.cache-max:10000}") long cacheMax,
+            @Value("${sirha.solicitudes.idempotencia.en-curso-ms:60000}") long enCursoMs) {
+        this.mongoTemplate = mongoTemplate;
+        this.objectMapper = objectMapper;
+        this.clock = clock;
+        this.ttl = Duration.ofHours(ttlHoras);
+        this.enCursoMax = Duration.ofMillis(enCursoMs);
+        this.respuestas = Caffeine.newBuilder()
+                .maximumSize(cacheMax)
+                .expireAfterWrite(ttl)
+                .build();
+    }
+
+    /**
+     * Ejecuta una operación a lo sumo una vez por clave.
+     *
+     * @param clave Valor de {@code Idempotency-Key}, o nulo para ejecutar sin idempotencia
+     * @param operacion Operación, incluido el recurso al que aplica
+     * @param usuario Usuario autenticado
+     * @param peticion Cuerpo de la petición, comparado con el de la original
+     * @param tipo Tipo de la respuesta
+     * @param accion Operación a ejecutar
+     * @param <T> Tipo de la respuesta
+     * @return Respuesta de la operación, o la guardada si la clave ya se usó
+     * @throws BusinessException si la clave supera {@value #MAX_LONGITUD_CLAVE} caracteres
+     * @throws IdempotencyKeyMismatchException si la clave ya se usó con otro cuerpo
+     * @throws IdempotencyKeyInUseException si la petición original sigue en curso en otra réplica
+     */
+    public <T> T ejecutar(String clave, String operacion, String usuario, Object peticion, Class<T> tipo,
+            Supplier<T> accion) {
+        if (!StringUtils.hasText(clave)) {
+            return accion.get();
+        }
+        if (clave.length() > MAX_LONGITUD_CLAVE) {
+            throw new BusinessException("Idempotency-Key no puede superar " + MAX_LONGITUD_CLAVE + " caracteres");
+        }
+        String id = usuario + "|" + operacion + "|" + clave;
+        String huella = huella(peticion);
+
+        Resultado guardado = respuestas.getIfPresent(id);
+        if (guardado != null) {
+            return reproducir(guardado, huella, tipo);
+        }
+        CompletableFuture<Resultado> propio = new CompletableFuture<>();
+        CompletableFuture<Resultado> original = enCurso.putIfAbsent(id, propio);
+        if (original != null) {
+            return reproducir(esperar(original), huella, tipo);
+        }
+        try {
+            Instant ahora = Instant.now(clock);
+            Optional<Resultado> previo = reservar(id, huella, ahora);
+            if (previo.isPresent()) {
+                respuestas.put(id, previo.get());
+                propio.complete(previo.get());
+                return reproducir(previo.get(), huella, tipo);
+            }
+            T respuesta;
+            try {
+                respuesta = accion.get();
+            } catch (RuntimeException ex) {
+                liberar(id);
+                throw ex;
+            }
+            Resultado resultado = new Resultado(huella, serializar(respuesta));
+            guardar(id, resultado, ahora);
+            respuestas.put(id, resultado);
+            propio.complete(resultado);
+            return respuesta;
+        } catch (RuntimeException ex) {
+            propio.completeExceptionally(ex);
+            throw ex;
+        } finally {
+            enCurso.remove(id, propio);
+        }
+    }
+
+    private Optional<Resultado> reservar(String id, String huella, Instant ahora) {
+        IdempotencyRecord reserva = IdempotencyRecord.builder()
+                .id(id)
+                .huella(huella)
+                .creadoEn(ahora)
+                .expiraEn(ahora.plus(enCursoMax.multipliedBy(FACTOR_RESERVA)))
+                .build();
+        try {
+            mongoTemplate.insert(reserva);
+            return Optional.empty();
+        } catch (DuplicateKeyException ex) {
+            IdempotencyRecord existente = mongoTemplate.findById(id, IdempotencyRecord.class);
+            if (existente == null || existente.getRespuesta() == null) {
+                throw new IdempotencyKeyInUseException("Ya hay una petición en curso con esta Idempotency-Key");
+            }
+            return Optional.of(new Resultado(existente.getHuella(), existente.getRespuesta()));
+        }
+    }
+
+    private void guardar(String id, Resultado resultado, Instant ahora) {
+        try {
+            mongoTemplate.upsert(new Query(Criteria.where("id").is(id)),
+                    new Update()
+                            .set("huella", resultado.huella())
+                            .set("respuesta", resultado.respuesta())
+                            .set("expiraEn", ahora.plus(ttl))
+                            .setOnInsert("creadoEn", ahora),
+                    IdempotencyRecord.class);
+        } catch (DataAccessException ex) {
+            // La operación ya se aplicó; esta réplica sigue respondiendo desde memoria
+            log.warn("No fue posible guardar la respuesta idempotente {}: {}", id, ex.getMessage());
+        }
+    }
+
+    private void liberar(String id) {
+        try {
+            mongoTemplate.remove(new Query(Criteria.where("id").is(id).and("respuesta").is(null)),
+                    IdempotencyRecord.class);
+        } catch (DataAccessException ex) {
+            log.warn("No fue posible liberar la clave idempotente {}: {}", id, ex.getMessage());
+        }
+    }
+
+    private Resultado esperar(CompletableFuture<Resultado> original) {
+        try {
+            return original.get(enCursoMax.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof RuntimeException causa) {
+                throw causa;
+            }
+            throw new IllegalStateException(ex.getCause());
+        } catch (TimeoutException ex) {
+            throw new IdempotencyKeyInUseException("Ya hay una petición en curso con esta Idempotency-Key");
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IdempotencyKeyInUseException("Ya hay una petición en curso con esta Idempotency-Key");
+        }
+    }
+
+    private <T> T reproducir(Resultado resultado, String huella, Class<T> tipo) {
+        if (!resultado.huella().equals(huella)) {
+            throw new IdempotencyKeyMismatchException("Idempotency-Key ya se usó con una petición diferente");
+        }
+        try {
+            return objectMapper.readValue(resultado.respuesta(), tipo);
+        } catch (JsonProcessingException ex) {
+            throw new IllegalStateException("Respuesta idempotente ilegible", ex);
+        }
+    }
+
+    private String serializar(Object valor) {
+        try {
+            return objectMapper.writeValueAsString(valor);
+        } catch (JsonProcessingException ex) {
+            throw new IllegalStateException("No fue posible serializar la respuesta", ex);
+        }
+    }
+
+    private String huella(Object peticion) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(objectMapper.writeValueAsBytes(peticion)));
+        } catch (JsonProcessingException | NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("No fue posible calcular la huella de la petición", ex);
+        }
+    }
+
+    private record Resultado(String huella, String respuesta) {
+    }
+}
@@ -0,0 +1,84 @@
+package edu.dosw.sirha.service;
+
+import edu.dosw.sirha.config.NodeIdentity;
+import edu.dosw.sirha.model.SchedulerLock;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Elección de la réplica que ejecuta una tarea programada.
+ *
+ * <p>Cada tarea tiene un documento en {@code scheduler_locks}. Tomar o renovar el
+ * bloqueo es un único {@code findAndModify} con upsert, condicionado a que el
+ * bloqueo esté vencido o ya pertenezca a este nodo; si otra réplica lo tiene
+ * vigente, el upsert choca con el {@code _id} existente y la réplica no es líder.</p>
+ *
+ * <p>El líder debe renovar el bloqueo antes de que venza (normalmente en cada
+ * ejecución de la tarea). Si la réplica se detiene, otra lo toma al vencer.</p>
+ *
+ * @author Equipo DOSW - SIRHA
+ * @version 1.0
+ * @since 2025-11-02
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class LeaderLock {
+
+    private final MongoTemplate mongoTemplate;
+    private final NodeIdentity nodeIdentity;
+    private final Clock clock;
+
+    /**
+     * Toma o renueva el bloqueo de una tarea.
+     *
+     * @param tarea Nombre de la tarea
+     * @param duracion Tiempo que el bloqueo queda vigente sin renovarse
+     * @return true si este nodo tiene el bloqueo
+     */
+    public boolean adquirir(String tarea, Duration duracion) {
+        Instant ahora = Instant.now(clock);
+        Query query = new Query(Criteria.where("id").is(tarea).orOperator(
+                Criteria.where("expiresAt").lte(ahora),
+                Criteria.where("owner").is(nodeIdentity.getId())));
+        Update update = new Update()
+                .set("owner", nodeIdentity.getId())
+                .set("expiresAt", ahora.plus(duracion));
+        try {
+            SchedulerLock lock = mongoTemplate.findAndModify(query, update,
+                    FindAndModifyOptions.options().upsert(true).returnNew(true), SchedulerLock.class);
+            return lock != null && nodeIdentity.getId().equals(lock.getOwner());
+        } catch (DuplicateKeyException ex) {
+            return false;
+        } catch (DataAccessException ex) {
+            log.warn("No fue posible tomar el bloqueo de {}: {}", tarea, ex.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Libera el bloqueo de una tarea si pertenece a este nodo.
+     *
+     * @param tarea Nombre de la tarea
+     */
+    public void liberar(String tarea) {
+        try {
+            mongoTemplate.remove(new Query(Criteria.where("id").is(tarea).and("owner").is(nodeIdentity.getId())),
+                    SchedulerLock.class);
+        } catch (DataAccessException ex) {
+            log.warn("No fue posible liberar el bloqueo de {}: {}", tarea, ex.getMessage());
+        }
+    }
+}
@@ -0,0 +1,373 @@
+package edu.dosw.sirha.service;
+
+import com.mongodb.client.result.UpdateResult;
+import edu.dosw.sirha.dto.response.ListaEsperaResponse;
+import edu.dosw.sirha.exception.ConflictException;
+import edu.dosw.sirha.exception.ResourceNotFoundException;
+import edu.dosw.sirha.model.Grupo;
+import edu.dosw.sirha.model.Inscripcion;
+import edu.dosw.sirha.model.ListaEsperaEntrada;
+import edu.dosw.sirha.model.enums.EstadoInscripcion;
+import edu.dosw.sirha.model.enums.Rol;
+import edu.dosw.sirha.repository.GrupoRepository;
+import edu.dosw.sirha.repository.InscripcionRepository;
+import edu.dosw.sirha.repository.UserRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Listas de espera de los grupos, en la colección {@code lista_espera}.
+ *
+ * <p>Cada estudiante en espera es una {@link ListaEsperaEntrada} con un turno creciente
+ * por grupo, de modo que la fila se lee en orden con el índice
+ * {@code (grupoId, fecha_promocion, posicion)}. Para responder "¿estoy en la lista y
+ * en qué lugar?" sin consultar MongoDB, se mantiene un índice en memoria por grupo
+ * (estudiante → entrada y turnos ordenados): la pertenencia se resuelve en O(1) y el
+ * lugar con una búsqueda binaria. El índice de un grupo se carga al primer uso y se
+ * recarga cada {@code sirha.grupos.lista-espera.recarga-ms} para recoger los cambios
+ * hechos en otras réplicas.</p>
+ *
+ * <p>Cuando una inscripción deja libre su cupo (por ejemplo, al aprobarse el cambio de
+ * grupo de quien lo ocupaba), {@link #promover(String, int)} lo entrega a la cabeza de
+ * la fila en lugar de devolverlo al grupo: el cupo sigue ocupado, ahora por la
+ * inscripción del estudiante promovido, y nadie más puede tomarlo entre la liberación
+ * y la promoción. Cada lote se toma con un único {@code updateMulti} condicionado a que
+ * la entrada siga esperando, así dos réplicas no promueven al mismo estudiante.</p>
+ *
+ * @author Equipo DOSW - SIRHA
+ * @version 1.0
+ * @since 2025-11-02
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ListaEsperaService {
+
+    private static final int DUPLICATE_KEY = 11000;
+
+    private final MongoTemplate mongoTemplate;
+    private final GrupoRepository grupoRepository;
+    private final InscripcionRepository inscripcionRepository;
+    private final UserRepository userRepository;
+    private final Clock clock;
+
+    @Value("${sirha.grupos.lista-espera.recarga-ms:30000}")
+    private long recargaMs = 30_000;
+
+    @Value("${sirha.grupos.lista-espera.lote:50}")
+    private int lote = 50;
+
+    private final ConcurrentHashMap<String, Cola> colas = new ConcurrentHashMap<>();
+
+    /**
+     * Agrega un estudiante al final de la lista de espera de un grupo.
+     *
+     * <p>Si el estudiante ya está en la lista conserva su turno.</p>
+     *
+     * @param grupoId ID del grupo
+     * @param estudianteId ID del estudiante
+     * @return Situación del estudiante en la lista
+     * @throws ResourceNotFoundException si el grupo o el estudiante no existen
+     * @throws ConflictException si el estudiante ya está inscrito en el grupo
+     */
+    public ListaEsperaResponse agregar(String grupoId, String estudianteId) {
+        Cola cola = cola(grupoId);
+        ListaEsperaEntrada existente = cola.buscar(estudianteId);
+        if (existente != null) {
+            return respuesta(existente, cola);
+        }
+        boolean esEstudiante = userRepository.findById(estudianteId)
+                .map(usuario -> usuario.getRol() == Rol.ESTUDIANTE)
+                .orElse(false);
+        if (!esEstudiante) {
+            throw new ResourceNotFoundException("Estudiante no encontrado con id " + estudianteId);
+        }
+        if (inscripcionRepository.existsByEstudianteIdAndGrupoIdAndEstado(estudianteId, grupoId,
+                EstadoInscripcion.INSCRITO)) {
+            throw new ConflictException("El estudiante " + estudianteId + " ya está inscrito en el grupo " + grupoId);
+        }
+        long posicion = grupoRepository.siguientePosicionEspera(grupoId)
+                .orElseThrow(() -> new ResourceNotFoundException("Grupo no encontrado con id " + grupoId));
+        ListaEsperaEntrada entrada = ListaEsperaEntrada.builder()
+                .grupoId(grupoId)
+                .estudianteId(estudianteId)
+                .posicion(posicion)
+                .fechaIngreso(Instant.now(clock))
+                .build();
+        try {
+            entrada = mongoTemplate.insert(entrada);
+        } catch (DuplicateKeyException ex) {
+            // Ingresó desde otra réplica o ya recibió cupo: se conserva la entrada existente
+            entrada = buscar(grupoId, estudianteId);
+            if (entrada == null) {
+                throw new ConflictException("La lista de espera cambió mientras se procesaba; intente nuevamente");
+            }
+        }
+        if (entrada.getFechaPromocion() == null) {
+            cola.agregar(entrada);
+        }
+        return respuesta(entrada, cola);
+    }
+
+    /**
+     * Retorna la situación de un estudiante en la lista de espera de un grupo.
+     *
+     * @param grupoId ID del grupo
+     * @param estudianteId ID del estudiante
+     * @return Lugar en la fila, o la fecha de promoción si ya recibió cupo
+     * @throws ResourceNotFoundException si el estudiante no está en la lista
+     */
+    public ListaEsperaResponse consultar(String grupoId, String estudianteId) {
+        Cola cola = cola(grupoId);
+        ListaEsperaEntrada entrada = cola.buscar(estudianteId);
+        if (entrada == null) {
+            // Fuera del índice solo pueden estar las entradas ya promovidas
+            entrada = buscar(grupoId, estudianteId);
+            if (entrada == null) {
+                throw noEsta(grupoId, estudianteId);
+            }
+        }
+        return respuesta(entrada, cola);
+    }
+
+    /**
+     * Retira a un estudiante que aún espera cupo.
+     *
+     * @param grupoId ID del grupo
+     * @param estudianteId ID del estudiante
+     * @throws ResourceNotFoundException si el estudiante no está esperando en el grupo
+     */
+    public void retirar(String grupoId, String estudianteId) {
+        Query query = new Query(Criteria.where("grupoId").is(grupoId)
+                .and("estudianteId").is(estudianteId)
+                .and("fechaPromocion").is(null));
+        long eliminadas = mongoTemplate.remove(query, ListaEsperaEntrada.class).getDeletedCount();
+        Cola cola = colas.get(grupoId);
+        if (cola != null) {
+            cola.quitar(estudianteId);
+        }
+        if (eliminadas == 0) {
+            throw noEsta(grupoId, estudianteId);
+        }
+    }
+
+    /**
+     * Entrega cupos liberados a la cabeza de la lista de espera.
+     *
+     * <p>Cada estudiante promovido queda inscrito en el grupo: su entrada se toma y
+     * enseguida se inserta su {@link Inscripcion}, con ID {@code espera-<id de la entrada>}
+     * para que un reintento no la duplique. Si la inscripción no puede crearse, la
+     * entrada vuelve a esperar y el cupo no cuenta como entregado.</p>
+     *
+     * <p>El llamador conserva los cupos que no se hayan entregado y debe liberarlos.
+     * Si MongoDB falla a mitad del proceso se retornan los estudiantes ya inscritos.</p>
+     *
+     * @param grupoId ID del grupo
+     * @param cupos Cupos liberados
+     * @return IDs de los estudiantes promovidos e inscritos, en orden de turno
+     */
+    public List<String> promover(String grupoId, int cupos) {
+        List<ListaEsperaEntrada> tomadas = new ArrayList<>();
+        try {
+            while (tomadas.size() < cupos) {
+                Query cabeza = new Query(Criteria.where("grupoId").is(grupoId).and("fechaPromocion").is(null))
+                        .with(Sort.by("posicion"))
+                        .limit(Math.min(cupos - tomadas.size(), lote));
+                cabeza.fields().include("id").include("estudianteId");
+                List<ListaEsperaEntrada> candidatas = mongoTemplate.find(cabeza, ListaEsperaEntrada.class);
+                if (candidatas.isEmpty()) {
+                    break;
+                }
+                tomadas.addAll(tomar(candidatas));
+            }
+        } catch (DataAccessException ex) {
+            log.warn("No fue posible promover la lista de espera del grupo {}: {}", grupoId, ex.getMessage());
+        }
+        List<String> promovidos = inscribir(grupoId, tomadas);
+        if (!promovidos.isEmpty()) {
+            Cola cola = colas.get(grupoId);
+            if (cola != null) {
+                promovidos.forEach(cola::quitar);
+            }
+            log.info("{} estudiantes promovidos desde la lista de espera del grupo {}", promovidos.size(), grupoId);
+        }
+        return promovidos;
+    }
+
+    private List<ListaEsperaEntrada> tomar(List<ListaEsperaEntrada> candidatas) {
+        String id = UUID.randomUUID().toString();
+        Query query = new Query(Criteria.where("id").in(candidatas.stream().map(ListaEsperaEntrada::getId).toList())
+                .and("fechaPromocion").is(null));
+        UpdateResult resultado = mongoTemplate.updateMulti(query,
+                new Update().set("fechaPromocion", Instant.now(clock)).set("lote", id),
+                ListaEsperaEntrada.class);
+        if (resultado.getModifiedCount() == candidatas.size()) {
+            return candidatas;
+        }
+        // Otra réplica tomó o retiró alguna: leer cuáles quedaron en este lote
+        Query tomadas = new Query(Criteria.where("lote").is(id)).with(Sort.by("posicion"));
+        tomadas.fields().include("estudianteId");
+        return mongoTemplate.find(tomadas, ListaEsperaEntrada.class);
+    }
+
+    private List<String> inscribir(String grupoId, List<ListaEsperaEntrada> tomadas) {
+        if (tomadas.isEmpty()) {
+            return List.of();
+        }
+        Set<String> fallidas = new HashSet<>();
+        try {
+            String periodoId = grupoRepository.findById(grupoId).map(Grupo::getPeriodoId).orElse(null);
+            if (periodoId == null) {
+                tomadas.forEach(entrada -> fallidas.add(entrada.getId()));
+            } else {
+                insertarInscripciones(grupoId, periodoId, tomadas, fallidas);
+            }
+        } catch (DataAccessException ex) {
+            log.warn("No fue posible inscribir a los promovidos del grupo {}: {}", grupoId, ex.getMessage());
+            tomadas.forEach(entrada -> fallidas.add(entrada.getId()));
+        }
+        if (!fallidas.isEmpty()) {
+            devolver(grupoId, fallidas);
+        }
+        return tomadas.stream()
+                .filter(entrada -> !fallidas.contains(entrada.getId()))
+                .map(ListaEsperaEntrada::getEstudianteId)
+                .toList();
+    }
+
+    private void insertarInscripciones(String grupoId, String periodoId, List<ListaEsperaEntrada> tomadas,
+            Set<String> fallidas) {
+        Instant ahora = Instant.now(clock);
+        List<Inscripcion> inscripciones = tomadas.stream()
+                .map(entrada -> Inscripcion.builder()
+                        .id("espera-" + entrada.getId())
+                        .estudianteId(entrada.getEstudianteId())
+                        .grupoId(grupoId)
+                        .periodoId(periodoId)
+                        .fechaInscripcion(ahora)
+                        .estado(EstadoInscripcion.INSCRITO)
+                        .fechaCambioEstado(ahora)
+                        .observaciones("Cupo asignado desde la lista de espera")
+                        .build())
+                .toList();
+        try {
+            mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Inscripcion.class)
+                    .insert(inscripciones)
+                    .execute();
+        } catch (BulkOperationException ex) {
+            // Una inscripción ya creada por un intento anterior cuenta como promovida
+            ex.getErrors().stream()
+                    .filter(error -> error.getCode() != DUPLICATE_KEY)
+                    .forEach(error -> fallidas.add(tomadas.get(error.getIndex()).getId()));
+        }
+    }
+
+    private void devolver(String grupoId, Set<String> entradaIds) {
+        try {
+            mongoTemplate.updateMulti(new Query(Criteria.where("id").in(List.copyOf(entradaIds))),
+                    new Update().unset("fechaPromocion").unset("lote"), ListaEsperaEntrada.class);
+        } catch (DataAccessException ex) {
+            log.error("Entradas {} de la lista de espera del grupo {} quedaron tomadas sin inscripción: {}",
+                    entradaIds, grupoId, ex.getMessage());
+        }
+    }
+
+    private Cola cola(String grupoId) {
+        long ahora = clock.millis();
+        return colas.compute(grupoId, (clave, actual) ->
+                actual != null && ahora - actual.cargadaEn < recargaMs ? actual : cargar(clave, ahora));
+    }
+
+    private Cola cargar(String grupoId, long ahora) {
+        Query query = new Query(Criteria.where("grupoId").is(grupoId).and("fechaPromocion").is(null))
+                .with(Sort.by("posicion"));
+        query.fields().exclude("lote");
+        Cola cola = new Cola(ahora);
+        mongoTemplate.find(query, ListaEsperaEntrada.class).forEach(cola::agregar);
+        return cola;
+    }
+
+    private ListaEsperaEntrada buscar(String grupoId, String estudianteId) {
+        return mongoTemplate.findOne(new Query(Criteria.where("grupoId").is(grupoId)
+                .and("estudianteId").is(estudianteId)), ListaEsperaEntrada.class);
+    }
+
+    private static ListaEsperaResponse respuesta(ListaEsperaEntrada entrada, Cola cola) {
+        return ListaEsperaResponse.builder()
+                .grupoId(entrada.getGrupoId())
+                .estudianteId(entrada.getEstudianteId())
+                .posicion(entrada.getFechaPromocion() == null ? cola.lugar(entrada.getPosicion()) : null)
+                .fechaIngreso(entrada.getFechaIngreso())
+                .fechaPromocion(entrada.getFechaPromocion())
+                .build();
+    }
+
+    private static ResourceNotFoundException noEsta(String grupoId, String estudianteId) {
+        return new ResourceNotFoundException("El estudiante " + estudianteId
+                + " no está en la lista de espera del grupo " + grupoId);
+    }
+
+    /**
+     * Índice en memoria de la fila de un grupo.
+     */
+    private static final class Cola {
+
+        private final long cargadaEn;
+        private final Map<String, ListaEsperaEntrada> porEstudiante = new HashMap<>();
+        private final List<Long> turnos = new ArrayList<>();
+
+        private Cola(long cargadaEn) {
+            this.cargadaEn = cargadaEn;
+        }
+
+        synchronized ListaEsperaEntrada buscar(String estudianteId) {
+            return porEstudiante.get(estudianteId);
+        }
+
+        synchronized void agregar(ListaEsperaEntrada entrada) {
+            if (porEstudiante.putIfAbsent(entrada.getEstudianteId(), entrada) == null) {
+                // Los turnos nuevos casi siempre son los mayores: se insertan al final
+                int indice = Collections.binarySearch(turnos, entrada.getPosicion());
+                turnos.add(indice < 0 ? -indice - 1 : indice, entrada.getPosicion());
+            }
+        }
+
+        synchronized void quitar(String estudianteId) {
+            ListaEsperaEntrada entrada = porEstudiante.remove(estudianteId);
+            if (entrada != null) {
+                int indice = Collections.binarySearch(turnos, entrada.getPosicion());
+                if (indice >= 0) {
+                    turnos.remove(indice);
+                }
+            }
+        }
+
+        synchronized int lugar(long turno) {
+            int indice = Collections.binarySearch(turnos, turno);
+            return (indice < 0 ? -indice - 1 : indice) + 1;
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package edu.dosw.sirha.service;
+
+import edu.dosw.sirha.model.Periodo;
+import edu.dosw.sirha.model.PeriodoConfiguracion;
+import edu.dosw.sirha.repository.PeriodoRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Copia en memoria del período académico activo.
+ *
+ * <p>Crear una solicitud necesita el período activo para validar la fecha límite y
+ * asignar {@code periodoId}; consultarlo en MongoDB en cada escritura agrega lecturas
+ * por un dato que cambia pocas veces por semestre. Este componente mantiene una
+ * instantánea inmutable que se reemplaza de forma atómica:</p>
+ * <ul>
+ *   <li>{@link PeriodoService} la publica al crear, actualizar, activar o eliminar
+ *       períodos en este nodo</li>
+ *   <li>Se recarga periódicamente desde MongoDB para recoger los cambios hechos
+ *       en otros nodos</li>
+ *   <li>Si no hay instantánea cargada, la primera lectura la carga</li>
+ * </ul>
+ *
+ * <p>Cada invalidación instala una instantánea pendiente nueva; una carga iniciada
+ * antes de la invalidación no puede sobrescribirla con datos viejos.</p>
+ *
+ * <p>El {@link Periodo} retornado es compartido entre hilos y no debe modificarse.</p>
+ *
+ * @author Equipo DOSW - SIRHA
+ * @version 1.0
+ * @since 2025-11-02
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class PeriodoActivoHolder {
+
+    private final PeriodoRepository periodoRepository;
+
+    private final AtomicReference<Snapshot> actual = new AtomicReference<>(Snapshot.pendiente());
+
+    /**
+     * Retorna el período activo, cargándolo desde MongoDB solo si no hay instantánea.
+     *
+     * @return Período activo, o vacío si no hay ninguno
+     */
+    public Optional<Periodo> actual() {
+        Snapshot snapshot = actual.get();
+        if (snapshot.cargado()) {
+            return Optional.ofNullable(snapshot.periodo());
+        }
+        return cargar(snapshot);
+    }
+
+    /**
+     * Publica el estado de un período recién guardado en este nodo.
+     *
+     * <p>Si el período quedó activo, pasa a ser la instantánea actual. Si era el
+     * activo y dejó de serlo (o se eliminó), la instantánea se invalida.</p>
+     *
+     * @param periodo Período creado, actualizado o eliminado
+     */
+    public void publicar(Periodo periodo) {
+        if (periodo.isActivo()) {
+            actual.set(Snapshot.de(periodo));
+            return;
+        }
+        Snapshot snapshot = actual.get();
+        if (snapshot.cargado() && snapshot.periodo() != null
+                && Objects.equals(snapshot.periodo().getId(), periodo.getId())) {
+            actual.compareAndSet(snapshot, Snapshot.pendiente());
+        }
+    }
+
+    /**
+     * Descarta la instantánea; la siguiente lectura consulta MongoDB.
+     */
+    public void invalidar() {
+        actual.set(Snapshot.pendiente());
+    }
+
+    /**
+     * Recarga la instantánea desde MongoDB para reconciliar cambios de otros nodos.
+     *
+     * <p>Si MongoDB no está disponible conserva la instantánea actual.</p>
+     */
+    @Scheduled(fixedDelayString = "${sirha.periodos.activo.refresh-ms:30000}",
+            initialDelayString = "${sirha.periodos.activo.refresh-ms:30000}")
+    public void recargar() {
+        try {
+            Snapshot visto = actual.get();
+            Snapshot nuevo = Snapshot.de(periodoRepository.findByActivoTrue().orElse(null));
+            if (actual.compareAndSet(visto, nuevo) && !Objects.equals(id(visto), id(nuevo))) {
+                log.info("Período activo actualizado: {} -> {}", id(visto), id(nuevo));
+            }
+        } catch (DataAccessException ex) {
+            log.warn("No fue posible recargar el período activo: {}", ex.getMessage());
+        }
+    }
+
+    private Optional<Periodo> cargar(Snapshot visto) {
+        Periodo periodo = periodoRepository.findByActivoTrue().orElse(null);
+        Snapshot nuevo = Snapshot.de(periodo);
+        actual.compareAndSet(visto, nuevo);
+        return Optional.ofNullable(nuevo.periodo());
+    }
+
+    private static String id(Snapshot snapshot) {
+        return snapshot.periodo() != null ? snapshot.periodo().getId() : null;
+    }
+
+    /**
+     * Instantánea del período activo.
+     *
+     * @param periodo Copia del período activo, null si no hay ninguno
+     * @param cargado false si la instantánea está pendiente de cargar
+     */
+    private record Snapshot(Periodo periodo, boolean cargado) {
+
+        static Snapshot pendiente() {
+            return new Snapshot(null, false);
+        }
+
+        static Snapshot de(Periodo periodo) {
+            return new Snapshot(periodo != null ? copia(periodo) : null, true);
+        }
+
+        private static Periodo copia(Periodo periodo) {
+            return Periodo.builder()
+                    .id(periodo.getId())
+                    .fechaInicio(periodo.getFechaInicio())
+                    .fechaFin(periodo.getFechaFin())
+                    .fechaInscripcionInicio(periodo.getFechaInscripcionInicio())
+                    .fechaLimiteSolicitudes(periodo.getFechaLimiteSolicitudes())
+                    .ano(periodo.getAno())
+                    .semestre(periodo.getSemestre())
+                    .activo(periodo.isActivo())
+                    .configuracion(copia(periodo.getConfiguracion()))
+                    .build();
+        }
+
+        private static PeriodoConfiguracion copia(PeriodoConfiguracion configuracion) {
+            if (configuracion == null) {
+                return null;
+            }
+            return PeriodoConfiguracion.builder()
+                    .permitirCambios(configuracion.isPermitirCambios())
+                    .diasMaxRespuesta(configuracion.getDiasMaxRespuesta())
+                    .build();
+        }
+    }
+}
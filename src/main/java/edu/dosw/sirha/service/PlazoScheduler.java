@@ -0,0 +1,198 @@
+package edu.dosw.sirha.service;
+
+import edu.dosw.sirha.model.Solicitud;
+import edu.dosw.sirha.model.SolicitudHistorialEntry;
+import edu.dosw.sirha.model.enums.SolicitudEstado;
+import edu.dosw.sirha.repository.SolicitudRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Vencimiento de las fechas límite de respuesta de las solicitudes.
+ *
+ * <p>Los plazos que vencen dentro del horizonte configurado
+ * ({@code sirha.solicitudes.plazos.horizonte-ms}) se mantienen en memoria agrupados
+ * en cubetas de un tick ({@code tick-ms}), ordenadas por tiempo:</p>
+ * <ul>
+ *   <li>Se cargan al arrancar y se recargan periódicamente con una consulta sobre el
+ *       índice {@code (estado, fecha_limite_respuesta)}, que también recoge los
+ *       plazos creados en otras réplicas o que hayan quedado sin marcar</li>
+ *   <li>Cada solicitud creada en esta réplica se agrega si vence dentro del horizonte
+ *       ya cargado</li>
+ *   <li>En cada tick se retiran las cubetas ya cumplidas y sus solicitudes se marcan
+ *       como vencidas en lotes, con un evento {@code PLAZO_VENCIDO} en el historial</li>
+ * </ul>
+ *
+ * <p>Así cada tick cuesta lo proporcional a las solicitudes que vencen, no al total
+ * de solicitudes. Las solicitudes resueltas o eliminadas antes de vencer siguen en
+ * su cubeta, pero el marcado se condiciona al estado y no las modifica.</p>
+ *
+ * <p>Solo la réplica que tiene el bloqueo {@value #TAREA} ({@link LeaderLock}) marca
+ * las solicitudes; las demás descartan sus cubetas cumplidas para no acumularlas.
+ * Por eso, al tomar el bloqueo una réplica recarga los plazos antes de procesar:
+ * la consulta incluye los ya vencidos sin marcar, así que recupera lo que descartó
+ * mientras otra era líder.</p>
+ *
+ * @author Equipo DOSW - SIRHA
+ * @version 1.0
+ * @since 2025-11-02
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class PlazoScheduler {
+
+    /**
+     * Nombre del bloqueo que elige la réplica que marca los vencimientos.
+     */
+    public static final String TAREA = "plazos-solicitudes";
+
+    /**
+     * Estados de las solicitudes que aún esperan respuesta.
+     */
+    public static final Set<SolicitudEstado> ESTADOS_ABIERTOS = Set.of(SolicitudEstado.PENDIENTE,
+            SolicitudEstado.EN_REVISION, SolicitudEstado.INFORMACION_ADICIONAL);
+
+    private final SolicitudRepository solicitudRepository;
+    private final LeaderLock leaderLock;
+    private final Clock clock;
+
+    @Value("${sirha.solicitudes.plazos.tick-ms:60000}")
+    private long tickMs = 60_000;
+
+    @Value("${sirha.solicitudes.plazos.horizonte-ms:86400000}")
+    private long horizonteMs = 86_400_000;
+
+    @Value("${sirha.solicitudes.plazos.lote:500}")
+    private int lote = 500;
+
+    @Value("${sirha.solicitudes.historial.max-embebido:20}")
+    private int maxHistorial = 20;
+
+    private final ConcurrentSkipListMap<Long, Set<String>> cubetas = new ConcurrentSkipListMap<>();
+
+    /** Hasta dónde están cargados todos los plazos; los posteriores llegan con la siguiente recarga. */
+    private volatile Instant cargadoHasta = Instant.EPOCH;
+
+    /** Si esta réplica tenía el bloqueo en el tick anterior. */
+    private volatile boolean lider;
+
+    /**
+     * Agrega el plazo de una solicitud recién creada.
+     *
+     * <p>Si vence después del horizonte cargado se ignora; la recarga lo agregará
+     * cuando entre en el horizonte.</p>
+     *
+     * @param id ID de la solicitud
+     * @param fechaLimite Fecha límite de respuesta
+     */
+    public void programar(String id, Instant fechaLimite) {
+        if (id == null || fechaLimite == null || !fechaLimite.isBefore(cargadoHasta)) {
+            return;
+        }
+        agregar(id, fechaLimite);
+    }
+
+    /**
+     * Retorna la cantidad de solicitudes con plazo en memoria.
+     *
+     * @return Solicitudes programadas
+     */
+    public int programadas() {
+        return cubetas.values().stream().mapToInt(Set::size).sum();
+    }
+
+    /**
+     * Carga los plazos que vencen dentro del horizonte, incluidos los ya vencidos
+     * sin marcar.
+     *
+     * @return Cantidad de plazos leídos
+     */
+    @Scheduled(fixedDelayString = "${sirha.solicitudes.plazos.recarga-ms:3600000}")
+    public int recargar() {
+        Instant hasta = Instant.now(clock).plusMillis(horizonteMs);
+        try {
+            List<Solicitud> plazos = solicitudRepository.buscarPlazos(ESTADOS_ABIERTOS, hasta);
+            plazos.forEach(solicitud -> agregar(solicitud.getId(), solicitud.getFechaLimiteRespuesta()));
+            cargadoHasta = hasta;
+            log.debug("{} plazos de respuesta cargados hasta {}", plazos.size(), hasta);
+            return plazos.size();
+        } catch (DataAccessException ex) {
+            log.warn("No fue posible cargar los plazos de respuesta: {}", ex.getMessage());
+            return 0;
+        }
+    }
+
+    /**
+     * Marca como vencidas las solicitudes de las cubetas ya cumplidas.
+     *
+     * <p>Una cubeta se procesa cuando termina, por lo que el marcado ocurre a lo
+     * sumo un tick después de la fecha límite.</p>
+     *
+     * @return Cantidad de solicitudes marcadas por esta réplica
+     */
+    @Scheduled(fixedDelayString = "${sirha.solicitudes.plazos.tick-ms:60000}")
+    public int procesar() {
+        boolean lider = leaderLock.adquirir(TAREA, Duration.ofMillis(tickMs * 3));
+        boolean relevo = lider && !this.lider;
+        this.lider = lider;
+        if (relevo) {
+            // Las cubetas cumplidas antes del relevo se descartaron sin marcar
+            recargar();
+        }
+        Instant ahora = Instant.now(clock);
+        List<String> vencidas = new ArrayList<>();
+        long actual = cubeta(ahora);
+        Map.Entry<Long, Set<String>> primera;
+        while ((primera = cubetas.firstEntry()) != null && primera.getKey() < actual) {
+            if (cubetas.remove(primera.getKey(), primera.getValue())) {
+                vencidas.addAll(primera.getValue());
+            }
+        }
+        if (vencidas.isEmpty() || !lider) {
+            return 0;
+        }
+        SolicitudHistorialEntry evento = SolicitudHistorialEntry.builder()
+                .fecha(ahora)
+                .accion("PLAZO_VENCIDO")
+                .comentario("Se superó la fecha límite de respuesta")
+                .build();
+        int marcadas = 0;
+        for (int desde = 0; desde < vencidas.size(); desde += lote) {
+            List<String> ids = vencidas.subList(desde, Math.min(desde + lote, vencidas.size()));
+            try {
+                marcadas += solicitudRepository.marcarVencidas(ids, ESTADOS_ABIERTOS, ahora, evento, maxHistorial)
+                        .size();
+            } catch (DataAccessException ex) {
+                // Siguen sin marcar: la próxima recarga las vuelve a cargar
+                log.warn("No fue posible marcar {} solicitudes vencidas: {}", ids.size(), ex.getMessage());
+            }
+        }
+        if (marcadas > 0) {
+            log.info("{} solicitudes superaron su fecha límite de respuesta", marcadas);
+        }
+        return marcadas;
+    }
+
+    private void agregar(String id, Instant fechaLimite) {
+        cubetas.computeIfAbsent(cubeta(fechaLimite), clave -> ConcurrentHashMap.newKeySet()).add(id);
+    }
+
+    private long cubeta(Instant instante) {
+        return Math.floorDiv(instante.toEpochMilli(), tickMs);
+    }
+}
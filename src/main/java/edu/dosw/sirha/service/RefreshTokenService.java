@@ -0,0 +1,142 @@
+package edu.dosw.sirha.service;
+
+import edu.dosw.sirha.model.RefreshToken;
+import edu.dosw.sirha.repository.RefreshTokenRepository;
+import edu.dosw.sirha.security.JwtProperties;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.UUID;
+
+/**
+ * Servicio de emisión y rotación de refresh tokens.
+ *
+ * <p>Cada login inicia una familia de refresh tokens. Al canjear un token se marca
+ * como usado de forma atómica y se emite otro de la misma familia, con una nueva
+ * expiración por inactividad que nunca supera el límite absoluto de la sesión.</p>
+ *
+ * <p>Si se presenta un token ya usado (posible robo), se revoca toda la familia y
+ * el usuario debe volver a iniciar sesión.</p>
+ *
+ * @author Equipo DOSW - SIRHA
+ * @version 1.0
+ * @since 2025-11-02
+ *
+ * @see RefreshToken
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class RefreshTokenService {
+
+    private static final int TOKEN_BYTES = 32;
+
+    private final RefreshTokenRepository refreshTokenRepository;
+    private final MongoTemplate mongoTemplate;
+    private final JwtProperties jwtProperties;
+    private final Clock clock;
+    private final SecureRandom secureRandom = new SecureRandom();
+
+    /**
+     * Inicia una nueva familia de refresh tokens para un usuario.
+     *
+     * @param userId ID del usuario autenticado
+     * @return Valor del refresh token para entregar al cliente
+     */
+    public String emitir(String userId) {
+        Instant now = Instant.now(clock);
+        Instant absoluto = now.plus(Duration.ofMinutes(jwtProperties.getRefreshAbsoluteMinutes()));
+        return guardarNuevo(userId, UUID.randomUUID().toString(), now, absoluto);
+    }
+
+    /**
+     * Canjea un refresh token por uno nuevo de la misma familia.
+     *
+     * @param token Refresh token presentado por el cliente
+     * @return Resultado con el usuario dueño y el nuevo refresh token
+     * @throws BadCredentialsException si el token no existe, expiró o ya fue usado
+     */
+    public Rotacion rotar(String token) {
+        RefreshToken actual = refreshTokenRepository.findByTokenHash(hash(token))
+                .orElseThrow(() -> new BadCredentialsException("Refresh token inválido"));
+        Instant now = Instant.now(clock);
+
+        if (actual.isUsado() || !marcarUsado(actual)) {
+            long revocados = refreshTokenRepository.deleteByFamiliaId(actual.getFamiliaId());
+            log.warn("Reutilización de refresh token detectada para usuario {}; {} tokens revocados",
+                    actual.getUserId(), revocados);
+            throw new BadCredentialsException("Refresh token inválido");
+        }
+        if (!now.isBefore(actual.getExpiraEn()) || !now.isBefore(actual.getExpiraAbsolutoEn())) {
+            throw new BadCredentialsException("Refresh token expirado");
+        }
+
+        String nuevo = guardarNuevo(actual.getUserId(), actual.getFamiliaId(), now, actual.getExpiraAbsolutoEn());
+        return new Rotacion(actual.getUserId(), nuevo);
+    }
+
+    /**
+     * Revoca todos los refresh tokens de la familia a la que pertenece un token.
+     *
+     * @param token Refresh token presentado por el cliente
+     */
+    public void revocar(String token) {
+        refreshTokenRepository.findByTokenHash(hash(token))
+                .ifPresent(actual -> refreshTokenRepository.deleteByFamiliaId(actual.getFamiliaId()));
+    }
+
+    private boolean marcarUsado(RefreshToken actual) {
+        Query query = new Query(Criteria.where("id").is(actual.getId()).and("usado").is(false));
+        return mongoTemplate.updateFirst(query, Update.update("usado", true), RefreshToken.class)
+                .getModifiedCount() == 1;
+    }
+
+    private String guardarNuevo(String userId, String familiaId, Instant now, Instant absoluto) {
+        byte[] bytes = new byte[TOKEN_BYTES];
+        secureRandom.nextBytes(bytes);
+        String token = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+        Instant porInactividad = now.plus(Duration.ofMinutes(jwtProperties.getRefreshIdleMinutes()));
+        refreshTokenRepository.save(RefreshToken.builder()
+                .tokenHash(hash(token))
+                .familiaId(familiaId)
+                .userId(userId)
+                .emitidoEn(now)
+                .expiraEn(porInactividad.isBefore(absoluto) ? porInactividad : absoluto)
+                .expiraAbsolutoEn(absoluto)
+                .usado(false)
+                .build());
+        return token;
+    }
+
+    private static String hash(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(digest);
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("SHA-256 no disponible", ex);
+        }
+    }
+
+    /**
+     * Resultado de canjear un refresh token.
+     *
+     * @param userId ID del usuario dueño de la sesión
+     * @param refreshToken Nuevo refresh token
+     */
+    public record Rotacion(String userId, String refreshToken) {
+    }
+}
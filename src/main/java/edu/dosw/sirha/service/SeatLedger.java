@@ -0,0 +1,355 @@
+package edu.dosw.sirha.service;
+
+import edu.dosw.sirha.model.Grupo;
+import edu.dosw.sirha.model.Periodo;
+import edu.dosw.sirha.repository.PeriodoRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Libro de cupos en memoria para los grupos del período activo.
+ *
+ * <p>Durante la ventana de inscripciones unos pocos grupos concentran casi todas las
+ * consultas y reservas de cupo. Este componente mantiene un contador por grupo en un
+ * arreglo primitivo y resuelve la verificación y la reserva en memoria, sin ir a
+ * MongoDB; los cambios se escriben después en {@code grupos} con un único
+ * {@code bulkWrite} de {@code $inc} por intervalo.</p>
+ *
+ * <p>Cada grupo ocupa una posición fija ({@code slot}) con una palabra de 64 bits:
+ * los 32 bits altos guardan los cupos ya persistidos y los 32 bajos los cambios
+ * pendientes de escribir. Reservar, liberar, confirmar una escritura y reconciliar
+ * son un CAS sobre esa palabra, así que la verificación {@code persistidos +
+ * pendientes < cupoMax} y el incremento ocurren juntos sin bloqueos.</p>
+ *
+ * <p>Al arrancar (o al tomar el relevo de otro nodo) y periódicamente,
+ * {@link #reconciliar()} carga desde MongoDB los grupos activos del período activo,
+ * conservando los cambios aún no escritos. Los grupos que ya no pertenecen a ese
+ * período y no tienen cambios pendientes salen del libro; su slot se reutiliza a
+ * partir de la siguiente reconciliación, cuando ya no queda ninguna operación en
+ * curso que lo haya leído antes del retiro.</p>
+ *
+ * <p>Desactivado por defecto: solo es correcto si este nodo es el único que modifica
+ * cupos durante la ventana. Los grupos que no caben en el libro siguen usando
+ * {@link edu.dosw.sirha.repository.GrupoRepositoryCustom}.</p>
+ *
+ * @author Equipo DOSW - SIRHA
+ * @version 1.0
+ * @since 2025-11-02
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "sirha.grupos.seat-ledger", name = "enabled", havingValue = "true")
+public class SeatLedger {
+
+    /**
+     * Resultado de una consulta o reserva en el libro.
+     */
+    public enum Resultado {
+        /** Había cupo (y, en una reserva, quedó ocupado). */
+        DISPONIBLE,
+        /** El grupo está lleno. */
+        LLENO,
+        /** El grupo no está en el libro; debe consultarse MongoDB. */
+        DESCONOCIDO
+    }
+
+    private final MongoTemplate mongoTemplate;
+    private final PeriodoRepository periodoRepository;
+    private final int capacidad;
+
+    private final ConcurrentHashMap<String, Integer> slots = new ConcurrentHashMap<>();
+    private final AtomicReferenceArray<String> grupoIds;
+    private final AtomicLongArray cupos;
+    private final AtomicIntegerArray cupoMax;
+
+    // Protegidos por el monitor de slots
+    private final Deque<Integer> libres = new ArrayDeque<>();
+    private final List<Integer> retirados = new ArrayList<>();
+    private volatile int usados;
+
+    public SeatLedger(MongoTemplate mongoTemplate,
+                      PeriodoRepository periodoRepository,
+                      @Value("${sirha.grupos.seat-ledger.capacity:4096}") int capacidad) {
+        this.mongoTemplate = mongoTemplate;
+        this.periodoRepository = periodoRepository;
+        this.capacidad = capacidad;
+        this.grupoIds = new AtomicReferenceArray<>(capacidad);
+        this.cupos = new AtomicLongArray(capacidad);
+        this.cupoMax = new AtomicIntegerArray(capacidad);
+    }
+
+    /**
+     * Indica si un grupo tiene cupos disponibles, sin modificar nada.
+     *
+     * @param grupoId ID del grupo
+     * @return DISPONIBLE, LLENO o DESCONOCIDO si el grupo no está en el libro
+     */
+    public Resultado consultar(String grupoId) {
+        Integer slot = slots.get(grupoId);
+        if (slot == null) {
+            return Resultado.DESCONOCIDO;
+        }
+        return ocupados(cupos.get(slot)) < cupoMax.get(slot) ? Resultado.DISPONIBLE : Resultado.LLENO;
+    }
+
+    /**
+     * Ocupa un cupo del grupo si aún hay disponibles.
+     *
+     * @param grupoId ID del grupo
+     * @return DISPONIBLE si se reservó, LLENO o DESCONOCIDO si el grupo no está en el libro
+     */
+    public Resultado reservar(String grupoId) {
+        Integer slot = slots.get(grupoId);
+        if (slot == null) {
+            return Resultado.DESCONOCIDO;
+        }
+        long actual;
+        do {
+            actual = cupos.get(slot);
+            if (ocupados(actual) >= cupoMax.get(slot)) {
+                return Resultado.LLENO;
+            }
+        } while (!cupos.compareAndSet(slot, actual, pack(persistidos(actual), pendientes(actual) + 1)));
+        return Resultado.DISPONIBLE;
+    }
+
+    /**
+     * Libera un cupo del grupo si tiene alguno ocupado.
+     *
+     * @param grupoId ID del grupo
+     * @return true si el grupo está en el libro (se haya liberado o no)
+     */
+    public boolean liberar(String grupoId) {
+        Integer slot = slots.get(grupoId);
+        if (slot == null) {
+            return false;
+        }
+        long actual;
+        do {
+            actual = cupos.get(slot);
+            if (ocupados(actual) <= 0) {
+                return true;
+            }
+        } while (!cupos.compareAndSet(slot, actual, pack(persistidos(actual), pendientes(actual) - 1)));
+        return true;
+    }
+
+    /**
+     * Retorna los cupos ocupados de un grupo según el libro (persistidos más pendientes).
+     *
+     * @param grupoId ID del grupo
+     * @return Cupos ocupados, o vacío si el grupo no está en el libro
+     */
+    public Optional<Integer> ocupados(String grupoId) {
+        Integer slot = slots.get(grupoId);
+        return slot == null ? Optional.empty() : Optional.of(ocupados(cupos.get(slot)));
+    }
+
+    /**
+     * Escribe los cambios pendientes en un único bulkWrite de {@code $inc}.
+     *
+     * <p>Solo después de que MongoDB confirma la escritura se pasan los cambios de
+     * pendientes a persistidos; si falla, quedan pendientes para el siguiente intento.</p>
+     *
+     * @return Cantidad de grupos escritos
+     */
+    @Scheduled(fixedDelayString = "${sirha.grupos.seat-ledger.flush-ms:1000}")
+    public int flush() {
+        int usados = this.usados;
+        List<int[]> lote = new ArrayList<>();
+        BulkOperations bulk = null;
+        for (int slot = 0; slot < usados; slot++) {
+            int delta = pendientes(cupos.get(slot));
+            if (delta == 0) {
+                continue;
+            }
+            if (bulk == null) {
+                bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Grupo.class);
+            }
+            bulk.updateOne(new Query(Criteria.where("id").is(grupoIds.get(slot))),
+                    new Update().inc("cuposActuales", delta).inc("version", 1));
+            lote.add(new int[] {slot, delta});
+        }
+        if (bulk == null) {
+            return 0;
+        }
+        try {
+            bulk.execute();
+        } catch (DataAccessException ex) {
+            log.warn("No fue posible escribir los cupos de {} grupos: {}", lote.size(), ex.getMessage());
+            return 0;
+        }
+        for (int[] escrito : lote) {
+            int slot = escrito[0];
+            int delta = escrito[1];
+            long actual;
+            do {
+                actual = cupos.get(slot);
+            } while (!cupos.compareAndSet(slot, actual,
+                    pack(persistidos(actual) + delta, pendientes(actual) - delta)));
+        }
+        log.debug("Cupos escritos para {} grupos", lote.size());
+        return lote.size();
+    }
+
+    /**
+     * Carga en el libro los grupos activos del período activo.
+     *
+     * <p>Toma de MongoDB los cupos persistidos y el cupo máximo de cada grupo y
+     * conserva los cambios pendientes de este nodo. Los grupos que ya no están entre
+     * los cargados se retiran del libro si no tienen cambios pendientes. Se ejecuta al
+     * arrancar la aplicación y periódicamente; si MongoDB no está disponible conserva
+     * el estado actual.</p>
+     *
+     * @return Cantidad de grupos cargados
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${sirha.grupos.seat-ledger.reconcile-ms:300000}",
+            initialDelayString = "${sirha.grupos.seat-ledger.reconcile-ms:300000}")
+    public int reconciliar() {
+        try {
+            Optional<Periodo> periodo = periodoRepository.findByActivoTrue();
+            if (periodo.isEmpty()) {
+                retirar(Set.of());
+                return 0;
+            }
+            Query query = new Query(Criteria.where("periodoId").is(periodo.get().getId()).and("activo").is(true));
+            query.fields().include("cupoMax").include("cuposActuales");
+            List<Grupo> grupos = mongoTemplate.find(query, Grupo.class);
+            Set<String> vigentes = new HashSet<>();
+            for (Grupo grupo : grupos) {
+                vigentes.add(grupo.getId());
+            }
+            // Primero se liberan los slots que ya no se usan, para que los grupos nuevos quepan
+            retirar(vigentes);
+            int cargados = 0;
+            for (Grupo grupo : grupos) {
+                Integer slot = asignarSlot(grupo.getId());
+                if (slot == null) {
+                    log.warn("Libro de cupos lleno ({} grupos); el grupo {} usará MongoDB", capacidad, grupo.getId());
+                    continue;
+                }
+                cupoMax.set(slot, grupo.getCupoMax());
+                long actual;
+                do {
+                    actual = cupos.get(slot);
+                } while (!cupos.compareAndSet(slot, actual, pack(grupo.getCuposActuales(), pendientes(actual))));
+                cargados++;
+            }
+            log.info("Libro de cupos reconciliado: {} grupos del período {}", cargados, periodo.get().getId());
+            return cargados;
+        } catch (DataAccessException ex) {
+            log.warn("No fue posible reconciliar el libro de cupos: {}", ex.getMessage());
+            return 0;
+        }
+    }
+
+    /**
+     * Escribe los cambios pendientes antes de detener la aplicación.
+     */
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+    }
+
+    private Integer asignarSlot(String grupoId) {
+        Integer existente = slots.get(grupoId);
+        if (existente != null) {
+            return existente;
+        }
+        synchronized (slots) {
+            existente = slots.get(grupoId);
+            if (existente != null) {
+                return existente;
+            }
+            Integer slot = libres.poll();
+            if (slot == null) {
+                if (usados >= capacidad) {
+                    return null;
+                }
+                slot = usados++;
+            }
+            grupoIds.set(slot, grupoId);
+            // El slot se publica al final, con contador y cupo máximo en cero (lleno) hasta cargarlo
+            slots.put(grupoId, slot);
+            return slot;
+        }
+    }
+
+    /**
+     * Retira del libro los grupos que no están en {@code vigentes} y no tienen
+     * cambios pendientes.
+     *
+     * <p>Un grupo retirado deja de resolverse en memoria de inmediato, pero su slot
+     * solo vuelve a estar libre en la reconciliación siguiente: una reserva que obtuvo
+     * el slot antes del retiro todavía puede escribir en él, y ese cambio se envía en
+     * el siguiente flush antes de reutilizarlo.</p>
+     */
+    private void retirar(Set<String> vigentes) {
+        synchronized (slots) {
+            retirados.removeIf(slot -> {
+                if (pendientes(cupos.get(slot)) != 0) {
+                    return false;
+                }
+                grupoIds.set(slot, null);
+                cupoMax.set(slot, 0);
+                cupos.set(slot, 0);
+                libres.add(slot);
+                return true;
+            });
+            int retirosActuales = 0;
+            for (Map.Entry<String, Integer> entrada : slots.entrySet()) {
+                int slot = entrada.getValue();
+                if (!vigentes.contains(entrada.getKey()) && pendientes(cupos.get(slot)) == 0) {
+                    slots.remove(entrada.getKey());
+                    retirados.add(slot);
+                    retirosActuales++;
+                }
+            }
+            if (retirosActuales > 0) {
+                log.info("Libro de cupos: {} grupos fuera del período activo retirados", retirosActuales);
+            }
+        }
+    }
+
+    private static long pack(int persistidos, int pendientes) {
+        return ((long) persistidos << 32) | (pendientes & 0xFFFFFFFFL);
+    }
+
+    private static int persistidos(long palabra) {
+        return (int) (palabra >> 32);
+    }
+
+    private static int pendientes(long palabra) {
+        return (int) palabra;
+    }
+
+    private static int ocupados(long palabra) {
+        return persistidos(palabra) + pendientes(palabra);
+    }
+}
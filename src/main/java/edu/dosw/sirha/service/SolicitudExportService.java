@@ -0,0 +1,233 @@
+package edu.dosw.sirha.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.dosw.sirha.dto.response.SolicitudResponse;
+import edu.dosw.sirha.exception.BusinessException;
+import edu.dosw.sirha.mapper.SolicitudMapper;
+import edu.dosw.sirha.model.Solicitud;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Servicio de exportación de solicitudes de un período en NDJSON o CSV.
+ *
+ * <p>Pensado para los reportes de registro académico, que abarcan un semestre
+ * completo. Las solicitudes se leen con un cursor de MongoDB
+ * ({@link MongoTemplate#stream}) en lotes de tamaño fijo y cada fila se escribe
+ * directamente en la salida, de modo que la memoria usada no depende de la
+ * cantidad de solicitudes exportadas. El historial no se exporta.</p>
+ *
+ * <p>Si el cliente se desconecta, la siguiente escritura falla con
+ * {@link IOException}; en ese momento se deja de leer y el cursor se cierra en
+ * el servidor.</p>
+ *
+ * @author Equipo DOSW - SIRHA
+ * @version 1.0
+ * @since 2025-11-02
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class SolicitudExportService {
+
+    /**
+     * Caracteres iniciales con los que una hoja de cálculo interpreta una celda como fórmula.
+     */
+    private static final String INICIO_FORMULA = "=+-@\t\r";
+
+    private static final List<Columna> COLUMNAS = List.of(
+            new Columna("id", SolicitudResponse::getId),
+            new Columna("codigoSolicitud", SolicitudResponse::getCodigoSolicitud),
+            new Columna("estado", SolicitudResponse::getEstado),
+            new Columna("tipo", SolicitudResponse::getTipo),
+            new Columna("estudianteId", SolicitudResponse::getEstudianteId),
+            new Columna("inscripcionOrigenId", SolicitudResponse::getInscripcionOrigenId),
+            new Columna("grupoDestinoId", SolicitudResponse::getGrupoDestinoId),
+            new Columna("materiaDestinoId", SolicitudResponse::getMateriaDestinoId),
+            new Columna("periodoId", SolicitudResponse::getPeriodoId),
+            new Columna("prioridad", SolicitudResponse::getPrioridad),
+            new Columna("fechaSolicitud", SolicitudResponse::getFechaSolicitud),
+            new Columna("fechaLimiteRespuesta", SolicitudResponse::getFechaLimiteRespuesta),
+            new Columna("fechaActualizacion", SolicitudResponse::getFechaActualizacion),
+            new Columna("descripcion", SolicitudResponse::getDescripcion),
+            new Columna("observaciones", SolicitudResponse::getObservaciones));
+
+    private final MongoTemplate mongoTemplate;
+    private final SolicitudMapper solicitudMapper;
+    private final ObjectMapper objectMapper;
+
+    @Value("${sirha.solicitudes.export.batch-size:500}")
+    private int batchSize = 500;
+
+    /**
+     * Formatos de exportación soportados.
+     */
+    public enum Formato {
+        NDJSON("application/x-ndjson", "ndjson"),
+        CSV("text/csv", "csv");
+
+        private final String contentType;
+        private final String extension;
+
+        Formato(String contentType, String extension) {
+            this.contentType = contentType;
+            this.extension = extension;
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+
+        public String getExtension() {
+            return extension;
+        }
+
+        /**
+         * Obtiene el formato a partir de su nombre, sin distinguir mayúsculas.
+         *
+         * @param valor Nombre del formato (ej: "csv")
+         * @return Formato correspondiente
+         * @throws BusinessException si el formato no es soportado
+         */
+        public static Formato desde(String valor) {
+            try {
+                return valueOf(valor.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException ex) {
+                throw new BusinessException("Formato no soportado: " + valor + ". Valores permitidos: "
+                        + Arrays.stream(values()).map(Enum::name).collect(Collectors.joining(", ")));
+            }
+        }
+    }
+
+    /**
+     * Valida los parámetros de la exportación antes de comprometer la respuesta.
+     *
+     * @param inicio Fecha de inicio del rango (opcional)
+     * @param fin Fecha de fin del rango (opcional)
+     * @throws BusinessException si el inicio es posterior al fin
+     */
+    public void validarRango(Instant inicio, Instant fin) {
+        if (inicio != null && fin != null && inicio.isAfter(fin)) {
+            throw new BusinessException("La fecha de inicio no puede ser posterior a la fecha de fin");
+        }
+    }
+
+    /**
+     * Escribe las solicitudes de un período en la salida indicada.
+     *
+     * <p>Sin rango de fechas se exporta el período completo. Las filas salen
+     * ordenadas por fecha de solicitud ascendente.</p>
+     *
+     * @param periodoId ID del período académico
+     * @param inicio Fecha de inicio del rango (opcional)
+     * @param fin Fecha de fin del rango (opcional)
+     * @param formato Formato de salida
+     * @param salida Flujo de salida; no se cierra
+     * @return Cantidad de solicitudes escritas
+     * @throws IOException si falla la escritura (por ejemplo, el cliente se desconectó)
+     */
+    public long exportar(String periodoId, Instant inicio, Instant fin, Formato formato,
+                         OutputStream salida) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(salida, StandardCharsets.UTF_8));
+        long escritas = 0;
+        try (Stream<Solicitud> solicitudes = mongoTemplate.stream(query(periodoId, inicio, fin), Solicitud.class)) {
+            if (formato == Formato.CSV) {
+                writer.write(COLUMNAS.stream().map(Columna::nombre).collect(Collectors.joining(",")));
+                writer.write("\r\n");
+            }
+            for (Solicitud solicitud : (Iterable<Solicitud>) solicitudes::iterator) {
+                escribir(writer, solicitudMapper.toResponse(solicitud), formato);
+                if (++escritas % batchSize == 0) {
+                    writer.flush();
+                }
+            }
+            writer.flush();
+        } catch (IOException ex) {
+            log.debug("Exportación del período {} interrumpida tras {} filas: {}", periodoId, escritas, ex.getMessage());
+            throw ex;
+        }
+        log.info("Exportadas {} solicitudes del período {} en {}", escritas, periodoId, formato);
+        return escritas;
+    }
+
+    private Query query(String periodoId, Instant inicio, Instant fin) {
+        Criteria filtro = Criteria.where("periodoId").is(periodoId);
+        if (inicio != null || fin != null) {
+            Criteria rango = filtro.and("fechaSolicitud");
+            if (inicio != null) {
+                rango.gte(inicio);
+            }
+            if (fin != null) {
+                rango.lte(fin);
+            }
+        }
+        Query query = new Query(filtro)
+                .with(Sort.by(Sort.Order.asc("fechaSolicitud"), Sort.Order.asc("id")))
+                .cursorBatchSize(batchSize);
+        query.fields().exclude("historial");
+        return query;
+    }
+
+    private void escribir(Writer writer, SolicitudResponse solicitud, Formato formato) throws IOException {
+        if (formato == Formato.NDJSON) {
+            writer.write(objectMapper.writeValueAsString(solicitud));
+            writer.write('\n');
+            return;
+        }
+        for (int i = 0; i < COLUMNAS.size(); i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            writer.write(csv(COLUMNAS.get(i).valor().apply(solicitud)));
+        }
+        writer.write("\r\n");
+    }
+
+    /**
+     * Escapa un valor según RFC 4180: se encierra entre comillas si contiene
+     * coma, comillas o saltos de línea, duplicando las comillas internas.
+     *
+     * <p>Los textos que empiezan por {@code =}, {@code +}, {@code -}, {@code @},
+     * tabulador o retorno de carro llevan antes un apóstrofo, para que una hoja de
+     * cálculo no los evalúe como fórmula (por ejemplo, una observación escrita por el
+     * estudiante). Los números se exportan tal cual.</p>
+     */
+    static String csv(Object valor) {
+        if (valor == null) {
+            return "";
+        }
+        String texto = Objects.toString(valor);
+        if (!(valor instanceof Number) && !texto.isEmpty() && INICIO_FORMULA.indexOf(texto.charAt(0)) >= 0) {
+            texto = "'" + texto;
+        }
+        if (texto.indexOf(',') < 0 && texto.indexOf('"') < 0
+                && texto.indexOf('\n') < 0 && texto.indexOf('\r') < 0) {
+            return texto;
+        }
+        return '"' + texto.replace("\"", "\"\"") + '"';
+    }
+
+    private record Columna(String nombre, Function<SolicitudResponse, Object> valor) {
+    }
+}
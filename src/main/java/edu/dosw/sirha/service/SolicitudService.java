@@ -1,11 +1,15 @@
 package edu.dosw.sirha.service;
 
 import edu.dosw.sirha.dto.request.SolicitudRequest;
+import edu.dosw.sirha.dto.response.CursorPage;
+import edu.dosw.sirha.dto.response.SolicitudEstadoBulkResponse;
 import edu.dosw.sirha.dto.response.SolicitudResponse;
+import edu.dosw.sirha.model.SolicitudHistorialEntry;
 import edu.dosw.sirha.model.enums.SolicitudEstado;
 
 import java.time.Instant;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Servicio central de gestión de solicitudes de cambio (CORE de SIRHA).
@@ -65,6 +69,35 @@ public interface SolicitudService {
 	 */
 	SolicitudResponse changeEstado(String id, SolicitudEstado nuevoEstado, String observaciones);
 
+	/**
+	 * Cambia el estado de varias solicitudes en un solo lote.
+	 * 
+	 * <p>Las solicitudes se leen en una sola consulta, los cupos se reservan una vez
+	 * por grupo destino y los cambios se escriben en un único bulkWrite. Una
+	 * solicitud que no puede cambiarse no detiene el resto; su motivo se reporta
+	 * individualmente.</p>
+	 * 
+	 * @param ids IDs de las solicitudes
+	 * @param nuevoEstado Nuevo estado
+	 * @param observaciones Justificación del cambio
+	 * @return Resultado por solicitud, en el orden de {@code ids}
+	 * @throws edu.dosw.sirha.exception.BusinessException si se aprueba fuera del período de solicitudes
+	 */
+	SolicitudEstadoBulkResponse changeEstadoBulk(List<String> ids, SolicitudEstado nuevoEstado, String observaciones);
+
+	/**
+	 * Obtiene el historial completo de una solicitud.
+	 * 
+	 * <p>El documento de la solicitud solo conserva los eventos más recientes; este
+	 * método lee el historial archivado en {@code solicitud_historial}, o el embebido
+	 * (que entonces no está acotado) si la solicitud aún no tiene el historial archivado.</p>
+	 * 
+	 * @param id ID de la solicitud
+	 * @return Eventos en orden cronológico
+	 * @throws edu.dosw.sirha.exception.ResourceNotFoundException si no existe
+	 */
+	List<SolicitudHistorialEntry> findHistorial(String id);
+
 	/**
 	 * Busca una solicitud por ID.
 	 * 
@@ -84,39 +117,66 @@ public interface SolicitudService {
 	void delete(String id);
 
 	/**
-	 * Obtiene todas las solicitudes del sistema.
+	 * Obtiene una página de todas las solicitudes, más recientes primero.
+	 * 
+	 * <p>Los listados paginados no incluyen el historial; se obtiene con {@link #findById}.</p>
 	 * 
-	 * @return Lista de todas las solicitudes
+	 * @param cursor Cursor de la página anterior, null para la primera
+	 * @param size Tamaño de página, null para el valor por defecto (se limita al máximo)
+	 * @return Página de solicitudes con el cursor de la siguiente
+	 * @throws edu.dosw.sirha.exception.BusinessException si el cursor es inválido
 	 */
-	List<SolicitudResponse> findAll();
+	CursorPage<SolicitudResponse> findAll(String cursor, Integer size);
 
 	/**
-	 * Busca solicitudes de un estudiante específico.
+	 * Obtiene una página de solicitudes de un estudiante, más recientes primero.
 	 * 
 	 * @param estudianteId ID del estudiante
-	 * @return Lista de solicitudes del estudiante
+	 * @param cursor Cursor de la página anterior, null para la primera
+	 * @param size Tamaño de página, null para el valor por defecto
+	 * @return Página de solicitudes del estudiante
 	 */
-	List<SolicitudResponse> findByEstudiante(String estudianteId);
+	CursorPage<SolicitudResponse> findByEstudiante(String estudianteId, String cursor, Integer size);
 
 	/**
-	 * Busca solicitudes por estados.
+	 * Obtiene una página de solicitudes por estados, ordenadas por prioridad.
 	 * 
 	 * <p>Útil para coordinadores: ver solo PENDIENTES o EN_REVISION.</p>
 	 * 
-	 * @param estados Lista de estados a buscar
-	 * @return Lista de solicitudes con alguno de esos estados
+	 * @param estados Lista de estados a buscar (null o vacía para todos)
+	 * @param cursor Cursor de la página anterior, null para la primera
+	 * @param size Tamaño de página, null para el valor por defecto
+	 * @return Página de solicitudes con alguno de esos estados
 	 */
-	List<SolicitudResponse> findByEstados(List<SolicitudEstado> estados);
+	CursorPage<SolicitudResponse> findByEstados(List<SolicitudEstado> estados, String cursor, Integer size);
 
 	/**
 	 * Cuenta solicitudes por estado.
 	 * 
-	 * <p>Para dashboards y estadísticas.</p>
+	 * <p>Para dashboards y estadísticas. Se responde con los totales mantenidos por
+	 * {@link ContadorSolicitudes}, sin contar la colección.</p>
 	 * 
 	 * @param estado Estado a contar
+	 * @param periodoId Período a contar, o null para todos
 	 * @return Cantidad de solicitudes en ese estado
 	 */
-	long countByEstado(SolicitudEstado estado);
+	long countByEstado(SolicitudEstado estado, String periodoId);
+
+	/**
+	 * Cuenta solicitudes de todos los estados en una sola consulta.
+	 * 
+	 * @param periodoId Período a contar, o null para todos
+	 * @return Cantidad de solicitudes por estado
+	 */
+	Map<SolicitudEstado, Long> countByEstados(String periodoId);
+
+	/**
+	 * Recalcula los conteos por estado desde la colección de solicitudes.
+	 * 
+	 * @return Cantidad de solicitudes por estado, de todos los períodos
+	 * @throws edu.dosw.sirha.exception.ConflictException si otra réplica los está reconstruyendo
+	 */
+	Map<SolicitudEstado, Long> reconstruirConteos();
 
 	/**
 	 * Busca solicitudes de un periodo en un rango de fechas.
@@ -126,7 +186,10 @@ public interface SolicitudService {
 	 * @param periodoId ID del periodo
 	 * @param inicio Fecha inicial del rango
 	 * @param fin Fecha final del rango
-	 * @return Lista de solicitudes que cumplen criterios
+	 * @param cursor Cursor de la página anterior, null para la primera
+	 * @param size Tamaño de página, null para el valor por defecto
+	 * @return Página de solicitudes que cumplen criterios, más recientes primero
 	 */
-	List<SolicitudResponse> findByPeriodoAndRango(String periodoId, Instant inicio, Instant fin);
+	CursorPage<SolicitudResponse> findByPeriodoAndRango(String periodoId, Instant inicio, Instant fin,
+			String cursor, Integer size);
 }
\ No newline at end of file
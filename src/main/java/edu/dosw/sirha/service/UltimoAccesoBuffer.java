@@ -0,0 +1,110 @@
+package edu.dosw.sirha.service;
+
+import edu.dosw.sirha.model.User;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Buffer de escritura diferida para la fecha de último acceso de los usuarios.
+ *
+ * <p>El login solo registra el instante en memoria; varios accesos del mismo
+ * usuario entre dos vaciados se combinan conservando el más reciente. El buffer se
+ * vacía periódicamente en un único {@code bulkWrite} no ordenado de actualizaciones
+ * parciales {@code $max} sobre {@code ultimo_acceso}, y una última vez al detener
+ * la aplicación.</p>
+ *
+ * <p>{@code $max} hace que la escritura sea idempotente y nunca retroceda la fecha,
+ * aunque otra réplica haya escrito un acceso posterior. Al no reescribir el
+ * documento completo, no pisa cambios concurrentes a otros campos del usuario.</p>
+ *
+ * @author Equipo DOSW - SIRHA
+ * @version 1.0
+ * @since 2025-11-02
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class UltimoAccesoBuffer {
+
+    private final MongoTemplate mongoTemplate;
+
+    private final ConcurrentHashMap<String, Instant> pendientes = new ConcurrentHashMap<>();
+
+    /**
+     * Registra un acceso; no realiza ninguna escritura en MongoDB.
+     *
+     * @param userId ID del usuario
+     * @param instante Instante del acceso
+     */
+    public void registrar(String userId, Instant instante) {
+        if (userId == null || instante == null) {
+            return;
+        }
+        pendientes.merge(userId, instante, (actual, nuevo) -> nuevo.isAfter(actual) ? nuevo : actual);
+    }
+
+    /**
+     * Retorna la cantidad de usuarios con accesos pendientes de escribir.
+     *
+     * @return Tamaño actual del buffer
+     */
+    public int pendientes() {
+        return pendientes.size();
+    }
+
+    /**
+     * Escribe los accesos pendientes en un único bulkWrite.
+     *
+     * <p>Si la escritura falla, los accesos se devuelven al buffer para el siguiente
+     * intento (combinándose con los registrados mientras tanto).</p>
+     *
+     * @return Cantidad de usuarios escritos
+     */
+    @Scheduled(fixedDelayString = "${sirha.usuarios.ultimo-acceso.flush-ms:10000}")
+    public int flush() {
+        Map<String, Instant> lote = new LinkedHashMap<>();
+        for (Map.Entry<String, Instant> entry : pendientes.entrySet()) {
+            if (pendientes.remove(entry.getKey(), entry.getValue())) {
+                lote.put(entry.getKey(), entry.getValue());
+            }
+        }
+        if (lote.isEmpty()) {
+            return 0;
+        }
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, User.class);
+        lote.forEach((userId, instante) -> bulk.updateOne(
+                new Query(Criteria.where("id").is(userId)),
+                new Update().max("ultimoAcceso", instante)));
+        try {
+            bulk.execute();
+            log.debug("Último acceso actualizado para {} usuarios", lote.size());
+            return lote.size();
+        } catch (DataAccessException ex) {
+            lote.forEach(this::registrar);
+            log.warn("No fue posible escribir el último acceso de {} usuarios: {}", lote.size(), ex.getMessage());
+            return 0;
+        }
+    }
+
+    /**
+     * Vacía el buffer antes de detener la aplicación.
+     */
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+    }
+}
@@ -0,0 +1,28 @@
+package edu.dosw.sirha.service.conflict;
+
+import edu.dosw.sirha.model.Conflict;
+
+import java.util.List;
+
+/**
+ * Regla de detección de conflictos de una solicitud.
+ *
+ * <p>Cada regla es un bean de Spring: {@link edu.dosw.sirha.service.ConflictDetectionService}
+ * recibe todas las implementaciones y las evalúa sobre el mismo {@link ContextoConflicto},
+ * que ya trae las inscripciones y los grupos del estudiante. Una regla nueva solo debe
+ * declararse como {@code @Component}; no debe consultar la base de datos.</p>
+ *
+ * @author Equipo DOSW - SIRHA
+ * @version 1.0
+ * @since 2025-11-02
+ */
+public interface ConflictRule {
+
+    /**
+     * Evalúa la regla.
+     *
+     * @param contexto Solicitud, grupo destino e inscripciones vigentes del estudiante
+     * @return Conflictos encontrados, creados con {@link ContextoConflicto#conflicto}
+     */
+    List<Conflict> evaluar(ContextoConflicto contexto);
+}
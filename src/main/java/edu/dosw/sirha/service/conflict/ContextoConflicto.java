@@ -0,0 +1,63 @@
+package edu.dosw.sirha.service.conflict;
+
+import edu.dosw.sirha.model.Conflict;
+import edu.dosw.sirha.model.Grupo;
+import edu.dosw.sirha.model.Inscripcion;
+import edu.dosw.sirha.model.Solicitud;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Datos con los que se evalúan las {@link ConflictRule} de una solicitud.
+ *
+ * @param solicitud Solicitud evaluada
+ * @param destino Grupo al que el estudiante pide ingresar
+ * @param inscripciones Inscripciones INSCRITO del estudiante en el periodo, sin la de origen
+ * @param grupos Grupos de esas inscripciones, por ID
+ * @param ahora Instante de la detección
+ *
+ * @author Equipo DOSW - SIRHA
+ * @version 1.0
+ * @since 2025-11-02
+ */
+public record ContextoConflicto(Solicitud solicitud, Grupo destino, List<Inscripcion> inscripciones,
+        Map<String, Grupo> grupos, Instant ahora) {
+
+    /**
+     * Crea un conflicto de la solicitud.
+     *
+     * <p>El ID se deriva de la solicitud, el tipo y el grupo, así volver a detectar el
+     * mismo conflicto (por ejemplo al aprobar) no lo duplica.</p>
+     *
+     * @param tipo Tipo de conflicto
+     * @param grupoId Grupo con el que se presenta
+     * @param descripcion Explicación para el estudiante y el coordinador
+     * @return Conflicto sin resolver
+     */
+    public Conflict conflicto(String tipo, String grupoId, String descripcion) {
+        return Conflict.builder()
+                .id(solicitud.getId() + ":" + tipo + ":" + grupoId)
+                .tipo(tipo)
+                .descripcion(descripcion)
+                .estudianteId(solicitud.getEstudianteId())
+                .solicitudId(solicitud.getId())
+                .grupoId(grupoId)
+                .fechaDeteccion(ahora)
+                .resuelto(false)
+                .build();
+    }
+
+    /**
+     * Retorna los grupos en los que el estudiante está inscrito.
+     *
+     * @return Grupos de las inscripciones encontrados en la base de datos
+     */
+    public List<Grupo> gruposInscritos() {
+        return inscripciones.stream()
+                .map(inscripcion -> grupos.get(inscripcion.getGrupoId()))
+                .filter(grupo -> grupo != null)
+                .toList();
+    }
+}
@@ -0,0 +1,38 @@
+package edu.dosw.sirha.service.conflict;
+
+import edu.dosw.sirha.model.Conflict;
+import edu.dosw.sirha.model.Grupo;
+import edu.dosw.sirha.model.enums.SolicitudEstado;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Detecta que el grupo destino no tiene cupos.
+ *
+ * <p>No aplica a solicitudes aprobadas: la aprobación ya reservó su cupo.</p>
+ *
+ * @author Equipo DOSW - SIRHA
+ * @version 1.0
+ * @since 2025-11-02
+ */
+@Component
+@Order(2)
+public class GrupoLlenoRule implements ConflictRule {
+
+    /**
+     * Tipo de los conflictos de esta regla.
+     */
+    public static final String TIPO = "GRUPO_LLENO";
+
+    @Override
+    public List<Conflict> evaluar(ContextoConflicto contexto) {
+        Grupo destino = contexto.destino();
+        if (contexto.solicitud().getEstado() == SolicitudEstado.APROBADA || destino.tieneCuposDisponibles()) {
+            return List.of();
+        }
+        return List.of(contexto.conflicto(TIPO, destino.getId(), "El grupo " + destino.getCodigo()
+                + " no tiene cupos disponibles (" + destino.getCuposActuales() + "/" + destino.getCupoMax() + ")"));
+    }
+}
@@ -0,0 +1,42 @@
+package edu.dosw.sirha.service.conflict;
+
+import edu.dosw.sirha.model.Conflict;
+import edu.dosw.sirha.model.Grupo;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Detecta que el estudiante ya está inscrito en el grupo destino o en otro grupo de la
+ * misma materia.
+ *
+ * <p>La inscripción de origen de la solicitud no cuenta: es la que se va a reemplazar.</p>
+ *
+ * @author Equipo DOSW - SIRHA
+ * @version 1.0
+ * @since 2025-11-02
+ */
+@Component
+@Order(3)
+public class InscripcionDuplicadaRule implements ConflictRule {
+
+    /**
+     * Tipo de los conflictos de esta regla.
+     */
+    public static final String TIPO = "INSCRIPCION_DUPLICADA";
+
+    @Override
+    public List<Conflict> evaluar(ContextoConflicto contexto) {
+        Grupo destino = contexto.destino();
+        return contexto.gruposInscritos().stream()
+                .filter(grupo -> grupo.getId().equals(destino.getId())
+                        || (destino.getMateriaId() != null && Objects.equals(grupo.getMateriaId(), destino.getMateriaId())))
+                .map(grupo -> contexto.conflicto(TIPO, grupo.getId(), grupo.getId().equals(destino.getId())
+                        ? "El estudiante ya está inscrito en el grupo " + destino.getCodigo()
+                        : "El estudiante ya cursa la materia del grupo " + destino.getCodigo()
+                                + " en el grupo " + grupo.getCodigo()))
+                .toList();
+    }
+}
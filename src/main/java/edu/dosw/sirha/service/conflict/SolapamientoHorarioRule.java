@@ -0,0 +1,39 @@
+package edu.dosw.sirha.service.conflict;
+
+import edu.dosw.sirha.model.Conflict;
+import edu.dosw.sirha.model.Grupo;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Detecta cruces de horario entre el grupo destino y los grupos inscritos.
+ *
+ * <p>Usa {@link Grupo#tieneConflictoHorarioCon(Grupo)}, que compara las franjas
+ * precalculadas de cada grupo.</p>
+ *
+ * @author Equipo DOSW - SIRHA
+ * @version 1.0
+ * @since 2025-11-02
+ */
+@Component
+@Order(1)
+public class SolapamientoHorarioRule implements ConflictRule {
+
+    /**
+     * Tipo de los conflictos de esta regla.
+     */
+    public static final String TIPO = "SOLAPAMIENTO_HORARIOS";
+
+    @Override
+    public List<Conflict> evaluar(ContextoConflicto contexto) {
+        Grupo destino = contexto.destino();
+        return contexto.gruposInscritos().stream()
+                .filter(grupo -> !grupo.getId().equals(destino.getId()))
+                .filter(destino::tieneConflictoHorarioCon)
+                .map(grupo -> contexto.conflicto(TIPO, grupo.getId(), "El grupo " + destino.getCodigo()
+                        + " se cruza en horario con el grupo inscrito " + grupo.getCodigo()))
+                .toList();
+    }
+}
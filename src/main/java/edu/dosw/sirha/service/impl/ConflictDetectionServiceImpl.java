@@ -5,25 +5,159 @@ import edu.dosw.sirha.dto.response.ConflictResponse;
 import edu.dosw.sirha.exception.ResourceNotFoundException;
 import edu.dosw.sirha.mapper.ConflictMapper;
 import edu.dosw.sirha.model.Conflict;
+import edu.dosw.sirha.model.Grupo;
+import edu.dosw.sirha.model.Inscripcion;
+import edu.dosw.sirha.model.Solicitud;
+import edu.dosw.sirha.model.enums.EstadoInscripcion;
 import edu.dosw.sirha.repository.ConflictRepository;
+import edu.dosw.sirha.repository.GrupoRepository;
+import edu.dosw.sirha.repository.InscripcionRepository;
 import edu.dosw.sirha.service.ConflictDetectionService;
+import edu.dosw.sirha.service.conflict.ConflictRule;
+import edu.dosw.sirha.service.conflict.ContextoConflicto;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.Clock;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
+@Slf4j
 @Service
 @RequiredArgsConstructor
 @Transactional
 public class ConflictDetectionServiceImpl implements ConflictDetectionService {
 
+	private static final int DUPLICATE_KEY = 11000;
+
 	private final ConflictRepository conflictRepository;
 	private final ConflictMapper conflictMapper;
+	private final InscripcionRepository inscripcionRepository;
+	private final GrupoRepository grupoRepository;
+	private final MongoTemplate mongoTemplate;
+	private final List<ConflictRule> reglas;
 	private final Clock clock;
 
+	@Override
+	public List<ConflictResponse> detectar(Solicitud solicitud) {
+		if (solicitud.getGrupoDestinoId() == null || reglas.isEmpty()) {
+			return List.of();
+		}
+		try {
+			List<Inscripcion> inscripciones = inscripcionRepository.findByEstudianteIdAndPeriodoIdAndEstado(
+					solicitud.getEstudianteId(), solicitud.getPeriodoId(), EstadoInscripcion.INSCRITO).stream()
+					.filter(inscripcion -> !inscripcion.getId().equals(solicitud.getInscripcionOrigenId()))
+					.toList();
+			Set<String> ids = new LinkedHashSet<>();
+			ids.add(solicitud.getGrupoDestinoId());
+			inscripciones.forEach(inscripcion -> ids.add(inscripcion.getGrupoId()));
+			List<Conflict> conflictos = evaluar(solicitud, inscripciones, grupos(ids), Instant.now(clock));
+			if (!conflictos.isEmpty()) {
+				insertar(conflictos);
+				log.info("{} conflictos detectados en la solicitud {}", conflictos.size(), solicitud.getId());
+			}
+			return conflictos.stream().map(conflictMapper::toResponse).toList();
+		} catch (DataAccessException ex) {
+			log.warn("No fue posible detectar conflictos de la solicitud {}: {}", solicitud.getId(), ex.getMessage());
+			return List.of();
+		}
+	}
+
+	@Override
+	public List<ConflictResponse> detectar(List<Solicitud> solicitudes) {
+		List<Solicitud> conDestino = solicitudes.stream()
+				.filter(solicitud -> solicitud.getGrupoDestinoId() != null)
+				.toList();
+		if (conDestino.isEmpty() || reglas.isEmpty()) {
+			return List.of();
+		}
+		try {
+			Set<String> estudiantes = new HashSet<>();
+			Set<String> periodos = new HashSet<>();
+			conDestino.forEach(solicitud -> {
+				estudiantes.add(solicitud.getEstudianteId());
+				periodos.add(solicitud.getPeriodoId());
+			});
+			// Una sola consulta para todo el lote; se reparte por estudiante y periodo
+			Map<String, List<Inscripcion>> porEstudiante = new HashMap<>();
+			inscripcionRepository.findByEstudianteIdInAndPeriodoIdInAndEstado(estudiantes, periodos,
+					EstadoInscripcion.INSCRITO).forEach(inscripcion -> porEstudiante
+							.computeIfAbsent(clave(inscripcion.getEstudianteId(), inscripcion.getPeriodoId()),
+									k -> new ArrayList<>())
+							.add(inscripcion));
+			Set<String> ids = new LinkedHashSet<>();
+			conDestino.forEach(solicitud -> ids.add(solicitud.getGrupoDestinoId()));
+			porEstudiante.values().forEach(lista -> lista.forEach(inscripcion -> ids.add(inscripcion.getGrupoId())));
+			Map<String, Grupo> grupos = grupos(ids);
+
+			Instant ahora = Instant.now(clock);
+			List<Conflict> conflictos = new ArrayList<>();
+			for (Solicitud solicitud : conDestino) {
+				conflictos.addAll(evaluar(solicitud, porEstudiante.getOrDefault(
+						clave(solicitud.getEstudianteId(), solicitud.getPeriodoId()), List.of()), grupos, ahora));
+			}
+			if (!conflictos.isEmpty()) {
+				insertar(conflictos);
+				log.info("{} conflictos detectados en un lote de {} solicitudes", conflictos.size(), conDestino.size());
+			}
+			return conflictos.stream().map(conflictMapper::toResponse).toList();
+		} catch (DataAccessException ex) {
+			log.warn("No fue posible detectar conflictos de un lote de {} solicitudes: {}", conDestino.size(),
+					ex.getMessage());
+			return List.of();
+		}
+	}
+
+	private Map<String, Grupo> grupos(Set<String> ids) {
+		Map<String, Grupo> grupos = new HashMap<>();
+		grupoRepository.findAllById(ids).forEach(grupo -> grupos.put(grupo.getId(), grupo));
+		return grupos;
+	}
+
+	private List<Conflict> evaluar(Solicitud solicitud, List<Inscripcion> inscritas, Map<String, Grupo> grupos,
+			Instant ahora) {
+		Grupo destino = grupos.get(solicitud.getGrupoDestinoId());
+		if (destino == null) {
+			return List.of();
+		}
+		List<Inscripcion> inscripciones = inscritas.stream()
+				.filter(inscripcion -> !inscripcion.getId().equals(solicitud.getInscripcionOrigenId()))
+				.toList();
+		ContextoConflicto contexto = new ContextoConflicto(solicitud, destino, inscripciones, grupos, ahora);
+		List<Conflict> conflictos = new ArrayList<>();
+		reglas.forEach(regla -> conflictos.addAll(regla.evaluar(contexto)));
+		return conflictos;
+	}
+
+	private static String clave(String estudianteId, String periodoId) {
+		return estudianteId + "|" + periodoId;
+	}
+
+	private void insertar(List<Conflict> conflictos) {
+		try {
+			mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Conflict.class)
+					.insert(conflictos)
+					.execute();
+		} catch (BulkOperationException ex) {
+			// Los ya registrados en una detección anterior conservan su estado
+			if (ex.getErrors().stream().anyMatch(error -> error.getCode() != DUPLICATE_KEY)) {
+				throw ex;
+			}
+		}
+	}
+
 	@Override
 	public ConflictResponse registrar(ConflictRequest request) {
 		Conflict conflict = conflictMapper.toNewEntity(request);
@@ -7,6 +7,7 @@ import edu.dosw.sirha.exception.ResourceNotFoundException;
 import edu.dosw.sirha.mapper.PeriodoMapper;
 import edu.dosw.sirha.model.Periodo;
 import edu.dosw.sirha.repository.PeriodoRepository;
+import edu.dosw.sirha.service.PeriodoActivoHolder;
 import edu.dosw.sirha.service.PeriodoService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
@@ -22,6 +23,7 @@ public class PeriodoServiceImpl implements PeriodoService {
 
 	private final PeriodoRepository periodoRepository;
 	private final PeriodoMapper periodoMapper;
+	private final PeriodoActivoHolder periodoActivoHolder;
 
 	@Override
 	public PeriodoResponse create(PeriodoRequest request) {
@@ -30,6 +32,7 @@ public class PeriodoServiceImpl implements PeriodoService {
 			desactivarPeriodoActual();
 		}
 		Periodo saved = periodoRepository.save(periodo);
+		periodoActivoHolder.publicar(saved);
 		return periodoMapper.toResponse(saved);
 	}
 
@@ -43,6 +46,7 @@ public class PeriodoServiceImpl implements PeriodoService {
 			existing.setActivo(true);
 		}
 		Periodo updated = periodoRepository.save(existing);
+		periodoActivoHolder.publicar(updated);
 		return periodoMapper.toResponse(updated);
 	}
 
@@ -53,6 +57,7 @@ public class PeriodoServiceImpl implements PeriodoService {
 			throw new BusinessException("No es posible eliminar el periodo activo");
 		}
 		periodoRepository.delete(existing);
+		periodoActivoHolder.publicar(existing);
 	}
 
 	@Override
@@ -72,7 +77,7 @@ public class PeriodoServiceImpl implements PeriodoService {
 	@Override
 	@Transactional(readOnly = true)
 	public PeriodoResponse findActive() {
-		return periodoRepository.findByActivoTrue()
+		return periodoActivoHolder.actual()
 				.map(periodoMapper::toResponse)
 				.orElse(null);
 	}
@@ -84,6 +89,7 @@ public class PeriodoServiceImpl implements PeriodoService {
 			desactivarPeriodoActual();
 			periodo.setActivo(true);
 			periodo = periodoRepository.save(periodo);
+			periodoActivoHolder.publicar(periodo);
 		}
 		return periodoMapper.toResponse(periodo);
 	}
@@ -104,6 +110,7 @@ public class PeriodoServiceImpl implements PeriodoService {
 		periodoRepository.findByActivoTrue().ifPresent(actual -> {
 			actual.setActivo(false);
 			periodoRepository.save(actual);
+			periodoActivoHolder.publicar(actual);
 		});
 	}
 }
\ No newline at end of file
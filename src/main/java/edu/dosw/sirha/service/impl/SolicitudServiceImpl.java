@@ -2,56 +2,109 @@ package edu.dosw.sirha.service.impl;
 
 import java.time.Clock;
 import java.time.Instant;
-import java.time.ZoneOffset;
-import java.time.format.DateTimeFormatter;
 import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.Locale;
-import java.util.UUID;
+import java.util.Map;
+import java.util.Set;
 
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.StringUtils;
 
 import edu.dosw.sirha.dto.request.SolicitudRequest;
+import edu.dosw.sirha.dto.response.CursorPage;
+import edu.dosw.sirha.dto.response.SolicitudEstadoBulkResponse;
 import edu.dosw.sirha.dto.response.SolicitudResponse;
 import edu.dosw.sirha.exception.BusinessException;
+import edu.dosw.sirha.exception.ConflictException;
 import edu.dosw.sirha.exception.ResourceNotFoundException;
 import edu.dosw.sirha.mapper.SolicitudMapper;
 import edu.dosw.sirha.model.Grupo;
 import edu.dosw.sirha.model.Periodo;
 import edu.dosw.sirha.model.Solicitud;
+import edu.dosw.sirha.model.SolicitudHistorial;
 import edu.dosw.sirha.model.SolicitudHistorialEntry;
 import edu.dosw.sirha.model.enums.SolicitudEstado;
+import edu.dosw.sirha.repository.CambioEstado;
 import edu.dosw.sirha.repository.GrupoRepository;
-import edu.dosw.sirha.repository.PeriodoRepository;
+import edu.dosw.sirha.repository.InscripcionRepository;
+import edu.dosw.sirha.repository.SolicitudHistorialRepository;
+import edu.dosw.sirha.repository.SolicitudKeyset;
 import edu.dosw.sirha.repository.SolicitudRepository;
+import edu.dosw.sirha.service.CodigoSolicitudGenerator;
+import edu.dosw.sirha.service.ColaRevisionService;
+import edu.dosw.sirha.service.ConflictDetectionService;
+import edu.dosw.sirha.service.ContadorSolicitudes;
+import edu.dosw.sirha.service.ListaEsperaService;
+import edu.dosw.sirha.service.PeriodoActivoHolder;
+import edu.dosw.sirha.service.PlazoScheduler;
+import edu.dosw.sirha.service.SeatLedger;
 import edu.dosw.sirha.service.SolicitudService;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 
+@Slf4j
 @Service
 @RequiredArgsConstructor
 @Transactional
 public class SolicitudServiceImpl implements SolicitudService {
 
-	private static final DateTimeFormatter CODIGO_FORMATTER = DateTimeFormatter.ofPattern("yyyyMMddHHmmss")
-				.withZone(ZoneOffset.UTC);
+	/** Intentos de guardado con un código nuevo cuando el índice único lo rechaza. */
+	private static final int MAX_INTENTOS_CODIGO = 3;
 
 	private final SolicitudRepository solicitudRepository;
+	private final SolicitudHistorialRepository solicitudHistorialRepository;
 	private final SolicitudMapper solicitudMapper;
 	private final GrupoRepository grupoRepository;
-	private final PeriodoRepository periodoRepository;
+	private final InscripcionRepository inscripcionRepository;
+	private final PeriodoActivoHolder periodoActivoHolder;
+	private final ContadorSolicitudes contadorSolicitudes;
+	private final PlazoScheduler plazoScheduler;
+	private final CodigoSolicitudGenerator codigoSolicitudGenerator;
+	private final ListaEsperaService listaEsperaService;
+	private final ConflictDetectionService conflictDetectionService;
 	private final Clock clock;
 
 	@Value("${sirha.solicitudes.dias-max-respuesta:5}")
 	private int diasMaxRespuesta;
 
+	@Value("${sirha.solicitudes.historial.max-embebido:20}")
+	private int maxHistorial = 20;
+
+	@Value("${sirha.solicitudes.pagina.tamano:50}")
+	private int tamanoPagina;
+
+	@Value("${sirha.solicitudes.pagina.tamano-max:200}")
+	private int tamanoPaginaMax;
+
+	private SeatLedger seatLedger;
+
+	/**
+	 * Inyecta el libro de cupos en memoria, activo solo con
+	 * {@code sirha.grupos.seat-ledger.enabled=true}.
+	 * 
+	 * @param seatLedger Libro de cupos de los grupos del período activo
+	 */
+	@Autowired(required = false)
+	public void setSeatLedger(SeatLedger seatLedger) {
+		this.seatLedger = seatLedger;
+	}
+
 	@Override
 	public SolicitudResponse create(SolicitudRequest request) {
 		// Validar que estamos en periodo válido
-		validarPeriodoActivo();
+		Periodo periodoActivo = validarPeriodoActivo();
 		
 		// Validar que el grupo destino tenga cupos disponibles
 		if (request.getGrupoDestinoId() != null) {
@@ -60,24 +113,24 @@ public class SolicitudServiceImpl implements SolicitudService {
 		
 		Solicitud solicitud = solicitudMapper.toNewEntity(request);
 		Instant now = Instant.now(clock);
-		solicitud.setCodigoSolicitud(generarCodigo(now));
 		solicitud.setFechaSolicitud(now);
 		solicitud.setFechaActualizacion(now);
 		solicitud.setFechaLimiteRespuesta(now.plus(diasMaxRespuesta, ChronoUnit.DAYS));
 		
-		// Obtener periodo activo
-		Periodo periodoActivo = periodoRepository.findByActivoTrue()
-				.orElseThrow(() -> new BusinessException("No hay un período académico activo"));
 		solicitud.setPeriodoId(periodoActivo.getId());
 		
 		agregarEvento(solicitud, "CREADA", request.getObservaciones());
-		Solicitud saved = solicitudRepository.save(solicitud);
+		Solicitud saved = guardarConCodigoUnico(solicitud, now);
+		saved.setHistorialArchivado(solicitudRepository.archivarHistorialEmbebido(saved));
+		contadorSolicitudes.registrar(null, saved);
+		plazoScheduler.programar(saved.getId(), saved.getFechaLimiteRespuesta());
+		conflictDetectionService.detectar(saved);
 		return solicitudMapper.toResponse(saved);
 	}
 
 	@Override
 	public SolicitudResponse update(String id, SolicitudRequest request) {
-		Solicitud existente = obtenerPorId(id);
+		Solicitud existente = obtenerSinHistorial(id);
 		
 		// Solo permitir actualización si está en estado PENDIENTE o INFORMACION_ADICIONAL
 		if (existente.getEstado() != SolicitudEstado.PENDIENTE && 
@@ -91,17 +144,27 @@ public class SolicitudServiceImpl implements SolicitudService {
 			validarCuposDisponibles(request.getGrupoDestinoId());
 		}
 		
-		solicitudMapper.updateEntity(existente, request);
-		Instant now = Instant.now(clock);
-		existente.setFechaActualizacion(now);
-		agregarEvento(existente, "ACTUALIZADA", request.getObservaciones());
-		Solicitud guardada = solicitudRepository.save(existente);
+		Update cambios = new Update()
+				.set("tipo", request.getTipo())
+				.set("descripcion", request.getDescripcion())
+				.set("observaciones", request.getObservaciones())
+				.set("estudianteId", request.getEstudianteId())
+				.set("inscripcionOrigenId", request.getInscripcionOrigenId())
+				.set("grupoDestinoId", request.getGrupoDestinoId())
+				.set("materiaDestinoId", request.getMateriaDestinoId())
+				.set("periodoId", request.getPeriodoId())
+				.set("prioridad", request.getPrioridad())
+				.set("fechaActualizacion", Instant.now(clock));
+		Solicitud guardada = solicitudRepository.actualizar(id, List.of(existente.getEstado()), cambios,
+				nuevoEvento("ACTUALIZADA", request.getObservaciones()), maxHistorial)
+				.orElseThrow(() -> modificadaConcurrentemente(id));
+		contadorSolicitudes.registrar(existente, guardada);
 		return solicitudMapper.toResponse(guardada);
 	}
 
 	@Override
 	public SolicitudResponse changeEstado(String id, SolicitudEstado nuevoEstado, String observaciones) {
-		Solicitud solicitud = obtenerPorId(id);
+		Solicitud solicitud = obtenerSinHistorial(id);
 		if (solicitud.getEstado() == nuevoEstado) {
 			throw new BusinessException("La solicitud ya se encuentra en estado " + nuevoEstado);
 		}
@@ -112,80 +175,296 @@ public class SolicitudServiceImpl implements SolicitudService {
 		}
 		
 		SolicitudEstado estadoAnterior = solicitud.getEstado();
-		solicitud.setEstado(nuevoEstado);
-		solicitud.setFechaActualizacion(Instant.now(clock));
 		
 		// Si se aprueba, actualizar cupos
+		boolean cupoReservado = false;
 		if (nuevoEstado == SolicitudEstado.APROBADA && solicitud.getGrupoDestinoId() != null) {
 			actualizarCupos(solicitud);
+			cupoReservado = true;
 		}
 		
-		agregarEvento(solicitud, "ESTADO:" + nuevoEstado.name(), 
+		// $set del estado y $push del evento, solo si nadie cambió el estado mientras tanto
+		Update cambios = new Update()
+				.set("estado", nuevoEstado)
+				.set("fechaActualizacion", Instant.now(clock));
+		if (!ColaRevisionService.ESTADOS_EN_COLA.contains(nuevoEstado)) {
+			cambios.unset("revisorAsignado").unset("asignacionVence");
+		}
+		SolicitudHistorialEntry evento = nuevoEvento("ESTADO:" + nuevoEstado.name(),
 				observaciones + " (Estado anterior: " + estadoAnterior + ")");
-		Solicitud guardada = solicitudRepository.save(solicitud);
+		Solicitud guardada;
+		try {
+			guardada = solicitudRepository.actualizar(id, List.of(estadoAnterior), cambios, evento,
+					maxHistorial).orElseThrow(() -> modificadaConcurrentemente(id));
+			contadorSolicitudes.registrar(solicitud, guardada);
+		} catch (RuntimeException ex) {
+			// Sin transacción entre colecciones: devolver el cupo si la solicitud no quedó aprobada
+			if (cupoReservado) {
+				devolverCupo(solicitud.getGrupoDestinoId());
+			}
+			throw ex;
+		}
+		if (nuevoEstado == SolicitudEstado.APROBADA) {
+			liberarInscripcionesOrigen(List.of(guardada));
+			conflictDetectionService.detectar(guardada);
+		}
 		return solicitudMapper.toResponse(guardada);
 	}
 
+	@Override
+	public SolicitudEstadoBulkResponse changeEstadoBulk(List<String> ids, SolicitudEstado nuevoEstado,
+			String observaciones) {
+		Map<String, Solicitud> encontradas = new HashMap<>();
+		solicitudRepository.buscarSinHistorial(new LinkedHashSet<>(ids))
+				.forEach(solicitud -> encontradas.put(solicitud.getId(), solicitud));
+		if (nuevoEstado == SolicitudEstado.APROBADA) {
+			validarPeriodoActivo();
+		}
+
+		Map<String, SolicitudEstadoBulkResponse.Item> resultados = new HashMap<>();
+		List<Solicitud> candidatas = new ArrayList<>();
+		for (String id : new LinkedHashSet<>(ids)) {
+			Solicitud solicitud = encontradas.get(id);
+			if (solicitud == null) {
+				resultados.put(id, item(id, SolicitudEstadoBulkResponse.Resultado.NO_ENCONTRADA,
+						"Solicitud no encontrada"));
+			} else if (solicitud.getEstado() == nuevoEstado) {
+				resultados.put(id, item(id, SolicitudEstadoBulkResponse.Resultado.SIN_CAMBIO,
+						"La solicitud ya se encuentra en estado " + nuevoEstado));
+			} else {
+				candidatas.add(solicitud);
+			}
+		}
+
+		// Al aprobar, reservar los cupos una vez por grupo destino
+		Map<String, Integer> reservas = new LinkedHashMap<>();
+		if (nuevoEstado == SolicitudEstado.APROBADA) {
+			candidatas = reservarPorGrupo(candidatas, reservas, resultados);
+		}
+
+		Instant now = Instant.now(clock);
+		List<CambioEstado> cambios = candidatas.stream()
+				.map(solicitud -> new CambioEstado(solicitud.getId(), solicitud.getEstado(), nuevoEstado, now,
+						nuevoEvento("ESTADO:" + nuevoEstado.name(),
+								observaciones + " (Estado anterior: " + solicitud.getEstado() + ")"),
+						!ColaRevisionService.ESTADOS_EN_COLA.contains(nuevoEstado)))
+				.toList();
+		Set<String> aplicadas;
+		try {
+			aplicadas = solicitudRepository.aplicarCambiosEstado(cambios, maxHistorial);
+		} catch (RuntimeException ex) {
+			reservas.forEach(this::devolverCupos);
+			throw ex;
+		}
+
+		Map<String, Integer> sinUsar = new HashMap<>();
+		List<Solicitud> aprobadas = new ArrayList<>();
+		for (Solicitud solicitud : candidatas) {
+			if (aplicadas.contains(solicitud.getId())) {
+				contadorSolicitudes.cambiarEstado(solicitud.getPeriodoId(), solicitud.getTipo(), solicitud.getEstado(),
+						nuevoEstado);
+				resultados.put(solicitud.getId(), item(solicitud.getId(),
+						SolicitudEstadoBulkResponse.Resultado.APLICADA, null));
+				if (nuevoEstado == SolicitudEstado.APROBADA) {
+					solicitud.setEstado(nuevoEstado);
+					aprobadas.add(solicitud);
+				}
+				continue;
+			}
+			resultados.put(solicitud.getId(), item(solicitud.getId(), SolicitudEstadoBulkResponse.Resultado.CONFLICTO,
+					"La solicitud cambió de estado mientras se procesaba el lote"));
+			if (reservas.containsKey(solicitud.getGrupoDestinoId())) {
+				sinUsar.merge(solicitud.getGrupoDestinoId(), 1, Integer::sum);
+			}
+		}
+		sinUsar.forEach(this::devolverCupos);
+		if (!aprobadas.isEmpty()) {
+			liberarInscripcionesOrigen(aprobadas);
+			conflictDetectionService.detectar(aprobadas);
+		}
+		return reporte(ids, nuevoEstado, resultados);
+	}
+
+	private List<Solicitud> reservarPorGrupo(List<Solicitud> candidatas, Map<String, Integer> reservas,
+			Map<String, SolicitudEstadoBulkResponse.Item> resultados) {
+		Map<String, List<Solicitud>> porGrupo = new LinkedHashMap<>();
+		List<Solicitud> conCupo = new ArrayList<>();
+		for (Solicitud solicitud : candidatas) {
+			if (solicitud.getGrupoDestinoId() == null) {
+				conCupo.add(solicitud);
+			} else {
+				porGrupo.computeIfAbsent(solicitud.getGrupoDestinoId(), grupoId -> new ArrayList<>()).add(solicitud);
+			}
+		}
+		porGrupo.forEach((grupoId, solicitudes) -> {
+			int reservados = reservarCupos(grupoId, solicitudes.size());
+			if (reservados > 0) {
+				reservas.put(grupoId, reservados);
+			}
+			// Los cupos se asignan en el orden del lote
+			conCupo.addAll(solicitudes.subList(0, reservados));
+			String mensaje = reservados == 0 && !grupoRepository.existsById(grupoId)
+					? "Grupo destino no encontrado"
+					: "No se pudo asignar cupo en el grupo destino";
+			solicitudes.subList(reservados, solicitudes.size()).forEach(solicitud -> resultados.put(
+					solicitud.getId(), item(solicitud.getId(), SolicitudEstadoBulkResponse.Resultado.SIN_CUPO, mensaje)));
+		});
+		return conCupo;
+	}
+
+	private static SolicitudEstadoBulkResponse reporte(List<String> ids, SolicitudEstado nuevoEstado,
+			Map<String, SolicitudEstadoBulkResponse.Item> resultados) {
+		List<SolicitudEstadoBulkResponse.Item> items = new ArrayList<>(ids.size());
+		Set<String> vistos = new HashSet<>();
+		int aplicadas = 0;
+		for (String id : ids) {
+			SolicitudEstadoBulkResponse.Item item = vistos.add(id)
+					? resultados.get(id)
+					: item(id, SolicitudEstadoBulkResponse.Resultado.DUPLICADA, "ID repetido en el lote");
+			if (item.getResultado() == SolicitudEstadoBulkResponse.Resultado.APLICADA) {
+				aplicadas++;
+			}
+			items.add(item);
+		}
+		return SolicitudEstadoBulkResponse.builder()
+				.estado(nuevoEstado)
+				.total(ids.size())
+				.aplicadas(aplicadas)
+				.rechazadas(ids.size() - aplicadas)
+				.items(items)
+				.build();
+	}
+
+	private static SolicitudEstadoBulkResponse.Item item(String id, SolicitudEstadoBulkResponse.Resultado resultado,
+			String mensaje) {
+		return SolicitudEstadoBulkResponse.Item.builder()
+				.id(id)
+				.resultado(resultado)
+				.mensaje(mensaje)
+				.build();
+	}
+
 	@Override
 	@Transactional(readOnly = true)
 	public SolicitudResponse findById(String id) {
 		return solicitudMapper.toResponse(obtenerPorId(id));
 	}
 
+	@Override
+	@Transactional(readOnly = true)
+	public List<SolicitudHistorialEntry> findHistorial(String id) {
+		if (obtenerSinHistorial(id).isHistorialArchivado()) {
+			return solicitudHistorialRepository.findBySolicitudIdOrderByFechaAsc(id).stream()
+					.map(SolicitudHistorial::toEntry)
+					.toList();
+		}
+		// Historial aún sin archivar: el embebido no se ha acotado y está completo
+		List<SolicitudHistorialEntry> embebido = obtenerPorId(id).getHistorial();
+		return embebido != null ? embebido : List.of();
+	}
+
 	@Override
 	public void delete(String id) {
-		Solicitud solicitud = obtenerPorId(id);
+		Solicitud solicitud = obtenerSinHistorial(id);
 		// Solo permitir eliminar si está en estado PENDIENTE
 		if (solicitud.getEstado() != SolicitudEstado.PENDIENTE) {
 			throw new BusinessException("Solo se pueden eliminar solicitudes en estado PENDIENTE");
 		}
 		solicitudRepository.delete(solicitud);
+		contadorSolicitudes.registrar(solicitud, null);
 	}
 
 	@Override
 	@Transactional(readOnly = true)
-	public List<SolicitudResponse> findAll() {
-		return solicitudRepository.findAll().stream()
-				.map(solicitudMapper::toResponse)
-				.toList();
+	public CursorPage<SolicitudResponse> findAll(String cursor, Integer size) {
+		return paginar(new Criteria(), SolicitudKeyset.Orden.RECIENTES, cursor, size);
 	}
 
 	@Override
 	@Transactional(readOnly = true)
-	public List<SolicitudResponse> findByEstudiante(String estudianteId) {
-		return solicitudRepository.findByEstudianteIdOrderByFechaSolicitudDesc(estudianteId).stream()
-				.map(solicitudMapper::toResponse)
-				.toList();
+	public CursorPage<SolicitudResponse> findByEstudiante(String estudianteId, String cursor, Integer size) {
+		return paginar(Criteria.where("estudianteId").is(estudianteId), SolicitudKeyset.Orden.RECIENTES, cursor, size);
 	}
 
 	@Override
 	@Transactional(readOnly = true)
-	public List<SolicitudResponse> findByEstados(List<SolicitudEstado> estados) {
+	public CursorPage<SolicitudResponse> findByEstados(List<SolicitudEstado> estados, String cursor, Integer size) {
 		List<SolicitudEstado> estadosValidos = estados == null || estados.isEmpty() ?
 				List.of(SolicitudEstado.values()) : estados;
-		return solicitudRepository.findByEstadoInOrderByPrioridadAsc(estadosValidos).stream()
-				.map(solicitudMapper::toResponse)
-				.toList();
+		return paginar(Criteria.where("estado").in(estadosValidos), SolicitudKeyset.Orden.PRIORIDAD, cursor, size);
 	}
 
 	@Override
 	@Transactional(readOnly = true)
-	public long countByEstado(SolicitudEstado estado) {
-		return solicitudRepository.countByEstado(estado);
+	public long countByEstado(SolicitudEstado estado, String periodoId) {
+		return contadorSolicitudes.contar(estado, periodoId);
 	}
 
 	@Override
 	@Transactional(readOnly = true)
-	public List<SolicitudResponse> findByPeriodoAndRango(String periodoId, Instant inicio, Instant fin) {
+	public Map<SolicitudEstado, Long> countByEstados(String periodoId) {
+		return contadorSolicitudes.resumen(periodoId);
+	}
+
+	@Override
+	public Map<SolicitudEstado, Long> reconstruirConteos() {
+		contadorSolicitudes.reconstruir();
+		return contadorSolicitudes.resumen(null);
+	}
+
+	@Override
+	@Transactional(readOnly = true)
+	public CursorPage<SolicitudResponse> findByPeriodoAndRango(String periodoId, Instant inicio, Instant fin,
+			String cursor, Integer size) {
 		Instant fechaInicio = inicio != null ? inicio : Instant.now(clock).minus(30, ChronoUnit.DAYS);
 		Instant fechaFin = fin != null ? fin : Instant.now(clock);
-		return solicitudRepository.findByPeriodoIdAndFechaSolicitudBetween(periodoId, fechaInicio, fechaFin).stream()
-				.map(solicitudMapper::toResponse)
-				.toList();
+		Criteria filtro = Criteria.where("periodoId").is(periodoId)
+				.and("fechaSolicitud").gte(fechaInicio).lte(fechaFin);
+		return paginar(filtro, SolicitudKeyset.Orden.RECIENTES, cursor, size);
 	}
 
-	private void validarPeriodoActivo() {
-		Periodo periodoActivo = periodoRepository.findByActivoTrue()
+	private CursorPage<SolicitudResponse> paginar(Criteria filtro, SolicitudKeyset.Orden orden, String cursor,
+			Integer size) {
+		SolicitudKeyset despuesDe = SolicitudKeyset.decodificar(cursor, orden);
+		int limite = size == null ? tamanoPagina : Math.max(1, Math.min(size, tamanoPaginaMax));
+		// Se pide un elemento extra solo para saber si existe una página siguiente
+		List<Solicitud> solicitudes = solicitudRepository.buscarPagina(filtro, orden, despuesDe, limite + 1);
+		boolean hasMore = solicitudes.size() > limite;
+		List<Solicitud> pagina = hasMore ? solicitudes.subList(0, limite) : solicitudes;
+		return CursorPage.<SolicitudResponse>builder()
+				.items(pagina.stream().map(solicitudMapper::toResponse).toList())
+				.hasMore(hasMore)
+				.nextCursor(hasMore ? SolicitudKeyset.de(orden, pagina.get(limite - 1)).codificar() : null)
+				.build();
+	}
+
+	/**
+	 * Guarda una solicitud nueva con un código generado, reintentando con otro código
+	 * si el índice único de {@code codigoSolicitud} lo rechaza.
+	 * 
+	 * <p>Dos réplicas cuyos identificadores comparten etiqueta de nodo pueden emitir el
+	 * mismo código en el mismo segundo; cada reintento avanza el consecutivo de este nodo.</p>
+	 * 
+	 * @param solicitud Solicitud sin persistir
+	 * @param now Instante de creación
+	 * @return Solicitud persistida
+	 * @throws ConflictException si tras {@value #MAX_INTENTOS_CODIGO} intentos el código sigue duplicado
+	 */
+	private Solicitud guardarConCodigoUnico(Solicitud solicitud, Instant now) {
+		for (int intento = 1; ; intento++) {
+			solicitud.setCodigoSolicitud(codigoSolicitudGenerator.siguiente(now));
+			try {
+				return solicitudRepository.save(solicitud);
+			} catch (DuplicateKeyException ex) {
+				if (intento >= MAX_INTENTOS_CODIGO) {
+					throw new ConflictException("No fue posible asignar un código único a la solicitud", ex);
+				}
+			}
+		}
+	}
+
+	private Periodo validarPeriodoActivo() {
+		Periodo periodoActivo = periodoActivoHolder.actual()
 				.orElseThrow(() -> new BusinessException("No hay un período académico activo para crear solicitudes"));
 		
 		Instant now = Instant.now(clock);
@@ -193,9 +472,14 @@ public class SolicitudServiceImpl implements SolicitudService {
 			throw new BusinessException("El período de solicitudes ha cerrado. Fecha límite: " + 
 					periodoActivo.getFechaLimiteSolicitudes());
 		}
+		return periodoActivo;
 	}
 
 	private void validarCuposDisponibles(String grupoId) {
+		// Con el libro de cupos activo, el caso común (hay cupo) se resuelve en memoria
+		if (seatLedger != null && seatLedger.consultar(grupoId) == SeatLedger.Resultado.DISPONIBLE) {
+			return;
+		}
 		Grupo grupo = grupoRepository.findById(grupoId)
 				.orElseThrow(() -> new ResourceNotFoundException("Grupo no encontrado con id " + grupoId));
 		
@@ -215,21 +499,94 @@ public class SolicitudServiceImpl implements SolicitudService {
 	}
 
 	private void actualizarCupos(Solicitud solicitud) {
-		// Decrementar cupo del grupo origen si existe
-		if (solicitud.getInscripcionOrigenId() != null) {
-			// Aquí implementarías la lógica para encontrar el grupo origen y decrementar
-		}
+		// El cupo del grupo origen se libera cuando la aprobación ya quedó guardada
+		// (liberarInscripcionesOrigen), para no tener que recuperarlo si falla
 		
-		// Incrementar cupo del grupo destino
+		// Ocupar cupo del grupo destino con un $inc condicional (sin leer y reescribir el grupo)
 		if (solicitud.getGrupoDestinoId() != null) {
-			Grupo grupoDestino = grupoRepository.findById(solicitud.getGrupoDestinoId())
-					.orElseThrow(() -> new ResourceNotFoundException("Grupo destino no encontrado"));
-			
-			if (!grupoDestino.incrementarCupo()) {
+			String grupoId = solicitud.getGrupoDestinoId();
+			SeatLedger.Resultado enLibro = seatLedger != null
+					? seatLedger.reservar(grupoId)
+					: SeatLedger.Resultado.DESCONOCIDO;
+			if (enLibro == SeatLedger.Resultado.LLENO) {
+				throw new BusinessException("No se pudo asignar cupo en el grupo destino");
+			}
+			if (enLibro == SeatLedger.Resultado.DESCONOCIDO && grupoRepository.reservarCupo(grupoId).isEmpty()) {
+				if (!grupoRepository.existsById(grupoId)) {
+					throw new ResourceNotFoundException("Grupo destino no encontrado");
+				}
 				throw new BusinessException("No se pudo asignar cupo en el grupo destino");
 			}
-			
-			grupoRepository.save(grupoDestino);
+		}
+	}
+
+	private void devolverCupo(String grupoId) {
+		if (seatLedger == null || !seatLedger.liberar(grupoId)) {
+			grupoRepository.liberarCupo(grupoId);
+		}
+	}
+
+	private int reservarCupos(String grupoId, int cantidad) {
+		if (seatLedger != null) {
+			int reservados = 0;
+			while (reservados < cantidad) {
+				SeatLedger.Resultado resultado = seatLedger.reservar(grupoId);
+				if (resultado == SeatLedger.Resultado.LLENO) {
+					return reservados;
+				}
+				if (resultado == SeatLedger.Resultado.DESCONOCIDO) {
+					// El libro dejó de conocer el grupo: el resto se reserva en MongoDB
+					return reservados + grupoRepository.reservarCupos(grupoId, cantidad - reservados);
+				}
+				reservados++;
+			}
+			return reservados;
+		}
+		return grupoRepository.reservarCupos(grupoId, cantidad);
+	}
+
+	/**
+	 * Devuelve al grupo cupos reservados que no llegaron a usarse (aprobaciones que no
+	 * se guardaron). No pasan por la lista de espera: nadie los ocupó.
+	 */
+	private void devolverCupos(String grupoId, int cantidad) {
+		if (seatLedger != null && seatLedger.liberar(grupoId)) {
+			for (int i = 1; i < cantidad; i++) {
+				seatLedger.liberar(grupoId);
+			}
+			return;
+		}
+		grupoRepository.liberarCupos(grupoId, cantidad);
+	}
+
+	/**
+	 * Cancela las inscripciones de origen de solicitudes ya aprobadas y libera sus
+	 * cupos. Cada cupo liberado pasa primero a la cabeza de la lista de espera del
+	 * grupo; los que nadie reciba vuelven al grupo.
+	 * 
+	 * <p>La aprobación ya está guardada, así que un fallo aquí se registra sin revertirla.</p>
+	 */
+	private void liberarInscripcionesOrigen(List<Solicitud> aprobadas) {
+		Map<String, String> solicitudPorInscripcion = new HashMap<>();
+		for (Solicitud solicitud : aprobadas) {
+			if (solicitud.getInscripcionOrigenId() != null) {
+				solicitudPorInscripcion.put(solicitud.getInscripcionOrigenId(), solicitud.getId());
+			}
+		}
+		if (solicitudPorInscripcion.isEmpty()) {
+			return;
+		}
+		try {
+			inscripcionRepository.cancelarReemplazadas(solicitudPorInscripcion, Instant.now(clock))
+					.forEach((grupoId, cantidad) -> {
+						int restantes = cantidad - listaEsperaService.promover(grupoId, cantidad).size();
+						if (restantes > 0) {
+							devolverCupos(grupoId, restantes);
+						}
+					});
+		} catch (DataAccessException ex) {
+			log.error("No fue posible liberar los cupos de origen de las inscripciones {}: {}",
+					solicitudPorInscripcion.keySet(), ex.getMessage());
 		}
 	}
 
@@ -238,25 +595,32 @@ public class SolicitudServiceImpl implements SolicitudService {
 				.orElseThrow(() -> new ResourceNotFoundException("Solicitud no encontrada con id " + id));
 	}
 
+	private Solicitud obtenerSinHistorial(String id) {
+		return solicitudRepository.buscarSinHistorial(List.of(id)).stream()
+				.findFirst()
+				.orElseThrow(() -> new ResourceNotFoundException("Solicitud no encontrada con id " + id));
+	}
+
+	private static ConflictException modificadaConcurrentemente(String id) {
+		return new ConflictException("La solicitud " + id + " fue modificada por otra operación; intente nuevamente");
+	}
+
 	private void agregarEvento(Solicitud solicitud, String accion, String observaciones) {
 		List<SolicitudHistorialEntry> historial = solicitud.getHistorial();
 		if (historial == null) {
 			historial = new ArrayList<>();
 			solicitud.setHistorial(historial);
 		}
+		historial.add(nuevoEvento(accion, observaciones));
+	}
+
+	private SolicitudHistorialEntry nuevoEvento(String accion, String observaciones) {
 		String comentario = StringUtils.hasText(observaciones) ? observaciones : null;
-		SolicitudHistorialEntry entry = SolicitudHistorialEntry.builder()
+		return SolicitudHistorialEntry.builder()
 				.fecha(Instant.now(clock))
 				.accion(accion)
 				.usuarioId(null) // TODO: Obtener del contexto de seguridad
 				.comentario(comentario)
 				.build();
-		historial.add(entry);
-	}
-
-	private String generarCodigo(Instant timestamp) {
-		String timePart = CODIGO_FORMATTER.format(timestamp);
-		String randomPart = UUID.randomUUID().toString().substring(0, 8).toUpperCase(Locale.ROOT);
-		return "SOL-" + timePart + "-" + randomPart;
 	}
 }
\ No newline at end of file
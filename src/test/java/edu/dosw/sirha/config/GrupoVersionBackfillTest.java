@@ -0,0 +1,62 @@
+package edu.dosw.sirha.config;
+
+import com.mongodb.client.result.UpdateResult;
+import edu.dosw.sirha.model.Grupo;
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Pruebas unitarias para {@link GrupoVersionBackfill}.
+ *
+ * <p>Verifica que la versión inicial se asigne con un único {@code updateMulti} a los
+ * grupos sin versión y que un fallo de MongoDB no impida el arranque.</p>
+ */
+@ExtendWith(MockitoExtension.class)
+class GrupoVersionBackfillTest {
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @InjectMocks
+    private GrupoVersionBackfill backfill;
+
+    @Test
+    void runShouldSetInitialVersionOnGroupsWithoutIt() {
+        when(mongoTemplate.updateMulti(any(Query.class), any(Update.class), eq(Grupo.class)))
+                .thenReturn(UpdateResult.acknowledged(3, 3L, null));
+
+        backfill.run();
+
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate).updateMulti(query.capture(), update.capture(), eq(Grupo.class));
+        assertThat(query.getValue().getQueryObject())
+                .isEqualTo(new Document("version", new Document("$exists", false)));
+        assertThat(update.getValue().getUpdateObject())
+                .isEqualTo(new Document("$set", new Document("version", 0L)));
+    }
+
+    @Test
+    void runShouldNotFailStartupWhenMongoIsUnavailable() {
+        when(mongoTemplate.updateMulti(any(Query.class), any(Update.class), eq(Grupo.class)))
+                .thenThrow(new DataAccessResourceFailureException("sin conexión"));
+
+        assertThatCode(() -> backfill.run()).doesNotThrowAnyException();
+    }
+}
@@ -3,6 +3,7 @@ package edu.dosw.sirha.config;
 import edu.dosw.sirha.model.User;
 import edu.dosw.sirha.model.enums.Rol;
 import edu.dosw.sirha.repository.UserRepository;
+import edu.dosw.sirha.security.CachingUserDetailsService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -47,13 +48,16 @@ class InitialAdminLoaderTest {
     @Mock
     private PasswordEncoder passwordEncoder;
 
+    @Mock
+    private CachingUserDetailsService userDetailsService;
+
     private Clock clock;
     private InitialAdminLoader initialAdminLoader;
 
     @BeforeEach
     void setUp() {
         clock = Clock.fixed(FIXED_NOW, ZoneOffset.UTC);
-        initialAdminLoader = new InitialAdminLoader(userRepository, passwordEncoder, clock);
+        initialAdminLoader = new InitialAdminLoader(userRepository, passwordEncoder, userDetailsService, clock);
     }
 
     @Test
@@ -73,6 +77,7 @@ class InitialAdminLoaderTest {
         // Assert
         verify(userRepository).existsByRol(Rol.ADMIN);
         verify(passwordEncoder).encode(TEST_ADMIN_PASSWORD);
+        verify(userDetailsService).invalidate(TEST_ADMIN_EMAIL.toLowerCase());
         verify(userRepository).save(argThat(user ->
                 user.getEmail().equals(TEST_ADMIN_EMAIL.toLowerCase()) &&
                 user.getNombre().equals(TEST_ADMIN_NAME) &&
@@ -3,8 +3,14 @@ package edu.dosw.sirha.controller;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import edu.dosw.sirha.dto.auth.AuthRequest;
 import edu.dosw.sirha.dto.auth.AuthResponse;
+import edu.dosw.sirha.dto.auth.RefreshTokenRequest;
 import edu.dosw.sirha.exception.BusinessException;
+import edu.dosw.sirha.exception.TooManyRequestsException;
 import edu.dosw.sirha.security.JwtTokenService;
+import edu.dosw.sirha.security.LoginThrottle;
+import edu.dosw.sirha.security.TokenRevocationService;
+import edu.dosw.sirha.security.UserSessionRegistry;
+import edu.dosw.sirha.security.VerifiedToken;
 import edu.dosw.sirha.service.AuthService;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -12,6 +18,7 @@ import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMock
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
+import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.test.web.servlet.MockMvc;
 
 import java.time.Instant;
@@ -19,8 +26,12 @@ import java.time.Instant;
 import static org.hamcrest.Matchers.isEmptyOrNullString;
 import static org.hamcrest.Matchers.not;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -55,6 +66,8 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 class AuthControllerTest {
 
     private static final String LOGIN_URL = "/api/auth/login";
+    private static final String REFRESH_URL = "/api/auth/refresh";
+    private static final String LOGOUT_URL = "/api/auth/logout";
     private static final String ADMIN_EMAIL = "admin@test.com";
     private static final String DEFAULT_PASSWORD = "password";
     private static final String INACTIVE_EMAIL = "inactive@test.com";
@@ -73,6 +86,15 @@ class AuthControllerTest {
     @MockBean
     private JwtTokenService jwtTokenService;
 
+    @MockBean
+    private UserSessionRegistry userSessionRegistry;
+
+    @MockBean
+    private TokenRevocationService tokenRevocationService;
+
+    @MockBean
+    private LoginThrottle loginThrottle;
+
     @Test
     void loginShouldReturnToken() throws Exception {
         // Arrange
@@ -135,4 +157,85 @@ class AuthControllerTest {
                 .andExpect(status().isBadRequest())
                 .andExpect(jsonPath("$.message").value("No fue posible autenticar al usuario"));
     }
+
+    @Test
+    void refreshShouldReturnNewTokens() throws Exception {
+        // Arrange
+        AuthResponse expectedResponse = new AuthResponse(
+                TEST_TOKEN,
+                FIXED_NOW.plusSeconds(3600),
+                new AuthResponse.UserInfo("user-1", "Admin Test", ADMIN_EMAIL, "ADMIN"),
+                "nuevo-refresh-token"
+        );
+        when(authService.refresh(any(RefreshTokenRequest.class))).thenReturn(expectedResponse);
+
+        // Act & Assert
+        mockMvc.perform(post(REFRESH_URL)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new RefreshTokenRequest("refresh-token"))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.token").value(TEST_TOKEN))
+                .andExpect(jsonPath("$.refreshToken").value("nuevo-refresh-token"));
+    }
+
+    @Test
+    void refreshShouldReturnUnauthorizedWhenTokenReused() throws Exception {
+        // Arrange
+        when(authService.refresh(any(RefreshTokenRequest.class)))
+                .thenThrow(new BadCredentialsException("Refresh token inválido"));
+
+        // Act & Assert
+        mockMvc.perform(post(REFRESH_URL)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new RefreshTokenRequest("usado"))))
+                .andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    void logoutShouldRevokeTokenAndRefreshToken() throws Exception {
+        // Arrange
+        when(jwtTokenService.verify(TEST_TOKEN)).thenReturn(new VerifiedToken(
+                "jti-1", ADMIN_EMAIL, FIXED_NOW, FIXED_NOW.plusSeconds(3600), null, "user-1", "ADMIN", 0));
+
+        // Act & Assert
+        mockMvc.perform(post(LOGOUT_URL)
+                        .header("Authorization", "Bearer " + TEST_TOKEN)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new RefreshTokenRequest("refresh-token"))))
+                .andExpect(status().isNoContent());
+
+        verify(authService).logout(TEST_TOKEN, "refresh-token");
+    }
+
+    @Test
+    void logoutShouldSucceedWithoutTokenOrBody() throws Exception {
+        // Act & Assert
+        mockMvc.perform(post(LOGOUT_URL))
+                .andExpect(status().isNoContent());
+
+        verify(authService).logout(null, null);
+    }
+
+    @Test
+    void refreshShouldReturnBadRequestWhenTokenMissing() throws Exception {
+        mockMvc.perform(post(REFRESH_URL)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{}"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void loginShouldReturnTooManyRequestsWithoutAuthenticatingWhenThrottled() throws Exception {
+        // Arrange
+        doThrow(new TooManyRequestsException("Demasiados intentos fallidos", 120))
+                .when(loginThrottle).checkAllowed(any(LoginThrottle.Attempt.class));
+
+        // Act & Assert
+        mockMvc.perform(post(LOGIN_URL)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new AuthRequest(ADMIN_EMAIL, DEFAULT_PASSWORD))))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().string("Retry-After", "120"));
+        verify(authService, never()).login(any(AuthRequest.class));
+    }
 }
@@ -6,6 +6,8 @@ import edu.dosw.sirha.dto.response.FacultadResponse;
 import edu.dosw.sirha.exception.BusinessException;
 import edu.dosw.sirha.exception.ResourceNotFoundException;
 import edu.dosw.sirha.security.JwtTokenService;
+import edu.dosw.sirha.security.TokenRevocationService;
+import edu.dosw.sirha.security.UserSessionRegistry;
 import edu.dosw.sirha.service.FacultadService;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -47,6 +49,12 @@ class FacultadControllerTest {
     @MockBean
     private JwtTokenService jwtTokenService;
 
+    @MockBean
+    private UserSessionRegistry userSessionRegistry;
+
+    @MockBean
+    private TokenRevocationService tokenRevocationService;
+
     @Test
     @WithMockUser
     void getAll_shouldReturnAllFacultades() throws Exception {
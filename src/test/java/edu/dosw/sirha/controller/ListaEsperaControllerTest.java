@@ -0,0 +1,141 @@
+package edu.dosw.sirha.controller;
+
+import edu.dosw.sirha.dto.response.ListaEsperaResponse;
+import edu.dosw.sirha.exception.ResourceNotFoundException;
+import edu.dosw.sirha.model.User;
+import edu.dosw.sirha.model.enums.Rol;
+import edu.dosw.sirha.security.JwtAuthFilter;
+import edu.dosw.sirha.security.SecurityConfig;
+import edu.dosw.sirha.security.UserPrincipal;
+import edu.dosw.sirha.service.ListaEsperaService;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.FilterType;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.test.context.TestSecurityContextHolder;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.Instant;
+
+import static org.hamcrest.Matchers.is;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Pruebas de integración para {@link ListaEsperaController}.
+ * 
+ * <p>Verifica los códigos de estado y el cuerpo de los endpoints de la lista de espera,
+ * con {@link ListaEsperaService} simulado, y que solo el propio estudiante o un
+ * ADMIN/COORDINADOR operen sobre cada entrada.</p>
+ */
+@WebMvcTest(controllers = ListaEsperaController.class,
+    excludeFilters = {
+        @ComponentScan.Filter(type = FilterType.ASSIGNABLE_TYPE, classes = SecurityConfig.class),
+        @ComponentScan.Filter(type = FilterType.ASSIGNABLE_TYPE, classes = JwtAuthFilter.class)
+    })
+@AutoConfigureMockMvc(addFilters = false)
+@Import(ListaEsperaControllerTest.SeguridadMetodos.class)
+class ListaEsperaControllerTest {
+
+    @TestConfiguration
+    @EnableMethodSecurity
+    static class SeguridadMetodos {
+    }
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private ListaEsperaService listaEsperaService;
+
+    @Test
+    void agregarShouldReturnCreatedWithPlace() throws Exception {
+        when(listaEsperaService.agregar("grp-1", "est-1")).thenReturn(ListaEsperaResponse.builder()
+            .grupoId("grp-1")
+            .estudianteId("est-1")
+            .posicion(4)
+            .fechaIngreso(Instant.parse("2024-01-10T12:00:00Z"))
+            .build());
+
+        TestSecurityContextHolder.setAuthentication(estudiante("est-1"));
+
+        mockMvc.perform(post("/api/grupos/{grupoId}/lista-espera/{estudianteId}", "grp-1", "est-1"))
+            .andExpect(status().isCreated())
+            .andExpect(jsonPath("$.posicion", is(4)));
+    }
+
+    @Test
+    void consultarShouldReturnNotFoundWhenStudentIsNotWaiting() throws Exception {
+        when(listaEsperaService.consultar("grp-1", "est-1"))
+            .thenThrow(new ResourceNotFoundException("El estudiante est-1 no está en la lista de espera del grupo grp-1"));
+
+        TestSecurityContextHolder.setAuthentication(estudiante("est-1"));
+
+        mockMvc.perform(get("/api/grupos/{grupoId}/lista-espera/{estudianteId}", "grp-1", "est-1"))
+            .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void retirarShouldReturnNoContent() throws Exception {
+        TestSecurityContextHolder.setAuthentication(estudiante("est-1"));
+
+        mockMvc.perform(delete("/api/grupos/{grupoId}/lista-espera/{estudianteId}", "grp-1", "est-1"))
+            .andExpect(status().isNoContent());
+
+        Mockito.verify(listaEsperaService).retirar("grp-1", "est-1");
+    }
+
+    @Test
+    void agregarShouldReturnForbiddenForAnotherStudent() throws Exception {
+        TestSecurityContextHolder.setAuthentication(estudiante("est-2"));
+
+        mockMvc.perform(post("/api/grupos/{grupoId}/lista-espera/{estudianteId}", "grp-1", "est-1"))
+            .andExpect(status().isForbidden())
+            .andExpect(jsonPath("$.errorCode", is("SIRHA-403-001")));
+
+        Mockito.verifyNoInteractions(listaEsperaService);
+    }
+
+    @Test
+    void retirarShouldReturnForbiddenForAnotherStudent() throws Exception {
+        TestSecurityContextHolder.setAuthentication(estudiante("est-2"));
+
+        mockMvc.perform(delete("/api/grupos/{grupoId}/lista-espera/{estudianteId}", "grp-1", "est-1"))
+            .andExpect(status().isForbidden());
+
+        Mockito.verifyNoInteractions(listaEsperaService);
+    }
+
+    @Test
+    @WithMockUser(roles = "COORDINADOR")
+    void retirarShouldAllowCoordinator() throws Exception {
+        mockMvc.perform(delete("/api/grupos/{grupoId}/lista-espera/{estudianteId}", "grp-1", "est-1"))
+            .andExpect(status().isNoContent());
+
+        Mockito.verify(listaEsperaService).retirar("grp-1", "est-1");
+    }
+
+    private static Authentication estudiante(String id) {
+        UserPrincipal principal = new UserPrincipal(User.builder()
+            .id(id)
+            .email(id + "@mail.escuelaing.edu.co")
+            .rol(Rol.ESTUDIANTE)
+            .activo(true)
+            .build());
+        return new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities());
+    }
+}
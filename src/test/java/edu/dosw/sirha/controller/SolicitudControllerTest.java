@@ -2,12 +2,21 @@ package edu.dosw.sirha.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import edu.dosw.sirha.dto.request.SolicitudRequest;
+import edu.dosw.sirha.dto.response.CursorPage;
+import edu.dosw.sirha.dto.response.SolicitudEstadoBulkResponse;
 import edu.dosw.sirha.dto.response.SolicitudResponse;
+import edu.dosw.sirha.exception.ConflictException;
+import edu.dosw.sirha.exception.ValidationException;
+import edu.dosw.sirha.model.SolicitudHistorialEntry;
 import edu.dosw.sirha.model.enums.SolicitudEstado;
 import edu.dosw.sirha.security.JwtAuthFilter;
 import edu.dosw.sirha.security.SecurityConfig;
+import edu.dosw.sirha.service.ColaRevisionService;
+import edu.dosw.sirha.service.IdempotencyService;
+import edu.dosw.sirha.service.SolicitudExportService;
 import edu.dosw.sirha.service.SolicitudService;
 import edu.dosw.sirha.support.TestDataFactory;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
 import org.mockito.ArgumentCaptor;
@@ -16,24 +25,36 @@ import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMock
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
+import org.springframework.security.authentication.TestingAuthenticationToken;
 import org.springframework.context.annotation.ComponentScan;
 import org.springframework.context.annotation.FilterType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
 import java.time.Instant;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Supplier;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.hamcrest.Matchers.is;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 /**
@@ -91,6 +112,21 @@ class SolicitudControllerTest {
     @MockBean
     private SolicitudService solicitudService;
 
+    @MockBean
+    private SolicitudExportService solicitudExportService;
+
+    @MockBean
+    private ColaRevisionService colaRevisionService;
+
+    @MockBean
+    private IdempotencyService idempotencyService;
+
+    @BeforeEach
+    void setUp() {
+        when(idempotencyService.ejecutar(any(), any(), any(), any(), any(), any()))
+            .thenAnswer(invocation -> invocation.getArgument(5, Supplier.class).get());
+    }
+
     @Test
     void createShouldReturnCreatedSolicitud() throws Exception {
         SolicitudRequest request = TestDataFactory.buildSolicitudRequest();
@@ -108,6 +144,37 @@ class SolicitudControllerTest {
         Mockito.verify(solicitudService).create(any(SolicitudRequest.class));
     }
 
+    @Test
+    void createShouldRunThroughIdempotencyKeyOfAuthenticatedUser() throws Exception {
+        SolicitudRequest request = TestDataFactory.buildSolicitudRequest();
+        when(solicitudService.create(any(SolicitudRequest.class))).thenReturn(TestDataFactory.buildSolicitudResponse());
+
+        mockMvc.perform(post("/api/solicitudes")
+                .principal(new TestingAuthenticationToken("est@test.edu", null))
+                .header("Idempotency-Key", "clave-1")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(request)))
+            .andExpect(status().isCreated())
+            .andExpect(jsonPath("$.id", is("sol-1")));
+
+        Mockito.verify(idempotencyService).ejecutar(eq("clave-1"), eq("crear-solicitud"), eq("est@test.edu"),
+            any(SolicitudRequest.class), eq(SolicitudResponse.class), any());
+    }
+
+    @Test
+    void changeEstadoShouldRejectIdempotencyKeyReusedWithOtherBody() throws Exception {
+        Mockito.doThrow(new ValidationException("Idempotency-Key ya se usó con una petición diferente"))
+            .when(idempotencyService).ejecutar(eq("clave-1"), eq("estado:sol-1"), any(), any(), any(), any());
+
+        mockMvc.perform(patch("/api/solicitudes/{id}/estado", "sol-1")
+                .header("Idempotency-Key", "clave-1")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(Map.of("estado", SolicitudEstado.APROBADA.name()))))
+            .andExpect(status().isUnprocessableEntity());
+
+        Mockito.verify(solicitudService, Mockito.never()).changeEstado(any(), any(), any());
+    }
+
     @Test
     void updateShouldReturnUpdatedSolicitud() throws Exception {
     SolicitudRequest request = TestDataFactory.buildSolicitudRequest();
@@ -159,6 +226,83 @@ class SolicitudControllerTest {
     assertThat(obsCaptor.getValue()).isEqualTo("Listo");
     }
 
+    @Test
+    void changeEstadoBulkShouldReturnPerItemOutcomes() throws Exception {
+    when(solicitudService.changeEstadoBulk(List.of("sol-1", "sol-2"), SolicitudEstado.RECHAZADA, "No cumple"))
+        .thenReturn(SolicitudEstadoBulkResponse.builder()
+            .estado(SolicitudEstado.RECHAZADA)
+            .total(2)
+            .aplicadas(1)
+            .rechazadas(1)
+            .items(List.of(
+                SolicitudEstadoBulkResponse.Item.builder().id("sol-1")
+                    .resultado(SolicitudEstadoBulkResponse.Resultado.APLICADA).build(),
+                SolicitudEstadoBulkResponse.Item.builder().id("sol-2")
+                    .resultado(SolicitudEstadoBulkResponse.Resultado.NO_ENCONTRADA)
+                    .mensaje("Solicitud no encontrada").build()))
+            .build());
+
+    mockMvc.perform(patch("/api/solicitudes/bulk/estado")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content(objectMapper.writeValueAsString(Map.of(
+                "ids", List.of("sol-1", "sol-2"),
+                "estado", "RECHAZADA",
+                "observaciones", "No cumple"))))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.aplicadas", is(1)))
+        .andExpect(jsonPath("$.items[1].resultado", is("NO_ENCONTRADA")));
+    }
+
+    @Test
+    void changeEstadoBulkShouldRejectEmptyIds() throws Exception {
+    mockMvc.perform(patch("/api/solicitudes/bulk/estado")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content(objectMapper.writeValueAsString(Map.of("ids", List.of(), "estado", "APROBADA"))))
+        .andExpect(status().is4xxClientError());
+    }
+
+    @Test
+    void findHistorialShouldReturnFullHistory() throws Exception {
+    when(solicitudService.findHistorial("sol-1")).thenReturn(List.of(
+        SolicitudHistorialEntry.builder().accion("CREADA").build(),
+        SolicitudHistorialEntry.builder().accion("ESTADO:APROBADA").build()));
+
+    mockMvc.perform(get("/api/solicitudes/{id}/historial", "sol-1"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.length()").value(2))
+        .andExpect(jsonPath("$[1].accion", is("ESTADO:APROBADA")));
+    }
+
+    @Test
+    void reclamarColaShouldAssignToAuthenticatedUser() throws Exception {
+    when(colaRevisionService.reclamar("coord@test.edu", 3))
+        .thenReturn(List.of(TestDataFactory.buildSolicitudResponse()));
+
+    mockMvc.perform(post("/api/solicitudes/cola/reclamar").param("cantidad", "3")
+            .principal(new TestingAuthenticationToken("coord@test.edu", null)))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.length()").value(1));
+    }
+
+    @Test
+    void renovarAsignacionShouldReturnConflictWhenLost() throws Exception {
+    when(colaRevisionService.renovar("sol-1", "coord@test.edu"))
+        .thenThrow(new ConflictException("La solicitud sol-1 no está asignada al revisor o su asignación venció"));
+
+    mockMvc.perform(post("/api/solicitudes/cola/{id}/renovar", "sol-1")
+            .principal(new TestingAuthenticationToken("coord@test.edu", null)))
+        .andExpect(status().isConflict());
+    }
+
+    @Test
+    void liberarAsignacionShouldReturnNoContent() throws Exception {
+    mockMvc.perform(delete("/api/solicitudes/cola/{id}", "sol-1")
+            .principal(new TestingAuthenticationToken("coord@test.edu", null)))
+        .andExpect(status().isNoContent());
+
+    Mockito.verify(colaRevisionService).liberar("sol-1", "coord@test.edu");
+    }
+
     @Test
     void deleteShouldReturnNoContent() throws Exception {
     mockMvc.perform(delete("/api/solicitudes/{id}", "sol-1"))
@@ -168,12 +312,14 @@ class SolicitudControllerTest {
     }
 
     @Test
-    void findAllShouldReturnArray() throws Exception {
-    when(solicitudService.findAll()).thenReturn(List.of(TestDataFactory.buildSolicitudResponse()));
+    void findAllShouldReturnPage() throws Exception {
+    when(solicitudService.findAll("cur-1", 20)).thenReturn(pagina("cur-2"));
 
-    mockMvc.perform(get("/api/solicitudes"))
+    mockMvc.perform(get("/api/solicitudes").param("cursor", "cur-1").param("size", "20"))
         .andExpect(status().isOk())
-        .andExpect(jsonPath("$.length()").value(1));
+        .andExpect(jsonPath("$.items.length()").value(1))
+        .andExpect(jsonPath("$.hasMore", is(true)))
+        .andExpect(jsonPath("$.nextCursor", is("cur-2")));
     }
 
     @Test
@@ -187,45 +333,94 @@ class SolicitudControllerTest {
 
     @Test
     void findByEstudianteShouldReturnList() throws Exception {
-    when(solicitudService.findByEstudiante("est-123"))
-        .thenReturn(List.of(TestDataFactory.buildSolicitudResponse()));
+    when(solicitudService.findByEstudiante("est-123", null, null))
+        .thenReturn(pagina(null));
 
     mockMvc.perform(get("/api/solicitudes/estudiante/{id}", "est-123"))
         .andExpect(status().isOk())
-        .andExpect(jsonPath("$.length()").value(1));
+        .andExpect(jsonPath("$.items.length()").value(1))
+        .andExpect(jsonPath("$.hasMore", is(false)));
     }
 
     @Test
     void findByEstadosShouldDelegateToService() throws Exception {
-    when(solicitudService.findByEstados(List.of(SolicitudEstado.APROBADA, SolicitudEstado.RECHAZADA)))
-        .thenReturn(List.of(TestDataFactory.buildSolicitudResponse()));
+    when(solicitudService.findByEstados(List.of(SolicitudEstado.APROBADA, SolicitudEstado.RECHAZADA), null, null))
+        .thenReturn(pagina(null));
 
     mockMvc.perform(get("/api/solicitudes/estados")
             .param("estado", SolicitudEstado.APROBADA.name(), SolicitudEstado.RECHAZADA.name()))
         .andExpect(status().isOk())
-        .andExpect(jsonPath("$.length()").value(1));
+        .andExpect(jsonPath("$.items.length()").value(1));
     }
 
     @Test
     void countByEstadoShouldReturnNumericValue() throws Exception {
-    when(solicitudService.countByEstado(SolicitudEstado.PENDIENTE)).thenReturn(5L);
+    when(solicitudService.countByEstado(SolicitudEstado.PENDIENTE, null)).thenReturn(5L);
 
     mockMvc.perform(get("/api/solicitudes/estados/{estado}/conteo", SolicitudEstado.PENDIENTE))
         .andExpect(status().isOk())
         .andExpect(jsonPath("$", is(5)));
     }
 
+    @Test
+    void countByEstadosShouldReturnAllEstadosOfPeriodo() throws Exception {
+    when(solicitudService.countByEstados("per-1")).thenReturn(Map.of(
+        SolicitudEstado.PENDIENTE, 4L, SolicitudEstado.APROBADA, 2L));
+
+    mockMvc.perform(get("/api/solicitudes/estados/conteo").param("periodoId", "per-1"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.PENDIENTE", is(4)))
+        .andExpect(jsonPath("$.APROBADA", is(2)));
+    }
+
     @Test
     void findByPeriodoAndRangoShouldForwardParameters() throws Exception {
     Instant inicio = Instant.parse("2024-01-01T00:00:00Z");
     Instant fin = Instant.parse("2024-01-31T23:59:59Z");
-    when(solicitudService.findByPeriodoAndRango("per-1", inicio, fin))
-        .thenReturn(List.of(TestDataFactory.buildSolicitudResponse()));
+    when(solicitudService.findByPeriodoAndRango("per-1", inicio, fin, null, 10))
+        .thenReturn(pagina(null));
 
     mockMvc.perform(get("/api/solicitudes/periodo/{id}", "per-1")
             .param("inicio", "2024-01-01T00:00:00Z")
-            .param("fin", "2024-01-31T23:59:59Z"))
+            .param("fin", "2024-01-31T23:59:59Z")
+            .param("size", "10"))
         .andExpect(status().isOk())
-        .andExpect(jsonPath("$.length()").value(1));
+        .andExpect(jsonPath("$.items.length()").value(1));
+    }
+
+    @Test
+    void exportByPeriodoShouldStreamCsvAttachment() throws Exception {
+    doAnswer(invocation -> {
+        OutputStream out = invocation.getArgument(4);
+        out.write("id,codigoSolicitud\r\nsol-1,SOL-1\r\n".getBytes(StandardCharsets.UTF_8));
+        return 1L;
+    }).when(solicitudExportService).exportar(eq("per-1"), isNull(), isNull(),
+        eq(SolicitudExportService.Formato.CSV), any(OutputStream.class));
+
+    MvcResult result = mockMvc.perform(get("/api/solicitudes/periodo/{id}/export", "per-1")
+            .param("formato", "csv"))
+        .andExpect(request().asyncStarted())
+        .andReturn();
+
+    mockMvc.perform(asyncDispatch(result))
+        .andExpect(status().isOk())
+        .andExpect(content().contentType("text/csv;charset=UTF-8"))
+        .andExpect(header().string("Content-Disposition", "attachment; filename=\"solicitudes-per-1.csv\""))
+        .andExpect(content().string("id,codigoSolicitud\r\nsol-1,SOL-1\r\n"));
+    }
+
+    @Test
+    void exportByPeriodoShouldRejectUnknownFormat() throws Exception {
+    mockMvc.perform(get("/api/solicitudes/periodo/{id}/export", "per-1")
+            .param("formato", "xlsx"))
+        .andExpect(status().isBadRequest());
+    }
+
+    private static CursorPage<SolicitudResponse> pagina(String nextCursor) {
+    return CursorPage.<SolicitudResponse>builder()
+        .items(List.of(TestDataFactory.buildSolicitudResponse()))
+        .nextCursor(nextCursor)
+        .hasMore(nextCursor != null)
+        .build();
     }
 }
\ No newline at end of file
@@ -0,0 +1,82 @@
+package edu.dosw.sirha.controller;
+
+import edu.dosw.sirha.dto.response.BulkRegisterResponse;
+import edu.dosw.sirha.security.JwtAuthFilter;
+import edu.dosw.sirha.security.SecurityConfig;
+import edu.dosw.sirha.service.BulkRegistrationService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.FilterType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.io.InputStream;
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Pruebas de capa web para {@link UsuarioController}.
+ * 
+ * <p>Verifica la selección de formato según el Content-Type en el registro masivo.</p>
+ */
+@WebMvcTest(controllers = UsuarioController.class,
+        excludeFilters = {
+                @ComponentScan.Filter(type = FilterType.ASSIGNABLE_TYPE, classes = SecurityConfig.class),
+                @ComponentScan.Filter(type = FilterType.ASSIGNABLE_TYPE, classes = JwtAuthFilter.class)
+        })
+@AutoConfigureMockMvc(addFilters = false)
+class UsuarioControllerTest {
+
+    private static final String BULK_URL = "/api/usuarios/bulk";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private BulkRegistrationService bulkRegistrationService;
+
+    @Test
+    void bulkCsvShouldReturnReport() throws Exception {
+        BulkRegisterResponse report = BulkRegisterResponse.builder()
+                .total(1)
+                .creados(1)
+                .rechazados(0)
+                .filas(List.of(BulkRegisterResponse.Fila.builder()
+                        .linea(2)
+                        .email("ana@mail.escuelaing.edu.co")
+                        .resultado(BulkRegisterResponse.Resultado.CREADO)
+                        .id("user-1")
+                        .build()))
+                .build();
+        when(bulkRegistrationService.registrar(any(InputStream.class), eq(BulkRegistrationService.Formato.CSV)))
+                .thenReturn(report);
+
+        mockMvc.perform(post(BULK_URL)
+                        .contentType("text/csv")
+                        .content("nombre,email,password,rol\nAna,ana@mail.escuelaing.edu.co,Password1,ESTUDIANTE"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.creados").value(1))
+                .andExpect(jsonPath("$.filas[0].resultado").value("CREADO"));
+    }
+
+    @Test
+    void bulkNdjsonShouldUseNdjsonFormat() throws Exception {
+        when(bulkRegistrationService.registrar(any(InputStream.class), eq(BulkRegistrationService.Formato.NDJSON)))
+                .thenReturn(BulkRegisterResponse.builder().total(0).filas(List.of()).build());
+
+        mockMvc.perform(post(BULK_URL)
+                        .contentType("application/x-ndjson")
+                        .content("{}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.total").value(0));
+    }
+}
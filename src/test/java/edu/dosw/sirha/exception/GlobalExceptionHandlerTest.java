@@ -4,18 +4,22 @@ import java.util.Map;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import org.junit.jupiter.api.Test;
 import org.springframework.core.MethodParameter;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.validation.BeanPropertyBindingResult;
 import org.springframework.validation.BindingResult;
 import org.springframework.validation.FieldError;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.context.request.WebRequest;
 
+import edu.dosw.sirha.security.LoginThrottle;
+
 /**
  * Suite de pruebas unitarias para {@link GlobalExceptionHandler}.
  * 
@@ -30,6 +34,8 @@ import org.springframework.web.context.request.WebRequest;
  *   <li>{@code handleValidation()} - HTTP 400 con detalles de campos inválidos</li>
  *   <li>{@code handleBadCredentials()} - HTTP 401 para autenticación fallida</li>
  *   <li>{@code handleAccessDenied()} - HTTP 403 para permisos insuficientes</li>
+ *   <li>{@code handleTooManyRequests()} - HTTP 429 con header Retry-After</li>
+ *   <li>{@code handleIdempotencyKey*()} - HTTP 422 y 409 con códigos propios de Idempotency-Key</li>
  *   <li>{@code handleGeneric()} - HTTP 500 para errores no controlados</li>
  * </ul>
  * 
@@ -65,6 +71,61 @@ class GlobalExceptionHandlerTest {
         assertThat(response.getBody().getErrorCode()).isEqualTo("SIRHA-404-001");
     }
 
+    @Test
+    void handleTooManyRequestsShouldIncludeRetryAfter() {
+        when(mockRequest.getDescription(false)).thenReturn("uri=/api/auth/login");
+        
+        ResponseEntity<GlobalExceptionHandler.ErrorResponse> response = handler.handleTooManyRequests(
+                new TooManyRequestsException("Sin capacidad", 3),
+                mockRequest);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.TOO_MANY_REQUESTS);
+        assertThat(response.getHeaders().getFirst("Retry-After")).isEqualTo("3");
+        assertThat(response.getBody().getErrorCode()).isEqualTo("SIRHA-429-001");
+        assertThat(response.getBody().getPath()).isEqualTo("/api/auth/login");
+    }
+
+    @Test
+    void handleIdempotencyKeyMismatchShouldUseOwnErrorCode() {
+        when(mockRequest.getDescription(false)).thenReturn("uri=/api/solicitudes");
+        
+        ResponseEntity<GlobalExceptionHandler.ErrorResponse> response = handler.handleIdempotencyKeyMismatch(
+                new IdempotencyKeyMismatchException("Idempotency-Key ya se usó con una petición diferente"),
+                mockRequest);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.UNPROCESSABLE_ENTITY);
+        assertThat(response.getBody().getErrorCode()).isEqualTo("SIRHA-422-001");
+    }
+
+    @Test
+    void handleIdempotencyKeyInUseShouldUseOwnErrorCode() {
+        when(mockRequest.getDescription(false)).thenReturn("uri=/api/solicitudes");
+        
+        ResponseEntity<GlobalExceptionHandler.ErrorResponse> response = handler.handleIdempotencyKeyInUse(
+                new IdempotencyKeyInUseException("Ya hay una petición en curso con esta Idempotency-Key"),
+                mockRequest);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.CONFLICT);
+        assertThat(response.getBody().getErrorCode()).isEqualTo("SIRHA-409-001");
+    }
+
+    @Test
+    void handleBadCredentialsShouldRecordLoginFailure() {
+        LoginThrottle loginThrottle = mock(LoginThrottle.class);
+        LoginThrottle.Attempt attempt = LoginThrottle.Attempt.of("user@test.com", "10.0.0.1");
+        GlobalExceptionHandler throttledHandler = new GlobalExceptionHandler();
+        throttledHandler.setLoginThrottle(loginThrottle);
+        when(mockRequest.getDescription(false)).thenReturn("uri=/api/auth/login");
+        when(mockRequest.getAttribute(LoginThrottle.ATTEMPT_ATTRIBUTE, WebRequest.SCOPE_REQUEST)).thenReturn(attempt);
+
+        ResponseEntity<GlobalExceptionHandler.ErrorResponse> response = throttledHandler.handleBadCredentials(
+                new BadCredentialsException("Bad credentials"),
+                mockRequest);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.UNAUTHORIZED);
+        verify(loginThrottle).recordFailure(attempt);
+    }
+
     @Test
     void handleBusinessShouldReturnBadRequest() {
         when(mockRequest.getDescription(false)).thenReturn("uri=/api/test");
@@ -2,12 +2,10 @@ package edu.dosw.sirha.model;
 
 import java.time.DayOfWeek;
 import java.time.LocalTime;
-import java.util.ArrayList;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
-import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import org.junit.jupiter.api.Test;
 
@@ -185,45 +183,6 @@ class GrupoTest {
         assertEquals(0, grupo.getCuposActuales(), "El cupo actual no debe ser negativo");
     }
 
-    @Test
-    void testAgregarAListaEspera() {
-        Grupo grupo = Grupo.builder().build();
-        String estudianteId = "estudiante123";
-
-        grupo.agregarAListaEspera(estudianteId);
-
-        assertNotNull(grupo.getListaEspera(), "La lista de espera debe inicializarse");
-        assertTrue(grupo.getListaEspera().contains(estudianteId), "El estudiante debe estar en la lista de espera");
-    }
-
-    @Test
-    void testAgregarEstudianteDuplicadoAListaEspera() {
-        Grupo grupo = Grupo.builder()
-                .listaEspera(new ArrayList<>())
-                .build();
-        String estudianteId = "estudiante123";
-
-        grupo.agregarAListaEspera(estudianteId);
-        grupo.agregarAListaEspera(estudianteId); // Intentar agregar duplicado
-
-        assertEquals(1, grupo.getListaEspera().size(), "No debe haber estudiantes duplicados en la lista de espera");
-    }
-
-    @Test
-    void testRemoverDeListaEspera() {
-        String estudianteId = "estudiante123";
-        List<String> listaEspera = new ArrayList<>();
-        listaEspera.add(estudianteId);
-
-        Grupo grupo = Grupo.builder()
-                .listaEspera(listaEspera)
-                .build();
-
-        grupo.removerDeListaEspera(estudianteId);
-
-        assertFalse(grupo.getListaEspera().contains(estudianteId), "El estudiante debe ser removido de la lista de espera");
-    }
-
     @Test
     void testTieneConflictoHorarioCon() {
         List<Horario> horarios1 = List.of(
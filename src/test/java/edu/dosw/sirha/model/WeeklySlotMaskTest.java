@@ -0,0 +1,153 @@
+package edu.dosw.sirha.model;
+
+import edu.dosw.sirha.repository.GrupoFranjasCallback;
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.MongoCustomConversions;
+import org.springframework.data.mongodb.core.convert.NoOpDbRefResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+
+import java.time.DayOfWeek;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Pruebas unitarias para {@link WeeklySlotMask}.
+ *
+ * <p>Verifica las franjas marcadas, cuándo la máscara es exacta y que el solape de
+ * grupos con máscaras coincida con la comparación horario a horario de
+ * {@link Horario#tieneConflictoCon(Horario)}.</p>
+ */
+class WeeklySlotMaskTest {
+
+    @Test
+    void deShouldMarkQuarterHourSlots() {
+        WeeklySlotMask mascara = WeeklySlotMask.de(List.of(horario(DayOfWeek.MONDAY, 7, 0, 8, 30),
+                horario(DayOfWeek.SATURDAY, 12, 45, 13, 0)));
+
+        assertThat(mascara.esExacta()).isTrue();
+        assertThat(mascara.ocupada(DayOfWeek.MONDAY, LocalTime.of(7, 0))).isTrue();
+        assertThat(mascara.ocupada(DayOfWeek.MONDAY, LocalTime.of(8, 15))).isTrue();
+        assertThat(mascara.ocupada(DayOfWeek.MONDAY, LocalTime.of(8, 30))).isFalse();
+        assertThat(mascara.ocupada(DayOfWeek.TUESDAY, LocalTime.of(7, 0))).isFalse();
+        assertThat(mascara.ocupada(DayOfWeek.SATURDAY, LocalTime.of(12, 45))).isTrue();
+    }
+
+    @Test
+    void consecutiveSchedulesShouldNotOverlap() {
+        WeeklySlotMask primera = WeeklySlotMask.de(List.of(horario(DayOfWeek.WEDNESDAY, 8, 0, 10, 0)));
+        WeeklySlotMask segunda = WeeklySlotMask.de(List.of(horario(DayOfWeek.WEDNESDAY, 10, 0, 12, 0)));
+        WeeklySlotMask tercera = WeeklySlotMask.de(List.of(horario(DayOfWeek.WEDNESDAY, 9, 45, 10, 15)));
+
+        assertThat(primera.seSolapaCon(segunda)).isFalse();
+        assertThat(primera.seSolapaCon(tercera)).isTrue();
+        assertThat(segunda.seSolapaCon(tercera)).isTrue();
+    }
+
+    @Test
+    void deShouldNotBeExactOutsideCoveredSlots() {
+        assertThat(WeeklySlotMask.de(List.of(horario(DayOfWeek.MONDAY, 8, 10, 9, 0))).esExacta()).isFalse();
+        assertThat(WeeklySlotMask.de(List.of(horario(DayOfWeek.MONDAY, 6, 0, 8, 0))).esExacta()).isFalse();
+        assertThat(WeeklySlotMask.de(List.of(horario(DayOfWeek.FRIDAY, 18, 0, 20, 0))).esExacta()).isFalse();
+        assertThat(WeeklySlotMask.de(List.of(horario(DayOfWeek.SUNDAY, 8, 0, 10, 0))).esExacta()).isFalse();
+        assertThat(WeeklySlotMask.de(null)).isEqualTo(WeeklySlotMask.VACIA);
+    }
+
+    @Test
+    void unionShouldCombineWeeks() {
+        WeeklySlotMask lunes = WeeklySlotMask.de(List.of(horario(DayOfWeek.MONDAY, 8, 0, 10, 0)));
+        WeeklySlotMask martes = WeeklySlotMask.de(List.of(horario(DayOfWeek.TUESDAY, 8, 0, 10, 0)));
+
+        WeeklySlotMask semana = lunes.union(martes);
+
+        assertThat(semana.seSolapaCon(martes)).isTrue();
+        assertThat(semana).isEqualTo(WeeklySlotMask.de(List.of(horario(DayOfWeek.MONDAY, 8, 0, 10, 0),
+                horario(DayOfWeek.TUESDAY, 8, 0, 10, 0))));
+    }
+
+    @Test
+    void grupoConflictShouldMatchPairwiseComparison() {
+        Random random = new Random(42);
+        for (int i = 0; i < 2_000; i++) {
+            Grupo primero = grupo(aleatorios(random));
+            Grupo segundo = grupo(aleatorios(random));
+
+            boolean esperado = primero.getHorarios().stream()
+                    .anyMatch(h -> segundo.getHorarios().stream().anyMatch(h::tieneConflictoCon));
+
+            assertThat(primero.tieneConflictoHorarioCon(segundo))
+                    .as("%s vs %s", primero.getHorarios(), segundo.getHorarios())
+                    .isEqualTo(esperado);
+        }
+    }
+
+    @Test
+    void setHorariosShouldDiscardCachedMask() {
+        Grupo grupo = grupo(List.of(horario(DayOfWeek.MONDAY, 8, 0, 10, 0)));
+        Grupo otro = grupo(List.of(horario(DayOfWeek.TUESDAY, 8, 0, 10, 0)));
+        assertThat(grupo.tieneConflictoHorarioCon(otro)).isFalse();
+
+        grupo.setHorarios(List.of(horario(DayOfWeek.TUESDAY, 9, 0, 11, 0)));
+
+        assertThat(grupo.tieneConflictoHorarioCon(otro)).isTrue();
+    }
+
+    @Test
+    void callbackShouldStoreMaskThatSurvivesMapping() {
+        List<Horario> horarios = new ArrayList<>(List.of(horario(DayOfWeek.MONDAY, 8, 0, 10, 0)));
+        Grupo grupo = grupo(horarios);
+        grupo.franjas();
+        // Cambio en sitio: el guardado debe recalcular las franjas
+        horarios.add(horario(DayOfWeek.THURSDAY, 14, 0, 16, 0));
+
+        new GrupoFranjasCallback().onBeforeConvert(grupo, "grupos");
+
+        MongoCustomConversions conversiones = new MongoCustomConversions(List.of());
+        MongoMappingContext contexto = new MongoMappingContext();
+        contexto.setSimpleTypeHolder(conversiones.getSimpleTypeHolder());
+        MappingMongoConverter converter = new MappingMongoConverter(NoOpDbRefResolver.INSTANCE, contexto);
+        converter.setCustomConversions(conversiones);
+        converter.afterPropertiesSet();
+        Document documento = new Document();
+        converter.write(grupo, documento);
+        Grupo leido = converter.read(Grupo.class, documento);
+
+        assertThat(leido.getFranjas()).isEqualTo(WeeklySlotMask.de(horarios));
+        assertThat(leido.getFranjas().ocupada(DayOfWeek.THURSDAY, LocalTime.of(15, 0))).isTrue();
+    }
+
+    private static List<Horario> aleatorios(Random random) {
+        List<Horario> horarios = new ArrayList<>();
+        int cantidad = 1 + random.nextInt(3);
+        for (int i = 0; i < cantidad; i++) {
+            DayOfWeek dia = DayOfWeek.of(1 + random.nextInt(7));
+            // Principalmente cuartos de hora, a veces minutos sueltos o fuera del rango
+            int paso = random.nextInt(5) == 0 ? 5 : 15;
+            int inicio = 6 * 60 + paso * random.nextInt(14 * 60 / paso);
+            int fin = inicio + paso * (1 + random.nextInt(240 / paso));
+            horarios.add(Horario.builder()
+                    .dia(dia)
+                    .horaInicio(LocalTime.of(inicio / 60, inicio % 60))
+                    .horaFin(LocalTime.of(Math.min(fin, 23 * 60) / 60, Math.min(fin, 23 * 60) % 60))
+                    .build());
+        }
+        return horarios;
+    }
+
+    private static Grupo grupo(List<Horario> horarios) {
+        return Grupo.builder().id("g").horarios(horarios).build();
+    }
+
+    private static Horario horario(DayOfWeek dia, int horaInicio, int minutoInicio, int horaFin, int minutoFin) {
+        return Horario.builder()
+                .dia(dia)
+                .horaInicio(LocalTime.of(horaInicio, minutoInicio))
+                .horaFin(LocalTime.of(horaFin, minutoFin))
+                .build();
+    }
+}
@@ -0,0 +1,147 @@
+package edu.dosw.sirha.repository;
+
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import de.flapdoodle.embed.mongo.commands.ServerAddress;
+import de.flapdoodle.embed.mongo.distribution.Version;
+import de.flapdoodle.embed.mongo.transitions.Mongod;
+import de.flapdoodle.embed.mongo.transitions.RunningMongodProcess;
+import de.flapdoodle.reverse.TransitionWalker;
+import edu.dosw.sirha.model.Grupo;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Pruebas de concurrencia de {@link GrupoRepositoryImpl} contra un MongoDB embebido.
+ *
+ * <p>Muchos hilos reservan cupos del mismo grupo a la vez. Es MongoDB quien evalúa
+ * el filtro {@code cuposActuales < cupoMax} y aplica el {@code $inc}, así que la
+ * prueba verifica el {@code findAndModify} real y no una simulación del repositorio.</p>
+ *
+ * <p>La versión de MongoDB es la de {@code application-test.yml}. Si el binario no
+ * puede obtenerse (por ejemplo, sin acceso a red) las pruebas se omiten.</p>
+ */
+class GrupoRepositoryImplMongoTest {
+
+    private static final Logger log = LoggerFactory.getLogger(GrupoRepositoryImplMongoTest.class);
+
+    private static final int HILOS = 16;
+
+    private static TransitionWalker.ReachedState<RunningMongodProcess> mongod;
+    private static MongoClient client;
+    private static MongoTemplate mongoTemplate;
+
+    private GrupoRepositoryImpl repository;
+
+    @BeforeAll
+    static void iniciarMongo() {
+        try {
+            mongod = Mongod.instance().start(Version.V6_0_5);
+        } catch (RuntimeException ex) {
+            Assumptions.abort("MongoDB embebido no disponible: " + ex.getMessage());
+        }
+        ServerAddress address = mongod.current().getServerAddress();
+        client = MongoClients.create("mongodb://" + address.getHost() + ":" + address.getPort());
+        mongoTemplate = new MongoTemplate(client, "sirha-test");
+    }
+
+    @AfterAll
+    static void detenerMongo() {
+        if (client != null) {
+            client.close();
+        }
+        if (mongod != null) {
+            mongod.close();
+        }
+    }
+
+    @BeforeEach
+    void setUp() {
+        mongoTemplate.dropCollection(Grupo.class);
+        repository = new GrupoRepositoryImpl(mongoTemplate);
+    }
+
+    @Test
+    void reservarCupoShouldNeverOverbookHotGroupUnderContention() throws Exception {
+        int cupoMax = 40;
+        int intentos = 2_000;
+        Grupo grupo = mongoTemplate.insert(Grupo.builder().id("grp-caliente").cupoMax(cupoMax).cuposActuales(0).build());
+
+        AtomicInteger reservados = new AtomicInteger();
+        long elapsedNanos = concurrente(intentos, () -> {
+            if (repository.reservarCupo(grupo.getId()).isPresent()) {
+                reservados.incrementAndGet();
+            }
+        });
+
+        assertThat(reservados.get()).isEqualTo(cupoMax);
+        assertThat(cuposActuales(grupo.getId())).isEqualTo(cupoMax);
+        log.info("Grupo caliente: {} reservas en {} ms con {} hilos ({} reservas/s, {} cupos)",
+                intentos, TimeUnit.NANOSECONDS.toMillis(elapsedNanos), HILOS,
+                Math.round(intentos / (elapsedNanos / 1e9)), cupoMax);
+    }
+
+    @Test
+    void reservarYLiberarCuposShouldKeepCounterWithinBoundsUnderContention() throws Exception {
+        int cupoMax = 25;
+        Grupo grupo = mongoTemplate.insert(Grupo.builder().id("grp-lote").cupoMax(cupoMax).cuposActuales(0).build());
+
+        AtomicInteger reservados = new AtomicInteger();
+        AtomicInteger liberados = new AtomicInteger();
+        concurrente(1_000, () -> {
+            int obtenidos = repository.reservarCupos(grupo.getId(), 3);
+            reservados.addAndGet(obtenidos);
+            if (obtenidos > 0 && repository.liberarCupos(grupo.getId(), 1)) {
+                liberados.incrementAndGet();
+            }
+        });
+
+        int esperado = reservados.get() - liberados.get();
+        assertThat(esperado).isBetween(0, cupoMax);
+        assertThat(cuposActuales(grupo.getId())).isEqualTo(esperado);
+    }
+
+    private long concurrente(int tareas, Runnable tarea) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(HILOS);
+        CountDownLatch inicio = new CountDownLatch(1);
+        List<Future<?>> futuros = new ArrayList<>();
+        for (int i = 0; i < tareas; i++) {
+            futuros.add(executor.submit(() -> {
+                inicio.await();
+                tarea.run();
+                return null;
+            }));
+        }
+        long start = System.nanoTime();
+        inicio.countDown();
+        try {
+            for (Future<?> futuro : futuros) {
+                futuro.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdown();
+        }
+        return System.nanoTime() - start;
+    }
+
+    private int cuposActuales(String grupoId) {
+        return mongoTemplate.findById(grupoId, Grupo.class).getCuposActuales();
+    }
+}
@@ -0,0 +1,150 @@
+package edu.dosw.sirha.repository;
+
+import edu.dosw.sirha.model.Grupo;
+import com.mongodb.client.result.UpdateResult;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.MongoExpression;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Pruebas unitarias para {@link GrupoRepositoryImpl}.
+ * 
+ * <p>Verifica que las operaciones de cupo se envíen como un único
+ * {@code findAndModify} con la condición en el filtro y un {@code $inc}.</p>
+ */
+@ExtendWith(MockitoExtension.class)
+class GrupoRepositoryImplTest {
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    private GrupoRepositoryImpl repository;
+
+    @BeforeEach
+    void setUp() {
+        repository = new GrupoRepositoryImpl(mongoTemplate);
+    }
+
+    @Test
+    void reservarCupoShouldIncrementOnlyWhileBelowCupoMax() {
+        Grupo actualizado = Grupo.builder().id("grp-1").cupoMax(30).cuposActuales(26).build();
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class),
+                any(FindAndModifyOptions.class), eq(Grupo.class))).thenReturn(actualizado);
+
+        Optional<Grupo> result = repository.reservarCupo("grp-1");
+
+        assertThat(result).contains(actualizado);
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        ArgumentCaptor<FindAndModifyOptions> options = ArgumentCaptor.forClass(FindAndModifyOptions.class);
+        verify(mongoTemplate).findAndModify(query.capture(), update.capture(), options.capture(), eq(Grupo.class));
+
+        Document filtro = query.getValue().getQueryObject();
+        assertThat(filtro.getString("id")).isEqualTo("grp-1");
+        Document expr = (Document) ((List<?>) filtro.get("$and")).get(0);
+        assertThat(((MongoExpression) expr.get("$expr")).toDocument().get("$lt"))
+                .isEqualTo(List.of("$cuposActuales", "$cupoMax"));
+        Document inc = (Document) update.getValue().getUpdateObject().get("$inc");
+        assertThat(inc).containsEntry("cuposActuales", 1).containsEntry("version", 1);
+        assertThat(options.getValue().isReturnNew()).isTrue();
+    }
+
+    @Test
+    void reservarCupoShouldReturnEmptyWhenGroupFull() {
+        assertThat(repository.reservarCupo("grp-1")).isEmpty();
+    }
+
+    @Test
+    void liberarCupoShouldDecrementOnlyWhenPositive() {
+        repository.liberarCupo("grp-1");
+
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate).findAndModify(query.capture(), update.capture(),
+                any(FindAndModifyOptions.class), eq(Grupo.class));
+        assertThat(query.getValue().getQueryObject().get("cuposActuales")).isEqualTo(new Document("$gt", 0));
+        assertThat((Document) update.getValue().getUpdateObject().get("$inc")).containsEntry("cuposActuales", -1);
+    }
+
+    @Test
+    void reservarCuposShouldIncrementAllAtOnceWhenTheyFit() {
+        when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(Grupo.class)))
+                .thenReturn(UpdateResult.acknowledged(1, 1L, null));
+
+        assertThat(repository.reservarCupos("grp-1", 5)).isEqualTo(5);
+
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate).updateFirst(query.capture(), update.capture(), eq(Grupo.class));
+        Document expr = (Document) ((List<?>) query.getValue().getQueryObject().get("$and")).get(0);
+        assertThat(((MongoExpression) expr.get("$expr")).toDocument().get("$lte"))
+                .isEqualTo(List.of(new Document("$add", List.of("$cuposActuales", 5)), "$cupoMax"));
+        assertThat((Document) update.getValue().getUpdateObject().get("$inc"))
+                .containsEntry("cuposActuales", 5).containsEntry("version", 1);
+        verify(mongoTemplate, never()).findAndModify(any(Query.class), any(Update.class),
+                any(FindAndModifyOptions.class), eq(Grupo.class));
+    }
+
+    @Test
+    void reservarCuposShouldFallBackToOneByOneWhenNotEnoughSeats() {
+        when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(Grupo.class)))
+                .thenReturn(UpdateResult.acknowledged(0, 0L, null));
+        Grupo grupo = Grupo.builder().id("grp-1").build();
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class),
+                any(FindAndModifyOptions.class), eq(Grupo.class))).thenReturn(grupo, grupo, null);
+
+        assertThat(repository.reservarCupos("grp-1", 5)).isEqualTo(2);
+
+        verify(mongoTemplate, times(3)).findAndModify(any(Query.class), any(Update.class),
+                any(FindAndModifyOptions.class), eq(Grupo.class));
+    }
+
+    @Test
+    void liberarCuposShouldDecrementOnlyWhenEnoughOccupied() {
+        when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(Grupo.class)))
+                .thenReturn(UpdateResult.acknowledged(1, 1L, null));
+
+        assertThat(repository.liberarCupos("grp-1", 3)).isTrue();
+
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate).updateFirst(query.capture(), update.capture(), eq(Grupo.class));
+        assertThat(query.getValue().getQueryObject().get("cuposActuales")).isEqualTo(new Document("$gte", 3));
+        assertThat((Document) update.getValue().getUpdateObject().get("$inc")).containsEntry("cuposActuales", -3);
+    }
+
+    @Test
+    void siguientePosicionEsperaShouldIncrementCounterAtomically() {
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class),
+                any(FindAndModifyOptions.class), eq(Grupo.class)))
+                .thenReturn(Grupo.builder().id("grp-1").ultimaPosicionEspera(8).build());
+
+        assertThat(repository.siguientePosicionEspera("grp-1")).contains(8L);
+
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate).findAndModify(any(Query.class), update.capture(), any(FindAndModifyOptions.class),
+                eq(Grupo.class));
+        assertThat((Document) update.getValue().getUpdateObject().get("$inc"))
+                .containsEntry("ultimaPosicionEspera", 1).containsEntry("version", 1);
+    }
+}
@@ -0,0 +1,98 @@
+package edu.dosw.sirha.repository;
+
+import com.mongodb.bulk.BulkWriteResult;
+import edu.dosw.sirha.model.Inscripcion;
+import edu.dosw.sirha.model.enums.EstadoInscripcion;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+/**
+ * Pruebas unitarias para {@link InscripcionRepositoryImpl}.
+ * 
+ * <p>Verifica que las inscripciones reemplazadas se cancelen en un único bulk write
+ * condicionado a {@code INSCRITO} y que solo las canceladas por el lote liberen cupo.</p>
+ */
+@ExtendWith(MockitoExtension.class)
+class InscripcionRepositoryImplTest {
+
+    private static final Instant AHORA = Instant.parse("2024-01-10T12:00:00Z");
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @Mock
+    private BulkOperations bulkOperations;
+
+    private InscripcionRepositoryImpl repository;
+
+    @BeforeEach
+    void setUp() {
+        repository = new InscripcionRepositoryImpl(mongoTemplate);
+    }
+
+    @Test
+    void cancelarReemplazadasShouldCancelOnlyActiveInscripcionesAndCountSeatsPerGroup() {
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Inscripcion.class)).thenReturn(bulkOperations);
+        when(bulkOperations.execute()).thenReturn(BulkWriteResult.acknowledged(0, 2, 0, 2, List.of(), List.of()));
+        when(mongoTemplate.find(any(Query.class), eq(Inscripcion.class))).thenReturn(List.of(
+                Inscripcion.builder().id("ins-1").grupoId("grp-a").build(),
+                Inscripcion.builder().id("ins-2").grupoId("grp-a").build()));
+
+        Map<String, Integer> cupos = repository.cancelarReemplazadas(
+                Map.of("ins-1", "s1", "ins-2", "s2", "ins-3", "s3"), AHORA);
+
+        assertThat(cupos).containsExactly(Map.entry("grp-a", 2));
+        ArgumentCaptor<Query> filtros = ArgumentCaptor.forClass(Query.class);
+        ArgumentCaptor<Update> cambios = ArgumentCaptor.forClass(Update.class);
+        verify(bulkOperations, times(3)).updateOne(filtros.capture(), cambios.capture());
+        assertThat(filtros.getAllValues()).allSatisfy(filtro ->
+                assertThat(filtro.getQueryObject()).containsEntry("estado", EstadoInscripcion.INSCRITO));
+        assertThat((Document) cambios.getAllValues().get(0).getUpdateObject().get("$set"))
+                .containsEntry("estado", EstadoInscripcion.CANCELADO)
+                .containsEntry("fechaCambioEstado", AHORA);
+        ArgumentCaptor<Query> canceladas = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).find(canceladas.capture(), eq(Inscripcion.class));
+        assertThat(canceladas.getValue().getQueryObject())
+                .containsEntry("estado", EstadoInscripcion.CANCELADO)
+                .containsEntry("fechaCambioEstado", AHORA);
+    }
+
+    @Test
+    void cancelarReemplazadasShouldSkipReadWhenNothingWasCancelled() {
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Inscripcion.class)).thenReturn(bulkOperations);
+        when(bulkOperations.execute()).thenReturn(BulkWriteResult.acknowledged(0, 1, 0, 0, List.of(), List.of()));
+
+        assertThat(repository.cancelarReemplazadas(Map.of("ins-1", "s1"), AHORA)).isEmpty();
+
+        verify(mongoTemplate, never()).find(any(Query.class), eq(Inscripcion.class));
+    }
+
+    @Test
+    void cancelarReemplazadasShouldDoNothingWithoutInscripciones() {
+        assertThat(repository.cancelarReemplazadas(Map.of(), AHORA)).isEmpty();
+
+        verifyNoInteractions(mongoTemplate);
+    }
+}
@@ -0,0 +1,464 @@
+package edu.dosw.sirha.repository;
+
+import com.mongodb.bulk.BulkWriteResult;
+import com.mongodb.client.result.UpdateResult;
+import edu.dosw.sirha.model.Solicitud;
+import edu.dosw.sirha.model.SolicitudHistorial;
+import edu.dosw.sirha.model.SolicitudHistorialEntry;
+import edu.dosw.sirha.model.enums.SolicitudEstado;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Pruebas unitarias para {@link SolicitudRepositoryImpl}.
+ * 
+ * <p>Verifica que las páginas se pidan con orden {@code (clave, _id)}, límite, sin
+ * historial y con la condición keyset en vez de {@code skip}, que los cambios de
+ * estado por lote se envíen en un único bulkWrite condicionado al estado anterior, y
+ * que el historial embebido solo se acote cuando ya está archivado completo.</p>
+ */
+@ExtendWith(MockitoExtension.class)
+class SolicitudRepositoryImplTest {
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @Mock
+    private BulkOperations bulkOperations;
+
+    @Mock
+    private BulkOperations historialBulk;
+
+    private SolicitudRepositoryImpl repository;
+
+    @BeforeEach
+    void setUp() {
+        repository = new SolicitudRepositoryImpl(mongoTemplate);
+    }
+
+    @Test
+    void firstPageShouldSortByKeyAndIdWithoutHistorial() {
+        repository.buscarPagina(Criteria.where("estudianteId").is("est-1"), SolicitudKeyset.Orden.RECIENTES, null, 51);
+
+        Query query = capturarQuery();
+        assertThat(query.getQueryObject()).isEqualTo(new Document("estudianteId", "est-1"));
+        assertThat(query.getSortObject()).isEqualTo(new Document("fechaSolicitud", -1).append("id", -1));
+        assertThat(query.getLimit()).isEqualTo(51);
+        assertThat(query.getSkip()).isZero();
+        assertThat(query.getFieldsObject()).isEqualTo(new Document("historial", 0));
+    }
+
+    @Test
+    void nextPageShouldStartStrictlyAfterCursorWhenDescending() {
+        Instant fecha = Instant.parse("2024-01-10T12:00:00Z");
+        SolicitudKeyset cursor = new SolicitudKeyset(SolicitudKeyset.Orden.RECIENTES, fecha.toEpochMilli(), "sol-9");
+
+        repository.buscarPagina(new Criteria(), SolicitudKeyset.Orden.RECIENTES, cursor, 10);
+
+        Document keyset = (Document) ((List<?>) capturarQuery().getQueryObject().get("$and")).get(1);
+        assertThat(keyset.get("$or")).isEqualTo(List.of(
+                new Document("fechaSolicitud", new Document("$lt", fecha)),
+                new Document("fechaSolicitud", fecha).append("id", new Document("$lt", "sol-9"))));
+    }
+
+    @Test
+    void nextPageShouldUseGreaterThanWhenAscending() {
+        SolicitudKeyset cursor = new SolicitudKeyset(SolicitudKeyset.Orden.PRIORIDAD, 3, "sol-9");
+
+        repository.buscarPagina(new Criteria(), SolicitudKeyset.Orden.PRIORIDAD, cursor, 10);
+
+        Query query = capturarQuery();
+        Document keyset = (Document) ((List<?>) query.getQueryObject().get("$and")).get(1);
+        assertThat(keyset.get("$or")).isEqualTo(List.of(
+                new Document("prioridad", new Document("$gt", 3)),
+                new Document("prioridad", 3).append("id", new Document("$gt", "sol-9"))));
+        assertThat(query.getSortObject()).isEqualTo(new Document("prioridad", 1).append("id", 1));
+    }
+
+    @Test
+    void aplicarCambiosEstadoShouldSendOneConditionalUpdatePerItem() {
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Solicitud.class)).thenReturn(bulkOperations);
+        when(bulkOperations.execute()).thenReturn(BulkWriteResult.acknowledged(0, 2, 0, 2, List.of(), List.of()));
+        Instant fecha = Instant.parse("2024-01-10T12:00:00Z");
+        SolicitudHistorialEntry evento = SolicitudHistorialEntry.builder().fecha(fecha).accion("ESTADO:APROBADA").build();
+
+        Set<String> aplicadas = repository.aplicarCambiosEstado(List.of(
+                new CambioEstado("s1", SolicitudEstado.PENDIENTE, SolicitudEstado.APROBADA, fecha, evento, true),
+                new CambioEstado("s2", SolicitudEstado.EN_REVISION, SolicitudEstado.APROBADA, fecha, evento, true)), 20);
+
+        assertThat(aplicadas).containsExactlyInAnyOrder("s1", "s2");
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        verify(bulkOperations, times(4)).updateOne(query.capture(), update.capture());
+        assertThat(query.getAllValues().get(2).getQueryObject()).isEqualTo(new Document("id", "s2")
+                .append("estado", SolicitudEstado.EN_REVISION).append("historialArchivado", true));
+        assertThat(query.getAllValues().get(3).getQueryObject()).isEqualTo(new Document("id", "s2")
+                .append("estado", SolicitudEstado.EN_REVISION)
+                .append("historialArchivado", new Document("$ne", true)));
+        Document cambios = update.getAllValues().get(0).getUpdateObject();
+        assertThat((Document) cambios.get("$set"))
+                .containsEntry("estado", SolicitudEstado.APROBADA)
+                .containsEntry("fechaActualizacion", fecha);
+        assertThat((Document) cambios.get("$unset")).containsKeys("revisorAsignado", "asignacionVence");
+        assertThat((Document) update.getAllValues().get(1).getUpdateObject().get("$unset"))
+                .containsKeys("revisorAsignado", "asignacionVence");
+        assertThat(modificadores((Document) cambios.get("$push"), "historial"))
+                .containsEntry("$each", List.of(evento)).containsEntry("$slice", -20);
+        assertThat(modificadores((Document) update.getAllValues().get(1).getUpdateObject().get("$push"), "historial"))
+                .containsEntry("$each", List.of(evento)).doesNotContainKey("$slice");
+        // Solo la consulta de historiales sin archivar, no la verificación de aplicados
+        assertThat(capturarQuery().getQueryObject().get("historialArchivado")).isEqualTo(new Document("$ne", true));
+        ArgumentCaptor<List<SolicitudHistorial>> archivados = ArgumentCaptor.forClass(List.class);
+        verify(mongoTemplate).insert(archivados.capture(), eq(SolicitudHistorial.class));
+        assertThat(archivados.getValue()).extracting(SolicitudHistorial::getSolicitudId)
+                .containsExactlyInAnyOrder("s1", "s2");
+    }
+
+    @Test
+    void aplicarCambiosEstadoShouldVerifyWhichAppliedWhenSomeDidNotMatch() {
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Solicitud.class)).thenReturn(bulkOperations);
+        when(bulkOperations.execute()).thenReturn(BulkWriteResult.acknowledged(0, 1, 0, 1, List.of(), List.of()));
+        when(mongoTemplate.find(argThat(query -> query.getQueryObject().containsKey("$or")), eq(Solicitud.class)))
+                .thenReturn(List.of(Solicitud.builder().id("s2").build()));
+        Instant fecha = Instant.parse("2024-01-10T12:00:00Z");
+        SolicitudHistorialEntry evento = SolicitudHistorialEntry.builder().fecha(fecha).accion("ESTADO:RECHAZADA").build();
+
+        Set<String> aplicadas = repository.aplicarCambiosEstado(List.of(
+                new CambioEstado("s1", SolicitudEstado.PENDIENTE, SolicitudEstado.RECHAZADA, fecha, evento, true),
+                new CambioEstado("s2", SolicitudEstado.PENDIENTE, SolicitudEstado.RECHAZADA, fecha, evento, true)), 20);
+
+        assertThat(aplicadas).containsExactly("s2");
+        ArgumentCaptor<List<SolicitudHistorial>> archivados = ArgumentCaptor.forClass(List.class);
+        verify(mongoTemplate).insert(archivados.capture(), eq(SolicitudHistorial.class));
+        assertThat(archivados.getValue()).extracting(SolicitudHistorial::getSolicitudId).containsExactly("s2");
+    }
+
+    @Test
+    void actualizarShouldSetPushWithSliceAndRequireExpectedEstado() {
+        Solicitud actualizada = Solicitud.builder().id("s1").estado(SolicitudEstado.APROBADA).build();
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class),
+                eq(Solicitud.class))).thenReturn(actualizada);
+        SolicitudHistorialEntry evento = SolicitudHistorialEntry.builder().accion("ESTADO:APROBADA").build();
+
+        Optional<Solicitud> result = repository.actualizar("s1", List.of(SolicitudEstado.PENDIENTE),
+                new Update().set("estado", SolicitudEstado.APROBADA), evento, 20);
+
+        assertThat(result).contains(actualizada);
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        ArgumentCaptor<FindAndModifyOptions> options = ArgumentCaptor.forClass(FindAndModifyOptions.class);
+        verify(mongoTemplate).findAndModify(query.capture(), update.capture(), options.capture(), eq(Solicitud.class));
+        assertThat(query.getValue().getQueryObject()).isEqualTo(new Document("id", "s1")
+                .append("estado", new Document("$in", List.of(SolicitudEstado.PENDIENTE)))
+                .append("historialArchivado", true));
+        Document cambios = update.getValue().getUpdateObject();
+        assertThat((Document) cambios.get("$set")).containsEntry("estado", SolicitudEstado.APROBADA);
+        assertThat(modificadores((Document) cambios.get("$push"), "historial"))
+                .containsEntry("$each", List.of(evento)).containsEntry("$slice", -20);
+        assertThat(options.getValue().isReturnNew()).isTrue();
+        verify(mongoTemplate).insert(List.of(SolicitudHistorial.de("s1", evento)), SolicitudHistorial.class);
+    }
+
+    @Test
+    void actualizarShouldNotArchiveWhenPreconditionFails() {
+        Optional<Solicitud> result = repository.actualizar("s1", List.of(SolicitudEstado.PENDIENTE), new Update(),
+                SolicitudHistorialEntry.builder().accion("ACTUALIZADA").build(), 20);
+
+        assertThat(result).isEmpty();
+        verify(mongoTemplate, never()).insert(any(List.class), eq(SolicitudHistorial.class));
+    }
+
+    @Test
+    void actualizarShouldArchiveLegacyHistorialBeforeBoundingIt() {
+        List<SolicitudHistorialEntry> legado = eventos(25);
+        Solicitud actualizada = Solicitud.builder().id("s1").historial(legado).build();
+        // La variante acotada no coincide porque el historial no está archivado
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class),
+                eq(Solicitud.class))).thenReturn(null, actualizada);
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, SolicitudHistorial.class))
+                .thenReturn(historialBulk);
+        when(historialBulk.insert(any(List.class))).thenReturn(historialBulk);
+        when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(Solicitud.class)))
+                .thenReturn(UpdateResult.acknowledged(1, 1L, null));
+
+        Optional<Solicitud> result = repository.actualizar("s1", List.of(SolicitudEstado.PENDIENTE),
+                new Update().set("estado", SolicitudEstado.APROBADA), legado.get(24), 20);
+
+        assertThat(result).contains(actualizada);
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate, times(2)).findAndModify(any(Query.class), update.capture(),
+                any(FindAndModifyOptions.class), eq(Solicitud.class));
+        assertThat(modificadores((Document) update.getAllValues().get(1).getUpdateObject().get("$push"), "historial"))
+                .doesNotContainKey("$slice");
+        ArgumentCaptor<List<SolicitudHistorial>> archivados = ArgumentCaptor.forClass(List.class);
+        verify(historialBulk).insert(archivados.capture());
+        assertThat(archivados.getValue()).hasSize(25);
+        assertThat(archivados.getValue().get(0).getId()).isEqualTo("s1:0");
+        assertThat(archivados.getValue().get(0).getAccion()).isEqualTo("EVENTO-0");
+        assertThat(archivados.getValue().get(24).getId()).isEqualTo("s1:24");
+        ArgumentCaptor<Query> marca = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).updateFirst(marca.capture(),
+                eq(new Update().set("historialArchivado", true)), eq(Solicitud.class));
+        assertThat(marca.getValue().getQueryObject()).isEqualTo(new Document("id", "s1")
+                .append("historialArchivado", new Document("$ne", true))
+                .append("historial", new Document("$size", 25)));
+        verify(mongoTemplate, never()).insert(any(List.class), eq(SolicitudHistorial.class));
+    }
+
+    @Test
+    void archivarHistorialEmbebidoShouldNotMarkWhenArchiveFails() {
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, SolicitudHistorial.class))
+                .thenReturn(historialBulk);
+        when(historialBulk.insert(any(List.class))).thenReturn(historialBulk);
+        when(historialBulk.execute()).thenThrow(new DataAccessResourceFailureException("sin conexión"));
+
+        boolean archivado = repository.archivarHistorialEmbebido(
+                Solicitud.builder().id("s1").historial(eventos(25)).build());
+
+        assertThat(archivado).isFalse();
+        verify(mongoTemplate, never()).updateFirst(any(Query.class), any(Update.class), eq(Solicitud.class));
+    }
+
+    @Test
+    void aplicarCambiosEstadoShouldArchiveLegacyHistorialInsteadOfEvent() {
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Solicitud.class)).thenReturn(bulkOperations);
+        when(bulkOperations.execute()).thenReturn(BulkWriteResult.acknowledged(0, 2, 0, 2, List.of(), List.of()));
+        List<SolicitudHistorialEntry> legado = eventos(30);
+        when(mongoTemplate.find(any(Query.class), eq(Solicitud.class)))
+                .thenReturn(List.of(Solicitud.builder().id("s1").historial(legado).build()));
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, SolicitudHistorial.class))
+                .thenReturn(historialBulk);
+        when(historialBulk.insert(any(List.class))).thenReturn(historialBulk);
+        when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(Solicitud.class)))
+                .thenReturn(UpdateResult.acknowledged(1, 1L, null));
+        Instant fecha = Instant.parse("2024-01-10T12:00:00Z");
+        SolicitudHistorialEntry evento = SolicitudHistorialEntry.builder().fecha(fecha).accion("ESTADO:APROBADA").build();
+
+        repository.aplicarCambiosEstado(List.of(
+                new CambioEstado("s1", SolicitudEstado.PENDIENTE, SolicitudEstado.APROBADA, fecha, evento, true),
+                new CambioEstado("s2", SolicitudEstado.PENDIENTE, SolicitudEstado.APROBADA, fecha, evento, true)), 20);
+
+        ArgumentCaptor<List<SolicitudHistorial>> legadoArchivado = ArgumentCaptor.forClass(List.class);
+        verify(historialBulk).insert(legadoArchivado.capture());
+        assertThat(legadoArchivado.getValue()).hasSize(30)
+                .allSatisfy(registro -> assertThat(registro.getSolicitudId()).isEqualTo("s1"));
+        ArgumentCaptor<List<SolicitudHistorial>> eventos = ArgumentCaptor.forClass(List.class);
+        verify(mongoTemplate).insert(eventos.capture(), eq(SolicitudHistorial.class));
+        assertThat(eventos.getValue()).extracting(SolicitudHistorial::getSolicitudId).containsExactly("s2");
+    }
+
+    @Test
+    void aplicarCambiosEstadoShouldKeepAssignmentWhenStayingInQueue() {
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Solicitud.class)).thenReturn(bulkOperations);
+        when(bulkOperations.execute()).thenReturn(BulkWriteResult.acknowledged(0, 1, 0, 1, List.of(), List.of()));
+        Instant fecha = Instant.parse("2024-01-10T12:00:00Z");
+        SolicitudHistorialEntry evento = SolicitudHistorialEntry.builder().fecha(fecha).accion("ESTADO:EN_REVISION").build();
+
+        repository.aplicarCambiosEstado(List.of(new CambioEstado("s1", SolicitudEstado.PENDIENTE,
+                SolicitudEstado.EN_REVISION, fecha, evento, false)), 20);
+
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        verify(bulkOperations, times(2)).updateOne(any(Query.class), update.capture());
+        assertThat(update.getAllValues()).allSatisfy(cambio ->
+                assertThat(cambio.getUpdateObject()).doesNotContainKey("$unset"));
+    }
+
+    @Test
+    void aplicarCambiosEstadoShouldSkipRoundTripWhenEmpty() {
+        assertThat(repository.aplicarCambiosEstado(List.of(), 20)).isEmpty();
+        verify(mongoTemplate, never()).bulkOps(any(BulkOperations.BulkMode.class), eq(Solicitud.class));
+    }
+
+    @Test
+    void reclamarSiguienteShouldTakeHighestPriorityWithoutActiveAssignment() {
+        Instant ahora = Instant.parse("2024-01-10T12:00:00Z");
+        Instant vence = Instant.parse("2024-01-10T12:10:00Z");
+        Solicitud asignada = Solicitud.builder().id("s1").revisorAsignado("coord@test.edu").build();
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class),
+                eq(Solicitud.class))).thenReturn(asignada);
+
+        Optional<Solicitud> result = repository.reclamarSiguiente(
+                List.of(SolicitudEstado.PENDIENTE, SolicitudEstado.EN_REVISION), "coord@test.edu", ahora, vence);
+
+        assertThat(result).contains(asignada);
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        ArgumentCaptor<FindAndModifyOptions> options = ArgumentCaptor.forClass(FindAndModifyOptions.class);
+        verify(mongoTemplate).findAndModify(query.capture(), update.capture(), options.capture(), eq(Solicitud.class));
+        assertThat(query.getValue().getQueryObject()).isEqualTo(new Document("estado",
+                new Document("$in", List.of(SolicitudEstado.PENDIENTE, SolicitudEstado.EN_REVISION)))
+                .append("$or", List.of(new Document("asignacionVence", null),
+                        new Document("asignacionVence", new Document("$lte", ahora)))));
+        assertThat(query.getValue().getSortObject()).isEqualTo(new Document("prioridad", 1).append("fechaSolicitud", 1));
+        assertThat(query.getValue().getFieldsObject()).isEqualTo(new Document("historial", 0));
+        assertThat(update.getValue().getUpdateObject()).isEqualTo(new Document("$set",
+                new Document("revisorAsignado", "coord@test.edu").append("asignacionVence", vence)));
+        assertThat(options.getValue().isReturnNew()).isTrue();
+    }
+
+    @Test
+    void renovarAsignacionShouldRequireSameRevisorAndActiveAssignment() {
+        Instant ahora = Instant.parse("2024-01-10T12:05:00Z");
+        Instant vence = Instant.parse("2024-01-10T12:15:00Z");
+
+        Optional<Solicitud> result = repository.renovarAsignacion("s1", "coord@test.edu", ahora, vence);
+
+        assertThat(result).isEmpty();
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate).findAndModify(query.capture(), update.capture(), any(FindAndModifyOptions.class),
+                eq(Solicitud.class));
+        assertThat(query.getValue().getQueryObject()).isEqualTo(new Document("id", "s1")
+                .append("revisorAsignado", "coord@test.edu")
+                .append("asignacionVence", new Document("$gt", ahora)));
+        assertThat(update.getValue().getUpdateObject())
+                .isEqualTo(new Document("$set", new Document("asignacionVence", vence)));
+    }
+
+    @Test
+    void liberarAsignacionShouldUnsetOnlyForOwner() {
+        when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(Solicitud.class)))
+                .thenReturn(UpdateResult.acknowledged(1, 1L, null));
+
+        assertThat(repository.liberarAsignacion("s1", "coord@test.edu")).isTrue();
+
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate).updateFirst(query.capture(), update.capture(), eq(Solicitud.class));
+        assertThat(query.getValue().getQueryObject())
+                .isEqualTo(new Document("id", "s1").append("revisorAsignado", "coord@test.edu"));
+        assertThat(update.getValue().getUpdateObject()).isEqualTo(new Document("$unset",
+                new Document("revisorAsignado", 1).append("asignacionVence", 1)));
+    }
+
+    @Test
+    void buscarPlazosShouldProjectOnlyIdAndDeadline() {
+        Instant hasta = Instant.parse("2024-01-11T12:00:00Z");
+
+        repository.buscarPlazos(List.of(SolicitudEstado.PENDIENTE), hasta);
+
+        Query query = capturarQuery();
+        assertThat(query.getQueryObject()).isEqualTo(new Document("estado",
+                new Document("$in", List.of(SolicitudEstado.PENDIENTE)))
+                .append("fechaLimiteRespuesta", new Document("$lt", hasta))
+                .append("vencida", new Document("$ne", true)));
+        assertThat(query.getFieldsObject()).isEqualTo(new Document("id", 1).append("fechaLimiteRespuesta", 1));
+    }
+
+    @Test
+    void marcarVencidasShouldFlagOnlyDueCandidatesAndArchiveEvent() {
+        Instant ahora = Instant.parse("2024-01-10T12:00:00Z");
+        SolicitudHistorialEntry evento = SolicitudHistorialEntry.builder().accion("PLAZO_VENCIDO").build();
+        when(mongoTemplate.find(argThat(query -> !query.getQueryObject().containsKey("historialArchivado")),
+                eq(Solicitud.class))).thenReturn(List.of(Solicitud.builder().id("s1").build()));
+        when(mongoTemplate.updateMulti(any(Query.class), any(Update.class), eq(Solicitud.class)))
+                .thenReturn(UpdateResult.acknowledged(1, 1L, null), UpdateResult.acknowledged(0, 0L, null));
+
+        Set<String> marcadas = repository.marcarVencidas(List.of("s1", "s2"), List.of(SolicitudEstado.PENDIENTE),
+                ahora, evento, 20);
+
+        assertThat(marcadas).containsExactly("s1");
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate, times(2)).updateMulti(query.capture(), update.capture(), eq(Solicitud.class));
+        Document filtro = query.getAllValues().get(0).getQueryObject();
+        assertThat((Collection<Object>) ((Document) filtro.get("id")).get("$in")).containsExactly("s1");
+        assertThat(filtro.get("historialArchivado")).isEqualTo(true);
+        assertThat(query.getAllValues().get(1).getQueryObject().get("historialArchivado"))
+                .isEqualTo(new Document("$ne", true));
+        assertThat(filtro.get("$and")).isEqualTo(List.of(new Document("estado",
+                new Document("$in", List.of(SolicitudEstado.PENDIENTE)))
+                .append("fechaLimiteRespuesta", new Document("$lte", ahora))
+                .append("vencida", new Document("$ne", true))));
+        Document cambios = update.getAllValues().get(0).getUpdateObject();
+        assertThat((Document) cambios.get("$set")).containsEntry("vencida", true).containsEntry("fechaActualizacion", ahora);
+        assertThat(modificadores((Document) cambios.get("$push"), "historial"))
+                .containsEntry("$each", List.of(evento)).containsEntry("$slice", -20);
+        verify(mongoTemplate).insert(List.of(SolicitudHistorial.de("s1", evento)), SolicitudHistorial.class);
+    }
+
+    @Test
+    void marcarVencidasShouldArchiveOnlyIdsActuallyUpdated() {
+        Instant ahora = Instant.parse("2024-01-10T12:00:00Z");
+        SolicitudHistorialEntry evento = SolicitudHistorialEntry.builder().accion("PLAZO_VENCIDO").build();
+        when(mongoTemplate.find(any(Query.class), eq(Solicitud.class))).thenReturn(
+                List.of(Solicitud.builder().id("s1").build(), Solicitud.builder().id("s2").build()),
+                List.of(Solicitud.builder().id("s2").build()),
+                List.of());
+        // s1 se resolvió entre la consulta y la actualización
+        when(mongoTemplate.updateMulti(any(Query.class), any(Update.class), eq(Solicitud.class)))
+                .thenReturn(UpdateResult.acknowledged(1, 1L, null), UpdateResult.acknowledged(0, 0L, null));
+
+        Set<String> marcadas = repository.marcarVencidas(List.of("s1", "s2"), List.of(SolicitudEstado.PENDIENTE),
+                ahora, evento, 20);
+
+        assertThat(marcadas).containsExactly("s2");
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate, times(3)).find(query.capture(), eq(Solicitud.class));
+        assertThat(query.getAllValues().get(1).getQueryObject())
+                .containsEntry("vencida", true).containsEntry("fechaActualizacion", ahora);
+        verify(mongoTemplate).insert(List.of(SolicitudHistorial.de("s2", evento)), SolicitudHistorial.class);
+    }
+
+    @Test
+    void marcarVencidasShouldSkipUpdateWhenNoCandidateIsDue() {
+        assertThat(repository.marcarVencidas(List.of("s1"), List.of(SolicitudEstado.PENDIENTE),
+                Instant.parse("2024-01-10T12:00:00Z"), SolicitudHistorialEntry.builder().build(), 20)).isEmpty();
+
+        verify(mongoTemplate, never()).updateMulti(any(Query.class), any(Update.class), eq(Solicitud.class));
+    }
+
+    private static Map<String, Object> modificadores(Document push, String campo) {
+        Map<String, Object> valores = new HashMap<>();
+        ((Update.Modifiers) push.get(campo)).getModifiers().forEach(modificador -> valores.put(modificador.getKey(),
+                modificador.getValue() instanceof Object[] arreglo ? List.of(arreglo) : modificador.getValue()));
+        return valores;
+    }
+
+    private static List<SolicitudHistorialEntry> eventos(int cantidad) {
+        List<SolicitudHistorialEntry> eventos = new ArrayList<>();
+        for (int i = 0; i < cantidad; i++) {
+            eventos.add(SolicitudHistorialEntry.builder()
+                    .fecha(Instant.parse("2024-01-01T00:00:00Z").plusSeconds(i))
+                    .accion("EVENTO-" + i)
+                    .build());
+        }
+        return eventos;
+    }
+
+    private Query capturarQuery() {
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).find(query.capture(), eq(Solicitud.class));
+        return query.getValue();
+    }
+}
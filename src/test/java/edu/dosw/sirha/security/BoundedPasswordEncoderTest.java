@@ -0,0 +1,127 @@
+package edu.dosw.sirha.security;
+
+import edu.dosw.sirha.exception.TooManyRequestsException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Pruebas unitarias para {@link BoundedPasswordEncoder}.
+ * 
+ * <p>Verifica la delegación al encoder real, el rechazo inmediato cuando la cola
+ * está llena, el rechazo por espera máxima y el registro de métricas.</p>
+ */
+class BoundedPasswordEncoderTest {
+
+    private final CountDownLatch release = new CountDownLatch(1);
+    private final ExecutorService callers = Executors.newCachedThreadPool();
+    private BoundedPasswordEncoder encoder;
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        callers.shutdownNow();
+        if (encoder != null) {
+            encoder.shutdown();
+        }
+    }
+
+    @Test
+    void shouldDelegateEncodeAndMatches() {
+        encoder = new BoundedPasswordEncoder(new PlainEncoder(null), properties(1, 4, Duration.ofSeconds(5)));
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        encoder.bindTo(registry);
+
+        String hash = encoder.encode("secret");
+
+        assertThat(hash).isEqualTo("{plain}secret");
+        assertThat(encoder.matches("secret", hash)).isTrue();
+        assertThat(registry.get("sirha.password.hash.time").tag("operation", "encode").timer().count()).isEqualTo(1);
+        assertThat(registry.get("sirha.password.hash.time").tag("operation", "matches").timer().count()).isEqualTo(1);
+        assertThat(registry.get("sirha.password.hash.wait").timer().count()).isEqualTo(2);
+    }
+
+    @Test
+    void shouldRejectWhenQueueIsFull() throws Exception {
+        encoder = new BoundedPasswordEncoder(new PlainEncoder(release), properties(1, 1, Duration.ofSeconds(5)));
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        encoder.bindTo(registry);
+
+        callers.submit(() -> encoder.encode("running"));
+        callers.submit(() -> encoder.encode("queued"));
+        waitUntil(() -> registry.get("sirha.password.hash.queue").gauge().value() == 1.0);
+
+        assertThatThrownBy(() -> encoder.encode("rejected"))
+                .isInstanceOf(TooManyRequestsException.class)
+                .extracting("retryAfterSeconds").isEqualTo(2L);
+        assertThat(registry.get("sirha.password.hash.rejected").counter().count()).isEqualTo(1.0);
+    }
+
+    @Test
+    void shouldRejectWhenMaxWaitElapses() {
+        encoder = new BoundedPasswordEncoder(new PlainEncoder(release), properties(1, 4, Duration.ofMillis(50)));
+
+        assertThatThrownBy(() -> encoder.matches("secret", "{plain}secret"))
+                .isInstanceOf(TooManyRequestsException.class);
+    }
+
+    private PasswordHashingProperties properties(int threads, int queueCapacity, Duration maxWait) {
+        PasswordHashingProperties properties = new PasswordHashingProperties();
+        properties.setThreads(threads);
+        properties.setQueueCapacity(queueCapacity);
+        properties.setMaxWait(maxWait);
+        return properties;
+    }
+
+    private void waitUntil(java.util.function.BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            assertThat(System.nanoTime()).isLessThan(deadline);
+            Thread.sleep(10);
+        }
+    }
+
+    /**
+     * Encoder trivial que opcionalmente se bloquea hasta que se libere el latch.
+     */
+    private static final class PlainEncoder implements PasswordEncoder {
+
+        private final CountDownLatch gate;
+
+        private PlainEncoder(CountDownLatch gate) {
+            this.gate = gate;
+        }
+
+        @Override
+        public String encode(CharSequence rawPassword) {
+            await();
+            return "{plain}" + rawPassword;
+        }
+
+        @Override
+        public boolean matches(CharSequence rawPassword, String encodedPassword) {
+            await();
+            return encode(rawPassword).equals(encodedPassword);
+        }
+
+        private void await() {
+            if (gate != null) {
+                try {
+                    gate.await();
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package edu.dosw.sirha.security;
+
+import edu.dosw.sirha.exception.ResourceNotFoundException;
+import edu.dosw.sirha.model.User;
+import edu.dosw.sirha.model.enums.Rol;
+import edu.dosw.sirha.repository.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Pruebas unitarias para {@link CachingUserDetailsService}.
+ * 
+ * <p>Verifica que los usuarios se lean de MongoDB una sola vez mientras estén en
+ * caché, que la invalidación explícita fuerce una nueva lectura y que se expongan
+ * las métricas de aciertos y fallos.</p>
+ */
+@ExtendWith(MockitoExtension.class)
+class CachingUserDetailsServiceTest {
+
+    private static final String EMAIL = "docente@escuelaing.edu.co";
+
+    @Mock
+    private UserRepository userRepository;
+
+    private CachingUserDetailsService service;
+
+    @BeforeEach
+    void setUp() {
+        service = new CachingUserDetailsService(userRepository, new UserCacheProperties());
+    }
+
+    @Test
+    void loadShouldHitRepositoryOnlyOnceWhileCached() {
+        when(userRepository.findByEmail(EMAIL)).thenReturn(Optional.of(user()));
+
+        UserPrincipal first = service.loadUserByUsername(EMAIL);
+        UserPrincipal second = service.loadUserByUsername(EMAIL);
+
+        assertThat(second).isSameAs(first);
+        verify(userRepository, times(1)).findByEmail(EMAIL);
+    }
+
+    @Test
+    void invalidateShouldForceReload() {
+        when(userRepository.findByEmail(EMAIL)).thenReturn(Optional.of(user()));
+
+        service.loadUserByUsername(EMAIL);
+        service.invalidate(EMAIL);
+        service.loadUserByUsername(EMAIL);
+
+        verify(userRepository, times(2)).findByEmail(EMAIL);
+    }
+
+    @Test
+    void missingUserShouldNotBeCached() {
+        when(userRepository.findByEmail(EMAIL)).thenReturn(Optional.empty());
+
+        assertThatThrownBy(() -> service.loadUserByUsername(EMAIL)).isInstanceOf(ResourceNotFoundException.class);
+        assertThatThrownBy(() -> service.loadUserByUsername(EMAIL)).isInstanceOf(ResourceNotFoundException.class);
+
+        verify(userRepository, times(2)).findByEmail(EMAIL);
+    }
+
+    @Test
+    void bindToShouldRegisterHitAndMissMetrics() {
+        when(userRepository.findByEmail(EMAIL)).thenReturn(Optional.of(user()));
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        service.bindTo(registry);
+
+        service.loadUserByUsername(EMAIL);
+        service.loadUserByUsername(EMAIL);
+
+        assertThat(registry.get("cache.gets").tag("cache", CachingUserDetailsService.CACHE_NAME)
+                .tag("result", "hit").functionCounter().count()).isEqualTo(1.0);
+        assertThat(registry.get("cache.gets").tag("cache", CachingUserDetailsService.CACHE_NAME)
+                .tag("result", "miss").functionCounter().count()).isEqualTo(1.0);
+    }
+
+    private User user() {
+        return User.builder()
+                .id("user-1")
+                .email(EMAIL)
+                .passwordHash("hash")
+                .rol(Rol.DOCENTE)
+                .activo(true)
+                .build();
+    }
+}
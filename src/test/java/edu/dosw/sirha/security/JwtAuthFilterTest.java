@@ -13,6 +13,7 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.mock.web.MockHttpServletRequest;
 import org.springframework.mock.web.MockHttpServletResponse;
 import org.springframework.security.core.context.SecurityContextHolder;
+import edu.dosw.sirha.model.enums.Rol;
 import org.springframework.security.core.userdetails.User;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
@@ -25,6 +26,7 @@ import java.time.ZoneOffset;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -42,6 +44,8 @@ import static org.mockito.Mockito.when;
  *   <li><strong>Token inválido:</strong> rechazo y limpieza de contexto</li>
  *   <li><strong>Token expirado:</strong> manejo de ExpiredJwtException</li>
  *   <li><strong>Header Authorization:</strong> extracción correcta con prefijo "Bearer "</li>
+ *   <li><strong>Claims de usuario:</strong> principal construido sin consultar UserDetailsService</li>
+ *   <li><strong>Versión revocada:</strong> el token no autentica</li>
  * </ul>
  * 
  * @see JwtAuthFilter
@@ -54,6 +58,12 @@ class JwtAuthFilterTest {
     @Mock
     private UserDetailsService userDetailsService;
 
+    @Mock
+    private UserSessionRegistry sessionRegistry;
+
+    @Mock
+    private TokenRevocationService revocationService;
+
     @Mock
     private FilterChain filterChain;
 
@@ -68,8 +78,8 @@ class JwtAuthFilterTest {
         properties.setExpirationMinutes(60);
         properties.setSecret("c2lyaGEtdGVzdC1zZWNyZXQtZGV0ZXJtaW5pc3RpYw==");
         Clock clock = Clock.fixed(Instant.parse("2025-10-01T09:00:00Z"), ZoneOffset.UTC);
-        jwtTokenService = new JwtTokenService(properties, clock);
-        jwtAuthFilter = new JwtAuthFilter(jwtTokenService, userDetailsService);
+        jwtTokenService = new JwtTokenService(properties, new JwtKeyring(properties), clock);
+        jwtAuthFilter = new JwtAuthFilter(jwtTokenService, userDetailsService, sessionRegistry, revocationService);
     }
 
     @AfterEach
@@ -104,4 +114,57 @@ class JwtAuthFilterTest {
         assertThat(SecurityContextHolder.getContext().getAuthentication().getPrincipal()).isEqualTo(userDetails);
         verify(filterChain).doFilter(any(HttpServletRequest.class), any(HttpServletResponse.class));
     }
+
+    @Test
+    void shouldBuildPrincipalFromClaimsWithoutLoadingUser() throws ServletException, IOException {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        String token = jwtTokenService.generateToken(new UserPrincipal(domainUser(0)));
+        request.addHeader("Authorization", "Bearer " + token);
+
+        jwtAuthFilter.doFilter(request, new MockHttpServletResponse(), filterChain);
+
+        assertThat(SecurityContextHolder.getContext().getAuthentication()).isNotNull();
+        UserPrincipal principal = (UserPrincipal) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
+        assertThat(principal.getUser().getId()).isEqualTo("user-1");
+        assertThat(principal.getUser().getRol()).isEqualTo(Rol.COORDINADOR);
+        assertThat(principal.getAuthorities()).extracting("authority").containsExactly("ROLE_COORDINADOR");
+        verify(userDetailsService, never()).loadUserByUsername(any());
+    }
+
+    @Test
+    void shouldNotAuthenticateWhenTokenVersionRevoked() throws ServletException, IOException {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        String token = jwtTokenService.generateToken(new UserPrincipal(domainUser(1)));
+        request.addHeader("Authorization", "Bearer " + token);
+        when(sessionRegistry.isRevoked("user-1", 1)).thenReturn(true);
+
+        jwtAuthFilter.doFilter(request, new MockHttpServletResponse(), filterChain);
+
+        assertThat(SecurityContextHolder.getContext().getAuthentication()).isNull();
+        verify(filterChain).doFilter(any(HttpServletRequest.class), any(HttpServletResponse.class));
+    }
+
+    @Test
+    void shouldNotAuthenticateWhenTokenLoggedOut() throws ServletException, IOException {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        String token = jwtTokenService.generateToken(new UserPrincipal(domainUser(0)));
+        request.addHeader("Authorization", "Bearer " + token);
+        when(revocationService.isRevoked(jwtTokenService.verify(token).jti())).thenReturn(true);
+
+        jwtAuthFilter.doFilter(request, new MockHttpServletResponse(), filterChain);
+
+        assertThat(SecurityContextHolder.getContext().getAuthentication()).isNull();
+        verify(filterChain).doFilter(any(HttpServletRequest.class), any(HttpServletResponse.class));
+    }
+
+    private edu.dosw.sirha.model.User domainUser(int tokenVersion) {
+        return edu.dosw.sirha.model.User.builder()
+                .id("user-1")
+                .email("coord@escuelaing.edu.co")
+                .passwordHash("hash")
+                .rol(Rol.COORDINADOR)
+                .activo(true)
+                .tokenVersion(tokenVersion)
+                .build();
+    }
 }
@@ -0,0 +1,136 @@
+package edu.dosw.sirha.security;
+
+import edu.dosw.sirha.exception.BusinessException;
+import edu.dosw.sirha.exception.ConflictException;
+import edu.dosw.sirha.exception.ResourceNotFoundException;
+import edu.dosw.sirha.model.JwtKeyringEstado;
+import io.jsonwebtoken.io.Encoders;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Pruebas unitarias para {@link JwtKeyStore}.
+ *
+ * <p>Verifica que la primera rotación parta de las claves configuradas, que la
+ * activación quede diferida dos intervalos de recarga, que las réplicas apliquen el
+ * keyring compartido y que la clave que firma no pueda reemplazarse ni retirarse.</p>
+ */
+@ExtendWith(MockitoExtension.class)
+class JwtKeyStoreTest {
+
+    private static final Instant AHORA = Instant.parse("2025-11-02T12:00:00Z");
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    private JwtProperties properties;
+    private JwtKeyring keyring;
+    private JwtKeyStore keyStore;
+
+    @BeforeEach
+    void setUp() {
+        properties = new JwtProperties();
+        properties.setSecret(Encoders.BASE64.encode("01234567890123456789012345678901".getBytes()));
+        Clock clock = Clock.fixed(AHORA, ZoneOffset.UTC);
+        keyring = new JwtKeyring(properties, clock);
+        keyStore = new JwtKeyStore(mongoTemplate, keyring, properties, clock, 30_000);
+    }
+
+    @Test
+    void registrarShouldSeedFromConfigurationAndDeferActivation() {
+        when(mongoTemplate.save(any(JwtKeyringEstado.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        keyStore.registrar("2025-11", "nuevo-secreto", true);
+
+        ArgumentCaptor<JwtKeyringEstado> guardado = ArgumentCaptor.forClass(JwtKeyringEstado.class);
+        verify(mongoTemplate).save(guardado.capture());
+        assertThat(guardado.getValue().getId()).isEqualTo(JwtKeyringEstado.ID);
+        assertThat(guardado.getValue().getClaves()).extracting(JwtKeyringEstado.Clave::getKid)
+                .containsExactly(JwtKeyring.DEFAULT_KID, "2025-11");
+        assertThat(guardado.getValue().getActiveKid()).isEqualTo("2025-11");
+        assertThat(guardado.getValue().getPreviousKid()).isEqualTo(JwtKeyring.DEFAULT_KID);
+        assertThat(guardado.getValue().getActiveFrom()).isEqualTo(AHORA.plusSeconds(60));
+
+        assertThat(keyring.activeKid()).isEqualTo(JwtKeyring.DEFAULT_KID);
+        assertThat(keyring.pendingKid()).isEqualTo("2025-11");
+        assertThat(keyring.kids()).containsExactly(JwtKeyring.DEFAULT_KID, "2025-11");
+    }
+
+    @Test
+    void recargarShouldApplySharedStateOncePerVersion() {
+        JwtKeyringEstado estado = estado(3L, "k2", null, null);
+        when(mongoTemplate.findById(JwtKeyringEstado.ID, JwtKeyringEstado.class)).thenReturn(estado);
+
+        keyStore.recargar();
+        keyStore.recargar();
+
+        assertThat(keyring.activeKid()).isEqualTo("k2");
+        assertThat(keyring.kids()).containsExactly("k1", "k2");
+    }
+
+    @Test
+    void signingKeysShouldNotBeReplacedOrRetired() {
+        when(mongoTemplate.findById(JwtKeyringEstado.ID, JwtKeyringEstado.class))
+                .thenAnswer(invocation -> estado(3L, "k2", "k1", AHORA.plusSeconds(30)));
+
+        assertThatThrownBy(() -> keyStore.registrar("k2", "otro", false)).isInstanceOf(BusinessException.class);
+        // k1 sigue firmando mientras la activación de k2 está pendiente
+        assertThatThrownBy(() -> keyStore.retirar("k1")).isInstanceOf(BusinessException.class);
+        assertThatThrownBy(() -> keyStore.activar("desconocido")).isInstanceOf(ResourceNotFoundException.class);
+        verify(mongoTemplate, never()).save(any(JwtKeyringEstado.class));
+    }
+
+    @Test
+    void retirarShouldClearPreviousKidOnceActivationApplied() {
+        when(mongoTemplate.findById(JwtKeyringEstado.ID, JwtKeyringEstado.class))
+                .thenReturn(estado(3L, "k2", "k1", AHORA.minusSeconds(30)));
+        when(mongoTemplate.save(any(JwtKeyringEstado.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        keyStore.retirar("k1");
+
+        assertThat(keyring.kids()).containsExactly("k2");
+        assertThat(keyring.activeKid()).isEqualTo("k2");
+    }
+
+    @Test
+    void concurrentRotationShouldBeReportedAsConflict() {
+        when(mongoTemplate.findById(JwtKeyringEstado.ID, JwtKeyringEstado.class))
+                .thenReturn(estado(3L, "k2", null, null));
+        when(mongoTemplate.save(any(JwtKeyringEstado.class)))
+                .thenThrow(new OptimisticLockingFailureException("version"));
+
+        assertThatThrownBy(() -> keyStore.activar("k1")).isInstanceOf(ConflictException.class);
+        assertThat(keyring.kids()).containsExactly(JwtKeyring.DEFAULT_KID);
+    }
+
+    private static JwtKeyringEstado estado(Long version, String activeKid, String previousKid, Instant activeFrom) {
+        return JwtKeyringEstado.builder()
+                .id(JwtKeyringEstado.ID)
+                .claves(new ArrayList<>(List.of(new JwtKeyringEstado.Clave("k1", "secreto-uno"),
+                        new JwtKeyringEstado.Clave("k2", "secreto-dos"))))
+                .activeKid(activeKid)
+                .previousKid(previousKid)
+                .activeFrom(activeFrom)
+                .version(version)
+                .build();
+    }
+}
@@ -0,0 +1,123 @@
+package edu.dosw.sirha.security;
+
+import io.jsonwebtoken.io.Encoders;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Suite de pruebas unitarias para {@link JwtKeyring}.
+ * 
+ * <p><strong>Casos de prueba cubiertos:</strong></p>
+ * <ul>
+ *   <li>Keyring con un único secret usa el kid por defecto</li>
+ *   <li>Claves configuradas explícitamente con kid activo</li>
+ *   <li>Aplicación del keyring compartido con activación diferida</li>
+ *   <li>Rechazo de un keyring compartido sin la clave que firma</li>
+ * </ul>
+ * 
+ * @see JwtKeyring
+ */
+class JwtKeyringTest {
+
+    private JwtProperties properties;
+
+    @BeforeEach
+    void setUp() {
+        properties = new JwtProperties();
+        properties.setSecret(Encoders.BASE64.encode("01234567890123456789012345678901".getBytes()));
+    }
+
+    @Test
+    void singleSecretShouldBeRegisteredUnderDefaultKid() {
+        JwtKeyring keyring = new JwtKeyring(properties);
+
+        assertThat(keyring.activeKid()).isEqualTo(JwtKeyring.DEFAULT_KID);
+        assertThat(keyring.kids()).containsExactly(JwtKeyring.DEFAULT_KID);
+        assertThat(keyring.resolve(null)).isSameAs(keyring.activeKey());
+    }
+
+    @Test
+    void configuredKeysShouldHonorActiveKid() {
+        properties.setKeys(List.of(signingKey("k1", "primer-secreto"), signingKey("k2", "segundo-secreto")));
+        properties.setActiveKid("k2");
+
+        JwtKeyring keyring = new JwtKeyring(properties);
+
+        assertThat(keyring.activeKid()).isEqualTo("k2");
+        assertThat(keyring.kids()).containsExactly("k1", "k2");
+        assertThat(keyring.resolve("k1")).isNotEqualTo(keyring.resolve("k2"));
+    }
+
+    @Test
+    void unknownActiveKidShouldFailFast() {
+        properties.setActiveKid("inexistente");
+
+        assertThatThrownBy(() -> new JwtKeyring(properties))
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void aplicarShouldKeepSigningWithPreviousKeyUntilActivation() {
+        Instant ahora = Instant.parse("2025-11-02T12:00:00Z");
+        AtomicReference<Instant> reloj = new AtomicReference<>(ahora);
+        JwtKeyring keyring = new JwtKeyring(properties, new Clock() {
+            @Override
+            public ZoneId getZone() {
+                return ZoneOffset.UTC;
+            }
+
+            @Override
+            public Clock withZone(ZoneId zone) {
+                return this;
+            }
+
+            @Override
+            public Instant instant() {
+                return reloj.get();
+            }
+        });
+        Map<String, String> secrets = new LinkedHashMap<>();
+        secrets.put(JwtKeyring.DEFAULT_KID, properties.getSecret());
+        secrets.put("2025-11", "nuevo-secreto-de-rotacion");
+
+        keyring.aplicar(secrets, "2025-11", JwtKeyring.DEFAULT_KID, ahora.plusSeconds(60));
+
+        assertThat(keyring.activeKid()).isEqualTo(JwtKeyring.DEFAULT_KID);
+        assertThat(keyring.pendingKid()).isEqualTo("2025-11");
+        assertThat(keyring.contains("2025-11")).isTrue();
+
+        reloj.set(ahora.plusSeconds(60));
+
+        assertThat(keyring.activeKid()).isEqualTo("2025-11");
+        assertThat(keyring.activeKey()).isSameAs(keyring.resolve("2025-11"));
+        assertThat(keyring.pendingKid()).isNull();
+    }
+
+    @Test
+    void aplicarShouldRejectSigningKidWithoutKey() {
+        JwtKeyring keyring = new JwtKeyring(properties);
+
+        assertThatThrownBy(() -> keyring.aplicar(Map.of("k1", "secreto"), "k2", null, null))
+                .isInstanceOf(IllegalStateException.class);
+        assertThat(keyring.activeKid()).isEqualTo(JwtKeyring.DEFAULT_KID);
+    }
+
+    private JwtProperties.SigningKey signingKey(String kid, String secret) {
+        JwtProperties.SigningKey key = new JwtProperties.SigningKey();
+        key.setKid(kid);
+        key.setSecret(secret);
+        return key;
+    }
+}
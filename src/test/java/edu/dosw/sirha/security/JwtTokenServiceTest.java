@@ -1,6 +1,7 @@
 package edu.dosw.sirha.security;
 
 import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtException;
 import io.jsonwebtoken.io.Encoders;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -9,8 +10,11 @@ import org.springframework.security.core.userdetails.UserDetails;
 
 import java.time.Clock;
 import java.time.Instant;
+import java.time.ZoneId;
 import java.time.ZoneOffset;
 import java.time.temporal.ChronoUnit;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
@@ -69,7 +73,7 @@ class JwtTokenServiceTest {
     void generateTokenShouldBeValidForUser() {
         Instant now = Instant.now().truncatedTo(ChronoUnit.SECONDS);
         Clock clock = Clock.fixed(now, ZoneOffset.UTC);
-        JwtTokenService tokenService = new JwtTokenService(properties, clock);
+        JwtTokenService tokenService = new JwtTokenService(properties, new JwtKeyring(properties), clock);
         UserDetails userDetails = buildUser();
 
         String token = tokenService.generateToken(userDetails);
@@ -84,11 +88,11 @@ class JwtTokenServiceTest {
         properties.setExpirationMinutes(1);
         Instant issuedAt = Instant.now().minus(10, ChronoUnit.MINUTES);
         Clock initialClock = Clock.fixed(issuedAt, ZoneOffset.UTC);
-        JwtTokenService tokenService = new JwtTokenService(properties, initialClock);
+        JwtTokenService tokenService = new JwtTokenService(properties, new JwtKeyring(properties), initialClock);
         UserDetails userDetails = buildUser();
         String token = tokenService.generateToken(userDetails);
 
-        JwtTokenService validationService = new JwtTokenService(properties, Clock.systemUTC());
+        JwtTokenService validationService = new JwtTokenService(properties, new JwtKeyring(properties), Clock.systemUTC());
 
         assertThatThrownBy(() -> validationService.isTokenValid(token, userDetails))
                 .isInstanceOf(ExpiredJwtException.class);
@@ -99,7 +103,7 @@ class JwtTokenServiceTest {
         properties.setSecret("change-me-secret-with-hyphen-");
         Instant now = Instant.now().truncatedTo(ChronoUnit.SECONDS);
         Clock clock = Clock.fixed(now, ZoneOffset.UTC);
-        JwtTokenService tokenService = new JwtTokenService(properties, clock);
+        JwtTokenService tokenService = new JwtTokenService(properties, new JwtKeyring(properties), clock);
         UserDetails userDetails = buildUser();
 
         String token = tokenService.generateToken(userDetails);
@@ -113,7 +117,7 @@ class JwtTokenServiceTest {
         properties.setSecret(" ");
         Instant now = Instant.now().truncatedTo(ChronoUnit.SECONDS);
         Clock clock = Clock.fixed(now, ZoneOffset.UTC);
-        JwtTokenService tokenService = new JwtTokenService(properties, clock);
+        JwtTokenService tokenService = new JwtTokenService(properties, new JwtKeyring(properties), clock);
         UserDetails userDetails = buildUser();
 
         String token = tokenService.generateToken(userDetails);
@@ -122,10 +126,101 @@ class JwtTokenServiceTest {
         assertThat(tokenService.isTokenValid(token, userDetails)).isTrue();
     }
 
+    @Test
+    void verifyShouldReturnClaimsAndReuseCachedResult() {
+        Instant now = Instant.now().truncatedTo(ChronoUnit.SECONDS);
+        Clock clock = Clock.fixed(now, ZoneOffset.UTC);
+        JwtTokenService tokenService = new JwtTokenService(properties, new JwtKeyring(properties), clock);
+        String token = tokenService.generateToken(buildUser());
+
+        VerifiedToken first = tokenService.verify(token);
+        VerifiedToken second = tokenService.verify(token);
+
+        assertThat(first.subject()).isEqualTo(USERNAME);
+        assertThat(first.issuedAt()).isEqualTo(now);
+        assertThat(first.expiresAt()).isEqualTo(now.plus(5, ChronoUnit.MINUTES));
+        assertThat(second).isSameAs(first);
+    }
+
+    @Test
+    void verifyShouldRejectCachedTokenOnceExpired() {
+        Instant now = Instant.now().truncatedTo(ChronoUnit.SECONDS);
+        MutableClock clock = new MutableClock(now);
+        JwtTokenService tokenService = new JwtTokenService(properties, new JwtKeyring(properties), clock);
+        String token = tokenService.generateToken(buildUser());
+        assertThat(tokenService.verify(token).subject()).isEqualTo(USERNAME);
+
+        clock.instant = now.plus(10, ChronoUnit.MINUTES);
+
+        assertThatThrownBy(() -> tokenService.verify(token))
+                .isInstanceOf(ExpiredJwtException.class);
+    }
+
+    @Test
+    void verifyShouldRejectTamperedToken() {
+        Clock clock = Clock.fixed(Instant.now().truncatedTo(ChronoUnit.SECONDS), ZoneOffset.UTC);
+        JwtTokenService tokenService = new JwtTokenService(properties, new JwtKeyring(properties), clock);
+        String token = tokenService.generateToken(buildUser());
+        String tampered = token.substring(0, token.length() - 2) + (token.endsWith("A") ? "BB" : "AA");
+
+        assertThatThrownBy(() -> tokenService.verify(tampered))
+                .isInstanceOf(JwtException.class);
+    }
+
+    @Test
+    void rotatedKeyShouldSignNewTokensAndKeepOldOnesValidUntilRetired() {
+        Clock clock = Clock.fixed(Instant.now().truncatedTo(ChronoUnit.SECONDS), ZoneOffset.UTC);
+        JwtKeyring keyring = new JwtKeyring(properties);
+        JwtTokenService tokenService = new JwtTokenService(properties, keyring, clock);
+        String oldToken = tokenService.generateToken(buildUser());
+
+        Map<String, String> secrets = new LinkedHashMap<>();
+        secrets.put(JwtKeyring.DEFAULT_KID, properties.getSecret());
+        secrets.put("k2", Encoders.BASE64.encode("abcdefghijabcdefghijabcdefghij12".getBytes()));
+        keyring.aplicar(secrets, "k2", null, null);
+        String newToken = tokenService.generateToken(buildUser());
+
+        assertThat(tokenService.verify(oldToken).kid()).isEqualTo(JwtKeyring.DEFAULT_KID);
+        assertThat(tokenService.verify(newToken).kid()).isEqualTo("k2");
+
+        keyring.aplicar(Map.of("k2", secrets.get("k2")), "k2", null, null);
+
+        assertThat(tokenService.verify(newToken).subject()).isEqualTo(USERNAME);
+        assertThatThrownBy(() -> tokenService.verify(oldToken))
+                .isInstanceOf(JwtException.class);
+    }
+
     private UserDetails buildUser() {
         return User.withUsername(USERNAME)
                 .password("password")
                 .authorities("ROLE_USER")
                 .build();
     }
+
+    /**
+     * Reloj mutable para simular el paso del tiempo sobre tokens en caché.
+     */
+    private static final class MutableClock extends Clock {
+
+        private Instant instant;
+
+        private MutableClock(Instant instant) {
+            this.instant = instant;
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return instant;
+        }
+    }
 }
@@ -0,0 +1,177 @@
+package edu.dosw.sirha.security;
+
+import edu.dosw.sirha.exception.TooManyRequestsException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Pruebas unitarias para {@link LoginThrottle}.
+ * 
+ * <p>Verifica el bloqueo por email y por IP, el reinicio al cambiar de ventana y
+ * tras un login exitoso, que los contadores de emails distintos no se mezclen y el
+ * conteo correcto bajo concurrencia.</p>
+ */
+class LoginThrottleTest {
+
+    private static final Instant START = Instant.parse("2025-01-15T12:00:00Z");
+
+    private MutableClock clock;
+    private LoginThrottleProperties properties;
+
+    @BeforeEach
+    void setUp() {
+        clock = new MutableClock(START);
+        properties = new LoginThrottleProperties();
+        properties.setMaxFailuresPerEmail(3);
+        properties.setMaxFailuresPerIp(10);
+        properties.setWindow(Duration.ofMinutes(5));
+    }
+
+    @Test
+    void shouldBlockEmailAfterMaxFailuresWithRetryAfter() {
+        LoginThrottle throttle = new LoginThrottle(properties, clock);
+        LoginThrottle.Attempt attempt = LoginThrottle.Attempt.of("User@Test.com", "10.0.0.1");
+
+        for (int i = 0; i < 3; i++) {
+            throttle.checkAllowed(attempt);
+            throttle.recordFailure(attempt);
+        }
+
+        assertThatThrownBy(() -> throttle.checkAllowed(LoginThrottle.Attempt.of("user@test.com", "10.0.0.2")))
+                .isInstanceOf(TooManyRequestsException.class)
+                .extracting("retryAfterSeconds").isEqualTo(300L);
+    }
+
+    @Test
+    void shouldBlockIpAcrossDifferentEmails() {
+        LoginThrottle throttle = new LoginThrottle(properties, clock);
+
+        for (int i = 0; i < 10; i++) {
+            throttle.recordFailure(LoginThrottle.Attempt.of("user" + i + "@test.com", "10.0.0.1"));
+        }
+
+        assertThatThrownBy(() -> throttle.checkAllowed(LoginThrottle.Attempt.of("otro@test.com", "10.0.0.1")))
+                .isInstanceOf(TooManyRequestsException.class);
+    }
+
+    @Test
+    void shouldAllowAgainInNextWindowOrAfterSuccess() {
+        LoginThrottle throttle = new LoginThrottle(properties, clock);
+        LoginThrottle.Attempt attempt = LoginThrottle.Attempt.of("user@test.com", "10.0.0.1");
+        for (int i = 0; i < 3; i++) {
+            throttle.recordFailure(attempt);
+        }
+
+        clock.advance(Duration.ofMinutes(5));
+        assertThatCode(() -> throttle.checkAllowed(attempt)).doesNotThrowAnyException();
+
+        for (int i = 0; i < 3; i++) {
+            throttle.recordFailure(attempt);
+        }
+        throttle.recordSuccess(attempt);
+        assertThatCode(() -> throttle.checkAllowed(attempt)).doesNotThrowAnyException();
+    }
+
+    @Test
+    void failuresAgainstManyEmailsShouldNotBlockOtherAccounts() {
+        properties.setMaxFailuresPerIp(Integer.MAX_VALUE);
+        LoginThrottle throttle = new LoginThrottle(properties, clock);
+
+        for (int i = 0; i < 20_000; i++) {
+            LoginThrottle.Attempt attempt = LoginThrottle.Attempt.of("victima" + i + "@test.com", "10.0.0.1");
+            for (int j = 0; j < 3; j++) {
+                throttle.recordFailure(attempt);
+            }
+        }
+
+        assertThatCode(() -> throttle.checkAllowed(LoginThrottle.Attempt.of("legitimo@test.com", "10.0.0.9")))
+                .doesNotThrowAnyException();
+        assertThatThrownBy(() -> throttle.checkAllowed(LoginThrottle.Attempt.of("victima7@test.com", "10.0.0.9")))
+                .isInstanceOf(TooManyRequestsException.class);
+    }
+
+    @Test
+    void successShouldOnlyResetItsOwnEmail() {
+        LoginThrottle throttle = new LoginThrottle(properties, clock);
+        LoginThrottle.Attempt atacada = LoginThrottle.Attempt.of("atacada@test.com", "10.0.0.1");
+        for (int i = 0; i < 3; i++) {
+            throttle.recordFailure(atacada);
+        }
+
+        throttle.recordSuccess(LoginThrottle.Attempt.of("otra@test.com", "10.0.0.2"));
+
+        assertThatThrownBy(() -> throttle.checkAllowed(atacada)).isInstanceOf(TooManyRequestsException.class);
+    }
+
+    @Test
+    void shouldCountConcurrentFailuresWithoutLosingUpdates() throws InterruptedException {
+        properties.setMaxFailuresPerEmail(4000);
+        properties.setMaxFailuresPerIp(Integer.MAX_VALUE);
+        LoginThrottle throttle = new LoginThrottle(properties, clock);
+        LoginThrottle.Attempt attempt = LoginThrottle.Attempt.of("user@test.com", "10.0.0.1");
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+
+        for (int i = 0; i < 4000; i++) {
+            pool.submit(() -> throttle.recordFailure(attempt));
+        }
+        pool.shutdown();
+        pool.awaitTermination(10, TimeUnit.SECONDS);
+
+        assertThatThrownBy(() -> throttle.checkAllowed(attempt)).isInstanceOf(TooManyRequestsException.class);
+    }
+
+    @Test
+    void disabledThrottleShouldNeverBlock() {
+        properties.setEnabled(false);
+        LoginThrottle throttle = new LoginThrottle(properties, clock);
+        LoginThrottle.Attempt attempt = LoginThrottle.Attempt.of("user@test.com", "10.0.0.1");
+        for (int i = 0; i < 10; i++) {
+            throttle.recordFailure(attempt);
+        }
+
+        assertThatCode(() -> throttle.checkAllowed(attempt)).doesNotThrowAnyException();
+    }
+
+    /**
+     * Reloj ajustable para simular el paso de las ventanas.
+     */
+    private static final class MutableClock extends Clock {
+
+        private Instant now;
+
+        private MutableClock(Instant now) {
+            this.now = now;
+        }
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
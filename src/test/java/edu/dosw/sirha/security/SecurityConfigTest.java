@@ -79,7 +79,7 @@ class SecurityConfigTest {
                 .build();
     when(userRepository.findByEmail("user@test.com")).thenReturn(Optional.of(user));
 
-        UserDetailsService userDetailsService = securityConfig.userDetailsService(userRepository);
+        UserDetailsService userDetailsService = securityConfig.userDetailsService(userRepository, new UserCacheProperties());
         UserDetails userDetails = userDetailsService.loadUserByUsername("user@test.com");
 
         assertThat(userDetails).isInstanceOf(UserPrincipal.class);
@@ -91,7 +91,7 @@ class SecurityConfigTest {
         UserRepository userRepository = mock(UserRepository.class);
     when(userRepository.findByEmail("missing@test.com")).thenReturn(Optional.empty());
 
-        UserDetailsService userDetailsService = securityConfig.userDetailsService(userRepository);
+        UserDetailsService userDetailsService = securityConfig.userDetailsService(userRepository, new UserCacheProperties());
 
         assertThrows(ResourceNotFoundException.class,
                 () -> userDetailsService.loadUserByUsername("missing@test.com"));
@@ -0,0 +1,125 @@
+package edu.dosw.sirha.security;
+
+import edu.dosw.sirha.model.RevokedToken;
+import edu.dosw.sirha.repository.RevokedTokenRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Pruebas unitarias para {@link TokenRevocationService}.
+ * 
+ * <p>Verifica que el filtro de Bloom evite consultas a MongoDB para tokens no
+ * revocados, que las revocaciones locales sobrevivan a la recarga y que la
+ * recarga incorpore revocaciones de otras réplicas.</p>
+ */
+@ExtendWith(MockitoExtension.class)
+class TokenRevocationServiceTest {
+
+    private static final Instant NOW = Instant.parse("2025-11-02T10:00:00Z");
+
+    @Mock
+    private RevokedTokenRepository revokedTokenRepository;
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    private TokenRevocationService service;
+
+    @BeforeEach
+    void setUp() {
+        service = new TokenRevocationService(revokedTokenRepository, mongoTemplate,
+                new RevocationProperties(), Clock.fixed(NOW, ZoneOffset.UTC));
+    }
+
+    @Test
+    void unknownTokenShouldNotQueryMongo() {
+        assertThat(service.isRevoked("jti-desconocido")).isFalse();
+        assertThat(service.isRevoked(null)).isFalse();
+
+        verify(revokedTokenRepository, never()).existsById(anyString());
+    }
+
+    @Test
+    void revokeShouldPersistUntilTokenExpiration() {
+        service.revoke(token("jti-1"));
+
+        ArgumentCaptor<RevokedToken> captor = ArgumentCaptor.forClass(RevokedToken.class);
+        verify(revokedTokenRepository).save(captor.capture());
+        assertThat(captor.getValue().getJti()).isEqualTo("jti-1");
+        assertThat(captor.getValue().getExpiraEn()).isEqualTo(NOW.plusSeconds(3600));
+        assertThat(service.isRevoked("jti-1")).isTrue();
+    }
+
+    @Test
+    void tokenWithoutJtiShouldBeIgnored() {
+        service.revoke(token(null));
+
+        verify(revokedTokenRepository, never()).save(any());
+    }
+
+    @Test
+    void reloadShouldIncludeRemoteAndLocalRevocations() {
+        service.revoke(token("jti-local"));
+        when(mongoTemplate.find(any(Query.class), eq(RevokedToken.class)))
+                .thenReturn(List.of(RevokedToken.builder().jti("jti-remoto").build()));
+        when(revokedTokenRepository.existsById("jti-remoto")).thenReturn(true);
+
+        service.reload();
+
+        assertThat(service.isRevoked("jti-remoto")).isTrue();
+        assertThat(service.isRevoked("jti-local")).isTrue();
+    }
+
+    @Test
+    void reloadShouldKeepFilterWhenMongoUnavailable() {
+        service.revoke(token("jti-1"));
+        when(mongoTemplate.find(any(Query.class), eq(RevokedToken.class)))
+                .thenThrow(new DataAccessResourceFailureException("sin conexión"));
+
+        service.reload();
+
+        assertThat(service.isRevoked("jti-1")).isTrue();
+    }
+
+    @Test
+    void bloomFilterShouldHaveNoFalseNegatives() {
+        BloomFilter filter = new BloomFilter(1_000, 0.01);
+        for (int i = 0; i < 1_000; i++) {
+            filter.put("jti-" + i);
+        }
+
+        int falsePositives = 0;
+        for (int i = 0; i < 1_000; i++) {
+            assertThat(filter.mightContain("jti-" + i)).isTrue();
+            if (filter.mightContain("otro-" + i)) {
+                falsePositives++;
+            }
+        }
+        assertThat(falsePositives).isLessThan(50);
+    }
+
+    private static VerifiedToken token(String jti) {
+        return new VerifiedToken(jti, "user@escuelaing.edu.co", NOW, NOW.plusSeconds(3600),
+                null, "user-1", "ESTUDIANTE", 0);
+    }
+}
@@ -0,0 +1,106 @@
+package edu.dosw.sirha.security;
+
+import edu.dosw.sirha.model.User;
+import edu.dosw.sirha.model.enums.Rol;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+
+/**
+ * Pruebas unitarias para {@link UserSessionRegistry}.
+ * 
+ * <p>Verifica la revocación por versión de token y por desactivación, y la recarga
+ * periódica desde MongoDB.</p>
+ */
+@ExtendWith(MockitoExtension.class)
+class UserSessionRegistryTest {
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    private UserSessionRegistry registry;
+
+    @BeforeEach
+    void setUp() {
+        registry = new UserSessionRegistry(mongoTemplate);
+    }
+
+    @Test
+    void unknownUserShouldNotBeRevoked() {
+        assertThat(registry.isRevoked("user-1", 0)).isFalse();
+    }
+
+    @Test
+    void olderTokenVersionShouldBeRevoked() {
+        registry.register(user("user-1", 2, true));
+
+        assertThat(registry.isRevoked("user-1", 1)).isTrue();
+        assertThat(registry.isRevoked("user-1", 2)).isFalse();
+    }
+
+    @Test
+    void deactivatedUserShouldBeRevoked() {
+        registry.register(user("user-1", 0, false));
+
+        assertThat(registry.isRevoked("user-1", 0)).isTrue();
+
+        registry.register(user("user-1", 0, true));
+
+        assertThat(registry.isRevoked("user-1", 0)).isFalse();
+    }
+
+    @Test
+    void refreshShouldReplaceTableWithMongoState() {
+        registry.register(user("user-1", 3, true));
+        when(mongoTemplate.find(any(Query.class), eq(User.class)))
+                .thenReturn(List.of(user("user-2", 1, true)));
+
+        registry.refresh();
+
+        assertThat(registry.isRevoked("user-1", 0)).isFalse();
+        assertThat(registry.isRevoked("user-2", 0)).isTrue();
+    }
+
+    @Test
+    void startupShouldLoadTableBeforeFirstScheduledRefresh() {
+        when(mongoTemplate.find(any(Query.class), eq(User.class)))
+                .thenReturn(List.of(user("user-2", 0, false)));
+
+        registry.alIniciar();
+
+        assertThat(registry.isRevoked("user-2", 0)).isTrue();
+    }
+
+    @Test
+    void refreshShouldKeepTableWhenMongoUnavailable() {
+        registry.register(user("user-1", 3, true));
+        when(mongoTemplate.find(any(Query.class), eq(User.class)))
+                .thenThrow(new DataAccessResourceFailureException("down"));
+
+        registry.refresh();
+
+        assertThat(registry.isRevoked("user-1", 2)).isTrue();
+    }
+
+    private User user(String id, int tokenVersion, boolean activo) {
+        return User.builder()
+                .id(id)
+                .email(id + "@escuelaing.edu.co")
+                .rol(Rol.DOCENTE)
+                .activo(activo)
+                .tokenVersion(tokenVersion)
+                .build();
+    }
+}
@@ -0,0 +1,147 @@
+package edu.dosw.sirha.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.dosw.sirha.dto.response.BulkRegisterResponse;
+import edu.dosw.sirha.dto.response.BulkRegisterResponse.Resultado;
+import edu.dosw.sirha.exception.BusinessException;
+import edu.dosw.sirha.model.User;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Pruebas unitarias para {@link BulkRegistrationService}.
+ * 
+ * <p>Verifica la lectura de CSV y NDJSON, la validación por fila (reglas de
+ * {@code RegisterRequest} y dominio de email), la detección de duplicados dentro
+ * del archivo y en base de datos, y la inserción por lotes.</p>
+ */
+@ExtendWith(MockitoExtension.class)
+class BulkRegistrationServiceTest {
+
+    private static final String HEADER = "nombre,email,password,rol,genero";
+
+    @Mock
+    private AuthService authService;
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @Mock
+    private BulkOperations bulkOperations;
+
+    @Mock
+    private PasswordEncoder passwordEncoder;
+
+    private BulkRegistrationService service;
+
+    @BeforeEach
+    void setUp() {
+        Validator validator = Validation.buildDefaultValidatorFactory().getValidator();
+        service = new BulkRegistrationService(authService, mongoTemplate, passwordEncoder, validator,
+                new ObjectMapper(), Clock.fixed(Instant.parse("2025-01-15T12:00:00Z"), ZoneOffset.UTC));
+        lenient().doCallRealMethod().when(authService).validateEmailDomain(anyString(), anyString());
+    }
+
+    @Test
+    void csvShouldReportEachRowInFileOrder() {
+        when(mongoTemplate.find(any(Query.class), eq(User.class)))
+                .thenReturn(List.of(User.builder().email("existente@mail.escuelaing.edu.co").build()));
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, User.class)).thenReturn(bulkOperations);
+        when(passwordEncoder.encode(anyString())).thenReturn("hash");
+
+        BulkRegisterResponse response = service.registrar(csv(
+                HEADER,
+                "Ana Perez,ana@mail.escuelaing.edu.co,Password1,ESTUDIANTE,FEMENINO",
+                "Luis Diaz,luis@gmail.com,Password1,ESTUDIANTE,",
+                "Ana Perez,ANA@mail.escuelaing.edu.co,Password1,ESTUDIANTE,",
+                "Eva Ruiz,existente@mail.escuelaing.edu.co,Password1,ESTUDIANTE,",
+                "\"Diaz, Carlos\",carlos@escuelaing.edu.co,corta,DOCENTE,"
+        ), BulkRegistrationService.Formato.CSV);
+
+        assertThat(response.getTotal()).isEqualTo(5);
+        assertThat(response.getCreados()).isEqualTo(1);
+        assertThat(response.getRechazados()).isEqualTo(4);
+        assertThat(response.getFilas()).extracting(BulkRegisterResponse.Fila::getResultado).containsExactly(
+                Resultado.CREADO, Resultado.INVALIDO, Resultado.DUPLICADO, Resultado.DUPLICADO, Resultado.INVALIDO);
+        assertThat(response.getFilas()).extracting(BulkRegisterResponse.Fila::getLinea).containsExactly(2L, 3L, 4L, 5L, 6L);
+        assertThat(response.getFilas().get(0).getId()).isNotBlank();
+
+        ArgumentCaptor<List<Object>> insertados = listCaptor();
+        verify(bulkOperations).insert(insertados.capture());
+        assertThat(insertados.getValue()).hasSize(1);
+        User user = (User) insertados.getValue().get(0);
+        assertThat(user.getEmail()).isEqualTo("ana@mail.escuelaing.edu.co");
+        assertThat(user.getPasswordHash()).isEqualTo("hash");
+    }
+
+    @Test
+    void ndjsonShouldProcessInBatches() {
+        ReflectionTestUtils.setField(service, "batchSize", 2);
+        when(mongoTemplate.find(any(Query.class), eq(User.class))).thenReturn(List.of());
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, User.class)).thenReturn(bulkOperations);
+        when(passwordEncoder.encode(anyString())).thenReturn("hash");
+
+        BulkRegisterResponse response = service.registrar(csv(
+                "{\"nombre\":\"Ana\",\"email\":\"a@escuelaing.edu.co\",\"password\":\"Password1\",\"rol\":\"DOCENTE\"}",
+                "{\"nombre\":\"Beto\",\"email\":\"b@escuelaing.edu.co\",\"password\":\"Password1\",\"rol\":\"DOCENTE\"}",
+                "{no es json}",
+                "{\"nombre\":\"Caro\",\"email\":\"c@escuelaing.edu.co\",\"password\":\"Password1\",\"rol\":\"COORDINADOR\"}"
+        ), BulkRegistrationService.Formato.NDJSON);
+
+        assertThat(response.getCreados()).isEqualTo(3);
+        assertThat(response.getFilas().get(2).getResultado()).isEqualTo(Resultado.INVALIDO);
+        verify(mongoTemplate, times(2)).find(any(Query.class), eq(User.class));
+        verify(bulkOperations, times(2)).insert(anyList());
+    }
+
+    @Test
+    void csvShouldRejectHeaderWithoutRequiredColumns() {
+        assertThatThrownBy(() -> service.registrar(csv("nombre,email", "Ana,a@x.co"), BulkRegistrationService.Formato.CSV))
+                .isInstanceOf(BusinessException.class)
+                .hasMessageContaining("password");
+    }
+
+    @Test
+    void dividirCsvShouldHandleQuotedValues() {
+        assertThat(BulkRegistrationService.dividirCsv("\"a, b\",\"c \"\"d\"\"\",e"))
+                .containsExactly("a, b", "c \"d\"", "e");
+    }
+
+    private static ByteArrayInputStream csv(String... lines) {
+        return new ByteArrayInputStream(String.join("\n", lines).getBytes(StandardCharsets.UTF_8));
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static ArgumentCaptor<List<Object>> listCaptor() {
+        return (ArgumentCaptor) ArgumentCaptor.forClass(List.class);
+    }
+}
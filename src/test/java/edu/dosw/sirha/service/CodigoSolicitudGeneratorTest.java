@@ -0,0 +1,88 @@
+package edu.dosw.sirha.service;
+
+import edu.dosw.sirha.config.NodeIdentity;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Pruebas unitarias para {@link CodigoSolicitudGenerator}.
+ *
+ * <p>Verifica el formato del código, que los códigos de un nodo sean crecientes aun si
+ * el reloj retrocede o se agota el consecutivo, y que no se repitan con muchos hilos
+ * generando a la vez.</p>
+ */
+class CodigoSolicitudGeneratorTest {
+
+    private static final Instant AHORA = Instant.parse("2024-01-10T12:00:00Z");
+
+    private final CodigoSolicitudGenerator generator = new CodigoSolicitudGenerator(new NodeIdentity("nodo-a"));
+
+    @Test
+    void siguienteShouldFormatSecondNodeAndSequence() {
+        String nodo = String.format("%04X", "nodo-a".hashCode() & 0xFFFF);
+
+        assertThat(generator.siguiente(AHORA)).isEqualTo("SOL-20240110120000-" + nodo + "000000");
+        assertThat(generator.siguiente(AHORA.plusMillis(500))).isEqualTo("SOL-20240110120000-" + nodo + "000001");
+        assertThat(generator.siguiente(AHORA.plusSeconds(1))).isEqualTo("SOL-20240110120001-" + nodo + "000000");
+    }
+
+    @Test
+    void siguienteShouldStayMonotonicWhenClockGoesBack() {
+        String primero = generator.siguiente(AHORA);
+
+        String segundo = generator.siguiente(AHORA.minusSeconds(30));
+
+        assertThat(segundo).startsWith("SOL-20240110120000-").isGreaterThan(primero);
+    }
+
+    @Test
+    void siguienteShouldCarryIntoNextSecondWhenSequenceIsExhausted() {
+        AtomicLong estado = (AtomicLong) ReflectionTestUtils.getField(generator, "estado");
+        estado.set((AHORA.getEpochSecond() << 24) | 0xFFFFFF);
+
+        assertThat(generator.siguiente(AHORA)).startsWith("SOL-20240110120001-").endsWith("000000");
+    }
+
+    @Test
+    void siguienteShouldNotRepeatCodesAcrossThreads() throws Exception {
+        int hilos = 32;
+        int porHilo = 2_000;
+        Set<String> codigos = ConcurrentHashMap.newKeySet();
+        CountDownLatch inicio = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(hilos);
+        try {
+            List<Future<?>> tareas = new ArrayList<>();
+            for (int i = 0; i < hilos; i++) {
+                tareas.add(executor.submit(() -> {
+                    inicio.await();
+                    for (int j = 0; j < porHilo; j++) {
+                        codigos.add(generator.siguiente(AHORA.plusMillis(j)));
+                    }
+                    return null;
+                }));
+            }
+            inicio.countDown();
+            for (Future<?> tarea : tareas) {
+                tarea.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertThat(codigos).hasSize(hilos * porHilo);
+    }
+}
@@ -0,0 +1,130 @@
+package edu.dosw.sirha.service;
+
+import edu.dosw.sirha.dto.response.SolicitudResponse;
+import edu.dosw.sirha.exception.BusinessException;
+import edu.dosw.sirha.exception.ConflictException;
+import edu.dosw.sirha.exception.ResourceNotFoundException;
+import edu.dosw.sirha.mapper.SolicitudMapper;
+import edu.dosw.sirha.model.Solicitud;
+import edu.dosw.sirha.repository.SolicitudRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Pruebas unitarias para {@link ColaRevisionService}.
+ *
+ * <p>Verifica que el reclamo pida una solicitud por vez hasta completar la cantidad o
+ * vaciar la cola, el vencimiento de las asignaciones y los errores al renovar o
+ * liberar una asignación ajena o vencida.</p>
+ */
+@ExtendWith(MockitoExtension.class)
+class ColaRevisionServiceTest {
+
+    private static final Instant AHORA = Instant.parse("2024-01-10T12:00:00Z");
+    private static final Instant VENCE = Instant.parse("2024-01-10T12:10:00Z");
+
+    @Mock
+    private SolicitudRepository solicitudRepository;
+
+    private ColaRevisionService service;
+
+    @BeforeEach
+    void setUp() {
+        service = new ColaRevisionService(solicitudRepository, new SolicitudMapper(),
+                Clock.fixed(AHORA, ZoneOffset.UTC));
+    }
+
+    @Test
+    void reclamarShouldAssignUntilRequestedAmount() {
+        when(solicitudRepository.reclamarSiguiente(ColaRevisionService.ESTADOS_EN_COLA, "coord@test.edu", AHORA, VENCE))
+                .thenReturn(Optional.of(asignada("s1")), Optional.of(asignada("s2")), Optional.of(asignada("s3")));
+
+        List<SolicitudResponse> result = service.reclamar("coord@test.edu", 2);
+
+        assertThat(result).extracting(SolicitudResponse::getId).containsExactly("s1", "s2");
+        assertThat(result).extracting(SolicitudResponse::getAsignacionVence).containsOnly(VENCE);
+        verify(solicitudRepository, times(2)).reclamarSiguiente(any(), anyString(), any(), any());
+    }
+
+    @Test
+    void reclamarShouldStopWhenQueueIsEmpty() {
+        when(solicitudRepository.reclamarSiguiente(any(), anyString(), any(), any()))
+                .thenReturn(Optional.of(asignada("s1")), Optional.empty());
+
+        List<SolicitudResponse> result = service.reclamar("coord@test.edu", 5);
+
+        assertThat(result).extracting(SolicitudResponse::getId).containsExactly("s1");
+        verify(solicitudRepository, times(2)).reclamarSiguiente(any(), anyString(), any(), any());
+    }
+
+    @Test
+    void reclamarShouldDefaultToOneAndRejectOutOfRange() {
+        when(solicitudRepository.reclamarSiguiente(any(), anyString(), any(), any())).thenReturn(Optional.empty());
+
+        assertThat(service.reclamar("coord@test.edu", null)).isEmpty();
+        verify(solicitudRepository, times(1)).reclamarSiguiente(any(), anyString(), any(), any());
+
+        assertThatThrownBy(() -> service.reclamar("coord@test.edu", 0)).isInstanceOf(BusinessException.class);
+        assertThatThrownBy(() -> service.reclamar("coord@test.edu", 21)).isInstanceOf(BusinessException.class);
+    }
+
+    @Test
+    void renovarShouldExtendFromNow() {
+        when(solicitudRepository.renovarAsignacion("s1", "coord@test.edu", AHORA, VENCE))
+                .thenReturn(Optional.of(asignada("s1")));
+
+        assertThat(service.renovar("s1", "coord@test.edu").getAsignacionVence()).isEqualTo(VENCE);
+        verify(solicitudRepository, never()).existsById(anyString());
+    }
+
+    @Test
+    void renovarShouldConflictWhenAssignmentIsLost() {
+        when(solicitudRepository.renovarAsignacion(eq("s1"), anyString(), any(), any())).thenReturn(Optional.empty());
+        when(solicitudRepository.existsById("s1")).thenReturn(true);
+
+        assertThatThrownBy(() -> service.renovar("s1", "otro@test.edu")).isInstanceOf(ConflictException.class);
+    }
+
+    @Test
+    void liberarShouldFailForUnknownOrForeignAssignment() {
+        when(solicitudRepository.liberarAsignacion(anyString(), anyString())).thenReturn(false);
+        when(solicitudRepository.existsById("s1")).thenReturn(true);
+        when(solicitudRepository.existsById("nope")).thenReturn(false);
+
+        assertThatThrownBy(() -> service.liberar("s1", "otro@test.edu")).isInstanceOf(ConflictException.class);
+        assertThatThrownBy(() -> service.liberar("nope", "coord@test.edu"))
+                .isInstanceOf(ResourceNotFoundException.class);
+    }
+
+    @Test
+    void liberarShouldSucceedForOwner() {
+        when(solicitudRepository.liberarAsignacion("s1", "coord@test.edu")).thenReturn(true);
+
+        service.liberar("s1", "coord@test.edu");
+
+        verify(solicitudRepository, never()).existsById(anyString());
+    }
+
+    private static Solicitud asignada(String id) {
+        return Solicitud.builder().id(id).revisorAsignado("coord@test.edu").asignacionVence(VENCE).build();
+    }
+}
@@ -1,27 +1,49 @@
 package edu.dosw.sirha.service;
 
+import com.mongodb.bulk.BulkWriteError;
 import edu.dosw.sirha.dto.request.ConflictRequest;
 import edu.dosw.sirha.dto.response.ConflictResponse;
 import edu.dosw.sirha.mapper.ConflictMapper;
 import edu.dosw.sirha.model.Conflict;
+import edu.dosw.sirha.model.Grupo;
+import edu.dosw.sirha.model.Horario;
+import edu.dosw.sirha.model.Inscripcion;
+import edu.dosw.sirha.model.Solicitud;
+import edu.dosw.sirha.model.enums.EstadoInscripcion;
 import edu.dosw.sirha.repository.ConflictRepository;
+import edu.dosw.sirha.repository.GrupoRepository;
+import edu.dosw.sirha.repository.InscripcionRepository;
+import edu.dosw.sirha.service.conflict.GrupoLlenoRule;
+import edu.dosw.sirha.service.conflict.InscripcionDuplicadaRule;
+import edu.dosw.sirha.service.conflict.SolapamientoHorarioRule;
 import edu.dosw.sirha.service.impl.ConflictDetectionServiceImpl;
+import org.bson.BsonDocument;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
 
 import java.time.Clock;
+import java.time.DayOfWeek;
 import java.time.Instant;
+import java.time.LocalTime;
 import java.time.ZoneOffset;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
 /**
@@ -44,6 +66,8 @@ import static org.mockito.Mockito.when;
  *   <li><strong>Consultas:</strong> por estudiante, por solicitud, todos los conflictos</li>
  *   <li><strong>Resolución:</strong> marcado de conflictos como resueltos con timestamp</li>
  *   <li><strong>Actualización:</strong> modificación de descripción y detalles</li>
+ *   <li><strong>Detección:</strong> evaluación de las reglas sobre las inscripciones del
+ *       estudiante e inserción masiva sin duplicar conflictos ya registrados</li>
  * </ul>
  * 
  * @see ConflictDetectionService
@@ -65,12 +89,137 @@ class ConflictDetectionServiceTest {
     @Mock
     private ConflictRepository conflictRepository;
 
+    @Mock
+    private InscripcionRepository inscripcionRepository;
+
+    @Mock
+    private GrupoRepository grupoRepository;
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @Mock
+    private BulkOperations bulkOperations;
+
     private ConflictDetectionServiceImpl conflictService;
 
     @BeforeEach
     void setUp() {
         Clock clock = Clock.fixed(FIXED_NOW, ZoneOffset.UTC);
-        conflictService = new ConflictDetectionServiceImpl(conflictRepository, new ConflictMapper(), clock);
+        conflictService = new ConflictDetectionServiceImpl(conflictRepository, new ConflictMapper(),
+                inscripcionRepository, grupoRepository, mongoTemplate,
+                List.of(new SolapamientoHorarioRule(), new GrupoLlenoRule(), new InscripcionDuplicadaRule()), clock);
+    }
+
+    @Test
+    void detectarShouldEvaluateRulesAndInsertInOneBulk() {
+        Solicitud solicitud = buildSolicitud();
+        when(inscripcionRepository.findByEstudianteIdAndPeriodoIdAndEstado(ESTUDIANTE_ID, "per-1",
+                EstadoInscripcion.INSCRITO)).thenReturn(List.of(inscripcion("ins-0", "grp-origen"),
+                        inscripcion("ins-1", "grp-a"), inscripcion("ins-2", "grp-b")));
+        when(grupoRepository.findAllById(any())).thenReturn(List.of(
+                grupo(GRUPO_ID, "MAT-2", 30, horario(DayOfWeek.MONDAY, 9, 11)),
+                grupo("grp-a", "MAT-1", 10, horario(DayOfWeek.MONDAY, 8, 10)),
+                grupo("grp-b", "MAT-2", 10, horario(DayOfWeek.TUESDAY, 8, 10))));
+        stubBulk();
+
+        List<ConflictResponse> conflictos = conflictService.detectar(solicitud);
+
+        ArgumentCaptor<Iterable<String>> ids = ArgumentCaptor.forClass(Iterable.class);
+        verify(grupoRepository).findAllById(ids.capture());
+        assertThat(ids.getValue()).containsExactly(GRUPO_ID, "grp-a", "grp-b");
+
+        ArgumentCaptor<List<Conflict>> insertados = ArgumentCaptor.forClass(List.class);
+        verify(bulkOperations).insert(insertados.capture());
+        verify(bulkOperations).execute();
+        assertThat(insertados.getValue())
+                .extracting(Conflict::getId)
+                .containsExactly(SOLICITUD_ID + ":SOLAPAMIENTO_HORARIOS:grp-a", SOLICITUD_ID + ":GRUPO_LLENO:" + GRUPO_ID,
+                        SOLICITUD_ID + ":INSCRIPCION_DUPLICADA:grp-b");
+        assertThat(insertados.getValue()).allSatisfy(conflict -> {
+            assertThat(conflict.getEstudianteId()).isEqualTo(ESTUDIANTE_ID);
+            assertThat(conflict.getFechaDeteccion()).isEqualTo(FIXED_NOW);
+            assertThat(conflict.isResuelto()).isFalse();
+        });
+        assertThat(conflictos).hasSize(3);
+    }
+
+    @Test
+    void detectarLoteShouldLoadOnceAndInsertAllConflictsInOneBulk() {
+        Solicitud primera = buildSolicitud();
+        Solicitud segunda = Solicitud.builder().id("sol-2").estudianteId(UPDATED_ESTUDIANTE_ID).periodoId("per-1")
+                .grupoDestinoId("grp-c").build();
+        Solicitud sinDestino = Solicitud.builder().id("sol-4").estudianteId("est-4").periodoId("per-1").build();
+        when(inscripcionRepository.findByEstudianteIdInAndPeriodoIdInAndEstado(
+                Set.of(ESTUDIANTE_ID, UPDATED_ESTUDIANTE_ID), Set.of("per-1"), EstadoInscripcion.INSCRITO))
+                .thenReturn(List.of(inscripcion("ins-0", "grp-origen"), inscripcion("ins-1", "grp-a"),
+                        Inscripcion.builder().id("ins-9").estudianteId(UPDATED_ESTUDIANTE_ID).grupoId("grp-c")
+                                .periodoId("per-1").estado(EstadoInscripcion.INSCRITO).build()));
+        when(grupoRepository.findAllById(any())).thenReturn(List.of(
+                grupo(GRUPO_ID, "MAT-2", 10, horario(DayOfWeek.MONDAY, 9, 11)),
+                grupo("grp-a", "MAT-1", 10, horario(DayOfWeek.MONDAY, 8, 10)),
+                grupo("grp-c", "MAT-3", 30, horario(DayOfWeek.FRIDAY, 8, 10))));
+        stubBulk();
+
+        List<ConflictResponse> conflictos = conflictService.detectar(List.of(primera, segunda, sinDestino));
+
+        verify(inscripcionRepository).findByEstudianteIdInAndPeriodoIdInAndEstado(any(), any(), any());
+        verify(grupoRepository).findAllById(any());
+        ArgumentCaptor<List<Conflict>> insertados = ArgumentCaptor.forClass(List.class);
+        verify(bulkOperations).insert(insertados.capture());
+        verify(bulkOperations).execute();
+        // La inscripción de otro estudiante no cuenta para la primera solicitud
+        assertThat(insertados.getValue())
+                .extracting(Conflict::getId)
+                .containsExactly(SOLICITUD_ID + ":SOLAPAMIENTO_HORARIOS:grp-a", "sol-2:GRUPO_LLENO:grp-c",
+                        "sol-2:INSCRIPCION_DUPLICADA:grp-c");
+        assertThat(conflictos).hasSize(3);
+    }
+
+    @Test
+    void detectarLoteShouldSkipBatchWithoutGrupoDestino() {
+        Solicitud sinDestino = buildSolicitud();
+        sinDestino.setGrupoDestinoId(null);
+
+        assertThat(conflictService.detectar(List.of(sinDestino))).isEmpty();
+
+        verifyNoInteractions(inscripcionRepository, grupoRepository, mongoTemplate);
+    }
+
+    @Test
+    void detectarShouldKeepConflictsAlreadyRecorded() {
+        Solicitud solicitud = buildSolicitud();
+        when(inscripcionRepository.findByEstudianteIdAndPeriodoIdAndEstado(any(), any(), any()))
+                .thenReturn(List.of());
+        when(grupoRepository.findAllById(any())).thenReturn(List.of(grupo(GRUPO_ID, "MAT-2", 30)));
+        stubBulk();
+        BulkOperationException duplicados = mock(BulkOperationException.class);
+        when(duplicados.getErrors()).thenReturn(List.of(new BulkWriteError(11000, "E11000", new BsonDocument(), 0)));
+        when(bulkOperations.execute()).thenThrow(duplicados);
+
+        assertThat(conflictService.detectar(solicitud))
+                .extracting(ConflictResponse::getTipo)
+                .containsExactly(GrupoLlenoRule.TIPO);
+    }
+
+    @Test
+    void detectarShouldSkipSolicitudWithoutGrupoDestino() {
+        Solicitud solicitud = buildSolicitud();
+        solicitud.setGrupoDestinoId(null);
+
+        assertThat(conflictService.detectar(solicitud)).isEmpty();
+
+        verifyNoInteractions(inscripcionRepository, grupoRepository, mongoTemplate);
+    }
+
+    @Test
+    void detectarShouldNotFailWhenMongoIsUnavailable() {
+        when(inscripcionRepository.findByEstudianteIdAndPeriodoIdAndEstado(any(), any(), any()))
+                .thenThrow(new DataAccessResourceFailureException("down"));
+
+        assertThat(conflictService.detectar(buildSolicitud())).isEmpty();
+
+        verifyNoInteractions(mongoTemplate);
     }
 
     @Test
@@ -158,6 +307,35 @@ class ConflictDetectionServiceTest {
         verify(conflictRepository).delete(conflict);
     }
 
+    private void stubBulk() {
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Conflict.class)).thenReturn(bulkOperations);
+        when(bulkOperations.insert(anyList())).thenReturn(bulkOperations);
+    }
+
+    private static Solicitud buildSolicitud() {
+        return Solicitud.builder()
+                .id(SOLICITUD_ID)
+                .estudianteId(ESTUDIANTE_ID)
+                .periodoId("per-1")
+                .inscripcionOrigenId("ins-0")
+                .grupoDestinoId(GRUPO_ID)
+                .build();
+    }
+
+    private static Inscripcion inscripcion(String id, String grupoId) {
+        return Inscripcion.builder().id(id).estudianteId(ESTUDIANTE_ID).grupoId(grupoId).periodoId("per-1")
+                .estado(EstadoInscripcion.INSCRITO).build();
+    }
+
+    private static Grupo grupo(String id, String materiaId, int cuposActuales, Horario... horarios) {
+        return Grupo.builder().id(id).codigo(id.toUpperCase()).materiaId(materiaId).cupoMax(30)
+                .cuposActuales(cuposActuales).horarios(List.of(horarios)).build();
+    }
+
+    private static Horario horario(DayOfWeek dia, int inicio, int fin) {
+        return Horario.builder().dia(dia).horaInicio(LocalTime.of(inicio, 0)).horaFin(LocalTime.of(fin, 0)).build();
+    }
+
     private ConflictRequest buildRequest() {
         return ConflictRequest.builder()
         .tipo(CONFLICT_TYPE)
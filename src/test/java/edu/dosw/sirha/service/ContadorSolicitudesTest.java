@@ -0,0 +1,242 @@
+package edu.dosw.sirha.service;
+
+import edu.dosw.sirha.exception.ConflictException;
+import edu.dosw.sirha.model.Solicitud;
+import edu.dosw.sirha.model.SolicitudConteo;
+import edu.dosw.sirha.model.enums.SolicitudEstado;
+import edu.dosw.sirha.model.enums.SolicitudTipo;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationResults;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Pruebas unitarias para {@link ContadorSolicitudes}.
+ *
+ * <p>Verifica que las consultas combinen los totales persistidos con los incrementos
+ * pendientes, que el vaciado envíe un único bulkWrite de {@code $inc} y conserve los
+ * incrementos si falla, la reconstrucción bajo el bloqueo con un {@code $out} atómico
+ * y la reconstrucción al arrancar con {@code solicitud_conteos} vacía.</p>
+ */
+@ExtendWith(MockitoExtension.class)
+class ContadorSolicitudesTest {
+
+    private static final Instant AHORA = Instant.parse("2024-01-10T12:00:00Z");
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @Mock
+    private BulkOperations bulkOperations;
+
+    @Mock
+    private LeaderLock leaderLock;
+
+    private ContadorSolicitudes contador;
+
+    @BeforeEach
+    void setUp() {
+        contador = nuevoContador();
+        // Sin solicitudes ni totales: los conteos parten de cero
+        contador.inicializar();
+    }
+
+    @Test
+    void resumenShouldAddPendingIncrementsToPersistedTotals() {
+        when(mongoTemplate.findAll(SolicitudConteo.class)).thenReturn(List.of(
+                conteo("per-1", SolicitudEstado.PENDIENTE, 10),
+                conteo("per-0", SolicitudEstado.PENDIENTE, 3)));
+
+        contador.registrar(null, solicitud("per-1", SolicitudEstado.PENDIENTE));
+        contador.cambiarEstado("per-1", SolicitudTipo.CAMBIO_GRUPO, SolicitudEstado.PENDIENTE, SolicitudEstado.APROBADA);
+        contador.cambiarEstado("per-1", SolicitudTipo.CAMBIO_GRUPO, SolicitudEstado.PENDIENTE, SolicitudEstado.APROBADA);
+
+        assertThat(contador.contar(SolicitudEstado.PENDIENTE, "per-1")).isEqualTo(9);
+        assertThat(contador.contar(SolicitudEstado.APROBADA, "per-1")).isEqualTo(2);
+        assertThat(contador.contar(SolicitudEstado.PENDIENTE, null)).isEqualTo(12);
+        assertThat(contador.resumen("per-1")).containsEntry(SolicitudEstado.RECHAZADA, 0L);
+        verify(mongoTemplate, times(1)).findAll(SolicitudConteo.class);
+    }
+
+    @Test
+    void registrarShouldIgnoreChangesThatKeepTheSameCombination() {
+        Solicitud antes = solicitud("per-1", SolicitudEstado.PENDIENTE);
+        Solicitud despues = solicitud("per-1", SolicitudEstado.PENDIENTE);
+        despues.setDescripcion("Otra descripción");
+
+        contador.registrar(antes, despues);
+
+        assertThat(contador.flush()).isZero();
+        verify(mongoTemplate, never()).bulkOps(any(BulkOperations.BulkMode.class), eq(SolicitudConteo.class));
+    }
+
+    @Test
+    void registrarShouldMoveSolicitudWhenPeriodoChanges() {
+        contador.registrar(solicitud("per-1", SolicitudEstado.PENDIENTE), solicitud("per-2", SolicitudEstado.PENDIENTE));
+
+        assertThat(contador.contar(SolicitudEstado.PENDIENTE, "per-1")).isEqualTo(-1);
+        assertThat(contador.contar(SolicitudEstado.PENDIENTE, "per-2")).isEqualTo(1);
+        assertThat(contador.contar(SolicitudEstado.PENDIENTE, null)).isZero();
+    }
+
+    @Test
+    void flushShouldUpsertIncrementsInSingleBulkWrite() {
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, SolicitudConteo.class)).thenReturn(bulkOperations);
+        when(mongoTemplate.findAll(SolicitudConteo.class)).thenReturn(List.of(),
+                List.of(conteo("per-1", SolicitudEstado.PENDIENTE, 2)));
+        contador.registrar(null, solicitud("per-1", SolicitudEstado.PENDIENTE));
+        contador.registrar(null, solicitud("per-1", SolicitudEstado.PENDIENTE));
+        assertThat(contador.contar(SolicitudEstado.PENDIENTE, "per-1")).isEqualTo(2);
+
+        assertThat(contador.flush()).isEqualTo(1);
+
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        verify(bulkOperations).upsert(query.capture(), update.capture());
+        verify(bulkOperations).execute();
+        assertThat(query.getValue().getQueryObject())
+                .isEqualTo(new Document("id", "per-1|PENDIENTE|CAMBIO_GRUPO"));
+        Document cambios = update.getValue().getUpdateObject();
+        assertThat(cambios.get("$inc")).isEqualTo(new Document("total", 2L));
+        assertThat((Document) cambios.get("$set")).containsEntry("periodoId", "per-1")
+                .containsEntry("estado", SolicitudEstado.PENDIENTE)
+                .containsEntry("fechaActualizacion", AHORA);
+        assertThat(contador.contar(SolicitudEstado.PENDIENTE, "per-1")).isEqualTo(2);
+    }
+
+    @Test
+    void flushShouldKeepIncrementsWhenWriteFails() {
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, SolicitudConteo.class)).thenReturn(bulkOperations);
+        when(bulkOperations.execute()).thenThrow(new DataAccessResourceFailureException("down"));
+        contador.registrar(null, solicitud("per-1", SolicitudEstado.PENDIENTE));
+
+        assertThat(contador.flush()).isZero();
+
+        assertThat(contador.contar(SolicitudEstado.PENDIENTE, "per-1")).isEqualTo(1);
+    }
+
+    @Test
+    void reconstruirShouldSwapTotalsWithOutStageUnderLeaderLock() {
+        when(leaderLock.adquirir(eq(ContadorSolicitudes.TAREA), any())).thenReturn(true);
+        when(mongoTemplate.aggregate(any(Aggregation.class), eq(Solicitud.class), eq(Document.class)))
+                .thenReturn(new AggregationResults<>(List.of(), new Document()));
+        when(mongoTemplate.findAll(SolicitudConteo.class)).thenReturn(List.of(conteo("per-1", SolicitudEstado.EN_REVISION, 7)));
+
+        assertThat(contador.reconstruir()).isEqualTo(1);
+
+        ArgumentCaptor<Aggregation> agregacion = ArgumentCaptor.forClass(Aggregation.class);
+        verify(mongoTemplate).aggregate(agregacion.capture(), eq(Solicitud.class), eq(Document.class));
+        List<Document> etapas = agregacion.getValue().toPipeline(Aggregation.DEFAULT_CONTEXT);
+        assertThat(etapas).last().isEqualTo(new Document("$out", "solicitud_conteos"));
+        assertThat(etapas.get(1).get("$project", Document.class).get("_id", Document.class)).containsKey("$concat");
+        verify(mongoTemplate, never()).remove(any(Query.class), eq(SolicitudConteo.class));
+        verify(mongoTemplate, never()).insert(any(List.class), eq(SolicitudConteo.class));
+        verify(leaderLock).liberar(ContadorSolicitudes.TAREA);
+        assertThat(contador.contar(SolicitudEstado.EN_REVISION, "per-1")).isEqualTo(7);
+    }
+
+    @Test
+    void reconstruirShouldRejectWhenAnotherReplicaHoldsTheLock() {
+        when(leaderLock.adquirir(eq(ContadorSolicitudes.TAREA), any())).thenReturn(false);
+
+        assertThatThrownBy(() -> contador.reconstruir()).isInstanceOf(ConflictException.class);
+
+        verify(mongoTemplate, never()).aggregate(any(Aggregation.class), eq(Solicitud.class), eq(Document.class));
+        verify(leaderLock, never()).liberar(any());
+    }
+
+    @Test
+    void reconstruirProgramadoShouldSkipWithoutLock() {
+        when(leaderLock.adquirir(eq(ContadorSolicitudes.TAREA), any())).thenReturn(false);
+
+        contador.reconstruirProgramado();
+
+        verify(mongoTemplate, never()).aggregate(any(Aggregation.class), eq(Solicitud.class), eq(Document.class));
+    }
+
+    @Test
+    void inicializarShouldRebuildEmptyRollupUnderLeaderLock() {
+        ContadorSolicitudes desplegado = nuevoContador();
+        when(mongoTemplate.exists(any(Query.class), eq(SolicitudConteo.class))).thenReturn(false);
+        when(mongoTemplate.exists(any(Query.class), eq(Solicitud.class))).thenReturn(true);
+        when(leaderLock.adquirir(eq(ContadorSolicitudes.TAREA), any())).thenReturn(true);
+        when(mongoTemplate.aggregate(any(Aggregation.class), eq(Solicitud.class), eq(Document.class)))
+                .thenReturn(new AggregationResults<>(List.of(), new Document()));
+        when(mongoTemplate.findAll(SolicitudConteo.class)).thenReturn(List.of(conteo("per-1", SolicitudEstado.PENDIENTE, 40)));
+
+        desplegado.inicializar();
+
+        verify(mongoTemplate).aggregate(any(Aggregation.class), eq(Solicitud.class), eq(Document.class));
+        verify(leaderLock).liberar(ContadorSolicitudes.TAREA);
+        desplegado.cambiarEstado("per-1", SolicitudTipo.CAMBIO_GRUPO, SolicitudEstado.PENDIENTE, SolicitudEstado.APROBADA);
+        assertThat(desplegado.contar(SolicitudEstado.PENDIENTE, "per-1")).isEqualTo(39);
+        assertThat(desplegado.contar(SolicitudEstado.APROBADA, "per-1")).isEqualTo(1);
+    }
+
+    @Test
+    void replicaWithoutLockShouldCountCollectionUntilRollupIsRebuilt() {
+        ContadorSolicitudes replica = nuevoContador();
+        when(mongoTemplate.exists(any(Query.class), eq(SolicitudConteo.class))).thenReturn(false, true);
+        when(mongoTemplate.exists(any(Query.class), eq(Solicitud.class))).thenReturn(true);
+        when(leaderLock.adquirir(eq(ContadorSolicitudes.TAREA), any())).thenReturn(false);
+        when(mongoTemplate.aggregate(any(Aggregation.class), eq(Solicitud.class), eq(Document.class)))
+                .thenReturn(new AggregationResults<>(List.of(new Document("_id", "PENDIENTE").append("total", 40)),
+                        new Document()));
+
+        replica.inicializar();
+        // Transición de una solicitud anterior al despliegue
+        replica.cambiarEstado("per-1", SolicitudTipo.CAMBIO_GRUPO, SolicitudEstado.PENDIENTE, SolicitudEstado.APROBADA);
+
+        assertThat(replica.contar(SolicitudEstado.PENDIENTE, "per-1")).isEqualTo(40);
+        assertThat(replica.flush()).isZero();
+        verify(mongoTemplate, never()).bulkOps(any(BulkOperations.BulkMode.class), eq(SolicitudConteo.class));
+
+        // Otra réplica ya reconstruyó los totales: los incrementos previos están incluidos
+        when(mongoTemplate.findAll(SolicitudConteo.class)).thenReturn(List.of(conteo("per-1", SolicitudEstado.PENDIENTE, 39),
+                conteo("per-1", SolicitudEstado.APROBADA, 1)));
+        assertThat(replica.contar(SolicitudEstado.PENDIENTE, "per-1")).isEqualTo(39);
+        assertThat(replica.contar(SolicitudEstado.APROBADA, "per-1")).isEqualTo(1);
+    }
+
+    private ContadorSolicitudes nuevoContador() {
+        return new ContadorSolicitudes(mongoTemplate, leaderLock, Clock.fixed(AHORA, ZoneOffset.UTC));
+    }
+
+    private static Solicitud solicitud(String periodoId, SolicitudEstado estado) {
+        return Solicitud.builder().periodoId(periodoId).estado(estado).tipo(SolicitudTipo.CAMBIO_GRUPO).build();
+    }
+
+    private static SolicitudConteo conteo(String periodoId, SolicitudEstado estado, long total) {
+        return SolicitudConteo.builder()
+                .id(SolicitudConteo.idDe(periodoId, estado, SolicitudTipo.CAMBIO_GRUPO))
+                .periodoId(periodoId)
+                .estado(estado)
+                .tipo(SolicitudTipo.CAMBIO_GRUPO)
+                .total(total)
+                .build();
+    }
+}
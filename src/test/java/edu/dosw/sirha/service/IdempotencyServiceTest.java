@@ -0,0 +1,213 @@
+package edu.dosw.sirha.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import edu.dosw.sirha.dto.request.SolicitudEstadoChangeRequest;
+import edu.dosw.sirha.dto.response.SolicitudResponse;
+import edu.dosw.sirha.exception.BusinessException;
+import edu.dosw.sirha.exception.IdempotencyKeyInUseException;
+import edu.dosw.sirha.exception.IdempotencyKeyMismatchException;
+import edu.dosw.sirha.model.IdempotencyRecord;
+import edu.dosw.sirha.model.enums.SolicitudEstado;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.security.MessageDigest;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.HexFormat;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+/**
+ * Pruebas unitarias para {@link IdempotencyService}.
+ *
+ * <p>Verifica que una clave ejecute la operación una sola vez, que los reintentos
+ * reciban la respuesta guardada (en memoria o en MongoDB), que los duplicados
+ * concurrentes esperen a la original y que una falla libere la clave.</p>
+ */
+@ExtendWith(MockitoExtension.class)
+class IdempotencyServiceTest {
+
+    private static final Instant AHORA = Instant.parse("2024-01-10T12:00:00Z");
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    private ObjectMapper objectMapper;
+
+    private IdempotencyService service;
+
+    private final AtomicInteger ejecuciones = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+        service = new IdempotencyService(mongoTemplate, objectMapper, Clock.fixed(AHORA, ZoneOffset.UTC), 24, 100, 2_000);
+    }
+
+    @Test
+    void ejecutarShouldRunDirectlyWithoutKey() {
+        assertThat(ejecutar(null, peticion("Listo"), this::aprobar).getId()).isEqualTo("sol-1");
+        assertThat(ejecutar(null, peticion("Listo"), this::aprobar).getId()).isEqualTo("sol-1");
+
+        assertThat(ejecuciones).hasValue(2);
+        verifyNoInteractions(mongoTemplate);
+    }
+
+    @Test
+    void ejecutarShouldReplayStoredResponseWithoutRunningAgain() {
+        SolicitudResponse primera = ejecutar("clave-1", peticion("Listo"), this::aprobar);
+        SolicitudResponse segunda = ejecutar("clave-1", peticion("Listo"), this::aprobar);
+
+        assertThat(ejecuciones).hasValue(1);
+        assertThat(segunda).isEqualTo(primera);
+        ArgumentCaptor<IdempotencyRecord> reserva = ArgumentCaptor.forClass(IdempotencyRecord.class);
+        verify(mongoTemplate).insert(reserva.capture());
+        assertThat(reserva.getValue().getId()).isEqualTo("coord@test.edu|estado:sol-1|clave-1");
+        assertThat(reserva.getValue().getRespuesta()).isNull();
+        assertThat(reserva.getValue().getExpiraEn()).isEqualTo(AHORA.plusSeconds(6));
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate).upsert(any(Query.class), update.capture(), eq(IdempotencyRecord.class));
+        assertThat(update.getValue().getUpdateObject().get("$set", Document.class))
+            .containsEntry("expiraEn", AHORA.plusSeconds(86_400))
+            .containsEntry("huella", reserva.getValue().getHuella())
+            .containsKey("respuesta");
+        // Upsert: la respuesta se guarda aunque la reserva ya haya expirado
+        assertThat(update.getValue().getUpdateObject().get("$setOnInsert", Document.class))
+            .containsEntry("creadoEn", AHORA);
+    }
+
+    @Test
+    void ejecutarShouldRejectKeyReusedWithDifferentBody() {
+        ejecutar("clave-1", peticion("Listo"), this::aprobar);
+
+        assertThatThrownBy(() -> ejecutar("clave-1", peticion("Otro"), this::aprobar))
+            .isInstanceOf(IdempotencyKeyMismatchException.class);
+        assertThat(ejecuciones).hasValue(1);
+    }
+
+    @Test
+    void ejecutarShouldRejectOversizedKey() {
+        assertThatThrownBy(() -> ejecutar("x".repeat(256), peticion("Listo"), this::aprobar))
+            .isInstanceOf(BusinessException.class);
+    }
+
+    @Test
+    void ejecutarShouldReplayResponseStoredByAnotherReplica() throws Exception {
+        SolicitudEstadoChangeRequest request = peticion("Listo");
+        SolicitudResponse guardada = SolicitudResponse.builder().id("sol-1").estado(SolicitudEstado.APROBADA).build();
+        when(mongoTemplate.insert(any(IdempotencyRecord.class))).thenThrow(new DuplicateKeyException("E11000"));
+        when(mongoTemplate.findById("coord@test.edu|estado:sol-1|clave-1", IdempotencyRecord.class))
+            .thenReturn(IdempotencyRecord.builder()
+                .huella(huella(request))
+                .respuesta(objectMapper.writeValueAsString(guardada))
+                .build());
+
+        assertThat(ejecutar("clave-1", request, this::aprobar)).isEqualTo(guardada);
+        assertThat(ejecuciones).hasValue(0);
+    }
+
+    @Test
+    void ejecutarShouldConflictWhileOriginalRunsOnAnotherReplica() {
+        when(mongoTemplate.insert(any(IdempotencyRecord.class))).thenThrow(new DuplicateKeyException("E11000"));
+        when(mongoTemplate.findById("coord@test.edu|estado:sol-1|clave-1", IdempotencyRecord.class))
+            .thenReturn(IdempotencyRecord.builder().huella("otra").build());
+
+        assertThatThrownBy(() -> ejecutar("clave-1", peticion("Listo"), this::aprobar))
+            .isInstanceOf(IdempotencyKeyInUseException.class);
+        assertThat(ejecuciones).hasValue(0);
+    }
+
+    @Test
+    void ejecutarShouldReleaseKeyWhenOperationFails() {
+        Supplier<SolicitudResponse> falla = () -> {
+            ejecuciones.incrementAndGet();
+            throw new BusinessException("No se puede aprobar");
+        };
+
+        assertThatThrownBy(() -> ejecutar("clave-1", peticion("Listo"), falla)).isInstanceOf(BusinessException.class);
+        verify(mongoTemplate).remove(any(Query.class), eq(IdempotencyRecord.class));
+        verify(mongoTemplate, never()).upsert(any(Query.class), any(Update.class), eq(IdempotencyRecord.class));
+
+        ejecutar("clave-1", peticion("Listo"), this::aprobar);
+        assertThat(ejecuciones).hasValue(2);
+        verify(mongoTemplate, times(2)).insert(any(IdempotencyRecord.class));
+    }
+
+    @Test
+    void ejecutarShouldCoalesceConcurrentDuplicates() throws Exception {
+        CountDownLatch enCurso = new CountDownLatch(1);
+        CountDownLatch continuar = new CountDownLatch(1);
+        Supplier<SolicitudResponse> lenta = () -> {
+            enCurso.countDown();
+            try {
+                continuar.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+            return aprobar();
+        };
+
+        CompletableFuture<SolicitudResponse> original =
+            CompletableFuture.supplyAsync(() -> ejecutar("clave-1", peticion("Listo"), lenta));
+        assertThat(enCurso.await(5, TimeUnit.SECONDS)).isTrue();
+        CompletableFuture<SolicitudResponse> duplicado =
+            CompletableFuture.supplyAsync(() -> ejecutar("clave-1", peticion("Listo"), this::aprobar));
+        continuar.countDown();
+
+        assertThat(duplicado.get(5, TimeUnit.SECONDS)).isEqualTo(original.get(5, TimeUnit.SECONDS));
+        assertThat(ejecuciones).hasValue(1);
+        verify(mongoTemplate).insert(any(IdempotencyRecord.class));
+    }
+
+    private SolicitudResponse ejecutar(String clave, SolicitudEstadoChangeRequest request,
+            Supplier<SolicitudResponse> accion) {
+        return service.ejecutar(clave, "estado:sol-1", "coord@test.edu", request, SolicitudResponse.class, accion);
+    }
+
+    private SolicitudResponse aprobar() {
+        ejecuciones.incrementAndGet();
+        return SolicitudResponse.builder()
+            .id("sol-1")
+            .codigoSolicitud("SOL-20240110120000-ABCD000001")
+            .estado(SolicitudEstado.APROBADA)
+            .fechaActualizacion(AHORA)
+            .build();
+    }
+
+    private static SolicitudEstadoChangeRequest peticion(String observaciones) {
+        SolicitudEstadoChangeRequest request = new SolicitudEstadoChangeRequest();
+        request.setEstado(SolicitudEstado.APROBADA);
+        request.setObservaciones(observaciones);
+        return request;
+    }
+
+    private String huella(Object peticion) throws Exception {
+        return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256")
+            .digest(objectMapper.writeValueAsBytes(peticion)));
+    }
+}
@@ -0,0 +1,83 @@
+package edu.dosw.sirha.service;
+
+import edu.dosw.sirha.config.NodeIdentity;
+import edu.dosw.sirha.model.SchedulerLock;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Pruebas unitarias para {@link LeaderLock}.
+ *
+ * <p>Verifica la condición del {@code findAndModify} que toma o renueva el bloqueo
+ * y que una réplica sin el bloqueo no se considere líder.</p>
+ */
+@ExtendWith(MockitoExtension.class)
+class LeaderLockTest {
+
+    private static final Instant AHORA = Instant.parse("2024-01-10T12:00:00Z");
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    private LeaderLock leaderLock;
+
+    @BeforeEach
+    void setUp() {
+        leaderLock = new LeaderLock(mongoTemplate, new NodeIdentity("nodo-a"), Clock.fixed(AHORA, ZoneOffset.UTC));
+    }
+
+    @Test
+    void adquirirShouldUpsertWhenExpiredOrOwned() {
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class),
+                eq(SchedulerLock.class))).thenReturn(new SchedulerLock("plazos", "nodo-a", AHORA.plusSeconds(180)));
+
+        assertThat(leaderLock.adquirir("plazos", Duration.ofMinutes(3))).isTrue();
+
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        ArgumentCaptor<FindAndModifyOptions> options = ArgumentCaptor.forClass(FindAndModifyOptions.class);
+        verify(mongoTemplate).findAndModify(query.capture(), update.capture(), options.capture(), eq(SchedulerLock.class));
+        assertThat(query.getValue().getQueryObject()).isEqualTo(new Document("id", "plazos")
+                .append("$or", List.of(new Document("expiresAt", new Document("$lte", AHORA)),
+                        new Document("owner", "nodo-a"))));
+        assertThat(update.getValue().getUpdateObject()).isEqualTo(new Document("$set",
+                new Document("owner", "nodo-a").append("expiresAt", AHORA.plusSeconds(180))));
+        assertThat(options.getValue().isUpsert()).isTrue();
+    }
+
+    @Test
+    void adquirirShouldFailWhenAnotherNodeHoldsTheLock() {
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class),
+                eq(SchedulerLock.class))).thenThrow(new DuplicateKeyException("E11000"));
+
+        assertThat(leaderLock.adquirir("plazos", Duration.ofMinutes(3))).isFalse();
+    }
+
+    @Test
+    void nodeIdentityShouldGenerateUniqueIdsWhenNotConfigured() {
+        assertThat(new NodeIdentity("").getId()).isNotEqualTo(new NodeIdentity(" ").getId());
+        assertThat(new NodeIdentity("nodo-b").getId()).isEqualTo("nodo-b");
+    }
+}
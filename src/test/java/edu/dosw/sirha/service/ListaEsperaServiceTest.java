@@ -0,0 +1,287 @@
+package edu.dosw.sirha.service;
+
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.client.result.DeleteResult;
+import com.mongodb.client.result.UpdateResult;
+import edu.dosw.sirha.dto.response.ListaEsperaResponse;
+import edu.dosw.sirha.exception.ConflictException;
+import edu.dosw.sirha.exception.ResourceNotFoundException;
+import edu.dosw.sirha.model.Grupo;
+import edu.dosw.sirha.model.Inscripcion;
+import edu.dosw.sirha.model.ListaEsperaEntrada;
+import edu.dosw.sirha.model.User;
+import edu.dosw.sirha.model.enums.EstadoInscripcion;
+import edu.dosw.sirha.model.enums.Rol;
+import edu.dosw.sirha.repository.GrupoRepository;
+import edu.dosw.sirha.repository.InscripcionRepository;
+import edu.dosw.sirha.repository.UserRepository;
+import org.bson.BsonDocument;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Pruebas unitarias para {@link ListaEsperaService}.
+ *
+ * <p>Verifica que el lugar en la fila se resuelva desde el índice en memoria, que un
+ * estudiante no ingrese dos veces, ni si no existe o ya está inscrito en el grupo, y
+ * que los cupos liberados se entreguen a la cabeza de la fila con un
+ * {@code updateMulti} condicionado, inscribiendo a los promovidos.</p>
+ */
+@ExtendWith(MockitoExtension.class)
+class ListaEsperaServiceTest {
+
+    private static final Instant AHORA = Instant.parse("2024-01-10T12:00:00Z");
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @Mock
+    private GrupoRepository grupoRepository;
+
+    @Mock
+    private InscripcionRepository inscripcionRepository;
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private BulkOperations bulkOperations;
+
+    private ListaEsperaService service;
+
+    @BeforeEach
+    void setUp() {
+        service = new ListaEsperaService(mongoTemplate, grupoRepository, inscripcionRepository, userRepository,
+                Clock.fixed(AHORA, ZoneOffset.UTC));
+    }
+
+    @Test
+    void agregarShouldAppendWithNextTurnAndReportPlace() {
+        cargar(entrada("est-1", 3), entrada("est-2", 5));
+        estudiante("est-3");
+        when(grupoRepository.siguientePosicionEspera("grp-1")).thenReturn(Optional.of(6L));
+        when(mongoTemplate.insert(any(ListaEsperaEntrada.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        ListaEsperaResponse respuesta = service.agregar("grp-1", "est-3");
+
+        assertThat(respuesta.getPosicion()).isEqualTo(3);
+        assertThat(respuesta.getFechaIngreso()).isEqualTo(AHORA);
+        assertThat(service.consultar("grp-1", "est-3").getPosicion()).isEqualTo(3);
+        verify(mongoTemplate, times(1)).find(any(Query.class), eq(ListaEsperaEntrada.class));
+    }
+
+    @Test
+    void agregarShouldKeepTurnOfStudentAlreadyWaiting() {
+        cargar(entrada("est-1", 3), entrada("est-2", 5));
+
+        assertThat(service.agregar("grp-1", "est-2").getPosicion()).isEqualTo(2);
+
+        verify(grupoRepository, never()).siguientePosicionEspera(any());
+        verify(mongoTemplate, never()).insert(any(ListaEsperaEntrada.class));
+    }
+
+    @Test
+    void agregarShouldReuseEntryInsertedByAnotherReplica() {
+        estudiante("est-1");
+        when(grupoRepository.siguientePosicionEspera("grp-1")).thenReturn(Optional.of(9L));
+        when(mongoTemplate.insert(any(ListaEsperaEntrada.class))).thenThrow(new DuplicateKeyException("E11000"));
+        when(mongoTemplate.findOne(any(Query.class), eq(ListaEsperaEntrada.class))).thenReturn(entrada("est-1", 7));
+
+        assertThat(service.agregar("grp-1", "est-1").getPosicion()).isEqualTo(1);
+    }
+
+    @Test
+    void agregarShouldFailWhenGroupDoesNotExist() {
+        estudiante("est-1");
+        when(grupoRepository.siguientePosicionEspera("grp-1")).thenReturn(Optional.empty());
+
+        assertThatThrownBy(() -> service.agregar("grp-1", "est-1")).isInstanceOf(ResourceNotFoundException.class);
+    }
+
+    @Test
+    void agregarShouldRejectUnknownStudent() {
+        when(userRepository.findById("est-9")).thenReturn(Optional.empty());
+
+        assertThatThrownBy(() -> service.agregar("grp-1", "est-9")).isInstanceOf(ResourceNotFoundException.class);
+
+        verify(grupoRepository, never()).siguientePosicionEspera(any());
+    }
+
+    @Test
+    void agregarShouldRejectUserWhoIsNotAStudent() {
+        when(userRepository.findById("doc-1")).thenReturn(Optional.of(User.builder().id("doc-1").rol(Rol.DOCENTE).build()));
+
+        assertThatThrownBy(() -> service.agregar("grp-1", "doc-1")).isInstanceOf(ResourceNotFoundException.class);
+    }
+
+    @Test
+    void agregarShouldRejectStudentAlreadyEnrolledInGroup() {
+        estudiante("est-1");
+        when(inscripcionRepository.existsByEstudianteIdAndGrupoIdAndEstado("est-1", "grp-1", EstadoInscripcion.INSCRITO))
+                .thenReturn(true);
+
+        assertThatThrownBy(() -> service.agregar("grp-1", "est-1")).isInstanceOf(ConflictException.class);
+
+        verify(grupoRepository, never()).siguientePosicionEspera(any());
+        verify(mongoTemplate, never()).insert(any(ListaEsperaEntrada.class));
+    }
+
+    @Test
+    void retirarShouldMoveFollowingStudentsForward() {
+        cargar(entrada("est-1", 3), entrada("est-2", 5), entrada("est-3", 6));
+        assertThat(service.consultar("grp-1", "est-3").getPosicion()).isEqualTo(3);
+        when(mongoTemplate.remove(any(Query.class), eq(ListaEsperaEntrada.class))).thenReturn(DeleteResult.acknowledged(1));
+
+        service.retirar("grp-1", "est-2");
+
+        assertThat(service.consultar("grp-1", "est-3").getPosicion()).isEqualTo(2);
+    }
+
+    @Test
+    void retirarShouldFailWhenStudentIsNotWaiting() {
+        when(mongoTemplate.remove(any(Query.class), eq(ListaEsperaEntrada.class))).thenReturn(DeleteResult.acknowledged(0));
+
+        assertThatThrownBy(() -> service.retirar("grp-1", "est-1")).isInstanceOf(ResourceNotFoundException.class);
+    }
+
+    @Test
+    void promoverShouldTakeHeadOfQueueInOneConditionalUpdate() {
+        when(mongoTemplate.find(any(Query.class), eq(ListaEsperaEntrada.class)))
+                .thenReturn(List.of(entrada("est-1", 3), entrada("est-2", 5), entrada("est-3", 6)),
+                        List.of(entrada("est-1", 3), entrada("est-2", 5)));
+        assertThat(service.consultar("grp-1", "est-3").getPosicion()).isEqualTo(3);
+        when(mongoTemplate.updateMulti(any(Query.class), any(Update.class), eq(ListaEsperaEntrada.class)))
+                .thenReturn(UpdateResult.acknowledged(2, 2L, null));
+        stubInscripciones();
+
+        assertThat(service.promover("grp-1", 2)).containsExactly("est-1", "est-2");
+
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate).updateMulti(query.capture(), update.capture(), eq(ListaEsperaEntrada.class));
+        assertThat(query.getValue().getQueryObject().get("id")).isEqualTo(new Document("$in", List.of("id-est-1", "id-est-2")));
+        assertThat(query.getValue().getQueryObject()).containsEntry("fechaPromocion", null);
+        assertThat((Document) update.getValue().getUpdateObject().get("$set")).containsEntry("fechaPromocion", AHORA);
+        assertThat(service.consultar("grp-1", "est-3").getPosicion()).isEqualTo(1);
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<Inscripcion>> inscripciones = ArgumentCaptor.forClass(List.class);
+        verify(bulkOperations).insert(inscripciones.capture());
+        assertThat(inscripciones.getValue()).extracting(Inscripcion::getId).containsExactly("espera-id-est-1", "espera-id-est-2");
+        assertThat(inscripciones.getValue()).allSatisfy(inscripcion -> {
+            assertThat(inscripcion.getGrupoId()).isEqualTo("grp-1");
+            assertThat(inscripcion.getPeriodoId()).isEqualTo("per-1");
+            assertThat(inscripcion.getEstado()).isEqualTo(EstadoInscripcion.INSCRITO);
+        });
+    }
+
+    @Test
+    void promoverShouldReadBackBatchWhenAnotherReplicaTookSomeEntries() {
+        when(mongoTemplate.find(any(Query.class), eq(ListaEsperaEntrada.class)))
+                .thenReturn(List.of(entrada("est-1", 3), entrada("est-2", 5)), List.of(entrada("est-2", 5)), List.of());
+        when(mongoTemplate.updateMulti(any(Query.class), any(Update.class), eq(ListaEsperaEntrada.class)))
+                .thenReturn(UpdateResult.acknowledged(1, 1L, null));
+        stubInscripciones();
+
+        assertThat(service.promover("grp-1", 2)).containsExactly("est-2");
+    }
+
+    @Test
+    void promoverShouldReturnEntryToQueueWhenItsInscripcionFails() {
+        when(mongoTemplate.find(any(Query.class), eq(ListaEsperaEntrada.class)))
+                .thenReturn(List.of(entrada("est-1", 3), entrada("est-2", 5)));
+        when(mongoTemplate.updateMulti(any(Query.class), any(Update.class), eq(ListaEsperaEntrada.class)))
+                .thenReturn(UpdateResult.acknowledged(2, 2L, null));
+        stubInscripciones();
+        // est-1 falla; est-2 ya estaba inscrito por un intento anterior
+        BulkOperationException fallo = mock(BulkOperationException.class);
+        when(fallo.getErrors()).thenReturn(List.of(
+                new BulkWriteError(121, "Document failed validation", new BsonDocument(), 0),
+                new BulkWriteError(11000, "E11000", new BsonDocument(), 1)));
+        when(bulkOperations.execute()).thenThrow(fallo);
+
+        assertThat(service.promover("grp-1", 2)).containsExactly("est-2");
+
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate, times(2)).updateMulti(query.capture(), update.capture(), eq(ListaEsperaEntrada.class));
+        assertThat(query.getAllValues().get(1).getQueryObject().get("id")).isEqualTo(new Document("$in", List.of("id-est-1")));
+        assertThat((Document) update.getAllValues().get(1).getUpdateObject().get("$unset"))
+                .containsOnlyKeys("fechaPromocion", "lote");
+    }
+
+    @Test
+    void promoverShouldReturnEntriesToQueueWhenGroupIsGone() {
+        when(mongoTemplate.find(any(Query.class), eq(ListaEsperaEntrada.class)))
+                .thenReturn(List.of(entrada("est-1", 3)));
+        when(mongoTemplate.updateMulti(any(Query.class), any(Update.class), eq(ListaEsperaEntrada.class)))
+                .thenReturn(UpdateResult.acknowledged(1, 1L, null));
+        when(grupoRepository.findById("grp-1")).thenReturn(Optional.empty());
+
+        assertThat(service.promover("grp-1", 1)).isEmpty();
+
+        verify(mongoTemplate, never()).bulkOps(any(BulkOperations.BulkMode.class), eq(Inscripcion.class));
+        verify(mongoTemplate, times(2)).updateMulti(any(Query.class), any(Update.class), eq(ListaEsperaEntrada.class));
+    }
+
+    @Test
+    void promoverShouldReturnPromotedSoFarWhenMongoFails() {
+        when(mongoTemplate.find(any(Query.class), eq(ListaEsperaEntrada.class)))
+                .thenThrow(new DataAccessResourceFailureException("down"));
+
+        assertThat(service.promover("grp-1", 3)).isEmpty();
+    }
+
+    private void stubInscripciones() {
+        when(grupoRepository.findById("grp-1")).thenReturn(Optional.of(Grupo.builder().id("grp-1").periodoId("per-1").build()));
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Inscripcion.class)).thenReturn(bulkOperations);
+        when(bulkOperations.insert(anyList())).thenReturn(bulkOperations);
+    }
+
+    private void cargar(ListaEsperaEntrada... entradas) {
+        when(mongoTemplate.find(any(Query.class), eq(ListaEsperaEntrada.class))).thenReturn(List.of(entradas));
+    }
+
+    private static ListaEsperaEntrada entrada(String estudianteId, long posicion) {
+        return ListaEsperaEntrada.builder()
+                .id("id-" + estudianteId)
+                .grupoId("grp-1")
+                .estudianteId(estudianteId)
+                .posicion(posicion)
+                .fechaIngreso(AHORA.minusSeconds(60))
+                .build();
+    }
+
+    private void estudiante(String id) {
+        when(userRepository.findById(id)).thenReturn(Optional.of(User.builder().id(id).rol(Rol.ESTUDIANTE).build()));
+    }
+}
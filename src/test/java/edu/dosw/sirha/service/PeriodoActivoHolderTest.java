@@ -0,0 +1,158 @@
+package edu.dosw.sirha.service;
+
+import edu.dosw.sirha.model.Periodo;
+import edu.dosw.sirha.model.PeriodoConfiguracion;
+import edu.dosw.sirha.repository.PeriodoRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+
+import java.time.Instant;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Pruebas unitarias para {@link PeriodoActivoHolder}.
+ *
+ * <p>Verifica la carga perezosa, la publicación desde el servicio de períodos, la
+ * invalidación y la recarga periódica ante cambios de otros nodos.</p>
+ */
+@ExtendWith(MockitoExtension.class)
+class PeriodoActivoHolderTest {
+
+    @Mock
+    private PeriodoRepository periodoRepository;
+
+    private PeriodoActivoHolder holder;
+
+    @BeforeEach
+    void setUp() {
+        holder = new PeriodoActivoHolder(periodoRepository);
+    }
+
+    @Test
+    void actualShouldQueryMongoOnlyOnce() {
+        when(periodoRepository.findByActivoTrue()).thenReturn(Optional.of(periodo("per-1", true)));
+
+        assertThat(holder.actual()).map(Periodo::getId).contains("per-1");
+        assertThat(holder.actual()).map(Periodo::getId).contains("per-1");
+        assertThat(holder.actual()).map(Periodo::getId).contains("per-1");
+
+        verify(periodoRepository, times(1)).findByActivoTrue();
+    }
+
+    @Test
+    void actualShouldCacheAbsenceOfActivePeriodo() {
+        when(periodoRepository.findByActivoTrue()).thenReturn(Optional.empty());
+
+        assertThat(holder.actual()).isEmpty();
+        assertThat(holder.actual()).isEmpty();
+
+        verify(periodoRepository, times(1)).findByActivoTrue();
+    }
+
+    @Test
+    void publicarActiveShouldReplaceSnapshotWithoutQuerying() {
+        holder.publicar(periodo("per-2", true));
+
+        assertThat(holder.actual()).map(Periodo::getId).contains("per-2");
+        verify(periodoRepository, never()).findByActivoTrue();
+    }
+
+    @Test
+    void publicarShouldCopyPeriodoSoLaterChangesDoNotLeak() {
+        Periodo periodo = periodo("per-2", true);
+        holder.publicar(periodo);
+
+        periodo.setFechaLimiteSolicitudes(Instant.parse("2030-01-01T00:00:00Z"));
+
+        assertThat(holder.actual()).map(Periodo::getFechaLimiteSolicitudes)
+                .contains(Instant.parse("2024-02-01T00:00:00Z"));
+    }
+
+    @Test
+    void publicarShouldCopyConfiguracionSoLaterChangesDoNotLeak() {
+        Periodo periodo = periodo("per-2", true);
+        periodo.setConfiguracion(PeriodoConfiguracion.builder().permitirCambios(true).diasMaxRespuesta(5).build());
+        holder.publicar(periodo);
+
+        periodo.getConfiguracion().setPermitirCambios(false);
+        periodo.getConfiguracion().setDiasMaxRespuesta(1);
+
+        PeriodoConfiguracion configuracion = holder.actual().orElseThrow().getConfiguracion();
+        assertThat(configuracion.isPermitirCambios()).isTrue();
+        assertThat(configuracion.getDiasMaxRespuesta()).isEqualTo(5);
+    }
+
+    @Test
+    void publicarDeactivatedCurrentShouldInvalidate() {
+        holder.publicar(periodo("per-1", true));
+        when(periodoRepository.findByActivoTrue()).thenReturn(Optional.empty());
+
+        holder.publicar(periodo("per-1", false));
+
+        assertThat(holder.actual()).isEmpty();
+        verify(periodoRepository).findByActivoTrue();
+    }
+
+    @Test
+    void publicarOtherInactiveShouldKeepSnapshot() {
+        holder.publicar(periodo("per-1", true));
+
+        holder.publicar(periodo("per-0", false));
+
+        assertThat(holder.actual()).map(Periodo::getId).contains("per-1");
+        verify(periodoRepository, never()).findByActivoTrue();
+    }
+
+    @Test
+    void recargarShouldPickUpChangesFromOtherNodes() {
+        holder.publicar(periodo("per-1", true));
+        when(periodoRepository.findByActivoTrue()).thenReturn(Optional.of(periodo("per-2", true)));
+
+        holder.recargar();
+
+        assertThat(holder.actual()).map(Periodo::getId).contains("per-2");
+    }
+
+    @Test
+    void recargarShouldKeepSnapshotWhenMongoIsUnavailable() {
+        holder.publicar(periodo("per-1", true));
+        when(periodoRepository.findByActivoTrue()).thenThrow(new DataAccessResourceFailureException("down"));
+
+        holder.recargar();
+
+        assertThat(holder.actual()).map(Periodo::getId).contains("per-1");
+    }
+
+    @Test
+    void invalidarShouldForceReload() {
+        holder.publicar(periodo("per-1", true));
+        when(periodoRepository.findByActivoTrue()).thenReturn(Optional.of(periodo("per-3", true)));
+
+        holder.invalidar();
+
+        assertThat(holder.actual()).map(Periodo::getId).contains("per-3");
+    }
+
+    private static Periodo periodo(String id, boolean activo) {
+        return Periodo.builder()
+                .id(id)
+                .fechaInicio(Instant.parse("2024-01-15T00:00:00Z"))
+                .fechaFin(Instant.parse("2024-06-15T00:00:00Z"))
+                .fechaInscripcionInicio(Instant.parse("2024-01-01T00:00:00Z"))
+                .fechaLimiteSolicitudes(Instant.parse("2024-02-01T00:00:00Z"))
+                .ano(2024)
+                .semestre(1)
+                .activo(activo)
+                .build();
+    }
+}
@@ -60,7 +60,8 @@ class PeriodoServiceTest {
 
     @BeforeEach
     void setUp() {
-        periodoService = new PeriodoServiceImpl(periodoRepository, new PeriodoMapper());
+        periodoService = new PeriodoServiceImpl(periodoRepository, new PeriodoMapper(),
+                new PeriodoActivoHolder(periodoRepository));
     }
 
     @Test
@@ -0,0 +1,187 @@
+package edu.dosw.sirha.service;
+
+import edu.dosw.sirha.model.Solicitud;
+import edu.dosw.sirha.model.SolicitudHistorialEntry;
+import edu.dosw.sirha.repository.SolicitudRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Pruebas unitarias para {@link PlazoScheduler}.
+ *
+ * <p>Verifica que los plazos se agrupen por tick, que cada tick procese solo las
+ * cubetas cumplidas y en lotes, que únicamente la réplica líder marque las
+ * solicitudes vencidas y que al tomar el relevo recargue los plazos descartados.</p>
+ */
+@ExtendWith(MockitoExtension.class)
+class PlazoSchedulerTest {
+
+    private static final Instant INICIO = Instant.parse("2024-01-10T12:00:00Z");
+
+    @Mock
+    private SolicitudRepository solicitudRepository;
+
+    @Mock
+    private LeaderLock leaderLock;
+
+    private final AtomicReference<Instant> ahora = new AtomicReference<>(INICIO);
+
+    private PlazoScheduler scheduler;
+
+    @BeforeEach
+    void setUp() {
+        Clock clock = new Clock() {
+            @Override
+            public ZoneId getZone() {
+                return ZoneOffset.UTC;
+            }
+
+            @Override
+            public Clock withZone(ZoneId zone) {
+                return this;
+            }
+
+            @Override
+            public Instant instant() {
+                return ahora.get();
+            }
+        };
+        scheduler = new PlazoScheduler(solicitudRepository, leaderLock, clock);
+    }
+
+    @Test
+    void recargarShouldLoadDeadlinesUpToHorizon() {
+        when(solicitudRepository.buscarPlazos(PlazoScheduler.ESTADOS_ABIERTOS, INICIO.plusSeconds(86_400)))
+                .thenReturn(List.of(plazo("s1", INICIO.minusSeconds(3600)), plazo("s2", INICIO.plusSeconds(600))));
+
+        assertThat(scheduler.recargar()).isEqualTo(2);
+        assertThat(scheduler.programadas()).isEqualTo(2);
+    }
+
+    @Test
+    void programarShouldIgnoreDeadlinesBeyondLoadedHorizon() {
+        when(solicitudRepository.buscarPlazos(anyCollection(), any())).thenReturn(List.of());
+        scheduler.recargar();
+
+        scheduler.programar("s1", INICIO.plusSeconds(3600));
+        scheduler.programar("s2", INICIO.plusSeconds(5 * 86_400));
+
+        assertThat(scheduler.programadas()).isEqualTo(1);
+    }
+
+    @Test
+    void procesarShouldOnlyTouchElapsedBuckets() {
+        cargar(plazo("s1", INICIO.plusSeconds(30)), plazo("s2", INICIO.plusSeconds(3600)));
+        when(leaderLock.adquirir(eq(PlazoScheduler.TAREA), any())).thenReturn(true);
+        when(solicitudRepository.marcarVencidas(anyCollection(), anyCollection(), any(), any(), anyInt()))
+                .thenReturn(Set.of("s1"));
+
+        // La cubeta de s1 todavía no termina
+        assertThat(scheduler.procesar()).isZero();
+        verify(solicitudRepository, never()).marcarVencidas(anyCollection(), anyCollection(), any(), any(), anyInt());
+
+        ahora.set(INICIO.plusSeconds(120));
+        assertThat(scheduler.procesar()).isEqualTo(1);
+
+        ArgumentCaptor<Collection<String>> ids = ArgumentCaptor.forClass(Collection.class);
+        ArgumentCaptor<SolicitudHistorialEntry> evento = ArgumentCaptor.forClass(SolicitudHistorialEntry.class);
+        verify(solicitudRepository).marcarVencidas(ids.capture(), eq(PlazoScheduler.ESTADOS_ABIERTOS),
+                eq(INICIO.plusSeconds(120)), evento.capture(), eq(20));
+        assertThat(ids.getValue()).containsExactly("s1");
+        assertThat(evento.getValue().getAccion()).isEqualTo("PLAZO_VENCIDO");
+        assertThat(scheduler.programadas()).isEqualTo(1);
+    }
+
+    @Test
+    void procesarShouldMarkInBatches() {
+        ReflectionTestUtils.setField(scheduler, "lote", 2);
+        cargar(plazo("s1", INICIO.minusSeconds(10)), plazo("s2", INICIO.minusSeconds(600)),
+                plazo("s3", INICIO.minusSeconds(7200)));
+        when(leaderLock.adquirir(eq(PlazoScheduler.TAREA), any())).thenReturn(true);
+        when(solicitudRepository.marcarVencidas(anyCollection(), anyCollection(), any(), any(), anyInt()))
+                .thenReturn(Set.of("a", "b"), Set.of("c"));
+
+        assertThat(scheduler.procesar()).isEqualTo(3);
+
+        verify(solicitudRepository, times(2)).marcarVencidas(anyCollection(), anyCollection(), any(), any(), anyInt());
+        assertThat(scheduler.programadas()).isZero();
+    }
+
+    @Test
+    void procesarShouldDiscardElapsedBucketsWhenNotLeader() {
+        cargar(plazo("s1", INICIO.minusSeconds(600)));
+        when(leaderLock.adquirir(eq(PlazoScheduler.TAREA), any())).thenReturn(false);
+
+        assertThat(scheduler.procesar()).isZero();
+
+        verify(solicitudRepository, never()).marcarVencidas(anyCollection(), anyCollection(), any(), any(), anyInt());
+        assertThat(scheduler.programadas()).isZero();
+    }
+
+    @Test
+    void procesarShouldReloadDiscardedDeadlinesWhenTakingOverLeadership() {
+        cargar(plazo("s1", INICIO.minusSeconds(600)));
+        when(leaderLock.adquirir(eq(PlazoScheduler.TAREA), any())).thenReturn(false, true, true);
+        when(solicitudRepository.marcarVencidas(anyCollection(), anyCollection(), any(), any(), anyInt()))
+                .thenReturn(Set.of("s1"));
+
+        assertThat(scheduler.procesar()).isZero();
+        assertThat(scheduler.programadas()).isZero();
+
+        // Otra réplica dejó el bloqueo sin marcar s1: la recarga del relevo la recupera
+        assertThat(scheduler.procesar()).isEqualTo(1);
+        ArgumentCaptor<Collection<String>> ids = ArgumentCaptor.forClass(Collection.class);
+        verify(solicitudRepository).marcarVencidas(ids.capture(), anyCollection(), any(), any(), anyInt());
+        assertThat(ids.getValue()).containsExactly("s1");
+
+        // Sigue siendo líder: no vuelve a recargar en cada tick
+        scheduler.procesar();
+        verify(solicitudRepository, times(2)).buscarPlazos(anyCollection(), any());
+    }
+
+    @Test
+    void procesarShouldContinueWithNextBatchWhenOneFails() {
+        ReflectionTestUtils.setField(scheduler, "lote", 1);
+        cargar(plazo("s1", INICIO.minusSeconds(600)), plazo("s2", INICIO.minusSeconds(7200)));
+        when(leaderLock.adquirir(eq(PlazoScheduler.TAREA), any())).thenReturn(true);
+        when(solicitudRepository.marcarVencidas(anyCollection(), anyCollection(), any(), any(), anyInt()))
+                .thenThrow(new DataAccessResourceFailureException("down"))
+                .thenReturn(Set.of("s1"));
+
+        assertThat(scheduler.procesar()).isEqualTo(1);
+    }
+
+    private void cargar(Solicitud... plazos) {
+        when(solicitudRepository.buscarPlazos(anyCollection(), any())).thenReturn(List.of(plazos));
+        scheduler.recargar();
+    }
+
+    private static Solicitud plazo(String id, Instant fechaLimite) {
+        return Solicitud.builder().id(id).fechaLimiteRespuesta(fechaLimite).build();
+    }
+}
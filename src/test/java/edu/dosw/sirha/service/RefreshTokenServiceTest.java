@@ -0,0 +1,146 @@
+package edu.dosw.sirha.service;
+
+import com.mongodb.client.result.UpdateResult;
+import edu.dosw.sirha.model.RefreshToken;
+import edu.dosw.sirha.repository.RefreshTokenRepository;
+import edu.dosw.sirha.security.JwtProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.security.authentication.BadCredentialsException;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Pruebas unitarias para {@link RefreshTokenService}.
+ * 
+ * <p>Verifica la emisión con hash, la rotación dentro de la misma familia, la
+ * expiración deslizante acotada por el límite absoluto y la revocación de la
+ * familia al detectar reutilización.</p>
+ */
+@ExtendWith(MockitoExtension.class)
+class RefreshTokenServiceTest {
+
+    private static final Instant NOW = Instant.parse("2025-01-15T12:00:00Z");
+
+    @Mock
+    private RefreshTokenRepository refreshTokenRepository;
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    private RefreshTokenService service;
+
+    @BeforeEach
+    void setUp() {
+        JwtProperties properties = new JwtProperties();
+        properties.setRefreshIdleMinutes(60);
+        properties.setRefreshAbsoluteMinutes(90);
+        service = new RefreshTokenService(refreshTokenRepository, mongoTemplate, properties,
+                Clock.fixed(NOW, ZoneOffset.UTC));
+    }
+
+    @Test
+    void emitirShouldStoreOnlyHashWithIdleExpiry() {
+        String token = service.emitir("user-1");
+
+        ArgumentCaptor<RefreshToken> saved = ArgumentCaptor.forClass(RefreshToken.class);
+        verify(refreshTokenRepository).save(saved.capture());
+        assertThat(saved.getValue().getTokenHash()).isNotBlank().isNotEqualTo(token);
+        assertThat(saved.getValue().getUserId()).isEqualTo("user-1");
+        assertThat(saved.getValue().getExpiraEn()).isEqualTo(NOW.plus(60, ChronoUnit.MINUTES));
+        assertThat(saved.getValue().getExpiraAbsolutoEn()).isEqualTo(NOW.plus(90, ChronoUnit.MINUTES));
+    }
+
+    @Test
+    void rotarShouldIssueNewTokenInSameFamilyCappedByAbsoluteExpiry() {
+        RefreshToken actual = existente(false, NOW.plus(30, ChronoUnit.MINUTES), NOW.plus(45, ChronoUnit.MINUTES));
+        when(refreshTokenRepository.findByTokenHash(anyString())).thenReturn(Optional.of(actual));
+        when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(RefreshToken.class)))
+                .thenReturn(UpdateResult.acknowledged(1, 1L, null));
+
+        RefreshTokenService.Rotacion rotacion = service.rotar("token");
+
+        ArgumentCaptor<RefreshToken> saved = ArgumentCaptor.forClass(RefreshToken.class);
+        verify(refreshTokenRepository).save(saved.capture());
+        assertThat(rotacion.userId()).isEqualTo("user-1");
+        assertThat(rotacion.refreshToken()).isNotEqualTo("token");
+        assertThat(saved.getValue().getFamiliaId()).isEqualTo("familia-1");
+        assertThat(saved.getValue().getExpiraEn()).isEqualTo(NOW.plus(45, ChronoUnit.MINUTES));
+    }
+
+    @Test
+    void rotarShouldRevokeFamilyWhenTokenAlreadyUsed() {
+        RefreshToken actual = existente(true, NOW.plus(30, ChronoUnit.MINUTES), NOW.plus(45, ChronoUnit.MINUTES));
+        when(refreshTokenRepository.findByTokenHash(anyString())).thenReturn(Optional.of(actual));
+
+        assertThatThrownBy(() -> service.rotar("token")).isInstanceOf(BadCredentialsException.class);
+
+        verify(refreshTokenRepository).deleteByFamiliaId("familia-1");
+        verify(refreshTokenRepository, never()).save(any());
+    }
+
+    @Test
+    void rotarShouldRevokeFamilyWhenConcurrentUseWinsTheRace() {
+        RefreshToken actual = existente(false, NOW.plus(30, ChronoUnit.MINUTES), NOW.plus(45, ChronoUnit.MINUTES));
+        when(refreshTokenRepository.findByTokenHash(anyString())).thenReturn(Optional.of(actual));
+        when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(RefreshToken.class)))
+                .thenReturn(UpdateResult.acknowledged(0, 0L, null));
+
+        assertThatThrownBy(() -> service.rotar("token")).isInstanceOf(BadCredentialsException.class);
+
+        verify(refreshTokenRepository, times(1)).deleteByFamiliaId("familia-1");
+    }
+
+    @Test
+    void rotarShouldRejectExpiredToken() {
+        RefreshToken actual = existente(false, NOW.minusSeconds(1), NOW.plus(45, ChronoUnit.MINUTES));
+        when(refreshTokenRepository.findByTokenHash(anyString())).thenReturn(Optional.of(actual));
+        when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(RefreshToken.class)))
+                .thenReturn(UpdateResult.acknowledged(1, 1L, null));
+
+        assertThatThrownBy(() -> service.rotar("token")).isInstanceOf(BadCredentialsException.class);
+
+        verify(refreshTokenRepository, never()).save(any());
+    }
+
+    @Test
+    void rotarShouldRejectUnknownToken() {
+        when(refreshTokenRepository.findByTokenHash(anyString())).thenReturn(Optional.empty());
+
+        assertThatThrownBy(() -> service.rotar("desconocido")).isInstanceOf(BadCredentialsException.class);
+    }
+
+    private RefreshToken existente(boolean usado, Instant expiraEn, Instant expiraAbsolutoEn) {
+        return RefreshToken.builder()
+                .id("rt-1")
+                .tokenHash("hash")
+                .familiaId("familia-1")
+                .userId("user-1")
+                .emitidoEn(NOW.minus(10, ChronoUnit.MINUTES))
+                .expiraEn(expiraEn)
+                .expiraAbsolutoEn(expiraAbsolutoEn)
+                .usado(usado)
+                .build();
+    }
+}
@@ -0,0 +1,245 @@
+package edu.dosw.sirha.service;
+
+import edu.dosw.sirha.model.Grupo;
+import edu.dosw.sirha.model.Periodo;
+import edu.dosw.sirha.repository.PeriodoRepository;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+/**
+ * Pruebas unitarias para {@link SeatLedger}.
+ * 
+ * <p>Verifica la reserva en memoria sin sobrepasar el cupo (también bajo
+ * concurrencia), la escritura diferida en un único bulkWrite de {@code $inc} y la
+ * reconciliación con MongoDB conservando los cambios pendientes y liberando los
+ * slots de grupos que salieron del período activo.</p>
+ */
+@ExtendWith(MockitoExtension.class)
+class SeatLedgerTest {
+
+    private static final Logger log = LoggerFactory.getLogger(SeatLedgerTest.class);
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @Mock
+    private PeriodoRepository periodoRepository;
+
+    @Mock
+    private BulkOperations bulkOperations;
+
+    private SeatLedger ledger;
+
+    @BeforeEach
+    void setUp() {
+        ledger = new SeatLedger(mongoTemplate, periodoRepository, 16);
+    }
+
+    @Test
+    void unknownGroupShouldFallBackToMongo() {
+        assertThat(ledger.consultar("grp-x")).isEqualTo(SeatLedger.Resultado.DESCONOCIDO);
+        assertThat(ledger.reservar("grp-x")).isEqualTo(SeatLedger.Resultado.DESCONOCIDO);
+        assertThat(ledger.liberar("grp-x")).isFalse();
+    }
+
+    @Test
+    void reservarShouldStopAtCupoMax() {
+        cargar(grupo("grp-1", 3, 1));
+
+        assertThat(ledger.reservar("grp-1")).isEqualTo(SeatLedger.Resultado.DISPONIBLE);
+        assertThat(ledger.reservar("grp-1")).isEqualTo(SeatLedger.Resultado.DISPONIBLE);
+        assertThat(ledger.reservar("grp-1")).isEqualTo(SeatLedger.Resultado.LLENO);
+        assertThat(ledger.consultar("grp-1")).isEqualTo(SeatLedger.Resultado.LLENO);
+
+        assertThat(ledger.liberar("grp-1")).isTrue();
+        assertThat(ledger.consultar("grp-1")).isEqualTo(SeatLedger.Resultado.DISPONIBLE);
+        assertThat(ledger.ocupados("grp-1")).contains(2);
+    }
+
+    @Test
+    void flushShouldWritePendingDeltasInSingleBulk() {
+        cargar(grupo("grp-1", 30, 10), grupo("grp-2", 30, 0));
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Grupo.class)).thenReturn(bulkOperations);
+        ledger.reservar("grp-1");
+        ledger.reservar("grp-1");
+
+        int escritos = ledger.flush();
+
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        verify(bulkOperations).updateOne(any(Query.class), update.capture());
+        verify(bulkOperations).execute();
+        assertThat((Document) update.getValue().getUpdateObject().get("$inc")).containsEntry("cuposActuales", 2);
+        assertThat(escritos).isEqualTo(1);
+        assertThat(ledger.ocupados("grp-1")).contains(12);
+        assertThat(ledger.flush()).isZero();
+    }
+
+    @Test
+    void flushShouldKeepDeltasPendingWhenWriteFails() {
+        cargar(grupo("grp-1", 30, 10));
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Grupo.class)).thenReturn(bulkOperations);
+        when(bulkOperations.execute()).thenThrow(new DataAccessResourceFailureException("sin conexión"));
+        ledger.reservar("grp-1");
+
+        assertThat(ledger.flush()).isZero();
+
+        assertThat(ledger.ocupados("grp-1")).contains(11);
+    }
+
+    @Test
+    void reconciliarShouldTakePersistedCountAndKeepPendingChanges() {
+        cargar(grupo("grp-1", 30, 10));
+        ledger.reservar("grp-1");
+
+        // Otro proceso dejó el grupo en 20 cupos persistidos
+        cargar(grupo("grp-1", 30, 20));
+
+        assertThat(ledger.ocupados("grp-1")).contains(21);
+    }
+
+    @Test
+    void reconciliarShouldKeepStateWhenMongoUnavailable() {
+        cargar(grupo("grp-1", 30, 10));
+        when(mongoTemplate.find(any(Query.class), eq(Grupo.class)))
+                .thenThrow(new DataAccessResourceFailureException("sin conexión"));
+
+        assertThat(ledger.reconciliar()).isZero();
+        assertThat(ledger.ocupados("grp-1")).contains(10);
+    }
+
+    @Test
+    void reconciliarShouldRetireGroupsOutsideActivePeriod() {
+        cargar(grupo("grp-1", 30, 10), grupo("grp-2", 30, 5));
+
+        cargar(grupo("grp-2", 30, 5));
+
+        assertThat(ledger.consultar("grp-1")).isEqualTo(SeatLedger.Resultado.DESCONOCIDO);
+        assertThat(ledger.ocupados("grp-2")).contains(5);
+    }
+
+    @Test
+    void reconciliarShouldKeepRetiredGroupWhileItHasPendingChanges() {
+        cargar(grupo("grp-1", 30, 10));
+        ledger.reservar("grp-1");
+
+        cargar(grupo("grp-2", 30, 5));
+
+        assertThat(ledger.ocupados("grp-1")).contains(11);
+    }
+
+    @Test
+    void reconciliarShouldReuseSlotsOfRetiredGroups() {
+        Grupo[] anterior = new Grupo[16];
+        Grupo[] nuevo = new Grupo[16];
+        for (int i = 0; i < 16; i++) {
+            anterior[i] = grupo("grp-anterior-" + i, 30, 0);
+            nuevo[i] = grupo("grp-nuevo-" + i, 30, 0);
+        }
+        cargar(anterior);
+
+        cargar(nuevo);
+        assertThat(ledger.consultar("grp-nuevo-0")).isEqualTo(SeatLedger.Resultado.DESCONOCIDO);
+
+        assertThat(ledger.reconciliar()).isEqualTo(16);
+        assertThat(ledger.consultar("grp-nuevo-15")).isEqualTo(SeatLedger.Resultado.DISPONIBLE);
+        assertThat(ledger.consultar("grp-anterior-0")).isEqualTo(SeatLedger.Resultado.DESCONOCIDO);
+    }
+
+    @Test
+    void flushWithoutChangesShouldNotTouchMongo() {
+        assertThat(ledger.flush()).isZero();
+        verifyNoInteractions(mongoTemplate);
+    }
+
+    @Test
+    void concurrentReservationsShouldNeverOverbook() throws Exception {
+        int cupoMax = 40;
+        cargar(grupo("grp-1", cupoMax, 0));
+        int hilos = 16;
+        int intentosPorHilo = 10_000;
+        AtomicInteger reservadas = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(hilos);
+        CountDownLatch inicio = new CountDownLatch(1);
+        List<Future<?>> tareas = new ArrayList<>();
+        for (int h = 0; h < hilos; h++) {
+            tareas.add(executor.submit(() -> {
+                inicio.await();
+                for (int i = 0; i < intentosPorHilo; i++) {
+                    if (ledger.reservar("grp-1") == SeatLedger.Resultado.DISPONIBLE) {
+                        reservadas.incrementAndGet();
+                    }
+                }
+                return null;
+            }));
+        }
+        inicio.countDown();
+        for (Future<?> tarea : tareas) {
+            tarea.get(30, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        assertThat(reservadas.get()).isEqualTo(cupoMax);
+        assertThat(ledger.ocupados("grp-1")).contains(cupoMax);
+    }
+
+    @Test
+    void seatCheckShouldStayInMemory() {
+        cargar(grupo("grp-1", 30, 10));
+        int iteraciones = 1_000_000;
+        for (int i = 0; i < iteraciones; i++) {
+            ledger.consultar("grp-1");
+        }
+        long start = System.nanoTime();
+        int disponibles = 0;
+        for (int i = 0; i < iteraciones; i++) {
+            if (ledger.consultar("grp-1") == SeatLedger.Resultado.DISPONIBLE) {
+                disponibles++;
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+
+        assertThat(disponibles).isEqualTo(iteraciones);
+        verifyNoInteractions(bulkOperations);
+        log.info("Consulta de cupo en memoria: {} ns promedio", elapsed / iteraciones);
+    }
+
+    private void cargar(Grupo... grupos) {
+        Periodo periodo = Periodo.builder().id("per-1").activo(true).build();
+        when(periodoRepository.findByActivoTrue()).thenReturn(Optional.of(periodo));
+        when(mongoTemplate.find(any(Query.class), eq(Grupo.class))).thenReturn(List.of(grupos));
+        ledger.reconciliar();
+    }
+
+    private static Grupo grupo(String id, int cupoMax, int cuposActuales) {
+        return Grupo.builder().id(id).cupoMax(cupoMax).cuposActuales(cuposActuales).activo(true).build();
+    }
+}
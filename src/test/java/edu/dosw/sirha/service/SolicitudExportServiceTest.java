@@ -0,0 +1,174 @@
+package edu.dosw.sirha.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.dosw.sirha.exception.BusinessException;
+import edu.dosw.sirha.mapper.SolicitudMapper;
+import edu.dosw.sirha.model.Solicitud;
+import edu.dosw.sirha.support.TestDataFactory;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+
+/**
+ * Pruebas unitarias para {@link SolicitudExportService}.
+ *
+ * <p>Verifica la consulta enviada al cursor, el formato NDJSON y CSV (incluido el
+ * escape de valores y de celdas que una hoja de cálculo tomaría como fórmula) y que
+ * el cursor se cierre cuando el cliente se desconecta.</p>
+ */
+@ExtendWith(MockitoExtension.class)
+class SolicitudExportServiceTest {
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+
+    private SolicitudExportService service;
+
+    @BeforeEach
+    void setUp() {
+        service = new SolicitudExportService(mongoTemplate, new SolicitudMapper(), objectMapper);
+    }
+
+    @Test
+    void exportarShouldStreamNdjsonWithoutHistorial() throws IOException {
+        Solicitud solicitud = TestDataFactory.buildSolicitud();
+        solicitud.setHistorial(null);
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        when(mongoTemplate.stream(query.capture(), eq(Solicitud.class))).thenReturn(Stream.of(solicitud, solicitud));
+        ByteArrayOutputStream salida = new ByteArrayOutputStream();
+
+        long escritas = service.exportar("per-2024", null, null, SolicitudExportService.Formato.NDJSON, salida);
+
+        assertThat(escritas).isEqualTo(2);
+        String[] lineas = salida.toString(StandardCharsets.UTF_8).split("\n");
+        assertThat(lineas).hasSize(2);
+        JsonNode fila = objectMapper.readTree(lineas[0]);
+        assertThat(fila.get("id").asText()).isEqualTo("sol-1");
+        assertThat(fila.get("codigoSolicitud").asText()).isEqualTo("SOL-20240101000000-ABCD1234");
+
+        Query enviada = query.getValue();
+        assertThat(enviada.getQueryObject()).isEqualTo(new Document("periodoId", "per-2024"));
+        assertThat(enviada.getSortObject()).isEqualTo(new Document("fechaSolicitud", 1).append("id", 1));
+        assertThat(enviada.getFieldsObject()).isEqualTo(new Document("historial", 0));
+        assertThat(enviada.getMeta().getCursorBatchSize()).isEqualTo(500);
+    }
+
+    @Test
+    void exportarShouldFilterByRangeWhenProvided() throws IOException {
+        Instant inicio = Instant.parse("2024-01-01T00:00:00Z");
+        Instant fin = Instant.parse("2024-01-31T00:00:00Z");
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        when(mongoTemplate.stream(query.capture(), eq(Solicitud.class))).thenReturn(Stream.empty());
+
+        service.exportar("per-2024", inicio, fin, SolicitudExportService.Formato.NDJSON, new ByteArrayOutputStream());
+
+        assertThat(query.getValue().getQueryObject()).isEqualTo(new Document("periodoId", "per-2024")
+                .append("fechaSolicitud", new Document("$gte", inicio).append("$lte", fin)));
+    }
+
+    @Test
+    void exportarShouldWriteCsvHeaderAndEscapeValues() throws IOException {
+        Solicitud solicitud = TestDataFactory.buildSolicitud();
+        solicitud.setDescripcion("Cruce con \"Cálculo\", grupo 2");
+        solicitud.setObservaciones(null);
+        when(mongoTemplate.stream(any(Query.class), eq(Solicitud.class))).thenReturn(Stream.of(solicitud));
+        ByteArrayOutputStream salida = new ByteArrayOutputStream();
+
+        service.exportar("per-2024", null, null, SolicitudExportService.Formato.CSV, salida);
+
+        String[] lineas = salida.toString(StandardCharsets.UTF_8).split("\r\n");
+        assertThat(lineas).hasSize(2);
+        assertThat(lineas[0]).startsWith("id,codigoSolicitud,estado,tipo,").endsWith(",descripcion,observaciones");
+        assertThat(lineas[1]).startsWith("sol-1,SOL-20240101000000-ABCD1234,PENDIENTE,CAMBIO_GRUPO,")
+                .contains(",3,2024-01-10T12:00:00Z,2024-01-15T12:00:00Z,")
+                .endsWith(",\"Cruce con \"\"Cálculo\"\", grupo 2\",");
+    }
+
+    @Test
+    void csvShouldQuoteLineBreaks() {
+        assertThat(SolicitudExportService.csv("linea 1\nlinea 2")).isEqualTo("\"linea 1\nlinea 2\"");
+        assertThat(SolicitudExportService.csv("simple")).isEqualTo("simple");
+        assertThat(SolicitudExportService.csv(null)).isEmpty();
+    }
+
+    @Test
+    void csvShouldNeutralizeFormulaCells() {
+        assertThat(SolicitudExportService.csv("=HYPERLINK(\"http://x\")")).isEqualTo("\"'=HYPERLINK(\"\"http://x\"\")\"");
+        assertThat(SolicitudExportService.csv("+57 300")).isEqualTo("'+57 300");
+        assertThat(SolicitudExportService.csv("-2+3")).isEqualTo("'-2+3");
+        assertThat(SolicitudExportService.csv("@SUM(A1)")).isEqualTo("'@SUM(A1)");
+        assertThat(SolicitudExportService.csv("\tcmd")).isEqualTo("'\tcmd");
+        assertThat(SolicitudExportService.csv(-5)).isEqualTo("-5");
+        assertThat(SolicitudExportService.csv("a=b")).isEqualTo("a=b");
+    }
+
+    @Test
+    void exportarShouldStopReadingAndCloseCursorWhenClientDisconnects() {
+        AtomicInteger leidas = new AtomicInteger();
+        AtomicBoolean cerrado = new AtomicBoolean();
+        Stream<Solicitud> cursor = IntStream.range(0, 100_000)
+                .peek(i -> leidas.incrementAndGet())
+                .mapToObj(i -> TestDataFactory.buildSolicitud())
+                .onClose(() -> cerrado.set(true));
+        when(mongoTemplate.stream(any(Query.class), eq(Solicitud.class))).thenReturn(cursor);
+        OutputStream desconectado = new OutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                throw new IOException("Broken pipe");
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                throw new IOException("Broken pipe");
+            }
+        };
+
+        assertThatThrownBy(() -> service.exportar("per-2024", null, null,
+                SolicitudExportService.Formato.NDJSON, desconectado))
+                .isInstanceOf(IOException.class);
+
+        assertThat(cerrado).isTrue();
+        assertThat(leidas.get()).isLessThan(100_000);
+    }
+
+    @Test
+    void formatoDesdeShouldRejectUnknownValues() {
+        assertThat(SolicitudExportService.Formato.desde("csv")).isEqualTo(SolicitudExportService.Formato.CSV);
+        assertThatThrownBy(() -> SolicitudExportService.Formato.desde("xlsx"))
+                .isInstanceOf(BusinessException.class)
+                .hasMessageContaining("xlsx");
+    }
+
+    @Test
+    void validarRangoShouldRejectInvertedRange() {
+        assertThatThrownBy(() -> service.validarRango(Instant.parse("2024-02-01T00:00:00Z"),
+                Instant.parse("2024-01-01T00:00:00Z")))
+                .isInstanceOf(BusinessException.class);
+    }
+}
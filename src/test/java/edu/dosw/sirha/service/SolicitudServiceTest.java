@@ -5,30 +5,53 @@ import java.time.Instant;
 import java.time.ZoneOffset;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+
+import org.bson.Document;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentCaptor;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.test.util.ReflectionTestUtils;
 
+import edu.dosw.sirha.config.NodeIdentity;
 import edu.dosw.sirha.dto.request.SolicitudRequest;
+import edu.dosw.sirha.dto.response.CursorPage;
+import edu.dosw.sirha.dto.response.SolicitudEstadoBulkResponse;
 import edu.dosw.sirha.dto.response.SolicitudResponse;
 import edu.dosw.sirha.exception.BusinessException;
+import edu.dosw.sirha.exception.ConflictException;
 import edu.dosw.sirha.exception.ResourceNotFoundException;
 import edu.dosw.sirha.mapper.SolicitudMapper;
 import edu.dosw.sirha.model.Grupo;
 import edu.dosw.sirha.model.Periodo;
 import edu.dosw.sirha.model.Solicitud;
+import edu.dosw.sirha.model.SolicitudHistorial;
 import edu.dosw.sirha.model.SolicitudHistorialEntry;
 import edu.dosw.sirha.model.enums.SolicitudEstado;
+import edu.dosw.sirha.repository.CambioEstado;
 import edu.dosw.sirha.repository.GrupoRepository;
+import edu.dosw.sirha.repository.InscripcionRepository;
 import edu.dosw.sirha.repository.PeriodoRepository;
+import edu.dosw.sirha.repository.SolicitudHistorialRepository;
+import edu.dosw.sirha.repository.SolicitudKeyset;
 import edu.dosw.sirha.repository.SolicitudRepository;
 import edu.dosw.sirha.service.impl.SolicitudServiceImpl;
 import edu.dosw.sirha.support.TestDataFactory;
@@ -75,21 +98,39 @@ import edu.dosw.sirha.support.TestDataFactory;
 class SolicitudServiceTest {
 
     private SolicitudRepository solicitudRepository;
+    private SolicitudHistorialRepository solicitudHistorialRepository;
     private SolicitudMapper solicitudMapper;
     private GrupoRepository grupoRepository;
+    private InscripcionRepository inscripcionRepository;
     private PeriodoRepository periodoRepository;
+    private ContadorSolicitudes contadorSolicitudes;
+    private PlazoScheduler plazoScheduler;
+    private ListaEsperaService listaEsperaService;
+    private ConflictDetectionService conflictDetectionService;
     private Clock fixedClock;
     private SolicitudServiceImpl solicitudService;
 
     @BeforeEach
     void setUp() {
         solicitudRepository = mock(SolicitudRepository.class);
+        solicitudHistorialRepository = mock(SolicitudHistorialRepository.class);
         solicitudMapper = new SolicitudMapper();
         grupoRepository = mock(GrupoRepository.class);
+        inscripcionRepository = mock(InscripcionRepository.class);
         periodoRepository = mock(PeriodoRepository.class);
+        contadorSolicitudes = mock(ContadorSolicitudes.class);
+        plazoScheduler = mock(PlazoScheduler.class);
+        listaEsperaService = mock(ListaEsperaService.class);
+        conflictDetectionService = mock(ConflictDetectionService.class);
         fixedClock = Clock.fixed(Instant.parse("2024-01-10T12:00:00Z"), ZoneOffset.UTC);
-        solicitudService = new SolicitudServiceImpl(solicitudRepository, solicitudMapper, grupoRepository, periodoRepository, fixedClock);
+        solicitudService = new SolicitudServiceImpl(solicitudRepository, solicitudHistorialRepository, solicitudMapper, grupoRepository,
+                inscripcionRepository, new PeriodoActivoHolder(periodoRepository), contadorSolicitudes, plazoScheduler,
+                new CodigoSolicitudGenerator(new NodeIdentity("nodo-test")), listaEsperaService,
+                conflictDetectionService, fixedClock);
         ReflectionTestUtils.setField(solicitudService, "diasMaxRespuesta", 5);
+        ReflectionTestUtils.setField(solicitudService, "tamanoPagina", 50);
+        ReflectionTestUtils.setField(solicitudService, "tamanoPaginaMax", 200);
+        ReflectionTestUtils.setField(solicitudService, "maxHistorial", 20);
     }
 
     @Test
@@ -120,7 +161,7 @@ class SolicitudServiceTest {
         SolicitudResponse response = solicitudService.create(request);
 
         Solicitud stored = captor.getValue();
-        assertThat(stored.getCodigoSolicitud()).startsWith("SOL-20240110120000-");
+        assertThat(stored.getCodigoSolicitud()).matches("SOL-20240110120000-[0-9A-F]{10}");
         assertThat(stored.getFechaSolicitud()).isEqualTo(Instant.parse("2024-01-10T12:00:00Z"));
         assertThat(stored.getFechaLimiteRespuesta()).isEqualTo(Instant.parse("2024-01-15T12:00:00Z"));
         assertThat(stored.getHistorial()).hasSize(1);
@@ -128,10 +169,56 @@ class SolicitudServiceTest {
         assertThat(response.getEstado()).isEqualTo(SolicitudEstado.PENDIENTE);
 
         verify(solicitudRepository).save(stored);
+        verify(solicitudRepository).archivarHistorialEmbebido(stored);
+        verify(contadorSolicitudes).registrar(null, stored);
+        verify(plazoScheduler).programar("sol-1", Instant.parse("2024-01-15T12:00:00Z"));
+        verify(conflictDetectionService).detectar(stored);
+    }
+
+    @Test
+    void create_ShouldRetryWithNewCodigoWhenCodigoIsDuplicated() {
+        SolicitudRequest request = TestDataFactory.buildSolicitudRequest();
+        request.setGrupoDestinoId(null);
+        Periodo periodoActivo = TestDataFactory.buildPeriodo();
+        periodoActivo.setActivo(true);
+        when(periodoRepository.findByActivoTrue()).thenReturn(Optional.of(periodoActivo));
+
+        List<String> codigos = new ArrayList<>();
+        when(solicitudRepository.save(any(Solicitud.class))).thenAnswer(invocation -> {
+            Solicitud solicitud = invocation.getArgument(0);
+            codigos.add(solicitud.getCodigoSolicitud());
+            if (codigos.size() == 1) {
+                throw new DuplicateKeyException("E11000 duplicate key error index: codigoSolicitud_1");
+            }
+            solicitud.setId("sol-1");
+            return solicitud;
+        });
+
+        SolicitudResponse response = solicitudService.create(request);
+
+        assertThat(response.getId()).isEqualTo("sol-1");
+        assertThat(codigos).hasSize(2).doesNotHaveDuplicates();
+        verify(contadorSolicitudes, times(1)).registrar(eq(null), any(Solicitud.class));
+    }
+
+    @Test
+    void create_ShouldFailWithConflictWhenCodigoStaysDuplicated() {
+        SolicitudRequest request = TestDataFactory.buildSolicitudRequest();
+        request.setGrupoDestinoId(null);
+        Periodo periodoActivo = TestDataFactory.buildPeriodo();
+        periodoActivo.setActivo(true);
+        when(periodoRepository.findByActivoTrue()).thenReturn(Optional.of(periodoActivo));
+        when(solicitudRepository.save(any(Solicitud.class)))
+                .thenThrow(new DuplicateKeyException("E11000 duplicate key error index: codigoSolicitud_1"));
+
+        assertThrows(ConflictException.class, () -> solicitudService.create(request));
+
+        verify(solicitudRepository, times(3)).save(any(Solicitud.class));
+        verify(contadorSolicitudes, never()).registrar(any(), any());
     }
 
     @Test
-    void update_ShouldMergeChangesAndCreateHistorialEntryWhenMissing() {
+    void update_ShouldSetChangedFieldsAndPushHistorialEntry() {
         Solicitud existing = TestDataFactory.buildSolicitud();
         existing.setHistorial(null);
         // Mock existing grupo
@@ -143,8 +230,13 @@ class SolicitudServiceTest {
         grupoDestino.setId("grp-9");
         when(grupoRepository.findById("grp-9")).thenReturn(Optional.of(grupoDestino));
         
-        when(solicitudRepository.findById(existing.getId())).thenReturn(Optional.of(existing));
-        when(solicitudRepository.save(existing)).thenAnswer(invocation -> invocation.getArgument(0));
+        cargar(existing);
+        Solicitud actualizada = TestDataFactory.buildSolicitud();
+        actualizada.setPrioridad(5);
+        ArgumentCaptor<Update> cambios = ArgumentCaptor.forClass(Update.class);
+        ArgumentCaptor<SolicitudHistorialEntry> evento = ArgumentCaptor.forClass(SolicitudHistorialEntry.class);
+        when(solicitudRepository.actualizar(eq(existing.getId()), eq(List.of(SolicitudEstado.PENDIENTE)),
+                cambios.capture(), evento.capture(), eq(20))).thenReturn(Optional.of(actualizada));
 
         SolicitudRequest request = SolicitudRequest.builder()
                 .tipo(TestDataFactory.buildSolicitudRequest().getTipo())
@@ -160,11 +252,29 @@ class SolicitudServiceTest {
 
         SolicitudResponse response = solicitudService.update(existing.getId(), request);
 
-        assertThat(existing.getDescripcion()).isEqualTo("Actualizada");
-        assertThat(existing.getHistorial()).hasSize(1);
-        assertThat(existing.getHistorial().get(0).getAccion()).isEqualTo("ACTUALIZADA");
+        Document set = (Document) cambios.getValue().getUpdateObject().get("$set");
+        assertThat(set).containsEntry("descripcion", "Actualizada")
+                .containsEntry("grupoDestinoId", "grp-9")
+                .containsEntry("prioridad", 5)
+                .containsEntry("fechaActualizacion", Instant.parse("2024-01-10T12:00:00Z"));
+        assertThat(set).doesNotContainKeys("historial", "estado", "codigoSolicitud");
+        assertThat(evento.getValue().getAccion()).isEqualTo("ACTUALIZADA");
+        assertThat(evento.getValue().getComentario()).isEqualTo("Nueva observación");
         assertThat(response.getPrioridad()).isEqualTo(5);
-        verify(solicitudRepository).save(existing);
+        verify(solicitudRepository, never()).save(any(Solicitud.class));
+        verify(solicitudRepository, never()).findById(any());
+    }
+
+    @Test
+    void update_ShouldThrowConflictWhenEstadoChangedConcurrently() {
+        Solicitud existing = TestDataFactory.buildSolicitud();
+        cargar(existing);
+        when(grupoRepository.findById(any())).thenReturn(Optional.of(TestDataFactory.buildGrupo()));
+        when(solicitudRepository.actualizar(any(), any(), any(Update.class), any(SolicitudHistorialEntry.class),
+                anyInt())).thenReturn(Optional.empty());
+
+        assertThrows(ConflictException.class,
+                () -> solicitudService.update(existing.getId(), TestDataFactory.buildSolicitudRequest()));
     }
 
     @Test
@@ -181,22 +291,348 @@ class SolicitudServiceTest {
         // Mock grupo destino
         Grupo grupoDestino = TestDataFactory.buildGrupo();
         when(grupoRepository.findById(solicitud.getGrupoDestinoId())).thenReturn(Optional.of(grupoDestino));
+        when(grupoRepository.reservarCupo(solicitud.getGrupoDestinoId())).thenReturn(Optional.of(grupoDestino));
         
-        when(solicitudRepository.findById(solicitud.getId())).thenReturn(Optional.of(solicitud));
-        when(solicitudRepository.save(solicitud)).thenAnswer(invocation -> invocation.getArgument(0));
+        cargar(solicitud);
+        ArgumentCaptor<Update> cambios = ArgumentCaptor.forClass(Update.class);
+        ArgumentCaptor<SolicitudHistorialEntry> evento = ArgumentCaptor.forClass(SolicitudHistorialEntry.class);
+        when(solicitudRepository.actualizar(eq(solicitud.getId()), eq(List.of(SolicitudEstado.PENDIENTE)),
+                cambios.capture(), evento.capture(), eq(20))).thenAnswer(invocation -> Optional.of(aprobada(solicitud)));
 
         SolicitudResponse response = solicitudService.changeEstado(solicitud.getId(), SolicitudEstado.APROBADA, "Listo");
 
-        assertThat(solicitud.getEstado()).isEqualTo(SolicitudEstado.APROBADA);
-        assertThat(solicitud.getHistorial()).extracting(SolicitudHistorialEntry::getAccion)
-                .contains("ESTADO:APROBADA");
+        Document set = (Document) cambios.getValue().getUpdateObject().get("$set");
+        assertThat(set).containsEntry("estado", SolicitudEstado.APROBADA)
+                .containsEntry("fechaActualizacion", Instant.parse("2024-01-10T12:00:00Z"));
+        assertThat(set).hasSize(2);
+        assertThat((Document) cambios.getValue().getUpdateObject().get("$unset"))
+                .containsOnlyKeys("revisorAsignado", "asignacionVence");
+        assertThat(evento.getValue().getAccion()).isEqualTo("ESTADO:APROBADA");
+        assertThat(evento.getValue().getComentario()).isEqualTo("Listo (Estado anterior: PENDIENTE)");
         assertThat(response.getEstado()).isEqualTo(SolicitudEstado.APROBADA);
+        verify(solicitudRepository, never()).save(any(Solicitud.class));
+        verify(grupoRepository).reservarCupo(solicitud.getGrupoDestinoId());
+        verify(grupoRepository, never()).save(any(Grupo.class));
+        verify(contadorSolicitudes).registrar(eq(solicitud), any(Solicitud.class));
+        ArgumentCaptor<Solicitud> detectada = ArgumentCaptor.forClass(Solicitud.class);
+        verify(conflictDetectionService).detectar(detectada.capture());
+        assertThat(detectada.getValue().getEstado()).isEqualTo(SolicitudEstado.APROBADA);
+    }
+
+    @Test
+    void changeEstado_ShouldRejectApprovalWhenSeatTakenConcurrently() {
+        Solicitud solicitud = aprobable();
+        when(grupoRepository.reservarCupo(solicitud.getGrupoDestinoId())).thenReturn(Optional.empty());
+        when(grupoRepository.existsById(solicitud.getGrupoDestinoId())).thenReturn(true);
+
+        assertThrows(BusinessException.class,
+                () -> solicitudService.changeEstado(solicitud.getId(), SolicitudEstado.APROBADA, "Listo"));
+
+        verify(solicitudRepository, never()).actualizar(any(), any(), any(Update.class),
+                any(SolicitudHistorialEntry.class), anyInt());
+    }
+
+    @Test
+    void changeEstado_ShouldThrowConflictAndReleaseSeatWhenEstadoChangedConcurrently() {
+        Solicitud solicitud = aprobable();
+        when(grupoRepository.reservarCupo(solicitud.getGrupoDestinoId()))
+                .thenReturn(Optional.of(TestDataFactory.buildGrupo()));
+        when(solicitudRepository.actualizar(any(), any(), any(Update.class), any(SolicitudHistorialEntry.class),
+                anyInt())).thenReturn(Optional.empty());
+
+        assertThrows(ConflictException.class,
+                () -> solicitudService.changeEstado(solicitud.getId(), SolicitudEstado.APROBADA, "Listo"));
+
+        verify(grupoRepository).liberarCupo(solicitud.getGrupoDestinoId());
+    }
+
+    @Test
+    void changeEstado_ShouldReleaseSeatWhenSaveFails() {
+        Solicitud solicitud = aprobable();
+        when(grupoRepository.reservarCupo(solicitud.getGrupoDestinoId()))
+                .thenReturn(Optional.of(TestDataFactory.buildGrupo()));
+        when(solicitudRepository.actualizar(any(), any(), any(Update.class), any(SolicitudHistorialEntry.class),
+                anyInt())).thenThrow(new DataAccessResourceFailureException("sin conexión"));
+
+        assertThrows(DataAccessResourceFailureException.class,
+                () -> solicitudService.changeEstado(solicitud.getId(), SolicitudEstado.APROBADA, "Listo"));
+
+        verify(grupoRepository).liberarCupo(solicitud.getGrupoDestinoId());
+        verify(listaEsperaService, never()).promover(any(), anyInt());
+        verify(inscripcionRepository, never()).cancelarReemplazadas(any(), any());
+    }
+
+    @Test
+    void changeEstado_ShouldCancelOrigenAndHandItsSeatToWaitlist() {
+        Solicitud solicitud = aprobable();
+        when(grupoRepository.reservarCupo(solicitud.getGrupoDestinoId()))
+                .thenReturn(Optional.of(TestDataFactory.buildGrupo()));
+        when(solicitudRepository.actualizar(any(), any(), any(Update.class), any(SolicitudHistorialEntry.class),
+                anyInt())).thenAnswer(invocation -> Optional.of(aprobada(solicitud)));
+        when(inscripcionRepository.cancelarReemplazadas(Map.of("ins-1", solicitud.getId()),
+                Instant.parse("2024-01-10T12:00:00Z"))).thenReturn(Map.of("grp-origen", 1));
+        when(listaEsperaService.promover("grp-origen", 1)).thenReturn(List.of("est-9"));
+
+        solicitudService.changeEstado(solicitud.getId(), SolicitudEstado.APROBADA, "Listo");
+
+        verify(listaEsperaService).promover("grp-origen", 1);
+        verify(grupoRepository, never()).liberarCupo(any());
+        verify(grupoRepository, never()).liberarCupos(any(), anyInt());
+    }
+
+    @Test
+    void changeEstado_ShouldReturnOrigenSeatToGroupWhenNobodyIsWaiting() {
+        Solicitud solicitud = aprobable();
+        when(grupoRepository.reservarCupo(solicitud.getGrupoDestinoId()))
+                .thenReturn(Optional.of(TestDataFactory.buildGrupo()));
+        when(solicitudRepository.actualizar(any(), any(), any(Update.class), any(SolicitudHistorialEntry.class),
+                anyInt())).thenAnswer(invocation -> Optional.of(aprobada(solicitud)));
+        when(inscripcionRepository.cancelarReemplazadas(any(), any())).thenReturn(Map.of("grp-origen", 1));
+        when(listaEsperaService.promover("grp-origen", 1)).thenReturn(List.of());
+
+        solicitudService.changeEstado(solicitud.getId(), SolicitudEstado.APROBADA, "Listo");
+
+        verify(grupoRepository).liberarCupos("grp-origen", 1);
+    }
+
+    @Test
+    void changeEstado_ShouldReserveInSeatLedgerWhenGroupLoaded() {
+        Solicitud solicitud = aprobable();
+        SeatLedger seatLedger = mock(SeatLedger.class);
+        when(seatLedger.consultar(solicitud.getGrupoDestinoId())).thenReturn(SeatLedger.Resultado.DISPONIBLE);
+        when(seatLedger.reservar(solicitud.getGrupoDestinoId())).thenReturn(SeatLedger.Resultado.DISPONIBLE);
+        when(solicitudRepository.actualizar(any(), any(), any(Update.class), any(SolicitudHistorialEntry.class),
+                anyInt())).thenAnswer(invocation -> Optional.of(aprobada(solicitud)));
+        solicitudService.setSeatLedger(seatLedger);
+
+        solicitudService.changeEstado(solicitud.getId(), SolicitudEstado.APROBADA, "Listo");
+
+        verify(seatLedger).reservar(solicitud.getGrupoDestinoId());
+        verify(grupoRepository, never()).findById(solicitud.getGrupoDestinoId());
+        verify(grupoRepository, never()).reservarCupo(any());
+    }
+
+    private Solicitud aprobable() {
+        Solicitud solicitud = TestDataFactory.buildSolicitud();
+        solicitud.setEstado(SolicitudEstado.PENDIENTE);
+        solicitud.setHistorial(new ArrayList<>());
+        Periodo periodoActivo = TestDataFactory.buildPeriodo();
+        periodoActivo.setFechaLimiteSolicitudes(Instant.now(fixedClock).plusSeconds(86400));
+        when(periodoRepository.findByActivoTrue()).thenReturn(Optional.of(periodoActivo));
+        when(grupoRepository.findById(solicitud.getGrupoDestinoId())).thenReturn(Optional.of(TestDataFactory.buildGrupo()));
+        cargar(solicitud);
+        return solicitud;
+    }
+
+    private void cargar(Solicitud solicitud) {
+        when(solicitudRepository.buscarSinHistorial(List.of(solicitud.getId()))).thenReturn(List.of(solicitud));
+    }
+
+    private static Solicitud aprobada(Solicitud solicitud) {
+        Solicitud aprobada = TestDataFactory.buildSolicitud();
+        aprobada.setId(solicitud.getId());
+        aprobada.setEstado(SolicitudEstado.APROBADA);
+        return aprobada;
+    }
+
+    @Test
+    void changeEstadoBulk_ShouldReserveOncePerGrupoAndReportEachItem() {
+        Periodo periodoActivo = TestDataFactory.buildPeriodo();
+        periodoActivo.setFechaLimiteSolicitudes(Instant.now(fixedClock).plusSeconds(86400));
+        when(periodoRepository.findByActivoTrue()).thenReturn(Optional.of(periodoActivo));
+        Solicitud a1 = pendiente("s1", "grp-a");
+        Solicitud a2 = pendiente("s2", "grp-a");
+        Solicitud a3 = pendiente("s3", "grp-a");
+        Solicitud b1 = pendiente("s4", "grp-b");
+        Solicitud yaAprobada = pendiente("s5", "grp-b");
+        yaAprobada.setEstado(SolicitudEstado.APROBADA);
+        Solicitud concurrente = pendiente("s6", null);
+        when(solicitudRepository.buscarSinHistorial(any()))
+                .thenReturn(List.of(a1, a2, a3, b1, yaAprobada, concurrente));
+        when(grupoRepository.reservarCupos("grp-a", 3)).thenReturn(2);
+        when(grupoRepository.reservarCupos("grp-b", 1)).thenReturn(1);
+        ArgumentCaptor<List<CambioEstado>> cambios = ArgumentCaptor.forClass(List.class);
+        when(solicitudRepository.aplicarCambiosEstado(cambios.capture(), anyInt())).thenReturn(Set.of("s1", "s2", "s4"));
+
+        SolicitudEstadoBulkResponse response = solicitudService.changeEstadoBulk(
+                List.of("s1", "s2", "s3", "s4", "s5", "s6", "s1", "missing"), SolicitudEstado.APROBADA, "Lote");
+
+        assertThat(response.getTotal()).isEqualTo(8);
+        assertThat(response.getAplicadas()).isEqualTo(3);
+        assertThat(response.getRechazadas()).isEqualTo(5);
+        assertThat(response.getItems()).extracting(SolicitudEstadoBulkResponse.Item::getResultado).containsExactly(
+                SolicitudEstadoBulkResponse.Resultado.APLICADA,
+                SolicitudEstadoBulkResponse.Resultado.APLICADA,
+                SolicitudEstadoBulkResponse.Resultado.SIN_CUPO,
+                SolicitudEstadoBulkResponse.Resultado.APLICADA,
+                SolicitudEstadoBulkResponse.Resultado.SIN_CAMBIO,
+                SolicitudEstadoBulkResponse.Resultado.CONFLICTO,
+                SolicitudEstadoBulkResponse.Resultado.DUPLICADA,
+                SolicitudEstadoBulkResponse.Resultado.NO_ENCONTRADA);
+        assertThat(cambios.getValue()).extracting(CambioEstado::id).containsExactlyInAnyOrder("s1", "s2", "s4", "s6");
+        assertThat(cambios.getValue()).allSatisfy(cambio -> {
+            assertThat(cambio.estadoAnterior()).isEqualTo(SolicitudEstado.PENDIENTE);
+            assertThat(cambio.estadoNuevo()).isEqualTo(SolicitudEstado.APROBADA);
+            assertThat(cambio.evento().getAccion()).isEqualTo("ESTADO:APROBADA");
+            assertThat(cambio.quitarAsignacion()).isTrue();
+        });
+        verify(periodoRepository).findByActivoTrue();
+        verify(solicitudRepository, never()).findById(any());
+        verify(solicitudRepository, never()).save(any());
+        // s6 no tiene grupo destino: su conflicto no libera cupos
+        verify(grupoRepository, never()).liberarCupos(any(), anyInt());
+        verify(contadorSolicitudes, times(3)).cambiarEstado(a1.getPeriodoId(), a1.getTipo(),
+                SolicitudEstado.PENDIENTE, SolicitudEstado.APROBADA);
+        // Un solo lote de detección con las aplicadas
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<Solicitud>> detectadas = ArgumentCaptor.forClass(List.class);
+        verify(conflictDetectionService, times(1)).detectar(detectadas.capture());
+        assertThat(detectadas.getValue()).extracting(Solicitud::getId).containsExactlyInAnyOrder("s1", "s2", "s4");
+        verify(conflictDetectionService, never()).detectar(any(Solicitud.class));
+    }
+
+    @Test
+    void changeEstadoBulk_ShouldReleaseSeatsOfConflictingItems() {
+        Periodo periodoActivo = TestDataFactory.buildPeriodo();
+        periodoActivo.setFechaLimiteSolicitudes(Instant.now(fixedClock).plusSeconds(86400));
+        when(periodoRepository.findByActivoTrue()).thenReturn(Optional.of(periodoActivo));
+        when(solicitudRepository.buscarSinHistorial(any()))
+                .thenReturn(List.of(pendiente("s1", "grp-a"), pendiente("s2", "grp-a")));
+        when(grupoRepository.reservarCupos("grp-a", 2)).thenReturn(2);
+        when(solicitudRepository.aplicarCambiosEstado(any(), anyInt())).thenReturn(Set.of("s1"));
+
+        solicitudService.changeEstadoBulk(List.of("s1", "s2"), SolicitudEstado.APROBADA, null);
+
+        verify(grupoRepository).liberarCupos("grp-a", 1);
+    }
+
+    @Test
+    void changeEstadoBulk_ShouldReserveRemainingSeatsInMongoWhenLedgerLosesGroup() {
+        Periodo periodoActivo = TestDataFactory.buildPeriodo();
+        periodoActivo.setFechaLimiteSolicitudes(Instant.now(fixedClock).plusSeconds(86400));
+        when(periodoRepository.findByActivoTrue()).thenReturn(Optional.of(periodoActivo));
+        when(solicitudRepository.buscarSinHistorial(any())).thenReturn(
+                List.of(pendiente("s1", "grp-a"), pendiente("s2", "grp-a"), pendiente("s3", "grp-a")));
+        SeatLedger seatLedger = mock(SeatLedger.class);
+        when(seatLedger.reservar("grp-a")).thenReturn(SeatLedger.Resultado.DISPONIBLE, SeatLedger.Resultado.DESCONOCIDO);
+        solicitudService.setSeatLedger(seatLedger);
+        when(grupoRepository.reservarCupos("grp-a", 2)).thenReturn(2);
+        when(solicitudRepository.aplicarCambiosEstado(any(), anyInt())).thenReturn(Set.of("s1", "s2", "s3"));
+
+        SolicitudEstadoBulkResponse response = solicitudService.changeEstadoBulk(List.of("s1", "s2", "s3"),
+                SolicitudEstado.APROBADA, null);
+
+        // Uno en el libro y los dos restantes en MongoDB
+        assertThat(response.getAplicadas()).isEqualTo(3);
+        verify(seatLedger, times(2)).reservar("grp-a");
+        verify(grupoRepository).reservarCupos("grp-a", 2);
+    }
+
+    @Test
+    void changeEstadoBulk_ShouldReleaseAllSeatsWhenBulkWriteFails() {
+        Periodo periodoActivo = TestDataFactory.buildPeriodo();
+        periodoActivo.setFechaLimiteSolicitudes(Instant.now(fixedClock).plusSeconds(86400));
+        when(periodoRepository.findByActivoTrue()).thenReturn(Optional.of(periodoActivo));
+        when(solicitudRepository.buscarSinHistorial(any()))
+                .thenReturn(List.of(pendiente("s1", "grp-a"), pendiente("s2", "grp-a")));
+        when(grupoRepository.reservarCupos("grp-a", 2)).thenReturn(2);
+        when(solicitudRepository.aplicarCambiosEstado(any(), anyInt()))
+                .thenThrow(new DataAccessResourceFailureException("down"));
+
+        assertThrows(DataAccessResourceFailureException.class,
+                () -> solicitudService.changeEstadoBulk(List.of("s1", "s2"), SolicitudEstado.APROBADA, null));
+
+        verify(grupoRepository).liberarCupos("grp-a", 2);
+    }
+
+    @Test
+    void changeEstadoBulk_ShouldReturnUnusedSeatsWithoutPromotingWaitlist() {
+        Periodo periodoActivo = TestDataFactory.buildPeriodo();
+        periodoActivo.setFechaLimiteSolicitudes(Instant.now(fixedClock).plusSeconds(86400));
+        when(periodoRepository.findByActivoTrue()).thenReturn(Optional.of(periodoActivo));
+        when(solicitudRepository.buscarSinHistorial(any()))
+                .thenReturn(List.of(pendiente("s1", "grp-a"), pendiente("s2", "grp-a")));
+        when(grupoRepository.reservarCupos("grp-a", 2)).thenReturn(2);
+        when(solicitudRepository.aplicarCambiosEstado(any(), anyInt()))
+                .thenThrow(new DataAccessResourceFailureException("down"));
+
+        assertThrows(DataAccessResourceFailureException.class,
+                () -> solicitudService.changeEstadoBulk(List.of("s1", "s2"), SolicitudEstado.APROBADA, null));
+
+        verify(grupoRepository).liberarCupos("grp-a", 2);
+        verify(listaEsperaService, never()).promover(any(), anyInt());
+    }
+
+    @Test
+    void changeEstadoBulk_ShouldCancelOrigenesOnceAndHandSeatsToWaitlist() {
+        Periodo periodoActivo = TestDataFactory.buildPeriodo();
+        periodoActivo.setFechaLimiteSolicitudes(Instant.now(fixedClock).plusSeconds(86400));
+        when(periodoRepository.findByActivoTrue()).thenReturn(Optional.of(periodoActivo));
+        Solicitud s1 = pendiente("s1", "grp-a");
+        s1.setInscripcionOrigenId("ins-1");
+        Solicitud s2 = pendiente("s2", "grp-a");
+        s2.setInscripcionOrigenId("ins-2");
+        Solicitud s3 = pendiente("s3", "grp-a");
+        s3.setInscripcionOrigenId("ins-3");
+        when(solicitudRepository.buscarSinHistorial(any())).thenReturn(List.of(s1, s2, s3));
+        when(grupoRepository.reservarCupos("grp-a", 3)).thenReturn(3);
+        when(solicitudRepository.aplicarCambiosEstado(any(), anyInt())).thenReturn(Set.of("s1", "s2"));
+        when(inscripcionRepository.cancelarReemplazadas(Map.of("ins-1", "s1", "ins-2", "s2"),
+                Instant.parse("2024-01-10T12:00:00Z"))).thenReturn(Map.of("grp-origen", 2));
+        when(listaEsperaService.promover("grp-origen", 2)).thenReturn(List.of("est-9"));
+
+        solicitudService.changeEstadoBulk(List.of("s1", "s2", "s3"), SolicitudEstado.APROBADA, null);
+
+        // s3 no se aplicó: su cupo destino vuelve al grupo sin pasar por la lista de espera
+        verify(grupoRepository).liberarCupos("grp-a", 1);
+        verify(listaEsperaService, never()).promover(eq("grp-a"), anyInt());
+        verify(grupoRepository).liberarCupos("grp-origen", 1);
+        verify(inscripcionRepository, times(1)).cancelarReemplazadas(any(), any());
+    }
+
+    @Test
+    void changeEstadoBulk_ShouldReportMissingGrupo() {
+        Periodo periodoActivo = TestDataFactory.buildPeriodo();
+        periodoActivo.setFechaLimiteSolicitudes(Instant.now(fixedClock).plusSeconds(86400));
+        when(periodoRepository.findByActivoTrue()).thenReturn(Optional.of(periodoActivo));
+        when(solicitudRepository.buscarSinHistorial(any())).thenReturn(List.of(pendiente("s1", "grp-x")));
+        when(grupoRepository.reservarCupos("grp-x", 1)).thenReturn(0);
+        when(grupoRepository.existsById("grp-x")).thenReturn(false);
+        when(solicitudRepository.aplicarCambiosEstado(List.of(), 20)).thenReturn(Set.of());
+
+        SolicitudEstadoBulkResponse response = solicitudService.changeEstadoBulk(List.of("s1"),
+                SolicitudEstado.APROBADA, null);
+
+        assertThat(response.getItems().get(0).getResultado()).isEqualTo(SolicitudEstadoBulkResponse.Resultado.SIN_CUPO);
+        assertThat(response.getItems().get(0).getMensaje()).isEqualTo("Grupo destino no encontrado");
+    }
+
+    @Test
+    void changeEstadoBulk_ShouldSkipSeatsAndPeriodoWhenRejecting() {
+        when(solicitudRepository.buscarSinHistorial(any())).thenReturn(List.of(pendiente("s1", "grp-a")));
+        when(solicitudRepository.aplicarCambiosEstado(any(), anyInt())).thenReturn(Set.of("s1"));
+
+        SolicitudEstadoBulkResponse response = solicitudService.changeEstadoBulk(List.of("s1"),
+                SolicitudEstado.RECHAZADA, "No cumple");
+
+        assertThat(response.getAplicadas()).isEqualTo(1);
+        verify(periodoRepository, never()).findByActivoTrue();
+        verify(grupoRepository, never()).reservarCupos(any(), anyInt());
+    }
+
+    private static Solicitud pendiente(String id, String grupoDestinoId) {
+        Solicitud solicitud = TestDataFactory.buildSolicitud();
+        solicitud.setId(id);
+        solicitud.setEstado(SolicitudEstado.PENDIENTE);
+        solicitud.setGrupoDestinoId(grupoDestinoId);
+        solicitud.setHistorial(null);
+        return solicitud;
     }
 
     @Test
     void changeEstado_ShouldThrowWhenStateEqual() {
         Solicitud solicitud = TestDataFactory.buildSolicitud();
-        when(solicitudRepository.findById(solicitud.getId())).thenReturn(Optional.of(solicitud));
+        cargar(solicitud);
 
     BusinessException exception = assertThrows(BusinessException.class,
         () -> solicitudService.changeEstado(solicitud.getId(), solicitud.getEstado(), null));
@@ -224,89 +660,181 @@ class SolicitudServiceTest {
     @Test
     void delete_ShouldRemoveSolicitud() {
         Solicitud solicitud = TestDataFactory.buildSolicitud();
-        when(solicitudRepository.findById(solicitud.getId())).thenReturn(Optional.of(solicitud));
+        cargar(solicitud);
 
         solicitudService.delete(solicitud.getId());
 
         verify(solicitudRepository).delete(solicitud);
+        verify(contadorSolicitudes).registrar(solicitud, null);
     }
 
     @Test
-    void findAll_ShouldReturnResponses() {
+    void findHistorial_ShouldReadArchivedEventsInOrder() {
         Solicitud solicitud = TestDataFactory.buildSolicitud();
-        when(solicitudRepository.findAll()).thenReturn(List.of(solicitud));
+        solicitud.setHistorialArchivado(true);
+        cargar(solicitud);
+        when(solicitudHistorialRepository.findBySolicitudIdOrderByFechaAsc("sol-1")).thenReturn(List.of(
+                SolicitudHistorial.builder().solicitudId("sol-1").accion("CREADA")
+                        .fecha(Instant.parse("2024-01-10T12:00:00Z")).build(),
+                SolicitudHistorial.builder().solicitudId("sol-1").accion("ESTADO:APROBADA")
+                        .fecha(Instant.parse("2024-01-11T12:00:00Z")).build()));
+
+        List<SolicitudHistorialEntry> historial = solicitudService.findHistorial("sol-1");
+
+        assertThat(historial).extracting(SolicitudHistorialEntry::getAccion).containsExactly("CREADA", "ESTADO:APROBADA");
+        verify(solicitudRepository, never()).findById(any());
+    }
 
-        List<SolicitudResponse> responses = solicitudService.findAll();
+    @Test
+    void findHistorial_ShouldFallBackToEmbeddedHistorialWhenNotArchived() {
+        Solicitud solicitud = TestDataFactory.buildSolicitud();
+        cargar(solicitud);
+        when(solicitudRepository.findById(solicitud.getId())).thenReturn(Optional.of(solicitud));
 
-        assertThat(responses).extracting(SolicitudResponse::getId).containsExactly(solicitud.getId());
+        assertThat(solicitudService.findHistorial(solicitud.getId())).isEqualTo(solicitud.getHistorial());
+        verify(solicitudHistorialRepository, never()).findBySolicitudIdOrderByFechaAsc(any());
     }
 
     @Test
-    void findByEstudiante_ShouldDelegateToRepository() {
-        Solicitud solicitud = TestDataFactory.buildSolicitud();
-        when(solicitudRepository.findByEstudianteIdOrderByFechaSolicitudDesc("est-123"))
-                .thenReturn(List.of(solicitud));
+    void findHistorial_ShouldThrowWhenMissing() {
+
+        assertThrows(ResourceNotFoundException.class, () -> solicitudService.findHistorial("missing"));
+    }
+
+    @Test
+    void findAll_ShouldReturnFirstPageWithCursorWhenMoreResults() {
+        List<Solicitud> solicitudes = solicitudes(3);
+        when(solicitudRepository.buscarPagina(any(Criteria.class), eq(SolicitudKeyset.Orden.RECIENTES), isNull(), eq(3)))
+                .thenReturn(solicitudes);
+
+        CursorPage<SolicitudResponse> page = solicitudService.findAll(null, 2);
+
+        assertThat(page.getItems()).extracting(SolicitudResponse::getId).containsExactly("sol-0", "sol-1");
+        assertThat(page.isHasMore()).isTrue();
+        SolicitudKeyset cursor = SolicitudKeyset.decodificar(page.getNextCursor(), SolicitudKeyset.Orden.RECIENTES);
+        assertThat(cursor.id()).isEqualTo("sol-1");
+        assertThat(cursor.valor()).isEqualTo(solicitudes.get(1).getFechaSolicitud());
+    }
+
+    @Test
+    void findAll_ShouldContinueAfterCursorAndStopAtLastPage() {
+        Solicitud ultima = solicitudes(1).get(0);
+        String cursor = SolicitudKeyset.de(SolicitudKeyset.Orden.RECIENTES, ultima).codificar();
+        when(solicitudRepository.buscarPagina(any(Criteria.class), eq(SolicitudKeyset.Orden.RECIENTES),
+                eq(SolicitudKeyset.de(SolicitudKeyset.Orden.RECIENTES, ultima)), eq(51)))
+                .thenReturn(List.of(TestDataFactory.buildSolicitud()));
+
+        CursorPage<SolicitudResponse> page = solicitudService.findAll(cursor, null);
+
+        assertThat(page.getItems()).hasSize(1);
+        assertThat(page.isHasMore()).isFalse();
+        assertThat(page.getNextCursor()).isNull();
+    }
+
+    @Test
+    void findAll_ShouldCapPageSizeAtMaximum() {
+        when(solicitudRepository.buscarPagina(any(Criteria.class), any(), isNull(), eq(201))).thenReturn(List.of());
+
+        CursorPage<SolicitudResponse> page = solicitudService.findAll(null, 10_000);
 
-        List<SolicitudResponse> responses = solicitudService.findByEstudiante("est-123");
+        assertThat(page.getItems()).isEmpty();
+        verify(solicitudRepository).buscarPagina(any(Criteria.class), any(), isNull(), eq(201));
+    }
+
+    @Test
+    void findAll_ShouldRejectMalformedOrForeignCursor() {
+        String cursorDePrioridad = SolicitudKeyset.de(SolicitudKeyset.Orden.PRIORIDAD, TestDataFactory.buildSolicitud())
+                .codificar();
 
-        verify(solicitudRepository).findByEstudianteIdOrderByFechaSolicitudDesc("est-123");
-        assertThat(responses).hasSize(1);
+        assertThrows(BusinessException.class, () -> solicitudService.findAll("no-es-un-cursor", null));
+        assertThrows(BusinessException.class, () -> solicitudService.findAll(cursorDePrioridad, null));
+    }
+
+    @Test
+    void findByEstudiante_ShouldFilterByEstudiante() {
+        ArgumentCaptor<Criteria> filtro = ArgumentCaptor.forClass(Criteria.class);
+        when(solicitudRepository.buscarPagina(filtro.capture(), eq(SolicitudKeyset.Orden.RECIENTES), isNull(), eq(51)))
+                .thenReturn(List.of(TestDataFactory.buildSolicitud()));
+
+        CursorPage<SolicitudResponse> page = solicitudService.findByEstudiante("est-123", null, null);
+
+        assertThat(filtro.getValue().getCriteriaObject().getString("estudianteId")).isEqualTo("est-123");
+        assertThat(page.getItems()).hasSize(1);
     }
 
     @Test
     void findByEstados_ShouldRequestAllWhenInputNull() {
-        Solicitud solicitud = TestDataFactory.buildSolicitud();
-        when(solicitudRepository.findByEstadoInOrderByPrioridadAsc(List.of(SolicitudEstado.values())))
-                .thenReturn(List.of(solicitud));
+        ArgumentCaptor<Criteria> filtro = ArgumentCaptor.forClass(Criteria.class);
+        when(solicitudRepository.buscarPagina(filtro.capture(), eq(SolicitudKeyset.Orden.PRIORIDAD), isNull(), eq(51)))
+                .thenReturn(List.of(TestDataFactory.buildSolicitud()));
 
-        List<SolicitudResponse> responses = solicitudService.findByEstados(null);
+        CursorPage<SolicitudResponse> page = solicitudService.findByEstados(null, null, null);
 
-        verify(solicitudRepository).findByEstadoInOrderByPrioridadAsc(List.of(SolicitudEstado.values()));
-        assertThat(responses).hasSize(1);
+        assertThat(filtro.getValue().getCriteriaObject().get("estado"))
+                .isEqualTo(new Document("$in", List.of(SolicitudEstado.values())));
+        assertThat(page.getItems()).hasSize(1);
     }
 
     @Test
     void findByEstados_ShouldUseProvidedList() {
-        Solicitud solicitud = TestDataFactory.buildSolicitud();
         List<SolicitudEstado> estados = List.of(SolicitudEstado.APROBADA, SolicitudEstado.RECHAZADA);
-        when(solicitudRepository.findByEstadoInOrderByPrioridadAsc(estados)).thenReturn(List.of(solicitud));
+        ArgumentCaptor<Criteria> filtro = ArgumentCaptor.forClass(Criteria.class);
+        when(solicitudRepository.buscarPagina(filtro.capture(), eq(SolicitudKeyset.Orden.PRIORIDAD), isNull(), eq(51)))
+                .thenReturn(List.of(TestDataFactory.buildSolicitud()));
 
-        List<SolicitudResponse> responses = solicitudService.findByEstados(estados);
+        solicitudService.findByEstados(estados, null, null);
 
-        verify(solicitudRepository).findByEstadoInOrderByPrioridadAsc(estados);
-        assertThat(responses).hasSize(1);
+        assertThat(filtro.getValue().getCriteriaObject().get("estado"))
+                .isEqualTo(new Document("$in", estados));
     }
 
     @Test
-    void countByEstado_ShouldDelegate() {
-        when(solicitudRepository.countByEstado(SolicitudEstado.PENDIENTE)).thenReturn(7L);
+    void countByEstado_ShouldReadMaintainedCounters() {
+        when(contadorSolicitudes.contar(SolicitudEstado.PENDIENTE, "per-1")).thenReturn(7L);
 
-        long count = solicitudService.countByEstado(SolicitudEstado.PENDIENTE);
+        long count = solicitudService.countByEstado(SolicitudEstado.PENDIENTE, "per-1");
 
         assertThat(count).isEqualTo(7L);
+        verify(solicitudRepository, never()).count();
     }
 
     @Test
     void findByPeriodoAndRango_ShouldUseDefaultWindowWhenNull() {
-        when(solicitudRepository.findByPeriodoIdAndFechaSolicitudBetween("per-1",
-                Instant.parse("2023-12-11T12:00:00Z"),
-                Instant.parse("2024-01-10T12:00:00Z")))
+        ArgumentCaptor<Criteria> filtro = ArgumentCaptor.forClass(Criteria.class);
+        when(solicitudRepository.buscarPagina(filtro.capture(), eq(SolicitudKeyset.Orden.RECIENTES), isNull(), eq(51)))
                 .thenReturn(List.of(TestDataFactory.buildSolicitud()));
 
-        List<SolicitudResponse> responses = solicitudService.findByPeriodoAndRango("per-1", null, null);
+        CursorPage<SolicitudResponse> page = solicitudService.findByPeriodoAndRango("per-1", null, null, null, null);
 
-        assertThat(responses).hasSize(1);
+        Document criteria = filtro.getValue().getCriteriaObject();
+        assertThat(criteria.getString("periodoId")).isEqualTo("per-1");
+        assertThat(criteria.get("fechaSolicitud")).isEqualTo(new Document("$gte", Instant.parse("2023-12-11T12:00:00Z"))
+                .append("$lte", Instant.parse("2024-01-10T12:00:00Z")));
+        assertThat(page.getItems()).hasSize(1);
     }
 
     @Test
     void findByPeriodoAndRango_ShouldRespectProvidedRange() {
         Instant inicio = Instant.parse("2024-01-01T00:00:00Z");
         Instant fin = Instant.parse("2024-01-31T00:00:00Z");
-        when(solicitudRepository.findByPeriodoIdAndFechaSolicitudBetween("per-1", inicio, fin))
-                .thenReturn(List.of(TestDataFactory.buildSolicitud()));
+        ArgumentCaptor<Criteria> filtro = ArgumentCaptor.forClass(Criteria.class);
+        when(solicitudRepository.buscarPagina(filtro.capture(), eq(SolicitudKeyset.Orden.RECIENTES), isNull(), eq(11)))
+                .thenReturn(List.of());
+
+        solicitudService.findByPeriodoAndRango("per-1", inicio, fin, null, 10);
 
-        solicitudService.findByPeriodoAndRango("per-1", inicio, fin);
+        assertThat(filtro.getValue().getCriteriaObject().get("fechaSolicitud"))
+                .isEqualTo(new Document("$gte", inicio).append("$lte", fin));
+    }
 
-        verify(solicitudRepository).findByPeriodoIdAndFechaSolicitudBetween("per-1", inicio, fin);
+    private static List<Solicitud> solicitudes(int cantidad) {
+        List<Solicitud> solicitudes = new ArrayList<>();
+        for (int i = 0; i < cantidad; i++) {
+            Solicitud solicitud = TestDataFactory.buildSolicitud();
+            solicitud.setId("sol-" + i);
+            solicitud.setFechaSolicitud(Instant.parse("2024-01-10T12:00:00Z").minusSeconds(i));
+            solicitudes.add(solicitud);
+        }
+        return solicitudes;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,93 @@
+package edu.dosw.sirha.service;
+
+import edu.dosw.sirha.model.User;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+/**
+ * Pruebas unitarias para {@link UltimoAccesoBuffer}.
+ * 
+ * <p>Verifica la combinación de accesos por usuario, el vaciado en un único
+ * bulkWrite con {@code $max} y la reinserción de accesos cuando la escritura falla.</p>
+ */
+@ExtendWith(MockitoExtension.class)
+class UltimoAccesoBufferTest {
+
+    private static final Instant T1 = Instant.parse("2025-01-15T12:00:00Z");
+    private static final Instant T2 = Instant.parse("2025-01-15T12:05:00Z");
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @Mock
+    private BulkOperations bulkOperations;
+
+    private UltimoAccesoBuffer buffer;
+
+    @BeforeEach
+    void setUp() {
+        buffer = new UltimoAccesoBuffer(mongoTemplate);
+    }
+
+    @Test
+    void registrarShouldKeepMostRecentAccessPerUser() {
+        buffer.registrar("user-1", T2);
+        buffer.registrar("user-1", T1);
+        buffer.registrar("user-2", T1);
+
+        assertThat(buffer.pendientes()).isEqualTo(2);
+    }
+
+    @Test
+    void flushShouldWriteSingleBulkWithMaxUpdates() {
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, User.class)).thenReturn(bulkOperations);
+        buffer.registrar("user-1", T1);
+        buffer.registrar("user-1", T2);
+
+        int escritos = buffer.flush();
+
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        verify(bulkOperations).updateOne(any(Query.class), update.capture());
+        verify(bulkOperations).execute();
+        Document max = (Document) update.getValue().getUpdateObject().get("$max");
+        assertThat(max.get("ultimoAcceso")).isEqualTo(T2);
+        assertThat(escritos).isEqualTo(1);
+        assertThat(buffer.pendientes()).isZero();
+    }
+
+    @Test
+    void flushShouldNotTouchMongoWhenEmpty() {
+        assertThat(buffer.flush()).isZero();
+
+        verifyNoInteractions(mongoTemplate);
+    }
+
+    @Test
+    void flushShouldRequeueWhenBulkFails() {
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, User.class)).thenReturn(bulkOperations);
+        when(bulkOperations.execute()).thenThrow(new DataAccessResourceFailureException("down"));
+        buffer.registrar("user-1", T1);
+
+        assertThat(buffer.flush()).isZero();
+
+        assertThat(buffer.pendientes()).isEqualTo(1);
+    }
+}
@@ -135,7 +135,6 @@ public final class TestDataFactory {
                 .fechaInicio(Instant.parse("2024-01-15T00:00:00Z"))
                 .fechaFin(Instant.parse("2024-06-15T00:00:00Z"))
                 .horarios(horarios)
-                .listaEspera(new ArrayList<>())
                 .activo(true)
                 .build();
     }